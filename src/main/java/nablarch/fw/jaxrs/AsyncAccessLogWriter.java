@@ -0,0 +1,350 @@
+package nablarch.fw.jaxrs;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import nablarch.core.ThreadContext;
+import nablarch.core.log.Logger;
+import nablarch.core.log.LoggerManager;
+
+/**
+ * アクセスログをバックグラウンドのスレッドで出力するクラス。
+ * <p/>
+ * リクエストスレッドは、フォーマット済みのメッセージとログの出力に必要なスレッドの情報(リクエストID、ユーザID)を
+ * 事前に確保したリングバッファのスロットに格納するだけで処理を終え、ロガーへの出力はバックグラウンドのスレッドが行う。
+ * バックグラウンドのスレッドは、格納された情報を{@link ThreadContext}に復元してから出力するため、
+ * ログのフォーマットで使用するリクエストID等は同期的に出力した場合と同じ値になる。
+ * オプション情報は同期的に出力した場合と同じものをそのまま渡す。
+ * ただし、ログの出力日時とスレッド名は、バックグラウンドのスレッドのものとなる。
+ * <p/>
+ * ロガーへの出力で例外が発生した場合は、{@code HTTP_ACCESS}以外のロガー(このクラスのロガー)に警告を出力し、件数を数える。
+ * <p/>
+ * リングバッファに空きがない場合の動作は{@link OverflowPolicy}で指定する。
+ */
+final class AsyncAccessLogWriter {
+
+    /**
+     * リングバッファに空きがない場合の動作。
+     */
+    enum OverflowPolicy {
+        /** 空きができるまでリクエストスレッドを待機させる。 */
+        BLOCK,
+        /** 格納せずに破棄する。 */
+        DROP,
+        /** バッファの使用量が半分を超えたら一定の割合でのみ格納し、空きがない場合は破棄する。 */
+        SAMPLE
+    }
+
+    /** 出力待ちがない場合にバックグラウンドのスレッドが待機する時間(ナノ秒) */
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+    /** 空きがない場合にリクエストスレッドが待機する時間(ナノ秒) */
+    private static final long BLOCK_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+
+    /** 出力の失敗を通知するロガー */
+    private static final Logger ERROR_LOGGER = LoggerManager.get(AsyncAccessLogWriter.class);
+
+    /** ロガー */
+    private final Logger logger;
+
+    /** リングバッファのスロット */
+    private final Slot[] slots;
+
+    /** スロットに格納済みのシーケンス番号 + 1(未格納の場合は0) */
+    private final AtomicLongArray published;
+
+    /** シーケンス番号からスロットの位置を求めるマスク */
+    private final int mask;
+
+    /** 空きがない場合の動作 */
+    private final OverflowPolicy overflowPolicy;
+
+    /** SAMPLEで何件に1件を格納するか */
+    private final int sampleInterval;
+
+    /** 次に確保するシーケンス番号 */
+    private final AtomicLong claimed = new AtomicLong();
+
+    /** 次に出力するシーケンス番号(これより前のスロットは再利用できる) */
+    private volatile long consumed;
+
+    /** 間引きに使用するカウンタ */
+    private final AtomicLong sampleCounter = new AtomicLong();
+
+    /** 空きがないため破棄した件数 */
+    private final LongAdder droppedCount = new LongAdder();
+
+    /** 間引いた件数 */
+    private final LongAdder sampledOutCount = new LongAdder();
+
+    /** ロガーへの出力で例外が発生した件数 */
+    private final LongAdder failedCount = new LongAdder();
+
+    /** バックグラウンドのスレッド */
+    private final Thread worker;
+
+    /** バックグラウンドのスレッドが待機中か否か */
+    private volatile boolean waiting;
+
+    /** 動作中か否か */
+    private volatile boolean running = true;
+
+    /**
+     * コンストラクタ。
+     *
+     * @param logger ロガー
+     * @param bufferSize リングバッファのサイズ(2のべき乗に切り上げる)
+     * @param overflowPolicy 空きがない場合の動作
+     * @param sampleInterval 何件に1件を格納するか
+     */
+    AsyncAccessLogWriter(Logger logger, int bufferSize, OverflowPolicy overflowPolicy, int sampleInterval) {
+        if (bufferSize <= 0) {
+            throw new IllegalArgumentException("bufferSize must be greater than 0. bufferSize = [" + bufferSize + ']');
+        }
+        if (sampleInterval <= 0) {
+            throw new IllegalArgumentException(
+                    "sampleInterval must be greater than 0. sampleInterval = [" + sampleInterval + ']');
+        }
+        final int capacity = bufferSize == 1 ? 1 : Integer.highestOneBit(bufferSize - 1) << 1;
+        this.logger = logger;
+        this.slots = new Slot[capacity];
+        for (int i = 0; i < capacity; i++) {
+            slots[i] = new Slot();
+        }
+        this.published = new AtomicLongArray(capacity);
+        this.mask = capacity - 1;
+        this.overflowPolicy = overflowPolicy;
+        this.sampleInterval = sampleInterval;
+        this.worker = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                drain();
+            }
+        }, "access-log-writer");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    /**
+     * メッセージを出力待ちにする。
+     *
+     * @param message フォーマット済みのメッセージ
+     * @param options オプション情報
+     * @return 出力待ちにした場合は{@code true}。破棄または間引いた場合は{@code false}
+     */
+    boolean offer(String message, Object[] options) {
+        long sequence;
+        while (true) {
+            sequence = claimed.get();
+            final long used = sequence - consumed;
+            if (used >= slots.length || !running) {
+                if (overflowPolicy == OverflowPolicy.BLOCK && running) {
+                    wakeUpWorker();
+                    LockSupport.parkNanos(BLOCK_PARK_NANOS);
+                    continue;
+                }
+                droppedCount.increment();
+                return false;
+            }
+            if (overflowPolicy == OverflowPolicy.SAMPLE && used >= slots.length / 2
+                    && sampleCounter.getAndIncrement() % sampleInterval != 0) {
+                sampledOutCount.increment();
+                return false;
+            }
+            if (claimed.compareAndSet(sequence, sequence + 1)) {
+                break;
+            }
+        }
+        final int index = (int) (sequence & mask);
+        slots[index].set(message, options);
+        published.set(index, sequence + 1);
+        if (waiting) {
+            wakeUpWorker();
+        }
+        return true;
+    }
+
+    /**
+     * 出力待ちのメッセージを出力し終えるまで待機する。
+     *
+     * @param timeoutMillis 最大待機時間(ミリ秒)
+     * @return 出力し終えた場合は{@code true}
+     */
+    boolean flush(long timeoutMillis) {
+        final long target = claimed.get();
+        final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        while (consumed < target) {
+            if (System.nanoTime() - deadline >= 0 || !worker.isAlive()) {
+                return false;
+            }
+            wakeUpWorker();
+            LockSupport.parkNanos(BLOCK_PARK_NANOS);
+        }
+        return true;
+    }
+
+    /**
+     * 出力待ちのメッセージを出力し、バックグラウンドのスレッドを終了する。
+     * <p/>
+     * 以降に出力待ちにしようとしたメッセージは破棄する。
+     *
+     * @param timeoutMillis 最大待機時間(ミリ秒)
+     */
+    void close(long timeoutMillis) {
+        running = false;
+        wakeUpWorker();
+        try {
+            worker.join(timeoutMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * 空きがないため破棄した件数を取得する。
+     *
+     * @return 破棄した件数
+     */
+    long getDroppedCount() {
+        return droppedCount.sum();
+    }
+
+    /**
+     * 間引いた件数を取得する。
+     *
+     * @return 間引いた件数
+     */
+    long getSampledOutCount() {
+        return sampledOutCount.sum();
+    }
+
+    /**
+     * ロガーへの出力で例外が発生した件数を取得する。
+     *
+     * @return 例外が発生した件数
+     */
+    long getFailedCount() {
+        return failedCount.sum();
+    }
+
+    /**
+     * リングバッファのサイズを取得する。
+     *
+     * @return リングバッファのサイズ
+     */
+    int getCapacity() {
+        return slots.length;
+    }
+
+    /**
+     * バックグラウンドのスレッドを起こす。
+     */
+    private void wakeUpWorker() {
+        LockSupport.unpark(worker);
+    }
+
+    /**
+     * 出力待ちのメッセージを順に出力する。
+     * <p/>
+     * 停止を指示された場合は、その時点で確保済みのメッセージを出力してから終了する。
+     */
+    private void drain() {
+        long next = consumed;
+        while (true) {
+            final int index = (int) (next & mask);
+            if (published.get(index) == next + 1) {
+                final Slot slot = slots[index];
+                try {
+                    write(slot);
+                } finally {
+                    slot.clear();
+                    consumed = ++next;
+                }
+                continue;
+            }
+            if (!running && claimed.get() == next) {
+                ThreadContext.clear();
+                return;
+            }
+            waiting = true;
+            if (published.get(index) != next + 1) {
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+            }
+            waiting = false;
+        }
+    }
+
+    /**
+     * スロットに格納されたメッセージを出力する。
+     *
+     * @param slot スロット
+     */
+    private void write(Slot slot) {
+        ThreadContext.setRequestId(slot.requestId);
+        ThreadContext.setInternalRequestId(slot.internalRequestId);
+        ThreadContext.setUserId(slot.userId);
+        try {
+            logger.logInfo(slot.message, slot.options);
+        } catch (RuntimeException e) {
+            // ロガーの障害でバックグラウンドのスレッドを終了させない
+            failedCount.increment();
+            try {
+                ERROR_LOGGER.logWarn("failed to write access log.", e);
+            } catch (RuntimeException ignored) {
+                // 通知用のロガーも使用できない場合は件数のみ数える
+            }
+        }
+    }
+
+    /**
+     * リングバッファのスロット。
+     * <p/>
+     * 格納と出力の順序は{@link AsyncAccessLogWriter#published}と{@link AsyncAccessLogWriter#consumed}で保証するため、
+     * フィールドはvolatileにしない。
+     */
+    private static final class Slot {
+
+        /** フォーマット済みのメッセージ */
+        private String message;
+
+        /** オプション情報 */
+        private Object[] options;
+
+        /** リクエストID */
+        private String requestId;
+
+        /** 内部リクエストID */
+        private String internalRequestId;
+
+        /** ユーザID */
+        private String userId;
+
+        /**
+         * リクエストスレッドの情報を格納する。
+         *
+         * @param message フォーマット済みのメッセージ
+         * @param options オプション情報
+         */
+        void set(String message, Object[] options) {
+            this.message = message;
+            this.options = options;
+            this.requestId = ThreadContext.getRequestId();
+            this.internalRequestId = ThreadContext.getInternalRequestId();
+            this.userId = ThreadContext.getUserId();
+        }
+
+        /**
+         * 格納した情報を破棄する。
+         */
+        void clear() {
+            message = null;
+            options = null;
+            requestId = null;
+            internalRequestId = null;
+            userId = null;
+        }
+    }
+}
@@ -0,0 +1,452 @@
+package nablarch.fw.jaxrs;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.TimeZone;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+import nablarch.core.ThreadContext;
+import nablarch.core.log.Logger;
+import nablarch.core.log.LoggerManager;
+import nablarch.core.util.annotation.Published;
+import nablarch.fw.ExecutionContext;
+import nablarch.fw.Handler;
+import nablarch.fw.web.HttpErrorResponse;
+import nablarch.fw.web.HttpRequest;
+import nablarch.fw.web.HttpRequestHandler;
+import nablarch.fw.web.HttpResponse;
+import nablarch.fw.web.servlet.ServletExecutionContext;
+
+/**
+ * 複数のリクエスト(サブリクエスト)をまとめたバッチリクエストを処理するハンドラ。
+ * <p/>
+ * {@link #setPath(String)}で設定したパスへのPOSTリクエストを受け付けると、ボディに含まれるサブリクエストを、
+ * それぞれ専用の{@link ExecutionContext}を使用して、このハンドラより後ろのハンドラキュー
+ * (ルーティング、{@link JaxRsMethodBinder}、{@link JaxRsHandlerListFactory}が生成するハンドラリスト)で処理する。
+ * それ以外のリクエストは後続のハンドラに委譲する。
+ * ボディの形式は{@link BatchRequestParser}を参照。Content-TypeがXMLの場合はXML、それ以外の場合はJSONとして解析する。
+ * <p/>
+ * サブリクエストは、{@link #setParallel(boolean)}が{@code true}の場合はスレッド数に上限のあるスレッドプールで並列に、
+ * {@code false}の場合は記載順に1件ずつ処理する。
+ * 並列に処理する場合、各サブリクエストはセッションストアのコピーを使用するため、
+ * サブリクエストでのセッションストアへの変更はバッチリクエスト及び他のサブリクエストに反映されない。
+ * 処理結果は{@link PublisherResponse}を使用して、処理が終わったものから順にストリーミングする。
+ * 処理結果の形式は{@link BatchResult}を参照。indexでバッチリクエスト内の位置を、idでクライアントが指定した識別子を表す。
+ * <p/>
+ * このハンドラは{@link JaxRsResponseHandler}より後ろ、ルーティングを行うハンドラより前に設定すること。
+ * サブリクエストは別スレッドで処理するため、データベース接続やトランザクションを管理するハンドラはこのハンドラより後ろに設定すること。
+ * サブリクエストでは、ストリーミングするレスポンス及びサーブレットの非同期処理はサポートしない。
+ */
+@Published(tag = "architect")
+public class BatchRequestHandler implements HttpRequestHandler {
+
+    /** ロガー */
+    private static final Logger LOGGER = LoggerManager.get(BatchRequestHandler.class);
+
+    /** 処理結果をJSONに変換する{@link BodyConverter} */
+    private static final BodyConverter RESULT_CONVERTER = new BodyConverter() {
+        @Override
+        public Object read(HttpRequest request, ExecutionContext executionContext) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public HttpResponse write(Object response, ExecutionContext executionContext) {
+            final HttpResponse converted = new HttpResponse(200);
+            converted.setContentType("application/json;charset=UTF-8");
+            converted.write(((BatchResult) response).toJson());
+            return converted;
+        }
+
+        @Override
+        public boolean isConvertible(String mediaType) {
+            return true;
+        }
+    };
+
+    /** バッチリクエストを受け付けるパス */
+    private String path = "/batch";
+
+    /** サブリクエスト数の上限 */
+    private int maxSubRequests = 30;
+
+    /** サブリクエストを並列に処理するか否か */
+    private boolean parallel = true;
+
+    /** サブリクエストを処理するスレッド数 */
+    private int threads = 4;
+
+    /** 処理待ちのサブリクエスト数の上限 */
+    private int queueCapacity = 1000;
+
+    /** 処理結果の出力形式 */
+    private PublisherResponse.Format format = PublisherResponse.Format.NDJSON;
+
+    /** エラーレスポンスを生成する{@link ErrorResponseBuilder} */
+    private ErrorResponseBuilder errorResponseBuilder = new ErrorResponseBuilder();
+
+    /** エラーログを出力する{@link JaxRsErrorLogWriter} */
+    private JaxRsErrorLogWriter errorLogWriter = new JaxRsErrorLogWriter();
+
+    /** サブリクエストを処理するスレッドプール */
+    private volatile ThreadPoolExecutor executor;
+
+    @Override
+    public HttpResponse handle(HttpRequest request, ExecutionContext context) {
+        if (!"POST".equals(request.getMethod()) || !path.equals(request.getRequestPath())) {
+            return context.handleNext(request);
+        }
+        final ServletExecutionContext servletContext = (ServletExecutionContext) context;
+        final List<BatchSubRequest> subRequests = parse(servletContext.getServletRequest());
+
+        @SuppressWarnings("rawtypes")
+        final List<Handler> handlers = new ArrayList<Handler>(context.getHandlerQueue());
+        final BatchPublisher publisher = new BatchPublisher(subRequests, handlers, servletContext);
+        return new PublisherResponse(publisher, RESULT_CONVERTER, format,
+                format == PublisherResponse.Format.NDJSON
+                        ? BodyConvertHandler.NDJSON + ";charset=UTF-8" : "application/json;charset=UTF-8", context);
+    }
+
+    /**
+     * バッチリクエストのボディを解析する。
+     *
+     * @param servletRequest バッチリクエスト
+     * @return サブリクエストのリスト
+     * @throws HttpErrorResponse ボディの形式が不正な場合(ステータスコード400)
+     */
+    private List<BatchSubRequest> parse(HttpServletRequest servletRequest) {
+        final BatchRequestParser parser = new BatchRequestParser(maxSubRequests);
+        final String contentType = servletRequest.getContentType();
+        try {
+            final InputStream in = servletRequest.getInputStream();
+            if (contentType != null && contentType.toLowerCase().contains("xml")) {
+                return parser.parseXml(in);
+            }
+            final String encoding = servletRequest.getCharacterEncoding();
+            final Charset charset = encoding != null ? Charset.forName(encoding) : StandardCharsets.UTF_8;
+            return parser.parseJson(in, charset);
+        } catch (IllegalArgumentException e) {
+            LOGGER.logInfo("batch request is invalid. " + e.getMessage());
+            throw new HttpErrorResponse(400, e);
+        } catch (IOException e) {
+            throw new HttpErrorResponse(400, e);
+        }
+    }
+
+    /**
+     * サブリクエストを処理する。
+     *
+     * @param subRequest サブリクエスト
+     * @param handlers ハンドラキュー
+     * @param original バッチリクエストの実行コンテキスト
+     * @return 処理結果
+     */
+    @SuppressWarnings("rawtypes")
+    private BatchResult dispatch(BatchSubRequest subRequest, List<Handler> handlers, ServletExecutionContext original) {
+        final ServletExecutionContext context = new ServletExecutionContext(
+                new BatchSubRequestWrapper(original.getServletRequest(), subRequest),
+                original.getServletResponse(), original.getServletContext());
+        // 並列に処理する場合、サブリクエスト間で同じマップを同時に更新しないようコピーを渡す
+        context.setSessionStoreMap(parallel
+                ? new HashMap<String, Object>(original.getSessionStoreMap()) : original.getSessionStoreMap());
+        context.setHandlerQueue(handlers);
+        final HttpRequest request = context.getHttpRequest();
+        HttpResponse response;
+        try {
+            response = context.handleNext(request);
+        } catch (HttpErrorResponse errorResponse) {
+            response = errorResponse.getResponse();
+        } catch (Throwable e) {
+            try {
+                response = errorResponseBuilder.build(request, context, e);
+            } catch (Throwable responseBuilderException) {
+                response = new HttpResponse(500);
+                LOGGER.logWarn("An exception was thrown while processing ErrorResponseBuilder. "
+                        + "class=[" + errorResponseBuilder.getClass().getName() + "]", responseBuilderException);
+            }
+            errorLogWriter.write(request, response, context, e);
+        }
+        if (response == null) {
+            response = new HttpResponse(204);
+        } else if (response instanceof StreamingResponse) {
+            LOGGER.logWarn("streaming response is not supported in sub request. path = [" + subRequest.getPath() + ']');
+            response = new HttpResponse(500);
+        }
+        return new BatchResult(subRequest, response);
+    }
+
+    /**
+     * サブリクエストを処理するスレッドプールを取得する。
+     *
+     * @return スレッドプール
+     */
+    private ThreadPoolExecutor getExecutor() {
+        ThreadPoolExecutor result = executor;
+        if (result == null) {
+            synchronized (this) {
+                result = executor;
+                if (result == null) {
+                    result = new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS,
+                            new LinkedBlockingQueue<Runnable>(queueCapacity), new ThreadFactory() {
+                        private final ThreadFactory delegate = Executors.defaultThreadFactory();
+
+                        @Override
+                        public Thread newThread(Runnable runnable) {
+                            final Thread thread = delegate.newThread(runnable);
+                            thread.setName("batch-request-" + thread.getName());
+                            thread.setDaemon(true);
+                            return thread;
+                        }
+                    });
+                    result.allowCoreThreadTimeOut(true);
+                    executor = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * サブリクエストの処理結果を発行する{@link Flow.Publisher}。
+     * <p/>
+     * {@link SubmissionPublisher}は購読者がいない間に発行した要素を破棄するため、
+     * 購読された時点でサブリクエストの処理を開始する。
+     */
+    private final class BatchPublisher implements Flow.Publisher<BatchResult> {
+
+        /** サブリクエスト */
+        private final List<BatchSubRequest> subRequests;
+
+        /** ハンドラキュー */
+        @SuppressWarnings("rawtypes")
+        private final List<Handler> handlers;
+
+        /** バッチリクエストの実行コンテキスト */
+        private final ServletExecutionContext context;
+
+        /** 処理結果の発行元 */
+        private final SubmissionPublisher<BatchResult> publisher;
+
+        /** 未処理のサブリクエスト数 */
+        private final AtomicInteger remaining;
+
+        /** 処理を開始したか否か */
+        private final AtomicBoolean started = new AtomicBoolean();
+
+        /** バッチリクエストを処理したスレッドのリクエストID */
+        private final String requestId = ThreadContext.getRequestId();
+
+        /** バッチリクエストを処理したスレッドの内部リクエストID */
+        private final String internalRequestId = ThreadContext.getInternalRequestId();
+
+        /** バッチリクエストを処理したスレッドのユーザID */
+        private final String userId = ThreadContext.getUserId();
+
+        /** バッチリクエストを処理したスレッドの言語 */
+        private final Locale language = ThreadContext.getLanguage();
+
+        /** バッチリクエストを処理したスレッドのタイムゾーン */
+        private final TimeZone timeZone = ThreadContext.getTimeZone();
+
+        /**
+         * コンストラクタ。
+         *
+         * @param subRequests サブリクエスト
+         * @param handlers ハンドラキュー
+         * @param context バッチリクエストの実行コンテキスト
+         */
+        @SuppressWarnings("rawtypes")
+        BatchPublisher(List<BatchSubRequest> subRequests, List<Handler> handlers, ServletExecutionContext context) {
+            this.subRequests = subRequests;
+            this.handlers = handlers;
+            this.context = context;
+            this.publisher = new SubmissionPublisher<BatchResult>();
+            this.remaining = new AtomicInteger(subRequests.size());
+        }
+
+        @Override
+        public void subscribe(Flow.Subscriber<? super BatchResult> subscriber) {
+            publisher.subscribe(subscriber);
+            if (!started.compareAndSet(false, true)) {
+                return;
+            }
+            if (subRequests.isEmpty()) {
+                publisher.close();
+                return;
+            }
+            if (parallel) {
+                for (final BatchSubRequest subRequest : subRequests) {
+                    submit(new Runnable() {
+                        @Override
+                        public void run() {
+                            process(subRequest);
+                        }
+                    }, subRequest);
+                }
+            } else {
+                submit(new Runnable() {
+                    @Override
+                    public void run() {
+                        for (BatchSubRequest subRequest : subRequests) {
+                            process(subRequest);
+                        }
+                    }
+                }, null);
+            }
+        }
+
+        /**
+         * サブリクエストの処理をスレッドプールに登録する。
+         * <p/>
+         * 登録できない場合は、対象のサブリクエストの処理結果を503とする。
+         *
+         * @param task 処理
+         * @param subRequest 対象のサブリクエスト。全てのサブリクエストが対象の場合は{@code null}
+         */
+        private void submit(Runnable task, BatchSubRequest subRequest) {
+            try {
+                getExecutor().execute(task);
+            } catch (RejectedExecutionException e) {
+                LOGGER.logWarn("sub request was rejected because the executor queue is full.");
+                if (subRequest != null) {
+                    publish(new BatchResult(subRequest, new HttpResponse(503)));
+                } else {
+                    for (BatchSubRequest each : subRequests) {
+                        publish(new BatchResult(each, new HttpResponse(503)));
+                    }
+                }
+            }
+        }
+
+        /**
+         * サブリクエストを処理し、処理結果を発行する。
+         *
+         * @param subRequest サブリクエスト
+         */
+        private void process(BatchSubRequest subRequest) {
+            ThreadContext.setRequestId(requestId);
+            ThreadContext.setInternalRequestId(internalRequestId);
+            ThreadContext.setUserId(userId);
+            ThreadContext.setLanguage(language);
+            ThreadContext.setTimeZone(timeZone);
+            try {
+                publish(dispatch(subRequest, handlers, context));
+            } finally {
+                ThreadContext.clear();
+            }
+        }
+
+        /**
+         * 処理結果を発行し、全てのサブリクエストを処理し終えた場合は発行を終了する。
+         *
+         * @param result 処理結果
+         */
+        private void publish(BatchResult result) {
+            publisher.submit(result);
+            if (remaining.decrementAndGet() == 0) {
+                publisher.close();
+            }
+        }
+    }
+
+    /**
+     * バッチリクエストを受け付けるパスを設定する。
+     * <p/>
+     * デフォルトは/batch。コンテキストパスを含まないパスを指定する。
+     *
+     * @param path パス
+     */
+    public void setPath(final String path) {
+        this.path = path;
+    }
+
+    /**
+     * サブリクエスト数の上限を設定する。
+     * <p/>
+     * デフォルトは30。上限を超えるバッチリクエストには400を返す。
+     *
+     * @param maxSubRequests サブリクエスト数の上限
+     */
+    public void setMaxSubRequests(final int maxSubRequests) {
+        this.maxSubRequests = maxSubRequests;
+    }
+
+    /**
+     * サブリクエストを並列に処理するか否かを設定する。
+     * <p/>
+     * デフォルトは{@code true}。
+     *
+     * @param parallel 並列に処理する場合は{@code true}
+     */
+    public void setParallel(final boolean parallel) {
+        this.parallel = parallel;
+    }
+
+    /**
+     * サブリクエストを処理するスレッド数を設定する。
+     * <p/>
+     * デフォルトは4。全てのバッチリクエストで共有する。
+     *
+     * @param threads スレッド数
+     */
+    public void setThreads(final int threads) {
+        this.threads = threads;
+    }
+
+    /**
+     * 処理待ちのサブリクエスト数の上限を設定する。
+     * <p/>
+     * デフォルトは1000。上限を超えたサブリクエストの処理結果は503とする。
+     *
+     * @param queueCapacity 処理待ちのサブリクエスト数の上限
+     */
+    public void setQueueCapacity(final int queueCapacity) {
+        this.queueCapacity = queueCapacity;
+    }
+
+    /**
+     * 処理結果の出力形式を設定する。
+     * <p/>
+     * "NDJSON"(デフォルト)または"JSON_ARRAY"を指定する。
+     *
+     * @param format 出力形式
+     */
+    public void setFormat(final String format) {
+        this.format = PublisherResponse.Format.valueOf(format);
+    }
+
+    /**
+     * サブリクエストでエラーが発生した際のレスポンスを生成する{@link ErrorResponseBuilder}を設定する。
+     *
+     * @param errorResponseBuilder {@link ErrorResponseBuilder}
+     */
+    public void setErrorResponseBuilder(final ErrorResponseBuilder errorResponseBuilder) {
+        this.errorResponseBuilder = errorResponseBuilder;
+    }
+
+    /**
+     * サブリクエストでエラーが発生した際にログを出力する{@link JaxRsErrorLogWriter}を設定する。
+     *
+     * @param errorLogWriter {@link JaxRsErrorLogWriter}
+     */
+    public void setErrorLogWriter(final JaxRsErrorLogWriter errorLogWriter) {
+        this.errorLogWriter = errorLogWriter;
+    }
+}
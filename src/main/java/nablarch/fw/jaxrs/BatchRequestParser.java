@@ -0,0 +1,255 @@
+package nablarch.fw.jaxrs;
+
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import jakarta.json.Json;
+import jakarta.json.JsonArray;
+import jakarta.json.JsonException;
+import jakarta.json.JsonObject;
+import jakarta.json.JsonReader;
+import jakarta.json.JsonString;
+import jakarta.json.JsonStructure;
+import jakarta.json.JsonValue;
+
+import nablarch.core.util.StringUtil;
+
+/**
+ * バッチリクエストのボディを解析し、{@link BatchSubRequest}のリストに変換するクラス。
+ * <p/>
+ * JSONの場合は、以下のいずれかの形式とする。
+ * <pre>
+ * [{"id": "1", "method": "GET", "path": "/users/1", "headers": {"Accept": "application/json"}}, ...]
+ * {"requests": [...]}
+ * </pre>
+ * bodyにはJSONの値を指定する。文字列の場合は文字列の内容を、それ以外の場合はJSONをそのままボディとする。
+ * bodyがJSONの文字列以外でContent-Typeヘッダが指定されていない場合は、Content-Typeをapplication/jsonとする。
+ * <p/>
+ * XMLの場合は、以下の形式とする。DTD及び外部エンティティは処理しない。
+ * <pre>
+ * &lt;batch&gt;
+ *   &lt;request id="1" method="POST" path="/users"&gt;
+ *     &lt;header name="Content-Type"&gt;application/xml&lt;/header&gt;
+ *     &lt;body&gt;&lt;![CDATA[&lt;user&gt;...&lt;/user&gt;]]&gt;&lt;/body&gt;
+ *   &lt;/request&gt;
+ * &lt;/batch&gt;
+ * </pre>
+ */
+final class BatchRequestParser {
+
+    /** XMLの入力ファクトリ */
+    private static final XMLInputFactory XML_INPUT_FACTORY = createXmlInputFactory();
+
+    /** サブリクエスト数の上限 */
+    private final int maxSubRequests;
+
+    /**
+     * コンストラクタ。
+     *
+     * @param maxSubRequests サブリクエスト数の上限
+     */
+    BatchRequestParser(int maxSubRequests) {
+        this.maxSubRequests = maxSubRequests;
+    }
+
+    /**
+     * JSONのバッチリクエストを解析する。
+     *
+     * @param in ボディの入力ストリーム
+     * @param charset ボディの文字コード
+     * @return サブリクエストのリスト
+     * @throws IllegalArgumentException 形式が不正な場合
+     */
+    List<BatchSubRequest> parseJson(InputStream in, Charset charset) {
+        final JsonStructure root;
+        final JsonReader reader = Json.createReader(new InputStreamReader(in, charset));
+        try {
+            root = reader.read();
+        } catch (JsonException e) {
+            throw new IllegalArgumentException("batch request is not valid json.", e);
+        } finally {
+            reader.close();
+        }
+        final JsonArray requests;
+        if (root.getValueType() == JsonValue.ValueType.ARRAY) {
+            requests = root.asJsonArray();
+        } else {
+            final JsonValue value = root.asJsonObject().get("requests");
+            if (value == null || value.getValueType() != JsonValue.ValueType.ARRAY) {
+                throw new IllegalArgumentException("batch request must have requests array.");
+            }
+            requests = value.asJsonArray();
+        }
+        checkSize(requests.size());
+
+        final List<BatchSubRequest> result = new ArrayList<BatchSubRequest>(requests.size());
+        for (int i = 0; i < requests.size(); i++) {
+            final JsonValue element = requests.get(i);
+            if (element.getValueType() != JsonValue.ValueType.OBJECT) {
+                throw new IllegalArgumentException("sub request must be json object. index = [" + i + ']');
+            }
+            result.add(toSubRequest(i, element.asJsonObject()));
+        }
+        return result;
+    }
+
+    /**
+     * JSONのオブジェクトをサブリクエストに変換する。
+     *
+     * @param index バッチリクエスト内の位置
+     * @param object JSONのオブジェクト
+     * @return サブリクエスト
+     */
+    private static BatchSubRequest toSubRequest(int index, JsonObject object) {
+        final Map<String, String> headers = new HashMap<String, String>();
+        final JsonValue headerValues = object.get("headers");
+        if (headerValues != null && headerValues.getValueType() == JsonValue.ValueType.OBJECT) {
+            for (Map.Entry<String, JsonValue> header : headerValues.asJsonObject().entrySet()) {
+                headers.put(header.getKey(), toText(header.getValue()));
+            }
+        }
+        byte[] body = null;
+        final JsonValue bodyValue = object.get("body");
+        if (bodyValue != null && bodyValue.getValueType() != JsonValue.ValueType.NULL) {
+            if (bodyValue.getValueType() == JsonValue.ValueType.STRING) {
+                body = ((JsonString) bodyValue).getString().getBytes(StandardCharsets.UTF_8);
+            } else {
+                body = bodyValue.toString().getBytes(StandardCharsets.UTF_8);
+                if (!containsIgnoreCase(headers, "Content-Type")) {
+                    headers.put("Content-Type", "application/json");
+                }
+            }
+        }
+        final JsonValue id = object.get("id");
+        return create(index, id == null || id.getValueType() == JsonValue.ValueType.NULL ? null : toText(id),
+                object.containsKey("method") ? toText(object.get("method")) : null,
+                object.containsKey("path") ? toText(object.get("path")) : null,
+                headers, body);
+    }
+
+    /**
+     * XMLのバッチリクエストを解析する。
+     *
+     * @param in ボディの入力ストリーム
+     * @return サブリクエストのリスト
+     * @throws IllegalArgumentException 形式が不正な場合
+     */
+    List<BatchSubRequest> parseXml(InputStream in) {
+        final List<BatchSubRequest> result = new ArrayList<BatchSubRequest>();
+        try {
+            final XMLStreamReader reader = XML_INPUT_FACTORY.createXMLStreamReader(in);
+            try {
+                String id = null;
+                String method = null;
+                String path = null;
+                Map<String, String> headers = null;
+                byte[] body = null;
+                while (reader.hasNext()) {
+                    final int event = reader.next();
+                    if (event == XMLStreamConstants.START_ELEMENT) {
+                        final String name = reader.getLocalName();
+                        if ("request".equals(name)) {
+                            id = reader.getAttributeValue(null, "id");
+                            method = reader.getAttributeValue(null, "method");
+                            path = reader.getAttributeValue(null, "path");
+                            headers = new HashMap<String, String>();
+                            body = null;
+                        } else if ("header".equals(name) && headers != null) {
+                            headers.put(reader.getAttributeValue(null, "name"), reader.getElementText());
+                        } else if ("body".equals(name) && headers != null) {
+                            body = reader.getElementText().getBytes(StandardCharsets.UTF_8);
+                        }
+                    } else if (event == XMLStreamConstants.END_ELEMENT && "request".equals(reader.getLocalName())) {
+                        checkSize(result.size() + 1);
+                        result.add(create(result.size(), id, method, path, headers, body));
+                        headers = null;
+                    }
+                }
+            } finally {
+                reader.close();
+            }
+        } catch (XMLStreamException e) {
+            throw new IllegalArgumentException("batch request is not valid xml.", e);
+        }
+        return result;
+    }
+
+    /**
+     * サブリクエストを生成する。
+     *
+     * @param index バッチリクエスト内の位置
+     * @param id 識別子
+     * @param method HTTPメソッド
+     * @param path リクエストパス
+     * @param headers リクエストヘッダ
+     * @param body ボディ
+     * @return サブリクエスト
+     */
+    private static BatchSubRequest create(int index, String id, String method, String path,
+            Map<String, String> headers, byte[] body) {
+        if (StringUtil.isNullOrEmpty(method) || StringUtil.isNullOrEmpty(path) || !path.startsWith("/")) {
+            throw new IllegalArgumentException("sub request must have method and absolute path. index = [" + index + ']');
+        }
+        return new BatchSubRequest(index, id, method.toUpperCase(), path, headers, body);
+    }
+
+    /**
+     * サブリクエスト数が上限以下であることを確認する。
+     *
+     * @param size サブリクエスト数
+     */
+    private void checkSize(int size) {
+        if (size > maxSubRequests) {
+            throw new IllegalArgumentException("too many sub requests. max = [" + maxSubRequests + ']');
+        }
+    }
+
+    /**
+     * JSONの値を文字列に変換する。
+     *
+     * @param value JSONの値
+     * @return 文字列
+     */
+    private static String toText(JsonValue value) {
+        return value.getValueType() == JsonValue.ValueType.STRING ? ((JsonString) value).getString() : value.toString();
+    }
+
+    /**
+     * 大文字小文字を区別せずにキーが含まれるかを判定する。
+     *
+     * @param map マップ
+     * @param key キー
+     * @return 含まれる場合は{@code true}
+     */
+    private static boolean containsIgnoreCase(Map<String, String> map, String key) {
+        for (String name : map.keySet()) {
+            if (name.equalsIgnoreCase(key)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * DTD及び外部エンティティを処理しない{@link XMLInputFactory}を生成する。
+     *
+     * @return {@link XMLInputFactory}
+     */
+    private static XMLInputFactory createXmlInputFactory() {
+        final XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        return factory;
+    }
+}
@@ -0,0 +1,207 @@
+package nablarch.fw.jaxrs;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import jakarta.json.Json;
+import jakarta.json.JsonException;
+import jakarta.json.JsonReader;
+import jakarta.json.JsonValue;
+import jakarta.json.JsonWriter;
+
+import nablarch.core.util.FileUtil;
+import nablarch.fw.web.HttpResponse;
+
+/**
+ * サブリクエストの処理結果。
+ * <p/>
+ * 以下の形式のJSONに変換する。
+ * Content-TypeがJSONの場合はボディをJSONの値として、それ以外の場合は文字列として出力する。
+ * JSONの値は1行に収まるように書き直し、JSONとして解析できない場合は文字列として出力する。
+ * <pre>
+ * {"index": 0, "id": "1", "status": 200, "headers": {"Content-Type": "application/json"}, "body": {...}}
+ * </pre>
+ *
+ * @see BatchRequestHandler
+ */
+final class BatchResult {
+
+    /** サブリクエスト */
+    private final BatchSubRequest subRequest;
+
+    /** レスポンス */
+    private final HttpResponse response;
+
+    /**
+     * コンストラクタ。
+     *
+     * @param subRequest サブリクエスト
+     * @param response レスポンス
+     */
+    BatchResult(BatchSubRequest subRequest, HttpResponse response) {
+        this.subRequest = subRequest;
+        this.response = response;
+    }
+
+    /**
+     * ステータスコードを取得する。
+     *
+     * @return ステータスコード
+     */
+    int getStatusCode() {
+        return response.getStatusCode();
+    }
+
+    /**
+     * JSONに変換する。
+     * <p/>
+     * 変換後はレスポンスのボディに関するリソースを解放する。
+     *
+     * @return JSON
+     */
+    String toJson() {
+        final StringBuilder json = new StringBuilder(256);
+        json.append("{\"index\":").append(subRequest.getIndex());
+        if (subRequest.getId() != null) {
+            json.append(",\"id\":");
+            appendString(json, subRequest.getId());
+        }
+        json.append(",\"status\":").append(response.getStatusCode());
+        json.append(",\"headers\":{");
+        boolean first = true;
+        for (Map.Entry<String, String> header : response.getHeaderMap().entrySet()) {
+            if ("Content-Length".equalsIgnoreCase(header.getKey())) {
+                continue;
+            }
+            if (!first) {
+                json.append(',');
+            }
+            first = false;
+            appendString(json, header.getKey());
+            json.append(':');
+            appendString(json, header.getValue());
+        }
+        json.append('}');
+        final String body = readBody();
+        if (body != null && !body.isEmpty()) {
+            json.append(",\"body\":");
+            final String jsonBody = isJson(response.getContentType()) ? toCompactJson(body) : null;
+            if (jsonBody != null) {
+                json.append(jsonBody);
+            } else {
+                appendString(json, body);
+            }
+        }
+        return json.append('}').toString();
+    }
+
+    /**
+     * ボディを文字列として読み込む。
+     *
+     * @return ボディ。存在しない場合は{@code null}
+     */
+    private String readBody() {
+        final InputStream in = response.getBodyStream();
+        if (in == null) {
+            return null;
+        }
+        try {
+            final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+            final byte[] bytes = new byte[1024];
+            int readSize;
+            while ((readSize = in.read(bytes)) != -1) {
+                buffer.write(bytes, 0, readSize);
+            }
+            final Charset charset = response.getCharset();
+            return new String(buffer.toByteArray(), charset != null ? charset : StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new IllegalStateException("failed to read sub response body.", e);
+        } finally {
+            FileUtil.closeQuietly(in);
+            response.cleanup();
+        }
+    }
+
+    /**
+     * JSONを解析し、改行を含まない形式に書き直す。
+     *
+     * @param body ボディ
+     * @return 書き直したJSON。JSONとして解析できない場合は{@code null}
+     */
+    private static String toCompactJson(String body) {
+        final JsonValue value;
+        final JsonReader reader = Json.createReader(new StringReader(body));
+        try {
+            value = reader.readValue();
+        } catch (JsonException e) {
+            return null;
+        } finally {
+            reader.close();
+        }
+        final StringWriter out = new StringWriter(body.length());
+        final JsonWriter writer = Json.createWriter(out);
+        try {
+            writer.write(value);
+        } finally {
+            writer.close();
+        }
+        return out.toString();
+    }
+
+    /**
+     * Content-TypeがJSONか否かを判定する。
+     *
+     * @param contentType Content-Type
+     * @return JSONの場合は{@code true}
+     */
+    private static boolean isJson(String contentType) {
+        if (contentType == null) {
+            return false;
+        }
+        final String mediaType = contentType.split(";")[0].trim().toLowerCase();
+        return mediaType.equals("application/json") || mediaType.endsWith("+json");
+    }
+
+    /**
+     * JSONの文字列としてエスケープして追加する。
+     *
+     * @param json 追加先
+     * @param value 文字列
+     */
+    private static void appendString(StringBuilder json, String value) {
+        json.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            final char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    json.append("\\\"");
+                    break;
+                case '\\':
+                    json.append("\\\\");
+                    break;
+                case '\n':
+                    json.append("\\n");
+                    break;
+                case '\r':
+                    json.append("\\r");
+                    break;
+                case '\t':
+                    json.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        json.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        json.append(c);
+                    }
+            }
+        }
+        json.append('"');
+    }
+}
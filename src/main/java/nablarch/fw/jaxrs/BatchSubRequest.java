@@ -0,0 +1,120 @@
+package nablarch.fw.jaxrs;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * バッチリクエストに含まれる個々のリクエスト(サブリクエスト)。
+ *
+ * @see BatchRequestHandler
+ */
+final class BatchSubRequest {
+
+    /** バッチリクエスト内の位置 */
+    private final int index;
+
+    /** クライアントが指定した識別子 */
+    private final String id;
+
+    /** HTTPメソッド */
+    private final String method;
+
+    /** リクエストパス(クエリ文字列を含まない) */
+    private final String path;
+
+    /** クエリ文字列 */
+    private final String queryString;
+
+    /** リクエストヘッダ(名前の大文字小文字を区別しない) */
+    private final Map<String, String> headers;
+
+    /** ボディ */
+    private final byte[] body;
+
+    /**
+     * コンストラクタ。
+     *
+     * @param index バッチリクエスト内の位置
+     * @param id クライアントが指定した識別子
+     * @param method HTTPメソッド
+     * @param uri リクエストパス(クエリ文字列を含んでもよい)
+     * @param headers リクエストヘッダ
+     * @param body ボディ
+     */
+    BatchSubRequest(int index, String id, String method, String uri, Map<String, String> headers, byte[] body) {
+        this.index = index;
+        this.id = id;
+        this.method = method;
+        final int question = uri.indexOf('?');
+        this.path = question == -1 ? uri : uri.substring(0, question);
+        this.queryString = question == -1 ? null : uri.substring(question + 1);
+        final Map<String, String> caseInsensitive = new TreeMap<String, String>(String.CASE_INSENSITIVE_ORDER);
+        caseInsensitive.putAll(headers);
+        this.headers = Collections.unmodifiableMap(caseInsensitive);
+        this.body = body;
+    }
+
+    /**
+     * バッチリクエスト内の位置を取得する。
+     *
+     * @return バッチリクエスト内の位置(0始まり)
+     */
+    int getIndex() {
+        return index;
+    }
+
+    /**
+     * クライアントが指定した識別子を取得する。
+     *
+     * @return 識別子。指定されていない場合は{@code null}
+     */
+    String getId() {
+        return id;
+    }
+
+    /**
+     * HTTPメソッドを取得する。
+     *
+     * @return HTTPメソッド
+     */
+    String getMethod() {
+        return method;
+    }
+
+    /**
+     * リクエストパスを取得する。
+     *
+     * @return リクエストパス
+     */
+    String getPath() {
+        return path;
+    }
+
+    /**
+     * クエリ文字列を取得する。
+     *
+     * @return クエリ文字列。存在しない場合は{@code null}
+     */
+    String getQueryString() {
+        return queryString;
+    }
+
+    /**
+     * リクエストヘッダを取得する。
+     *
+     * @return リクエストヘッダ
+     */
+    Map<String, String> getHeaders() {
+        return headers;
+    }
+
+    /**
+     * ボディを取得する。
+     *
+     * @return ボディ。存在しない場合は{@code null}
+     */
+    byte[] getBody() {
+        return body;
+    }
+}
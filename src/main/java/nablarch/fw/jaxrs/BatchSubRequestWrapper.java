@@ -0,0 +1,365 @@
+package nablarch.fw.jaxrs;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UnsupportedEncodingException;
+import java.net.URLDecoder;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+
+/**
+ * サブリクエストを表す{@link HttpServletRequest}。
+ * <p/>
+ * HTTPメソッド、パス、クエリ文字列、ボディ及びボディに関するヘッダはサブリクエストの内容を返し、
+ * それ以外のヘッダや接続に関する情報はバッチリクエストの内容を返す。
+ * リクエスト属性はサブリクエストごとに独立して保持するため、並列に処理しても互いに影響しない。
+ * サブリクエストでは非同期処理を開始できない。
+ */
+class BatchSubRequestWrapper extends HttpServletRequestWrapper {
+
+    /** サブリクエストで上書きせず、バッチリクエストからも引き継がないヘッダ */
+    private static final Set<String> BODY_HEADERS = new LinkedHashSet<String>();
+
+    static {
+        BODY_HEADERS.add("content-type");
+        BODY_HEADERS.add("content-length");
+        BODY_HEADERS.add("transfer-encoding");
+        BODY_HEADERS.add("content-encoding");
+    }
+
+    /** サブリクエスト */
+    private final BatchSubRequest subRequest;
+
+    /** リクエスト属性 */
+    private final Map<String, Object> attributes = new HashMap<String, Object>();
+
+    /** リクエストパラメータ */
+    private Map<String, String[]> parameters;
+
+    /** 文字エンコーディング */
+    private String characterEncoding;
+
+    /**
+     * コンストラクタ。
+     *
+     * @param request バッチリクエスト
+     * @param subRequest サブリクエスト
+     */
+    BatchSubRequestWrapper(HttpServletRequest request, BatchSubRequest subRequest) {
+        super(request);
+        this.subRequest = subRequest;
+        this.characterEncoding = parseCharset(subRequest.getHeaders().get("Content-Type"));
+    }
+
+    @Override
+    public String getMethod() {
+        return subRequest.getMethod();
+    }
+
+    @Override
+    public String getRequestURI() {
+        return getContextPath() + subRequest.getPath();
+    }
+
+    @Override
+    public StringBuffer getRequestURL() {
+        final StringBuffer url = new StringBuffer();
+        url.append(getScheme()).append("://").append(getServerName()).append(':').append(getServerPort());
+        return url.append(getRequestURI());
+    }
+
+    @Override
+    public String getServletPath() {
+        return subRequest.getPath();
+    }
+
+    @Override
+    public String getPathInfo() {
+        return null;
+    }
+
+    @Override
+    public String getQueryString() {
+        return subRequest.getQueryString();
+    }
+
+    @Override
+    public String getHeader(String name) {
+        final String value = subRequest.getHeaders().get(name);
+        if (value != null || BODY_HEADERS.contains(name.toLowerCase())) {
+            return value;
+        }
+        return super.getHeader(name);
+    }
+
+    @Override
+    public Enumeration<String> getHeaders(String name) {
+        final String value = subRequest.getHeaders().get(name);
+        if (value != null) {
+            return Collections.enumeration(Collections.singletonList(value));
+        }
+        if (BODY_HEADERS.contains(name.toLowerCase())) {
+            return Collections.emptyEnumeration();
+        }
+        return super.getHeaders(name);
+    }
+
+    @Override
+    public Enumeration<String> getHeaderNames() {
+        final Map<String, String> names = new TreeMap<String, String>(String.CASE_INSENSITIVE_ORDER);
+        final Enumeration<String> original = super.getHeaderNames();
+        while (original != null && original.hasMoreElements()) {
+            final String name = original.nextElement();
+            if (!BODY_HEADERS.contains(name.toLowerCase())) {
+                names.put(name, name);
+            }
+        }
+        for (String name : subRequest.getHeaders().keySet()) {
+            names.put(name, name);
+        }
+        return Collections.enumeration(names.values());
+    }
+
+    @Override
+    public int getIntHeader(String name) {
+        final String value = getHeader(name);
+        return value == null ? -1 : Integer.parseInt(value);
+    }
+
+    @Override
+    public String getContentType() {
+        return subRequest.getHeaders().get("Content-Type");
+    }
+
+    @Override
+    public int getContentLength() {
+        final byte[] body = subRequest.getBody();
+        return body == null ? -1 : body.length;
+    }
+
+    @Override
+    public long getContentLengthLong() {
+        return getContentLength();
+    }
+
+    @Override
+    public String getCharacterEncoding() {
+        return characterEncoding;
+    }
+
+    @Override
+    public void setCharacterEncoding(String encoding) throws UnsupportedEncodingException {
+        if (!Charset.isSupported(encoding)) {
+            throw new UnsupportedEncodingException(encoding);
+        }
+        this.characterEncoding = encoding;
+    }
+
+    @Override
+    public ServletInputStream getInputStream() {
+        final byte[] body = subRequest.getBody();
+        return new BodyInputStream(body == null ? new byte[0] : body);
+    }
+
+    @Override
+    public BufferedReader getReader() throws UnsupportedEncodingException {
+        final Charset charset = characterEncoding == null ? StandardCharsets.UTF_8 : Charset.forName(characterEncoding);
+        return new BufferedReader(new InputStreamReader(getInputStream(), charset));
+    }
+
+    @Override
+    public String getParameter(String name) {
+        final String[] values = getParameterMap().get(name);
+        return values == null || values.length == 0 ? null : values[0];
+    }
+
+    @Override
+    public Map<String, String[]> getParameterMap() {
+        if (parameters == null) {
+            parameters = Collections.unmodifiableMap(parseQueryString(subRequest.getQueryString()));
+        }
+        return parameters;
+    }
+
+    @Override
+    public Enumeration<String> getParameterNames() {
+        return Collections.enumeration(getParameterMap().keySet());
+    }
+
+    @Override
+    public String[] getParameterValues(String name) {
+        return getParameterMap().get(name);
+    }
+
+    @Override
+    public Object getAttribute(String name) {
+        return attributes.get(name);
+    }
+
+    @Override
+    public Enumeration<String> getAttributeNames() {
+        return Collections.enumeration(new ArrayList<String>(attributes.keySet()));
+    }
+
+    @Override
+    public void setAttribute(String name, Object value) {
+        if (value == null) {
+            attributes.remove(name);
+        } else {
+            attributes.put(name, value);
+        }
+    }
+
+    @Override
+    public void removeAttribute(String name) {
+        attributes.remove(name);
+    }
+
+    @Override
+    public boolean isAsyncSupported() {
+        return false;
+    }
+
+    @Override
+    public boolean isAsyncStarted() {
+        return false;
+    }
+
+    @Override
+    public AsyncContext startAsync() {
+        throw new IllegalStateException("sub request does not support async processing.");
+    }
+
+    @Override
+    public AsyncContext startAsync(ServletRequest servletRequest, ServletResponse servletResponse) {
+        throw new IllegalStateException("sub request does not support async processing.");
+    }
+
+    /**
+     * Content-Typeから文字エンコーディングを取得する。
+     *
+     * @param contentType Content-Type
+     * @return 文字エンコーディング。指定されていない場合は{@code null}
+     */
+    private static String parseCharset(String contentType) {
+        if (contentType == null) {
+            return null;
+        }
+        for (String parameter : contentType.split(";")) {
+            final String trimmed = parameter.trim();
+            if (trimmed.regionMatches(true, 0, "charset=", 0, 8)) {
+                return trimmed.substring(8).replace("\"", "").trim();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * クエリ文字列をリクエストパラメータに変換する。
+     *
+     * @param queryString クエリ文字列
+     * @return リクエストパラメータ
+     */
+    private static Map<String, String[]> parseQueryString(String queryString) {
+        final Map<String, List<String>> values = new LinkedHashMap<String, List<String>>();
+        if (queryString != null) {
+            for (String pair : queryString.split("&")) {
+                if (pair.isEmpty()) {
+                    continue;
+                }
+                final int equal = pair.indexOf('=');
+                final String name = decode(equal == -1 ? pair : pair.substring(0, equal));
+                final String value = equal == -1 ? "" : decode(pair.substring(equal + 1));
+                List<String> list = values.get(name);
+                if (list == null) {
+                    list = new ArrayList<String>();
+                    values.put(name, list);
+                }
+                list.add(value);
+            }
+        }
+        final Map<String, String[]> result = new LinkedHashMap<String, String[]>();
+        for (Map.Entry<String, List<String>> entry : values.entrySet()) {
+            result.put(entry.getKey(), entry.getValue().toArray(new String[0]));
+        }
+        return result;
+    }
+
+    /**
+     * URLエンコードされた文字列をUTF-8でデコードする。
+     *
+     * @param value URLエンコードされた文字列
+     * @return デコードした文字列
+     */
+    private static String decode(String value) {
+        return URLDecoder.decode(value, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * ボディを読み込む{@link ServletInputStream}。
+     */
+    private static final class BodyInputStream extends ServletInputStream {
+
+        /** ボディ */
+        private final ByteArrayInputStream in;
+
+        /**
+         * コンストラクタ。
+         *
+         * @param body ボディ
+         */
+        BodyInputStream(byte[] body) {
+            in = new ByteArrayInputStream(body);
+        }
+
+        @Override
+        public int read() {
+            return in.read();
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            return in.read(b, off, len);
+        }
+
+        @Override
+        public boolean isFinished() {
+            return in.available() == 0;
+        }
+
+        @Override
+        public boolean isReady() {
+            return true;
+        }
+
+        @Override
+        public void setReadListener(ReadListener readListener) {
+            try {
+                readListener.onDataAvailable();
+                readListener.onAllDataRead();
+            } catch (IOException e) {
+                readListener.onError(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,455 @@
+package nablarch.fw.jaxrs;
+
+import java.io.BufferedReader;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CodingErrorAction;
+
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+
+import nablarch.fw.ExecutionContext;
+
+/**
+ * アクセスログに出力するため、リクエストまたはレスポンスのボディの先頭を取り込むクラス。
+ * <p/>
+ * ラップしたストリームを通過したバイト列を、バッファのサイズを上限として取り込む。
+ * ボディはアプリケーションの読み込みまたはレスポンスの書き込みの際に1度だけ読み込まれ、
+ * 取り込みに使用するメモリはバッファのサイズに限られる。
+ * 上限を超えた分は取り込まず、切り捨てられたことのみを記録する。
+ * <p/>
+ * 取り込んだ内容は、ストリームを通過した分だけとなる。
+ * そのため、リクエストボディを読み込む前(リクエスト処理開始時)に参照した場合は空となる。
+ * <p/>
+ * レスポンスのボディを取り込む場合は、{@link #setResponseCapture(ExecutionContext, BodyCapture)}でリクエストスコープに設定する。
+ * {@link JaxRsResponseHandler}は、設定されている場合にボディを書き込む入力ストリームをラップする。
+ * <p/>
+ * {@link #bindRoutes(ExecutionContext, JaxRsAccessLogRoutes)}でリソースメソッドごとの出力方法を設定した場合、
+ * 最初にバイト列を取り込む際にリソースメソッドの{@link JaxRsAccessLog}に従って、取り込むか否かと上限を決定する。
+ * リソースメソッドが決定する前に取り込みを開始した場合は、バッファのサイズを上限として取り込む。
+ */
+final class BodyCapture {
+
+    /** リクエストスコープにレスポンスのボディの取り込み先を設定する際に使用するキー */
+    private static final String RESPONSE_CAPTURE_KEY
+            = ExecutionContext.FW_PREFIX + BodyCapture.class.getSimpleName() + ".response";
+
+    /** デフォルトの文字エンコーディング */
+    private static final String DEFAULT_ENCODING = "UTF-8";
+
+    /** 取り込み先のバッファ。解放後は{@code null} */
+    private byte[] buffer;
+
+    /** 取り込んだバイト数 */
+    private int size;
+
+    /** 上限を超えたため切り捨てたか否か */
+    private boolean truncated;
+
+    /** 取り込む上限のバイト数 */
+    private int limit;
+
+    /** リソースメソッドの指定により取り込まないか否か */
+    private boolean ignored;
+
+    /** 取り込む上限を決定する際に参照する実行コンテキスト。決定後は{@code null} */
+    private ExecutionContext context;
+
+    /** 取り込む上限を決定する際に参照するリソースメソッドごとの出力方法。決定後は{@code null} */
+    private JaxRsAccessLogRoutes routes;
+
+    /** レスポンスの書き込みを開始したか否か */
+    private volatile boolean writingStarted;
+
+    /**
+     * コンストラクタ。
+     *
+     * @param buffer 取り込み先のバッファ。サイズが取り込む上限となる
+     */
+    BodyCapture(byte[] buffer) {
+        this.buffer = buffer;
+        limit = buffer.length;
+    }
+
+    /**
+     * 取り込む上限を決定する際に参照するリソースメソッドごとの出力方法を設定する。
+     *
+     * @param context 実行コンテキスト
+     * @param routes リソースメソッドごとの出力方法
+     */
+    void bindRoutes(ExecutionContext context, JaxRsAccessLogRoutes routes) {
+        this.context = context;
+        this.routes = routes;
+    }
+
+    /**
+     * リソースメソッドの出力方法に従って、取り込むか否かと上限を決定する。
+     */
+    private void applyRoute() {
+        final JaxRsAccessLogRoutes.Route route = routes.get(context);
+        routes = null;
+        context = null;
+        if (route == null) {
+            return;
+        }
+        if (!route.isBodyEnabled()) {
+            ignored = true;
+        } else if (route.getMaxBodySize() > 0 && route.getMaxBodySize() < limit) {
+            limit = route.getMaxBodySize();
+        }
+    }
+
+    /**
+     * リクエストスコープに設定されたレスポンスのボディの取り込み先を取得する。
+     *
+     * @param context 実行コンテキスト
+     * @return レスポンスのボディの取り込み先。設定されていない場合は{@code null}
+     */
+    static BodyCapture getResponseCapture(ExecutionContext context) {
+        return context.getRequestScopedVar(RESPONSE_CAPTURE_KEY);
+    }
+
+    /**
+     * レスポンスのボディの取り込み先をリクエストスコープに設定する。
+     *
+     * @param context 実行コンテキスト
+     * @param capture レスポンスのボディの取り込み先
+     */
+    static void setResponseCapture(ExecutionContext context, BodyCapture capture) {
+        context.setRequestScopedVar(RESPONSE_CAPTURE_KEY, capture);
+    }
+
+    /**
+     * 読み込んだバイト列を取り込むように入力ストリームをラップする。
+     *
+     * @param in 入力ストリーム
+     * @return ラップした入力ストリーム
+     */
+    InputStream wrap(InputStream in) {
+        return new CaptureFilterInputStream(in, this);
+    }
+
+    /**
+     * 読み込んだバイト列を取り込むようにリクエストをラップする。
+     *
+     * @param request リクエスト
+     * @return ラップしたリクエスト
+     */
+    HttpServletRequest wrap(HttpServletRequest request) {
+        return new CaptureRequestWrapper(request, this);
+    }
+
+    /**
+     * 1バイトを取り込む。
+     *
+     * @param b 取り込むバイト
+     */
+    void write(int b) {
+        if (routes != null) {
+            applyRoute();
+        }
+        if (buffer == null || ignored) {
+            return;
+        }
+        if (size < limit) {
+            buffer[size++] = (byte) b;
+        } else {
+            truncated = true;
+        }
+    }
+
+    /**
+     * バイト列を取り込む。
+     *
+     * @param b 取り込むバイト列
+     * @param off 開始位置
+     * @param len バイト数
+     */
+    void write(byte[] b, int off, int len) {
+        if (routes != null) {
+            applyRoute();
+        }
+        if (buffer == null || ignored || len <= 0) {
+            return;
+        }
+        final int copySize = Math.min(len, limit - size);
+        if (copySize > 0) {
+            System.arraycopy(b, off, buffer, size, copySize);
+            size += copySize;
+        }
+        if (copySize < len) {
+            truncated = true;
+        }
+    }
+
+    /**
+     * レスポンスの書き込みを開始したことを記録する。
+     * <p/>
+     * {@link JaxRsResponseHandler}が書き込みの前に呼び出す。
+     */
+    void startWriting() {
+        writingStarted = true;
+    }
+
+    /**
+     * レスポンスの書き込みを開始したか否かを判定する。
+     * <p/>
+     * {@link JaxRsAccessLogHandler}が{@link JaxRsResponseHandler}より前に配置されている場合、
+     * 終了ログの出力時点で書き込みを開始している。
+     *
+     * @return 書き込みを開始した場合は{@code true}
+     */
+    boolean isWritingStarted() {
+        return writingStarted;
+    }
+
+    /**
+     * 取り込んだバイト数を取得する。
+     *
+     * @return 取り込んだバイト数
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * 上限を超えたため切り捨てたか否かを判定する。
+     *
+     * @return 切り捨てた場合は{@code true}
+     */
+    boolean isTruncated() {
+        return truncated;
+    }
+
+    /**
+     * 取り込んだ内容を文字列に変換する。
+     * <p/>
+     * 文字エンコーディングが指定されていない場合はUTF-8とする。
+     * 上限で切り捨てたことにより末尾の文字が途中で途切れている場合、その文字は含めない。
+     *
+     * @param encoding 文字エンコーディング。指定されていない場合は{@code null}
+     * @return 取り込んだ内容の文字列表現。解放後は空文字
+     * @throws CharacterCodingException 変換に失敗した場合
+     */
+    String toString(String encoding) throws CharacterCodingException {
+        if (buffer == null || size == 0) {
+            return "";
+        }
+        final Charset charset = Charset.forName(encoding != null ? encoding : DEFAULT_ENCODING);
+        return charset.newDecoder()
+                .onMalformedInput(CodingErrorAction.IGNORE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE)
+                .decode(ByteBuffer.wrap(buffer, 0, size))
+                .toString();
+    }
+
+    /**
+     * 取り込みを終了し、バッファを解放する。
+     * <p/>
+     * 以降に読み込まれたバイト列は取り込まない。
+     *
+     * @return 解放したバッファ。解放済みの場合は{@code null}
+     */
+    byte[] release() {
+        final byte[] released = buffer;
+        buffer = null;
+        routes = null;
+        context = null;
+        return released;
+    }
+
+    /**
+     * 読み込んだバイト列を取り込むリクエストのラッパー。
+     */
+    private static final class CaptureRequestWrapper extends HttpServletRequestWrapper {
+
+        /** デフォルトの文字エンコーディング */
+        private static final String DEFAULT_READER_ENCODING = "ISO-8859-1";
+
+        /** 取り込み先 */
+        private final BodyCapture capture;
+
+        /** 入力ストリーム */
+        private ServletInputStream inputStream;
+
+        /** リーダ */
+        private BufferedReader reader;
+
+        /**
+         * コンストラクタ。
+         *
+         * @param request リクエスト
+         * @param capture 取り込み先
+         */
+        CaptureRequestWrapper(HttpServletRequest request, BodyCapture capture) {
+            super(request);
+            this.capture = capture;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() throws IOException {
+            if (reader != null) {
+                throw new IllegalStateException("getReader() has already been called for this request.");
+            }
+            return getCaptureInputStream();
+        }
+
+        @Override
+        public BufferedReader getReader() throws IOException {
+            if (inputStream != null && reader == null) {
+                throw new IllegalStateException("getInputStream() has already been called for this request.");
+            }
+            if (reader == null) {
+                // コンテナのリーダはラップした入力ストリームを経由しないため、入力ストリームからリーダを生成する
+                final String encoding = getCharacterEncoding();
+                reader = new BufferedReader(new InputStreamReader(getCaptureInputStream(),
+                        encoding != null ? encoding : DEFAULT_READER_ENCODING));
+            }
+            return reader;
+        }
+
+        /**
+         * 読み込んだバイト列を取り込む入力ストリームを取得する。
+         *
+         * @return 入力ストリーム
+         * @throws IOException 入力ストリームの取得に失敗した場合
+         */
+        private ServletInputStream getCaptureInputStream() throws IOException {
+            if (inputStream == null) {
+                inputStream = new CaptureInputStream(super.getInputStream(), capture);
+            }
+            return inputStream;
+        }
+    }
+
+    /**
+     * 読み込んだバイト列を取り込む{@link InputStream}。
+     */
+    private static final class CaptureFilterInputStream extends FilterInputStream {
+
+        /** 取り込み先 */
+        private final BodyCapture capture;
+
+        /**
+         * コンストラクタ。
+         *
+         * @param in ラップする入力ストリーム
+         * @param capture 取り込み先
+         */
+        CaptureFilterInputStream(InputStream in, BodyCapture capture) {
+            super(in);
+            this.capture = capture;
+        }
+
+        @Override
+        public int read() throws IOException {
+            final int b = in.read();
+            if (b != -1) {
+                capture.write(b);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            final int readSize = in.read(b, off, len);
+            if (readSize > 0) {
+                capture.write(b, off, readSize);
+            }
+            return readSize;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            // 読み飛ばした分を取り込めないため、読み込んで取り込む
+            final byte[] skipBuffer = new byte[(int) Math.min(n, 512)];
+            long remaining = n;
+            while (remaining > 0) {
+                final int readSize = read(skipBuffer, 0, (int) Math.min(remaining, skipBuffer.length));
+                if (readSize == -1) {
+                    break;
+                }
+                remaining -= readSize;
+            }
+            return n - remaining;
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+    }
+
+    /**
+     * 読み込んだバイト列を取り込む{@link ServletInputStream}。
+     */
+    private static final class CaptureInputStream extends ServletInputStream {
+
+        /** ラップする入力ストリーム */
+        private final ServletInputStream in;
+
+        /** 取り込み先 */
+        private final BodyCapture capture;
+
+        /**
+         * コンストラクタ。
+         *
+         * @param in ラップする入力ストリーム
+         * @param capture 取り込み先
+         */
+        CaptureInputStream(ServletInputStream in, BodyCapture capture) {
+            this.in = in;
+            this.capture = capture;
+        }
+
+        @Override
+        public int read() throws IOException {
+            final int b = in.read();
+            if (b != -1) {
+                capture.write(b);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            final int readSize = in.read(b, off, len);
+            if (readSize > 0) {
+                capture.write(b, off, readSize);
+            }
+            return readSize;
+        }
+
+        @Override
+        public int available() throws IOException {
+            return in.available();
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+
+        @Override
+        public boolean isFinished() {
+            return in.isFinished();
+        }
+
+        @Override
+        public boolean isReady() {
+            return in.isReady();
+        }
+
+        @Override
+        public void setReadListener(ReadListener readListener) {
+            in.setReadListener(readListener);
+        }
+    }
+}
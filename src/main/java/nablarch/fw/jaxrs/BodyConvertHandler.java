@@ -4,6 +4,9 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Flow;
+
+import jakarta.ws.rs.core.MediaType;
 
 import nablarch.core.log.Logger;
 import nablarch.core.log.LoggerManager;
@@ -18,6 +21,13 @@ import nablarch.fw.web.HttpResponse.Status;
 
 /**
  * {@link BodyConverter}によるリクエスト/レスポンスの変換を行うハンドラ。
+ * <p/>
+ * リソースメソッドが{@link Flow.Publisher}を返した場合は、要素を一括で変換せずに{@link PublisherResponse}を返す。
+ * 要素はクライアントへの書き込みに合わせて1件ずつ変換され、以下の形式で書き込まれる。
+ * <pre>
+ * ・{@code @Produces}が"application/x-ndjson"の場合は、"application/json"の{@link BodyConverter}で変換した要素を改行区切りで書き込む。
+ * ・{@code @Produces}が"application/json"の場合は、要素をJSONの配列として書き込む。
+ * </pre>
  *
  * @author Kiyohito Itoh
  */
@@ -27,6 +37,9 @@ public class BodyConvertHandler implements HttpRequestHandler {
     /** ロガー */
     private static final Logger LOGGER = LoggerManager.get(BodyConvertHandler.class);
 
+    /** 改行区切りのJSON(NDJSON)のメディアタイプ */
+    static final String NDJSON = "application/x-ndjson";
+
     /** {@link BodyConverter} */
     private List<BodyConverter> bodyConverters = new ArrayList<BodyConverter>();
 
@@ -49,7 +62,12 @@ public class BodyConvertHandler implements HttpRequestHandler {
         }
 
         if (StringUtil.hasValue(consumesMediaType)) {
-            jaxRsContext.setRequest(findConverter(consumesMediaType).read(request, context));
+            final long start = System.nanoTime();
+            try {
+                jaxRsContext.setRequest(findConverter(consumesMediaType).read(request, context));
+            } finally {
+                PhaseTimings.record(context, PhaseTimings.Phase.REQUEST_BODY_READ, start);
+            }
         }
 
         final Object response = context.handleNext(request);
@@ -73,7 +91,15 @@ public class BodyConvertHandler implements HttpRequestHandler {
         }
 
         if (StringUtil.hasValue(producesMediaType)) {
-            HttpResponse convertedResponse = findConverter(producesMediaType).write(entity, context);
+            final long start = System.nanoTime();
+            final HttpResponse convertedResponse;
+            try {
+                convertedResponse = entity instanceof Flow.Publisher<?>
+                        ? createPublisherResponse((Flow.Publisher<?>) entity, producesMediaType, context)
+                        : findConverter(producesMediaType).write(entity, context);
+            } finally {
+                PhaseTimings.record(context, PhaseTimings.Phase.RESPONSE_BODY_WRITE, start);
+            }
             if (entityResponse != null) {
                 copy(entityResponse, convertedResponse);
             }
@@ -83,6 +109,34 @@ public class BodyConvertHandler implements HttpRequestHandler {
         return cast(response);
     }
 
+    /**
+     * {@link Flow.Publisher}の要素をストリーミングする{@link PublisherResponse}を生成する。
+     * <p/>
+     * 要素の形式にかかわらず、レスポンスはUTF-8で書き込む。
+     *
+     * @param publisher 要素の発行元
+     * @param mediaType {@link jakarta.ws.rs.Produces}アノテーションに指定されたメディアタイプ
+     * @param context 実行コンテキスト
+     * @return {@link PublisherResponse}
+     * @throws IllegalStateException ストリーミングできないメディアタイプが指定された場合
+     */
+    protected HttpResponse createPublisherResponse(
+            final Flow.Publisher<?> publisher, final String mediaType, final ExecutionContext context) {
+        final String lowerMediaType = mediaType.toLowerCase();
+        if (lowerMediaType.startsWith(NDJSON)) {
+            return new PublisherResponse(publisher, findConverter(MediaType.APPLICATION_JSON),
+                    PublisherResponse.Format.NDJSON, NDJSON + ";charset=UTF-8", context);
+        }
+        if (lowerMediaType.startsWith(MediaType.APPLICATION_JSON)) {
+            return new PublisherResponse(publisher, findConverter(mediaType),
+                    PublisherResponse.Format.JSON_ARRAY, MediaType.APPLICATION_JSON + ";charset=UTF-8", context);
+        }
+        throw new IllegalStateException(
+                "Flow.Publisher can be returned only when @Produces is application/json or application/x-ndjson. "
+                        + "resource method = [" + JaxRsContext.get(context).toResourcePath() + "], "
+                        + "produces media type = [" + mediaType + "]");
+    }
+
     /**
      * {@link EntityResponse}からコンバートされた{@link HttpResponse}にコピーする。
      * <p>
@@ -0,0 +1,159 @@
+package nablarch.fw.jaxrs;
+
+import nablarch.core.log.LogUtil.MapValueEditor;
+import nablarch.core.log.LogUtil.MaskingMapValueEditor;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * マスク対象であるか否かの判定結果を名前ごとにキャッシュし、マップの値をマスクするクラス。
+ * <p/>
+ * マスク対象のパターンは1つの正規表現にまとめ、名前ごとに1度だけ判定する。
+ * 以降は判定結果をキャッシュから取得するため、リクエストごとの判定はハッシュの参照のみとなる。
+ * 名前はクライアントが任意に指定できるため、キャッシュする件数には上限を設け、超えた名前は毎回判定する。
+ * <p/>
+ * 値の変換とマスクは{@link MaskingMapValueEditor}に委譲するため、出力は{@link MaskingMapValueEditor}と同じとなる。
+ */
+class CachedMaskingMapValueEditor implements MapValueEditor {
+
+    /** 判定結果をキャッシュする件数の上限 */
+    private static final int MAX_CACHE_SIZE = 1024;
+
+    /** 全ての値をマスクするパターン */
+    private static final Pattern[] ALL = {Pattern.compile(".*", Pattern.DOTALL)};
+
+    /** マスクしないパターン */
+    private static final Pattern[] NONE = new Pattern[0];
+
+    /** 後方参照を表すパターン。まとめると参照先がずれるため、含む場合はまとめない */
+    private static final Pattern BACK_REFERENCE = Pattern.compile("\\\\(?:[1-9]|k<)");
+
+    /** マスク対象のパターンをまとめた正規表現。まとめられない場合は元のパターン */
+    private final Pattern[] matchers;
+
+    /** マスクする場合に使用する{@link MaskingMapValueEditor} */
+    private final MapValueEditor maskingEditor;
+
+    /** マスクしない場合に使用する{@link MaskingMapValueEditor} */
+    private final MapValueEditor plainEditor;
+
+    /** 名前ごとの判定結果 */
+    private final ConcurrentMap<String, Boolean> decisions = new ConcurrentHashMap<String, Boolean>();
+
+    /**
+     * コンストラクタ。
+     *
+     * @param maskingChar マスク文字
+     * @param maskingPatterns マスク対象のパターン
+     */
+    CachedMaskingMapValueEditor(char maskingChar, Pattern[] maskingPatterns) {
+        matchers = combine(maskingPatterns);
+        maskingEditor = new MaskingMapValueEditor(maskingChar, ALL);
+        plainEditor = new MaskingMapValueEditor(maskingChar, NONE);
+    }
+
+    /**
+     * マスク対象のパターンを1つの正規表現にまとめる。
+     * <p/>
+     * フラグが異なるパターンを含む場合や、後方参照を含む場合はまとめずに返す。
+     *
+     * @param maskingPatterns マスク対象のパターン
+     * @return まとめた正規表現
+     */
+    private static Pattern[] combine(Pattern[] maskingPatterns) {
+        if (maskingPatterns == null || maskingPatterns.length <= 1) {
+            return maskingPatterns == null ? NONE : maskingPatterns;
+        }
+        final int flags = maskingPatterns[0].flags();
+        final StringBuilder regex = new StringBuilder();
+        for (Pattern pattern : maskingPatterns) {
+            if (pattern.flags() != flags || BACK_REFERENCE.matcher(pattern.pattern()).find()) {
+                return maskingPatterns;
+            }
+            if (regex.length() > 0) {
+                regex.append('|');
+            }
+            regex.append("(?:").append(pattern.pattern()).append(')');
+        }
+        try {
+            return new Pattern[] {Pattern.compile(regex.toString(), flags)};
+        } catch (PatternSyntaxException e) {
+            // 名前付きグループの重複などでまとめられない場合
+            return maskingPatterns;
+        }
+    }
+
+    @Override
+    public String edit(String key, Object value) {
+        return isMaskingTarget(key) ? maskingEditor.edit(key, value) : plainEditor.edit(key, value);
+    }
+
+    /**
+     * マスク対象の値をマスクしたマップを返す。
+     * <p/>
+     * マスク対象の名前を含まない場合は、引数のマップをそのまま返す。
+     * 含む場合は、マスク対象の値のみをマスクした文字列に置き換えたマップを、元の順序で返す。
+     *
+     * @param map マップ
+     * @return マスクしたマップ
+     */
+    Map<String, ?> mask(Map<String, ?> map) {
+        Map<String, Object> masked = null;
+        for (Map.Entry<String, ?> entry : map.entrySet()) {
+            if (isMaskingTarget(entry.getKey())) {
+                masked = new LinkedHashMap<String, Object>(map);
+                break;
+            }
+        }
+        if (masked == null) {
+            return map;
+        }
+        for (Map.Entry<String, Object> entry : masked.entrySet()) {
+            if (isMaskingTarget(entry.getKey())) {
+                entry.setValue(maskingEditor.edit(entry.getKey(), entry.getValue()));
+            }
+        }
+        return masked;
+    }
+
+    /**
+     * 名前がマスク対象であるか否かを判定する。
+     *
+     * @param key 名前
+     * @return マスク対象の場合は{@code true}
+     */
+    boolean isMaskingTarget(String key) {
+        if (matchers.length == 0 || key == null) {
+            return false;
+        }
+        final Boolean cached = decisions.get(key);
+        if (cached != null) {
+            return cached;
+        }
+        final boolean decision = matches(key);
+        if (decisions.size() < MAX_CACHE_SIZE) {
+            decisions.putIfAbsent(key, decision);
+        }
+        return decision;
+    }
+
+    /**
+     * 名前がいずれかのパターンを含むか否かを判定する。
+     *
+     * @param key 名前
+     * @return 含む場合は{@code true}
+     */
+    private boolean matches(String key) {
+        for (Pattern matcher : matchers) {
+            if (matcher.matcher(key).find()) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
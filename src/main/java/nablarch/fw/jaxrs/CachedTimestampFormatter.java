@@ -0,0 +1,257 @@
+package nablarch.fw.jaxrs;
+
+import java.text.DateFormat;
+import java.text.SimpleDateFormat;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Date;
+import java.util.GregorianCalendar;
+
+/**
+ * 日時をアクセスログに出力する文字列にフォーマットするクラス。
+ * <p/>
+ * {@link DateTimeFormatter}でフォーマットし、秒までの部分は直前にフォーマットした秒と同じであれば再利用する。
+ * ミリ秒はフォーマットのたびに3桁の数字として追加する。
+ * 再利用する値は不変のオブジェクトとして保持し、ロックせずに差し替えるため、多数のスレッドから同時に使用できる。
+ * <p/>
+ * 元の{@link SimpleDateFormat}と出力が一致することを確認できたパターンのみを扱う。
+ * 確認できない場合、{@link #create(DateFormat)}は{@code null}を返すため、呼び出し元は元の{@link DateFormat}を使用すること。
+ */
+final class CachedTimestampFormatter {
+
+    /** {@link SimpleDateFormat}と{@link DateTimeFormatter}で意味が同じパターン文字 */
+    private static final String COMPATIBLE_LETTERS = "GyMdDHhKkmsaE";
+
+    /** ミリ秒のパターン */
+    private static final String MILLIS_PATTERN = "SSS";
+
+    /** 出力が一致することを確認するための日時(ミリ秒) */
+    private static final long[] SAMPLE_MILLIS = {
+            0L, 1706745600001L, 1709251199999L, 1711929600123L, 1714564800456L, 1717243200789L,
+            1719835200010L, 1722556799500L, 1725148800999L, 1727784000100L, 1730462400020L,
+            1733054400003L, 1735689599998L
+    };
+
+    /** 秒までの部分をフォーマットするフォーマッタ。ミリ秒を含まない場合はパターン全体。空の場合は{@code null} */
+    private final DateTimeFormatter prefixFormatter;
+
+    /** ミリ秒より後の部分をフォーマットするフォーマッタ。ミリ秒を含まない場合、または空の場合は{@code null} */
+    private final DateTimeFormatter suffixFormatter;
+
+    /** ミリ秒を含むか否か */
+    private final boolean hasMillis;
+
+    /** タイムゾーン */
+    private final ZoneId zone;
+
+    /** 直前にフォーマットした秒の結果 */
+    private volatile Entry cache = new Entry(Long.MIN_VALUE, "", "");
+
+    /**
+     * コンストラクタ。
+     *
+     * @param prefixFormatter 秒までの部分をフォーマットするフォーマッタ
+     * @param suffixFormatter ミリ秒より後の部分をフォーマットするフォーマッタ
+     * @param hasMillis ミリ秒を含むか否か
+     * @param zone タイムゾーン
+     */
+    private CachedTimestampFormatter(DateTimeFormatter prefixFormatter, DateTimeFormatter suffixFormatter,
+                                     boolean hasMillis, ZoneId zone) {
+        this.prefixFormatter = prefixFormatter;
+        this.suffixFormatter = suffixFormatter;
+        this.hasMillis = hasMillis;
+        this.zone = zone;
+    }
+
+    /**
+     * {@link DateFormat}と同じ出力となる{@link CachedTimestampFormatter}を生成する。
+     * <p/>
+     * 次のいずれかに該当する場合は生成しない。
+     * <ul>
+     *     <li>{@link SimpleDateFormat}(サブクラスを除く)でない、またはグレゴリオ暦を使用していない</li>
+     *     <li>パターンに、{@link SimpleDateFormat}と{@link DateTimeFormatter}で意味が異なる文字を含む</li>
+     *     <li>秒未満を{@code SSS}以外で指定している、または{@code SSS}を複数含む</li>
+     *     <li>いくつかの日時をフォーマットした結果が{@link DateFormat}と一致しない</li>
+     * </ul>
+     *
+     * @param dateFormat 日時フォーマット
+     * @return {@link CachedTimestampFormatter}。生成しない場合は{@code null}
+     */
+    static CachedTimestampFormatter create(DateFormat dateFormat) {
+        if (dateFormat == null || dateFormat.getClass() != SimpleDateFormat.class
+                || dateFormat.getCalendar().getClass() != GregorianCalendar.class) {
+            return null;
+        }
+        final SimpleDateFormat simpleDateFormat = (SimpleDateFormat) ((SimpleDateFormat) dateFormat).clone();
+        final String pattern = simpleDateFormat.toPattern();
+        final int millisIndex = findMillisIndex(pattern);
+        if (millisIndex == -2) {
+            return null;
+        }
+        final CachedTimestampFormatter formatter;
+        try {
+            final ZoneId zone = simpleDateFormat.getTimeZone().toZoneId();
+            if (millisIndex < 0) {
+                formatter = new CachedTimestampFormatter(ofPattern(pattern), null, false, zone);
+            } else {
+                formatter = new CachedTimestampFormatter(ofPattern(pattern.substring(0, millisIndex)),
+                        ofPattern(pattern.substring(millisIndex + MILLIS_PATTERN.length())), true, zone);
+            }
+            for (long millis : SAMPLE_MILLIS) {
+                if (!simpleDateFormat.format(new Date(millis)).equals(formatter.format(millis))) {
+                    return null;
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            return null;
+        } catch (DateTimeException e) {
+            return null;
+        }
+        return formatter;
+    }
+
+    /**
+     * パターン中のミリ秒の位置を取得する。
+     *
+     * @param pattern パターン
+     * @return ミリ秒の位置。ミリ秒を含まない場合は{@code -1}、このクラスで扱えないパターンの場合は{@code -2}
+     */
+    private static int findMillisIndex(String pattern) {
+        int millisIndex = -1;
+        boolean quoted = false;
+        int i = 0;
+        while (i < pattern.length()) {
+            final char c = pattern.charAt(i);
+            if (c == '\'') {
+                quoted = !quoted;
+                i++;
+                continue;
+            }
+            if (quoted || !isLetter(c)) {
+                if (!quoted && "[]{}#".indexOf(c) >= 0) {
+                    // DateTimeFormatterでは予約されている文字
+                    return -2;
+                }
+                i++;
+                continue;
+            }
+            int end = i + 1;
+            while (end < pattern.length() && pattern.charAt(end) == c) {
+                end++;
+            }
+            if (c == 'S') {
+                if (millisIndex >= 0 || end - i != MILLIS_PATTERN.length()) {
+                    return -2;
+                }
+                millisIndex = i;
+            } else if (COMPATIBLE_LETTERS.indexOf(c) < 0) {
+                return -2;
+            }
+            i = end;
+        }
+        return quoted ? -2 : millisIndex;
+    }
+
+    /**
+     * パターン文字であるか否かを判定する。
+     *
+     * @param c 文字
+     * @return パターン文字の場合は{@code true}
+     */
+    private static boolean isLetter(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+
+    /**
+     * パターンからフォーマッタを生成する。
+     *
+     * @param pattern パターン
+     * @return フォーマッタ。パターンが空の場合は{@code null}
+     */
+    private static DateTimeFormatter ofPattern(String pattern) {
+        return pattern.isEmpty() ? null : DateTimeFormatter.ofPattern(pattern);
+    }
+
+    /**
+     * 日時をフォーマットする。
+     *
+     * @param millis 日時(ミリ秒)
+     * @return フォーマットした文字列
+     */
+    String format(long millis) {
+        final StringBuilder sb = new StringBuilder(32);
+        formatTo(millis, sb);
+        return sb.toString();
+    }
+
+    /**
+     * 日時をフォーマットして追加する。
+     *
+     * @param millis 日時(ミリ秒)
+     * @param sb 追加先
+     */
+    void formatTo(long millis, StringBuilder sb) {
+        final long second = Math.floorDiv(millis, 1000L);
+        Entry entry = cache;
+        if (entry.second != second) {
+            entry = render(second);
+            cache = entry;
+        }
+        sb.append(entry.prefix);
+        if (hasMillis) {
+            final int milli = (int) Math.floorMod(millis, 1000L);
+            if (milli < 100) {
+                sb.append('0');
+            }
+            if (milli < 10) {
+                sb.append('0');
+            }
+            sb.append(milli);
+        }
+        sb.append(entry.suffix);
+    }
+
+    /**
+     * 秒単位でフォーマットした結果を生成する。
+     *
+     * @param second 日時(秒)
+     * @return フォーマットした結果
+     */
+    private Entry render(long second) {
+        final ZonedDateTime dateTime = Instant.ofEpochSecond(second).atZone(zone);
+        return new Entry(second,
+                prefixFormatter == null ? "" : prefixFormatter.format(dateTime),
+                suffixFormatter == null ? "" : suffixFormatter.format(dateTime));
+    }
+
+    /**
+     * 秒単位でフォーマットした結果。
+     */
+    private static final class Entry {
+
+        /** 日時(秒) */
+        private final long second;
+
+        /** 秒までの部分 */
+        private final String prefix;
+
+        /** ミリ秒より後の部分 */
+        private final String suffix;
+
+        /**
+         * コンストラクタ。
+         *
+         * @param second 日時(秒)
+         * @param prefix 秒までの部分
+         * @param suffix ミリ秒より後の部分
+         */
+        Entry(long second, String prefix, String suffix) {
+            this.second = second;
+            this.prefix = prefix;
+            this.suffix = suffix;
+        }
+    }
+}
@@ -0,0 +1,273 @@
+package nablarch.fw.jaxrs;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.Iterator;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * クライアント端末のIPアドレスからホスト名をバックグラウンドで逆引きし、一定時間キャッシュするクラス。
+ * <p/>
+ * {@code HttpServletRequest#getRemoteHost()}はコンテナの設定によってはリクエストを処理するスレッドで逆引きするため、
+ * DNSの応答が遅い場合にリクエストの処理が止まってしまう。
+ * このクラスは逆引きをバックグラウンドのスレッドで行い、呼び出し元のスレッドでは待たない。
+ * <ul>
+ *     <li>キャッシュにない場合は、逆引きを依頼してIPアドレスをそのまま返す</li>
+ *     <li>キャッシュの有効期間が過ぎている場合は、逆引きを依頼してキャッシュしていたホスト名を返す</li>
+ *     <li>逆引きに失敗した場合や、タイムアウトより時間がかかった場合は、IPアドレスをホスト名としてキャッシュする</li>
+ * </ul>
+ * キャッシュする件数には上限があり、超える場合は任意のエントリを削除する。
+ * <p/>
+ * 逆引きは中断できないため、タイムアウトは逆引きが終わった後に判定する。
+ * 逆引きは複数のデーモンスレッドで並行して実行するが、応答の遅い逆引きはその間スレッドを占有するため、
+ * スレッド数を超える遅い逆引きがあると、以降の逆引きはそれらが終わるまで待たされる。
+ * スレッドは一定時間使用されなければ終了する。
+ */
+class ClientHostResolver {
+
+    /** 逆引きを実行するスレッド数 */
+    private static final int LOOKUP_THREADS = 4;
+
+    /** 逆引きを実行するスレッドを終了するまでのアイドル時間(秒) */
+    private static final long KEEP_ALIVE_SECONDS = 60L;
+
+    /** キャッシュ */
+    private final ConcurrentMap<String, Entry> cache = new ConcurrentHashMap<String, Entry>();
+
+    /** キャッシュする件数の上限 */
+    private final int maxSize;
+
+    /** キャッシュの有効期間(ミリ秒) */
+    private final long ttlMillis;
+
+    /** 逆引きのタイムアウト(ミリ秒) */
+    private final long timeoutMillis;
+
+    /** 逆引きを実行するスレッド */
+    private final Executor executor;
+
+    /** キャッシュしていたホスト名を返した件数(逆引き中のIPアドレスを返した件数を含む) */
+    private final AtomicLong hitCount = new AtomicLong();
+
+    /** キャッシュにない、または有効期間が過ぎていた件数 */
+    private final AtomicLong missCount = new AtomicLong();
+
+    /** 逆引きがタイムアウトより時間がかかった件数 */
+    private final AtomicLong timeoutCount = new AtomicLong();
+
+    /**
+     * コンストラクタ。
+     * <p/>
+     * 逆引きは複数のデーモンスレッドで並行して実行する。
+     * 実行待ちの逆引きがキャッシュする件数の上限を超える場合、超えた分は依頼しない。
+     *
+     * @param maxSize キャッシュする件数の上限
+     * @param ttlMillis キャッシュの有効期間(ミリ秒)
+     * @param timeoutMillis 逆引きのタイムアウト(ミリ秒)
+     */
+    ClientHostResolver(int maxSize, long ttlMillis, long timeoutMillis) {
+        this(maxSize, ttlMillis, timeoutMillis, createExecutor(maxSize));
+    }
+
+    /**
+     * コンストラクタ。
+     *
+     * @param maxSize キャッシュする件数の上限
+     * @param ttlMillis キャッシュの有効期間(ミリ秒)
+     * @param timeoutMillis 逆引きのタイムアウト(ミリ秒)
+     * @param executor 逆引きを実行するスレッド
+     */
+    ClientHostResolver(int maxSize, long ttlMillis, long timeoutMillis, Executor executor) {
+        this.maxSize = maxSize;
+        this.ttlMillis = ttlMillis;
+        this.timeoutMillis = timeoutMillis;
+        this.executor = executor;
+    }
+
+    /**
+     * 逆引きを実行するスレッドを生成する。
+     *
+     * @param queueSize 実行待ちにできる件数
+     * @return 逆引きを実行するスレッド
+     */
+    private static Executor createExecutor(int queueSize) {
+        final ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                LOOKUP_THREADS, LOOKUP_THREADS, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<Runnable>(Math.max(queueSize, 1)),
+                new ThreadFactory() {
+                    private final ThreadFactory delegate = Executors.defaultThreadFactory();
+
+                    @Override
+                    public Thread newThread(Runnable runnable) {
+                        final Thread thread = delegate.newThread(runnable);
+                        thread.setName("client-host-resolver-" + thread.getName());
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                },
+                new ThreadPoolExecutor.DiscardPolicy());
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * 逆引きを実行するスレッドを終了する。
+     * <p/>
+     * 以降に依頼した逆引きは実行せず、IPアドレスを返し続ける。
+     */
+    void stop() {
+        if (executor instanceof ExecutorService) {
+            ((ExecutorService) executor).shutdownNow();
+        }
+    }
+
+    /**
+     * 逆引きを実行するスレッドを終了したか否かを判定する。
+     *
+     * @return 終了した場合は{@code true}
+     */
+    boolean isStopped() {
+        return executor instanceof ExecutorService && ((ExecutorService) executor).isShutdown();
+    }
+
+    /**
+     * IPアドレスに対応するホスト名を取得する。
+     * <p/>
+     * 逆引きの完了は待たない。
+     *
+     * @param address IPアドレス
+     * @return ホスト名。キャッシュにない場合はIPアドレス
+     */
+    String resolve(final String address) {
+        if (address == null) {
+            return null;
+        }
+        final long now = System.currentTimeMillis();
+        final Entry entry = cache.get(address);
+        if (entry != null && now < entry.expiresAt) {
+            hitCount.incrementAndGet();
+            return entry.host;
+        }
+        missCount.incrementAndGet();
+        final String host = entry != null ? entry.host : address;
+        // 逆引きが終わるまでの間は、同じIPアドレスを重複して依頼しないよう実行中のエントリを置いておく
+        final Entry pending = new Entry(host, now + timeoutMillis);
+        final boolean requested = entry != null
+                ? cache.replace(address, entry, pending)
+                : cache.putIfAbsent(address, pending) == null;
+        if (requested) {
+            evictIfFull();
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    refresh(address);
+                }
+            });
+        }
+        return host;
+    }
+
+    /**
+     * 逆引きしてキャッシュを更新する。
+     *
+     * @param address IPアドレス
+     */
+    private void refresh(String address) {
+        final long start = System.nanoTime();
+        String host;
+        try {
+            host = lookup(address);
+        } catch (UnknownHostException e) {
+            host = address;
+        } catch (SecurityException e) {
+            host = address;
+        }
+        if (TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) > timeoutMillis) {
+            // 応答の遅いDNSを繰り返し待たないよう、IPアドレスをキャッシュする
+            timeoutCount.incrementAndGet();
+            host = address;
+        }
+        cache.put(address, new Entry(host, System.currentTimeMillis() + ttlMillis));
+    }
+
+    /**
+     * IPアドレスを逆引きする。
+     *
+     * @param address IPアドレス
+     * @return ホスト名。逆引きできない場合はIPアドレス
+     * @throws UnknownHostException IPアドレスの形式が不正な場合
+     */
+    String lookup(String address) throws UnknownHostException {
+        return InetAddress.getByName(address).getHostName();
+    }
+
+    /**
+     * キャッシュする件数の上限を超えている場合、エントリを削除する。
+     */
+    private void evictIfFull() {
+        final Iterator<String> addresses = cache.keySet().iterator();
+        while (cache.size() > maxSize && addresses.hasNext()) {
+            addresses.next();
+            addresses.remove();
+        }
+    }
+
+    /**
+     * キャッシュしていたホスト名を返した件数を取得する。
+     *
+     * @return 件数
+     */
+    long getHitCount() {
+        return hitCount.get();
+    }
+
+    /**
+     * キャッシュにない、または有効期間が過ぎていた件数を取得する。
+     *
+     * @return 件数
+     */
+    long getMissCount() {
+        return missCount.get();
+    }
+
+    /**
+     * 逆引きがタイムアウトより時間がかかった件数を取得する。
+     *
+     * @return 件数
+     */
+    long getTimeoutCount() {
+        return timeoutCount.get();
+    }
+
+    /**
+     * キャッシュのエントリ。
+     */
+    private static final class Entry {
+
+        /** ホスト名 */
+        private final String host;
+
+        /** 有効期限(ミリ秒) */
+        private final long expiresAt;
+
+        /**
+         * コンストラクタ。
+         *
+         * @param host ホスト名
+         * @param expiresAt 有効期限(ミリ秒)
+         */
+        Entry(String host, long expiresAt) {
+            this.host = host;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
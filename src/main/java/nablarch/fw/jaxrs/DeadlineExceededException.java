@@ -0,0 +1,65 @@
+package nablarch.fw.jaxrs;
+
+import nablarch.core.util.annotation.Published;
+
+/**
+ * リクエストの処理期限を過ぎたことを表す例外。
+ * <p/>
+ * {@link ErrorResponseBuilder}は、処理の開始前に期限を過ぎていた場合は503、
+ * 処理中に期限を過ぎた場合は504のレスポンスを生成する。
+ *
+ * @see RequestDeadline
+ */
+@Published
+public class DeadlineExceededException extends RuntimeException {
+
+    /** シリアルバージョンUID */
+    private static final long serialVersionUID = 1L;
+
+    /** タイムアウト(ミリ秒) */
+    private final long timeoutMillis;
+
+    /** 処理の開始前に期限を過ぎていたか否か */
+    private final boolean beforeProcessing;
+
+    /**
+     * コンストラクタ。
+     *
+     * @param timeoutMillis タイムアウト(ミリ秒)
+     * @param beforeProcessing 処理の開始前に期限を過ぎていた場合は{@code true}
+     */
+    public DeadlineExceededException(final long timeoutMillis, final boolean beforeProcessing) {
+        this(timeoutMillis, beforeProcessing, null);
+    }
+
+    /**
+     * コンストラクタ。
+     *
+     * @param timeoutMillis タイムアウト(ミリ秒)
+     * @param beforeProcessing 処理の開始前に期限を過ぎていた場合は{@code true}
+     * @param cause 期限切れによって発生した例外
+     */
+    public DeadlineExceededException(final long timeoutMillis, final boolean beforeProcessing, final Throwable cause) {
+        super("request deadline exceeded. timeout = [" + timeoutMillis + "ms]", cause);
+        this.timeoutMillis = timeoutMillis;
+        this.beforeProcessing = beforeProcessing;
+    }
+
+    /**
+     * タイムアウト(ミリ秒)を取得する。
+     *
+     * @return タイムアウト(ミリ秒)
+     */
+    public long getTimeoutMillis() {
+        return timeoutMillis;
+    }
+
+    /**
+     * 処理の開始前に期限を過ぎていたか否かを取得する。
+     *
+     * @return 処理の開始前に期限を過ぎていた場合は{@code true}
+     */
+    public boolean isBeforeProcessing() {
+        return beforeProcessing;
+    }
+}
@@ -16,6 +16,8 @@ import nablarch.fw.web.HttpResponse;
  * 例外クラス                                    ステータスコード
  * --------------------------------------------- --------------------
  * ApplicationException                          400
+ * DeadlineExceededException(処理の開始前)       503
+ * DeadlineExceededException(処理中)             504
  * 上記以外                                      500
  * --------------------------------------------- --------------------
  *
@@ -30,6 +32,8 @@ public class ErrorResponseBuilder {
      * エラーレスポンスを生成する。
      * <p/>
      * 発生したエラーが、{@link ApplicationException}の場合は、{@code 400}を生成する。
+     * {@link DeadlineExceededException}の場合は、処理の開始前に期限を過ぎていれば{@code 503}、
+     * 処理中に期限を過ぎていれば{@code 504}を生成する。
      * それ以外のエラーの場合には、{@code 500}を生成する。
      *
      * @param request {@link HttpRequest}
@@ -40,6 +44,8 @@ public class ErrorResponseBuilder {
     public HttpResponse build(HttpRequest request, ExecutionContext context, Throwable throwable) {
         if (throwable instanceof ApplicationException) {
             return new HttpResponse(400);
+        } else if (throwable instanceof DeadlineExceededException) {
+            return new HttpResponse(((DeadlineExceededException) throwable).isBeforeProcessing() ? 503 : 504);
         } else {
             return new HttpResponse(500);
         }
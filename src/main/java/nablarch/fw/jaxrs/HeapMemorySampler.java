@@ -0,0 +1,174 @@
+package nablarch.fw.jaxrs;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.MemoryUsage;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ヒープメモリの使用状況とGCの累計をバックグラウンドで定期的に取得するクラス。
+ * <p/>
+ * {@link MemoryMXBean#getHeapMemoryUsage()}は呼び出しごとに全てのメモリプールを走査するため、
+ * リクエストごとに呼び出さず、一定間隔で取得した値({@link Sample})を参照する。
+ * 参照される値は最大で取得間隔の分だけ古くなる。
+ */
+final class HeapMemorySampler {
+
+    /** 取得した値 */
+    private volatile Sample latest;
+
+    /** 定期的に取得するタイマー */
+    private final ScheduledThreadPoolExecutor timer;
+
+    /**
+     * コンストラクタ。
+     * <p/>
+     * 生成時に1回取得し、以降は指定された間隔で取得する。
+     *
+     * @param intervalMillis 取得間隔(ミリ秒)
+     */
+    HeapMemorySampler(long intervalMillis) {
+        latest = take();
+        timer = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+            private final ThreadFactory delegate = Executors.defaultThreadFactory();
+
+            @Override
+            public Thread newThread(Runnable runnable) {
+                final Thread thread = delegate.newThread(runnable);
+                thread.setName("heap-memory-sampler-" + thread.getName());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        timer.scheduleAtFixedRate(new Runnable() {
+            @Override
+            public void run() {
+                latest = take();
+            }
+        }, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 最後に取得した値を返す。
+     *
+     * @return 最後に取得した値
+     */
+    Sample getLatest() {
+        return latest;
+    }
+
+    /**
+     * 定期的な取得を停止する。
+     */
+    void stop() {
+        timer.shutdownNow();
+    }
+
+    /**
+     * 定期的な取得を停止したか否かを判定する。
+     *
+     * @return 停止した場合は{@code true}
+     */
+    boolean isStopped() {
+        return timer.isShutdown();
+    }
+
+    /**
+     * ヒープメモリの使用状況とGCの累計を取得する。
+     *
+     * @return 取得した値
+     */
+    static Sample take() {
+        final MemoryUsage heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage();
+        final long max = heap.getMax();
+        long gcCount = 0;
+        long gcTime = 0;
+        final List<GarbageCollectorMXBean> collectors = ManagementFactory.getGarbageCollectorMXBeans();
+        for (GarbageCollectorMXBean collector : collectors) {
+            // 取得できないコレクタは-1を返すため、合計に含めない
+            final long count = collector.getCollectionCount();
+            if (count > 0) {
+                gcCount += count;
+            }
+            final long time = collector.getCollectionTime();
+            if (time > 0) {
+                gcTime += time;
+            }
+        }
+        return new Sample(max, max - heap.getUsed(), gcCount, gcTime);
+    }
+
+    /**
+     * ある時点のヒープメモリの使用状況とGCの累計。
+     */
+    static final class Sample {
+
+        /** 最大メモリ量 */
+        private final long maxMemory;
+
+        /** 空きメモリ量 */
+        private final long freeMemory;
+
+        /** GCの累計回数 */
+        private final long gcCount;
+
+        /** GCの累計時間(ミリ秒) */
+        private final long gcTime;
+
+        /**
+         * コンストラクタ。
+         *
+         * @param maxMemory 最大メモリ量
+         * @param freeMemory 空きメモリ量
+         * @param gcCount GCの累計回数
+         * @param gcTime GCの累計時間(ミリ秒)
+         */
+        Sample(long maxMemory, long freeMemory, long gcCount, long gcTime) {
+            this.maxMemory = maxMemory;
+            this.freeMemory = freeMemory;
+            this.gcCount = gcCount;
+            this.gcTime = gcTime;
+        }
+
+        /**
+         * 最大メモリ量を取得する。
+         *
+         * @return 最大メモリ量
+         */
+        long getMaxMemory() {
+            return maxMemory;
+        }
+
+        /**
+         * 空きメモリ量を取得する。
+         *
+         * @return 空きメモリ量
+         */
+        long getFreeMemory() {
+            return freeMemory;
+        }
+
+        /**
+         * GCの累計回数を取得する。
+         *
+         * @return GCの累計回数
+         */
+        long getGcCount() {
+            return gcCount;
+        }
+
+        /**
+         * GCの累計時間を取得する。
+         *
+         * @return GCの累計時間(ミリ秒)
+         */
+        long getGcTime() {
+            return gcTime;
+        }
+    }
+}
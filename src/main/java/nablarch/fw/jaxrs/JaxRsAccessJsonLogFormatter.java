@@ -3,7 +3,6 @@ package nablarch.fw.jaxrs;
 import nablarch.common.web.session.InternalSessionUtil;
 import nablarch.core.ThreadContext;
 import nablarch.core.log.LogUtil.MapValueEditor;
-import nablarch.core.log.LogUtil.MaskingMapValueEditor;
 import nablarch.core.log.Logger;
 import nablarch.core.log.LoggerManager;
 import nablarch.core.log.app.AppLogUtil;
@@ -28,6 +27,12 @@ import static nablarch.fw.jaxrs.JsonStringToJsonSerializer.JsonString;
 
 /**
  * RESTfulウェブサービスのアクセスログのメッセージをフォーマットするクラス。
+ * <p>
+ * {@code directWriteEnabled}に{@code true}を指定した場合は直接書き込みモードとなり、
+ * 項目と値のマップを作らずに、設定された順で出力項目をスレッドごとに再利用するバッファへ直接書き込む。
+ * ボディをJSONとしてそのまま出力するか否かは、前後の空白を除いた先頭と末尾の文字のみで判定する。
+ * 出力項目に{@link JsonLogItemWriter}を実装していないものが含まれる場合は、直接書き込みは行わない。
+ * </p>
  */
 @Published(tag = "architect")
 public class JaxRsAccessJsonLogFormatter extends JaxRsAccessLogFormatter {
@@ -68,6 +73,9 @@ public class JaxRsAccessJsonLogFormatter extends JaxRsAccessLogFormatter {
     /** セッションストアIDの項目名 */
     private static final String TARGET_NAME_SESSION_STORE_ID = "sessionStoreId";
 
+    /** 項目名 */
+    private static final String TARGET_NAME_SESSION_SKIPPED = "sessionSkipped";
+
     /** ステータスコードの項目名 */
     private static final String TARGET_NAME_STATUS_CODE = "statusCode";
 
@@ -95,6 +103,33 @@ public class JaxRsAccessJsonLogFormatter extends JaxRsAccessLogFormatter {
     /** 空きメモリ量(開始時)の項目名 */
     private static final String TARGET_NAME_FREE_MEMORY = "freeMemory";
 
+    /** GCの累計回数(開始時)の項目名 */
+    private static final String TARGET_NAME_GC_COUNT = "gcCount";
+
+    /** GCの累計時間(開始時)の項目名 */
+    private static final String TARGET_NAME_GC_TIME = "gcTime";
+
+    /** ディスパッチの処理時間の項目名 */
+    private static final String TARGET_NAME_DISPATCH_TIME = "dispatchTime";
+
+    /** リクエストボディの変換時間の項目名 */
+    private static final String TARGET_NAME_REQUEST_BODY_READ_TIME = "requestBodyReadTime";
+
+    /** バリデーションの処理時間の項目名 */
+    private static final String TARGET_NAME_VALIDATION_TIME = "validationTime";
+
+    /** リソースメソッドの処理時間の項目名 */
+    private static final String TARGET_NAME_RESOURCE_METHOD_TIME = "resourceMethodTime";
+
+    /** レスポンスボディの変換時間の項目名 */
+    private static final String TARGET_NAME_RESPONSE_BODY_WRITE_TIME = "responseBodyWriteTime";
+
+    /** レスポンスの書き込み時間の項目名 */
+    private static final String TARGET_NAME_RESPONSE_WRITE_TIME = "responseWriteTime";
+
+    /** 実効サンプリング率の項目名 */
+    private static final String TARGET_NAME_SAMPLE_RATE = "sampleRate";
+
     /** リクエストボディの項目名 */
     private static final String TARGET_NAME_REQUEST_BODY = "requestBody";
 
@@ -113,6 +148,15 @@ public class JaxRsAccessJsonLogFormatter extends JaxRsAccessLogFormatter {
     /** リクエスト処理終了時のラベルのプロパティ名 */
     private static final String PROPS_END_LABEL = PROPS_PREFIX + "endLabel";
 
+    /** 直接書き込みモードの有効化有無のプロパティ名 */
+    private static final String PROPS_DIRECT_WRITE_ENABLED = PROPS_PREFIX + "directWriteEnabled";
+
+    /** メッセージの先頭に付加する文字列のプロパティ名 */
+    private static final String PROPS_STRUCTURED_MESSAGE_PREFIX = PROPS_PREFIX + "structuredMessagePrefix";
+
+    /** デフォルトのメッセージの先頭に付加する文字列 */
+    private static final String DEFAULT_STRUCTURED_MESSAGE_PREFIX = "$JSON$";
+
     /** デフォルトのリクエスト処理開始時の出力項目 */
     private static final String DEFAULT_BEGIN_TARGETS = "label,requestId,userId,sessionId,url,"
             + "method,port,clientIpAddress,clientHost";
@@ -136,9 +180,27 @@ public class JaxRsAccessJsonLogFormatter extends JaxRsAccessLogFormatter {
     /** 出力対象にメモリ項目が含まれているか否か。 */
     private boolean containsMemoryItem;
 
+    /** 出力対象にフェーズごとの処理時間の項目が含まれているか否か。 */
+    private boolean containsPhaseTimeItem;
+
+    /** 出力対象にレスポンスの書き込みの処理時間の項目が含まれているか否か。 */
+    private boolean containsResponseWriteTimeItem;
+
     /** 各種ログのJSONフォーマット支援オブジェクト */
     private JsonLogFormatterSupport support;
 
+    /** 直接書き込みモードでのリクエスト処理開始時のログ出力項目。直接書き込みモードでない場合は{@code null} */
+    private List<JsonLogItemWriter> beginItemWriters;
+
+    /** 直接書き込みモードでのリクエスト処理終了時のログ出力項目。直接書き込みモードでない場合は{@code null} */
+    private List<JsonLogItemWriter> endItemWriters;
+
+    /** メッセージの先頭に付加する文字列 */
+    private String structuredMessagePrefix;
+
+    /** スレッドごとに再利用する書き込み先 */
+    private ThreadLocal<JaxRsAccessJsonLogWriter> writers;
+
     /**
      * 初期化。
      * フォーマット済みのログ出力項目を初期化する。
@@ -147,10 +209,17 @@ public class JaxRsAccessJsonLogFormatter extends JaxRsAccessLogFormatter {
     @Override
     public void initialize(Map<String, String> props) {
         initializeEnabled(props);
+        initializeBodyCapture(props);
+        initializeClientHost(props);
+        initializeSession(props);
 
         JsonSerializationSettings settings = new JsonSerializationSettings(props, PROPS_PREFIX, AppLogUtil.getFilePath());
         JsonSerializationManager serializationManager = createSerializationManager(settings);
         support = new JsonLogFormatterSupport(serializationManager, settings);
+        boolean directWriteEnabled = Boolean.parseBoolean(props.get(PROPS_DIRECT_WRITE_ENABLED));
+        if (directWriteEnabled) {
+            initializeDirectWrite(props, serializationManager);
+        }
 
         Map<String, JsonLogObjectBuilder<JaxRsAccessLogContext>> objectBuilders = getObjectBuilders(props);
 
@@ -158,17 +227,58 @@ public class JaxRsAccessJsonLogFormatter extends JaxRsAccessLogFormatter {
             String label = getProp(props, PROPS_BEGIN_LABEL, DEFAULT_BEGIN_LABEL);
             objectBuilders.put(TARGET_NAME_LABEL, new LabelBuilder(label));
             beginStructuredTargets = getStructuredTargets(objectBuilders, props, PROPS_BEGIN_TARGETS, DEFAULT_BEGIN_TARGETS);
+            if (directWriteEnabled) {
+                beginItemWriters = getItemWriters(beginStructuredTargets);
+            }
         }
 
         if (isEndOutputEnabled()) {
             String label = getProp(props, PROPS_END_LABEL, DEFAULT_END_LABEL);
             objectBuilders.put(TARGET_NAME_LABEL, new LabelBuilder(label));
             endStructuredTargets = getStructuredTargets(objectBuilders, props, PROPS_END_TARGETS, DEFAULT_END_TARGETS);
+            if (directWriteEnabled) {
+                endItemWriters = getItemWriters(endStructuredTargets);
+            }
 
             initContainsMemoryItem();
         }
     }
 
+    /**
+     * 直接書き込みモードを初期化する。
+     * @param props 各種ログ出力の設定情報
+     * @param serializationManager 値の書き込みに使用する{@link JsonSerializationManager}
+     */
+    private void initializeDirectWrite(Map<String, String> props, final JsonSerializationManager serializationManager) {
+        structuredMessagePrefix = getProp(props, PROPS_STRUCTURED_MESSAGE_PREFIX, DEFAULT_STRUCTURED_MESSAGE_PREFIX);
+        writers = new ThreadLocal<JaxRsAccessJsonLogWriter>() {
+            @Override
+            protected JaxRsAccessJsonLogWriter initialValue() {
+                return new JaxRsAccessJsonLogWriter(serializationManager);
+            }
+        };
+    }
+
+    /**
+     * 直接書き込みモードで使用するログ出力項目を取得する。
+     * <p>
+     * {@link JsonLogItemWriter}を実装していないログ出力項目が含まれる場合は、直接書き込みを行わず{@code null}を返す。
+     * </p>
+     * @param structuredTargets フォーマット済みのログ出力項目
+     * @return 直接書き込みモードで使用するログ出力項目
+     */
+    private static List<JsonLogItemWriter> getItemWriters(
+            List<JsonLogObjectBuilder<JaxRsAccessLogContext>> structuredTargets) {
+        List<JsonLogItemWriter> itemWriters = new ArrayList<JsonLogItemWriter>(structuredTargets.size());
+        for (JsonLogObjectBuilder<JaxRsAccessLogContext> target : structuredTargets) {
+            if (!(target instanceof JsonLogItemWriter)) {
+                return null;
+            }
+            itemWriters.add((JsonLogItemWriter) target);
+        }
+        return itemWriters;
+    }
+
     /**
      * 変換処理に使用する{@link JsonSerializationManager}を生成する。
      * @param settings 各種ログ出力の設定情報
@@ -181,15 +291,22 @@ public class JaxRsAccessJsonLogFormatter extends JaxRsAccessLogFormatter {
     /**
      * {@link #containsMemoryItem}の値を初期化する。
      * <p>
-     * {@link #endStructuredTargets}に{@link MaxMemoryBuilder}か{@link FreeMemoryBuilder}の
-     * いずれかが設定されている場合は true を設定する。
+     * {@link #endStructuredTargets}に{@link MaxMemoryBuilder}、{@link FreeMemoryBuilder}、
+     * {@link GcCountBuilder}、{@link GcTimeBuilder}のいずれかが設定されている場合は true を設定する。
+     * あわせて、{@link PhaseTimeBuilder}が設定されている場合は{@link #containsPhaseTimeItem}に、
+     * そのうちレスポンスの書き込みのフェーズのものが設定されている場合は{@link #containsResponseWriteTimeItem}に true を設定する。
      * </p>
      */
     private void initContainsMemoryItem() {
         for (JsonLogObjectBuilder<JaxRsAccessLogContext> target : endStructuredTargets) {
-            if (target instanceof MaxMemoryBuilder || target instanceof FreeMemoryBuilder) {
+            if (target instanceof MaxMemoryBuilder || target instanceof FreeMemoryBuilder
+                    || target instanceof GcCountBuilder || target instanceof GcTimeBuilder) {
                 containsMemoryItem = true;
-                return;
+            } else if (target instanceof PhaseTimeBuilder) {
+                containsPhaseTimeItem = true;
+                if (((PhaseTimeBuilder) target).getPhase() == PhaseTimings.Phase.RESPONSE_WRITE) {
+                    containsResponseWriteTimeItem = true;
+                }
             }
         }
     }
@@ -206,7 +323,7 @@ public class JaxRsAccessJsonLogFormatter extends JaxRsAccessLogFormatter {
 
         char maskingChar = getMaskingChar(props);
         Pattern[] maskingPatterns = getMaskingPatterns(props);
-        MapValueEditor mapValueEditor = new MaskingMapValueEditor(maskingChar, maskingPatterns);
+        MapValueEditor mapValueEditor = new CachedMaskingMapValueEditor(maskingChar, maskingPatterns);
 
         objectBuilders.put(TARGET_NAME_REQUEST_ID, new RequestIdBuilder());
         objectBuilders.put(TARGET_NAME_USER_ID, new UserIdBuilder());
@@ -215,19 +332,36 @@ public class JaxRsAccessJsonLogFormatter extends JaxRsAccessLogFormatter {
         objectBuilders.put(TARGET_NAME_PORT, new PortBuilder());
         objectBuilders.put(TARGET_NAME_METHOD, new MethodBuilder());
         objectBuilders.put(TARGET_NAME_PARAMETERS, new ParametersBuilder(mapValueEditor));
-        objectBuilders.put(TARGET_NAME_SESSION_SCOPE, new SessionScopeBuilder(mapValueEditor));
-        objectBuilders.put(TARGET_NAME_SESSION_ID, new SessionIdBuilder());
-        objectBuilders.put(TARGET_NAME_SESSION_STORE_ID, new SessionStoreIdBuilder());
+        RequestedSessionReader requestedSessionReader = getRequestedSessionReader();
+        objectBuilders.put(TARGET_NAME_SESSION_SCOPE, new SessionScopeBuilder(mapValueEditor, requestedSessionReader));
+        objectBuilders.put(TARGET_NAME_SESSION_ID, new SessionIdBuilder(requestedSessionReader));
+        objectBuilders.put(TARGET_NAME_SESSION_STORE_ID, new SessionStoreIdBuilder(requestedSessionReader));
+        objectBuilders.put(TARGET_NAME_SESSION_SKIPPED, new SessionSkippedBuilder(requestedSessionReader));
         objectBuilders.put(TARGET_NAME_STATUS_CODE, new StatusCodeBuilder());
 
         objectBuilders.put(TARGET_NAME_CLIENT_IP_ADDRESS, new ClientIpAddressBuilder());
-        objectBuilders.put(TARGET_NAME_CLIENT_HOST, new ClientHostBuilder());
+        objectBuilders.put(TARGET_NAME_CLIENT_HOST, new ClientHostBuilder(getClientHostResolver()));
         objectBuilders.put(TARGET_NAME_CLIENT_USER_AGENT, new ClientUserAgentBuilder());
         objectBuilders.put(TARGET_NAME_START_TIME, new StartTimeBuilder());
         objectBuilders.put(TARGET_NAME_END_TIME, new EndTimeBuilder());
         objectBuilders.put(TARGET_NAME_EXECUTION_TIME, new ExecutionTimeBuilder());
         objectBuilders.put(TARGET_NAME_MAX_MEMORY, new MaxMemoryBuilder());
         objectBuilders.put(TARGET_NAME_FREE_MEMORY, new FreeMemoryBuilder());
+        objectBuilders.put(TARGET_NAME_GC_COUNT, new GcCountBuilder());
+        objectBuilders.put(TARGET_NAME_GC_TIME, new GcTimeBuilder());
+        objectBuilders.put(TARGET_NAME_DISPATCH_TIME,
+                new PhaseTimeBuilder(TARGET_NAME_DISPATCH_TIME, PhaseTimings.Phase.DISPATCH));
+        objectBuilders.put(TARGET_NAME_REQUEST_BODY_READ_TIME,
+                new PhaseTimeBuilder(TARGET_NAME_REQUEST_BODY_READ_TIME, PhaseTimings.Phase.REQUEST_BODY_READ));
+        objectBuilders.put(TARGET_NAME_VALIDATION_TIME,
+                new PhaseTimeBuilder(TARGET_NAME_VALIDATION_TIME, PhaseTimings.Phase.VALIDATION));
+        objectBuilders.put(TARGET_NAME_RESOURCE_METHOD_TIME,
+                new PhaseTimeBuilder(TARGET_NAME_RESOURCE_METHOD_TIME, PhaseTimings.Phase.RESOURCE_METHOD));
+        objectBuilders.put(TARGET_NAME_RESPONSE_BODY_WRITE_TIME,
+                new PhaseTimeBuilder(TARGET_NAME_RESPONSE_BODY_WRITE_TIME, PhaseTimings.Phase.RESPONSE_BODY_WRITE));
+        objectBuilders.put(TARGET_NAME_RESPONSE_WRITE_TIME,
+                new PhaseTimeBuilder(TARGET_NAME_RESPONSE_WRITE_TIME, PhaseTimings.Phase.RESPONSE_WRITE));
+        objectBuilders.put(TARGET_NAME_SAMPLE_RATE, new SampleRateBuilder());
 
         MessageBodyLogTargetMatcher bodyLogTargetMatcher = createBodyLogTargetMatcher(props);
         LogContentMaskingFilter bodyMaskingFilter = createBodyMaskingFilter(props);
@@ -283,6 +417,24 @@ public class JaxRsAccessJsonLogFormatter extends JaxRsAccessLogFormatter {
         return containsMemoryItem;
     }
 
+    /**
+     * 出力対象にフェーズごとの処理時間の項目が含まれているか否かを判定する。
+     * @return 出力対象にフェーズごとの処理時間の項目が含まれている場合はtrue
+     */
+    @Override
+    public boolean containsPhaseTimeItem() {
+        return containsPhaseTimeItem;
+    }
+
+    /**
+     * 出力対象にレスポンスの書き込みの処理時間の項目が含まれているか否かを判定する。
+     * @return 出力対象にレスポンスの書き込みの処理時間の項目が含まれている場合はtrue
+     */
+    @Override
+    public boolean containsResponseWriteTimeItem() {
+        return containsResponseWriteTimeItem;
+    }
+
     /**
      * リクエスト処理開始時のメッセージをフォーマットする。
      * @param context JaxRsAccessLogContext
@@ -290,6 +442,9 @@ public class JaxRsAccessJsonLogFormatter extends JaxRsAccessLogFormatter {
      */
     @Override
     public String formatBegin(JaxRsAccessLogContext context) {
+        if (beginItemWriters != null) {
+            return writeDirect(beginItemWriters, context);
+        }
         return support.getStructuredMessage(beginStructuredTargets, context);
     }
 
@@ -300,13 +455,60 @@ public class JaxRsAccessJsonLogFormatter extends JaxRsAccessLogFormatter {
      */
     @Override
     public String formatEnd(JaxRsAccessLogContext context) {
+        if (endItemWriters != null) {
+            return writeDirect(endItemWriters, context);
+        }
         return support.getStructuredMessage(endStructuredTargets, context);
     }
 
+    /**
+     * ログ出力項目をスレッドごとに再利用するバッファへ直接書き込み、メッセージをフォーマットする。
+     * @param itemWriters ログ出力項目
+     * @param context JaxRsAccessLogContext
+     * @return フォーマット済みのメッセージ
+     */
+    private String writeDirect(List<JsonLogItemWriter> itemWriters, JaxRsAccessLogContext context) {
+        JaxRsAccessJsonLogWriter writer = writers.get();
+        try {
+            writer.start(structuredMessagePrefix);
+            for (JsonLogItemWriter itemWriter : itemWriters) {
+                itemWriter.write(writer, context);
+            }
+            return writer.finish();
+        } catch (IOException e) {
+            // メモリ上のバッファへの書き込みのため発生しない
+            throw new IllegalStateException(e);
+        } finally {
+            if (!writer.reset()) {
+                // 大きなメッセージで拡張したバッファは保持し続けない
+                writers.remove();
+            }
+        }
+    }
+
+    /**
+     * ログ出力項目を{@link JaxRsAccessJsonLogWriter}に直接書き込むインタフェース。
+     * <p>
+     * 直接書き込みモードでは、出力項目が全てこのインタフェースを実装している場合に、
+     * 項目と値のマップを作らずに設定された順で書き込む。
+     * </p>
+     */
+    public interface JsonLogItemWriter {
+
+        /**
+         * ログ出力項目を書き込む。
+         * @param writer 書き込み先
+         * @param context JaxRsAccessLogContext
+         * @throws IOException 書き込みに失敗した場合
+         */
+        void write(JaxRsAccessJsonLogWriter writer, JaxRsAccessLogContext context) throws IOException;
+    }
+
     /**
      * ラベルを処理するクラス。
      */
-    public static class LabelBuilder implements JsonLogObjectBuilder<JaxRsAccessLogContext> {
+    public static class LabelBuilder
+            implements JsonLogObjectBuilder<JaxRsAccessLogContext>, JsonLogItemWriter {
 
         private final String label;
 
@@ -325,12 +527,21 @@ public class JaxRsAccessJsonLogFormatter extends JaxRsAccessLogFormatter {
         public void build(Map<String, Object> structuredObject, JaxRsAccessLogContext context) {
             structuredObject.put(TARGET_NAME_LABEL, label);
         }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void write(JaxRsAccessJsonLogWriter writer, JaxRsAccessLogContext context) throws IOException {
+            writer.writeString(TARGET_NAME_LABEL, label);
+        }
     }
 
     /**
      * リクエストIDを処理するクラス。
      */
-    public static class RequestIdBuilder implements JsonLogObjectBuilder<JaxRsAccessLogContext> {
+    public static class RequestIdBuilder
+            implements JsonLogObjectBuilder<JaxRsAccessLogContext>, JsonLogItemWriter {
 
         /**
          * {@inheritDoc}
@@ -339,12 +550,21 @@ public class JaxRsAccessJsonLogFormatter extends JaxRsAccessLogFormatter {
         public void build(Map<String, Object> structuredObject, JaxRsAccessLogContext context) {
             structuredObject.put(TARGET_NAME_REQUEST_ID, ThreadContext.getRequestId());
         }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void write(JaxRsAccessJsonLogWriter writer, JaxRsAccessLogContext context) throws IOException {
+            writer.writeString(TARGET_NAME_REQUEST_ID, ThreadContext.getRequestId());
+        }
     }
 
     /**
      * ユーザIDを処理するクラス。
      */
-    public static class UserIdBuilder implements JsonLogObjectBuilder<JaxRsAccessLogContext> {
+    public static class UserIdBuilder
+            implements JsonLogObjectBuilder<JaxRsAccessLogContext>, JsonLogItemWriter {
 
         /**
          * {@inheritDoc}
@@ -353,12 +573,21 @@ public class JaxRsAccessJsonLogFormatter extends JaxRsAccessLogFormatter {
         public void build(Map<String, Object> structuredObject, JaxRsAccessLogContext context) {
             structuredObject.put(TARGET_NAME_USER_ID, ThreadContext.getUserId());
         }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void write(JaxRsAccessJsonLogWriter writer, JaxRsAccessLogContext context) throws IOException {
+            writer.writeString(TARGET_NAME_USER_ID, ThreadContext.getUserId());
+        }
     }
 
     /**
      * URLを処理するクラス。
      */
-    public static class UrlBuilder implements JsonLogObjectBuilder<JaxRsAccessLogContext> {
+    public static class UrlBuilder
+            implements JsonLogObjectBuilder<JaxRsAccessLogContext>, JsonLogItemWriter {
 
         /**
          * {@inheritDoc}
@@ -367,12 +596,21 @@ public class JaxRsAccessJsonLogFormatter extends JaxRsAccessLogFormatter {
         public void build(Map<String, Object> structuredObject, JaxRsAccessLogContext context) {
             structuredObject.put(TARGET_NAME_URL, context.getUrl());
         }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void write(JaxRsAccessJsonLogWriter writer, JaxRsAccessLogContext context) throws IOException {
+            writer.writeString(TARGET_NAME_URL, context.getUrl());
+        }
     }
 
     /**
      * クエリ文字列を処理するクラス。
      */
-    public static class QueryStringBuilder implements JsonLogObjectBuilder<JaxRsAccessLogContext> {
+    public static class QueryStringBuilder
+            implements JsonLogObjectBuilder<JaxRsAccessLogContext>, JsonLogItemWriter {
 
         /**
          * {@inheritDoc}
@@ -381,12 +619,21 @@ public class JaxRsAccessJsonLogFormatter extends JaxRsAccessLogFormatter {
         public void build(Map<String, Object> structuredObject, JaxRsAccessLogContext context) {
             structuredObject.put(TARGET_NAME_QUERY, context.getQueryString());
         }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void write(JaxRsAccessJsonLogWriter writer, JaxRsAccessLogContext context) throws IOException {
+            writer.writeString(TARGET_NAME_QUERY, context.getQueryString());
+        }
     }
 
     /**
      * ポート番号を処理するクラス。
      */
-    public static class PortBuilder implements JsonLogObjectBuilder<JaxRsAccessLogContext> {
+    public static class PortBuilder
+            implements JsonLogObjectBuilder<JaxRsAccessLogContext>, JsonLogItemWriter {
 
         /**
          * {@inheritDoc}
@@ -395,12 +642,21 @@ public class JaxRsAccessJsonLogFormatter extends JaxRsAccessLogFormatter {
         public void build(Map<String, Object> structuredObject, JaxRsAccessLogContext context) {
             structuredObject.put(TARGET_NAME_PORT, context.getPort());
         }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void write(JaxRsAccessJsonLogWriter writer, JaxRsAccessLogContext context) throws IOException {
+            writer.writeNumber(TARGET_NAME_PORT, context.getPort());
+        }
     }
 
     /**
      * HTTPメソッドを処理するクラス。
      */
-    public static class MethodBuilder implements JsonLogObjectBuilder<JaxRsAccessLogContext> {
+    public static class MethodBuilder
+            implements JsonLogObjectBuilder<JaxRsAccessLogContext>, JsonLogItemWriter {
 
         /**
          * {@inheritDoc}
@@ -409,12 +665,21 @@ public class JaxRsAccessJsonLogFormatter extends JaxRsAccessLogFormatter {
         public void build(Map<String, Object> structuredObject, JaxRsAccessLogContext context) {
             structuredObject.put(TARGET_NAME_METHOD, context.getMethod());
         }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void write(JaxRsAccessJsonLogWriter writer, JaxRsAccessLogContext context) throws IOException {
+            writer.writeString(TARGET_NAME_METHOD, context.getMethod());
+        }
     }
 
     /**
      * リクエストパラメータを処理するクラス。
      */
-    public static class ParametersBuilder implements JsonLogObjectBuilder<JaxRsAccessLogContext> {
+    public static class ParametersBuilder
+            implements JsonLogObjectBuilder<JaxRsAccessLogContext>, JsonLogItemWriter {
 
         /** マップの値のマスキング */
         private final MapValueEditor mapValueEditor;
@@ -432,6 +697,23 @@ public class JaxRsAccessJsonLogFormatter extends JaxRsAccessLogFormatter {
          */
         @Override
         public void build(Map<String, Object> structuredObject, JaxRsAccessLogContext context) {
+            structuredObject.put(TARGET_NAME_PARAMETERS, maskParameters(context));
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void write(JaxRsAccessJsonLogWriter writer, JaxRsAccessLogContext context) throws IOException {
+            writer.writeObject(TARGET_NAME_PARAMETERS, maskParameters(context));
+        }
+
+        /**
+         * マスク処理したリクエストパラメータを取得する。
+         * @param context JaxRsAccessLogContext
+         * @return マスク処理したリクエストパラメータ
+         */
+        private Map<String, String[]> maskParameters(JaxRsAccessLogContext context) {
             Map<String, String[]> map = new HashMap<String, String[]>();
             for (Map.Entry<String, String[]> entry : context.getParameters().entrySet()) {
                 String [] values = new String[entry.getValue().length];
@@ -440,24 +722,38 @@ public class JaxRsAccessJsonLogFormatter extends JaxRsAccessLogFormatter {
                 }
                 map.put(entry.getKey(), values);
             }
-            structuredObject.put(TARGET_NAME_PARAMETERS, map);
+            return map;
         }
     }
 
     /**
      * セッションスコープ情報を処理するクラス。
      */
-    public static class SessionScopeBuilder implements JsonLogObjectBuilder<JaxRsAccessLogContext> {
+    public static class SessionScopeBuilder
+            implements JsonLogObjectBuilder<JaxRsAccessLogContext>, JsonLogItemWriter {
 
         /** マップの値のマスキング */
         private final MapValueEditor mapValueEditor;
 
+        /** セッションを読み込まずにセッションの識別子を取得するクラス。セッションを読み込む場合は{@code null} */
+        private final RequestedSessionReader reader;
+
         /**
          * コンストラクタ。
          * @param mapValueEditor マップの値のマスキング
          */
         public SessionScopeBuilder(MapValueEditor mapValueEditor) {
+            this(mapValueEditor, null);
+        }
+
+        /**
+         * コンストラクタ。
+         * @param mapValueEditor マップの値のマスキング
+         * @param reader セッションを読み込まずにセッションの識別子を取得するクラス。セッションを読み込む場合は{@code null}
+         */
+        SessionScopeBuilder(MapValueEditor mapValueEditor, RequestedSessionReader reader) {
             this.mapValueEditor = mapValueEditor;
+            this.reader = reader;
         }
 
         /**
@@ -465,47 +761,204 @@ public class JaxRsAccessJsonLogFormatter extends JaxRsAccessLogFormatter {
          */
         @Override
         public void build(Map<String, Object> structuredObject, JaxRsAccessLogContext context) {
+            structuredObject.put(TARGET_NAME_SESSION_SCOPE, maskSessionScope(context));
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void write(JaxRsAccessJsonLogWriter writer, JaxRsAccessLogContext context) throws IOException {
+            writer.writeObject(TARGET_NAME_SESSION_SCOPE, maskSessionScope(context));
+        }
+
+        /**
+         * マスク処理したセッションスコープ情報を取得する。
+         * @param context JaxRsAccessLogContext
+         * @return マスク処理したセッションスコープ情報
+         */
+        private Map<String, String> maskSessionScope(JaxRsAccessLogContext context) {
             Map<String, String> map = new HashMap<String, String>();
+            if (reader != null) {
+                return map;
+            }
             for (Map.Entry<String, Object> entry : context.getSessionScopeMap().entrySet()) {
                 String values = mapValueEditor.edit(entry.getKey(), entry.getValue());
                 map.put(entry.getKey(), values);
             }
-            structuredObject.put(TARGET_NAME_SESSION_SCOPE, map);
+            return map;
         }
     }
 
     /**
      * セッションIDを処理するクラス。
      */
-    public static class SessionIdBuilder implements JsonLogObjectBuilder<JaxRsAccessLogContext> {
+    public static class SessionIdBuilder
+            implements JsonLogObjectBuilder<JaxRsAccessLogContext>, JsonLogItemWriter {
+
+        /** セッションを読み込まずにセッションの識別子を取得するクラス。セッションを読み込む場合は{@code null} */
+        private final RequestedSessionReader reader;
+
+        /**
+         * コンストラクタ。
+         * <p>
+         * セッションIDはセッションから取得する。
+         * </p>
+         */
+        public SessionIdBuilder() {
+            this(null);
+        }
+
+        /**
+         * コンストラクタ。
+         * @param reader セッションを読み込まずにセッションの識別子を取得するクラス。セッションを読み込む場合は{@code null}
+         */
+        SessionIdBuilder(RequestedSessionReader reader) {
+            this.reader = reader;
+        }
 
         /**
          * {@inheritDoc}
          */
         @Override
         public void build(Map<String, Object> structuredObject, JaxRsAccessLogContext context) {
-            structuredObject.put(TARGET_NAME_SESSION_ID, context.getSessionId());
+            structuredObject.put(TARGET_NAME_SESSION_ID, getSessionId(context));
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void write(JaxRsAccessJsonLogWriter writer, JaxRsAccessLogContext context) throws IOException {
+            writer.writeString(TARGET_NAME_SESSION_ID, getSessionId(context));
+        }
+
+        /**
+         * セッションIDを取得する。
+         * @param context JaxRsAccessLogContext
+         * @return セッションID
+         */
+        private String getSessionId(JaxRsAccessLogContext context) {
+            return reader == null ? context.getSessionId() : reader.getSessionId(context.getServletRequest());
         }
     }
 
     /**
      * セッションストアIDを処理するクラス。
      */
-    public static class SessionStoreIdBuilder implements JsonLogObjectBuilder<JaxRsAccessLogContext> {
+    public static class SessionStoreIdBuilder
+            implements JsonLogObjectBuilder<JaxRsAccessLogContext>, JsonLogItemWriter {
+
+        /** セッションを読み込まずにセッションの識別子を取得するクラス。セッションを読み込む場合は{@code null} */
+        private final RequestedSessionReader reader;
+
+        /**
+         * コンストラクタ。
+         * <p>
+         * セッションストアIDはセッションストアから取得する。
+         * </p>
+         */
+        public SessionStoreIdBuilder() {
+            this(null);
+        }
+
+        /**
+         * コンストラクタ。
+         * @param reader セッションを読み込まずにセッションの識別子を取得するクラス。セッションを読み込む場合は{@code null}
+         */
+        SessionStoreIdBuilder(RequestedSessionReader reader) {
+            this.reader = reader;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void build(Map<String, Object> structuredObject, JaxRsAccessLogContext context) {
+            structuredObject.put(TARGET_NAME_SESSION_STORE_ID, getSessionStoreId(context));
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void write(JaxRsAccessJsonLogWriter writer, JaxRsAccessLogContext context) throws IOException {
+            writer.writeString(TARGET_NAME_SESSION_STORE_ID, getSessionStoreId(context));
+        }
+
+        /**
+         * セッションストアIDを取得する。
+         * @param context JaxRsAccessLogContext
+         * @return セッションストアID
+         */
+        private String getSessionStoreId(JaxRsAccessLogContext context) {
+            return reader == null
+                    ? InternalSessionUtil.getId(context.getContext())
+                    : reader.getSessionStoreId(context.getServletRequest());
+        }
+    }
+
+    /**
+     * セッションの読み込みを省略したか否かを処理するクラス。
+     * <p>
+     * セッションを読み込まずに出力する設定で、クライアントがセッションIDまたはセッションストアIDを送信している場合に{@code true}となる。
+     * </p>
+     */
+    public static class SessionSkippedBuilder
+            implements JsonLogObjectBuilder<JaxRsAccessLogContext>, JsonLogItemWriter {
+
+        /** セッションを読み込まずにセッションの識別子を取得するクラス。セッションを読み込む場合は{@code null} */
+        private final RequestedSessionReader reader;
+
+        /**
+         * コンストラクタ。
+         * <p>
+         * セッションを読み込むため、常に{@code false}となる。
+         * </p>
+         */
+        public SessionSkippedBuilder() {
+            this(null);
+        }
+
+        /**
+         * コンストラクタ。
+         * @param reader セッションを読み込まずにセッションの識別子を取得するクラス。セッションを読み込む場合は{@code null}
+         */
+        SessionSkippedBuilder(RequestedSessionReader reader) {
+            this.reader = reader;
+        }
 
         /**
          * {@inheritDoc}
          */
         @Override
         public void build(Map<String, Object> structuredObject, JaxRsAccessLogContext context) {
-            structuredObject.put(TARGET_NAME_SESSION_STORE_ID, InternalSessionUtil.getId(context.getContext()));
+            structuredObject.put(TARGET_NAME_SESSION_SKIPPED, isSkipped(context));
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void write(JaxRsAccessJsonLogWriter writer, JaxRsAccessLogContext context) throws IOException {
+            writer.writeObject(TARGET_NAME_SESSION_SKIPPED, isSkipped(context));
+        }
+
+        /**
+         * セッションの読み込みを省略したか否かを判定する。
+         * @param context JaxRsAccessLogContext
+         * @return 省略した場合は{@code true}
+         */
+        private boolean isSkipped(JaxRsAccessLogContext context) {
+            return reader != null && reader.isSkipped(context.getServletRequest());
         }
     }
 
     /**
      * ステータスコードを処理するクラス。
      */
-    public static class StatusCodeBuilder implements JsonLogObjectBuilder<JaxRsAccessLogContext> {
+    public static class StatusCodeBuilder
+            implements JsonLogObjectBuilder<JaxRsAccessLogContext>, JsonLogItemWriter {
 
         /**
          * {@inheritDoc}
@@ -515,12 +968,24 @@ public class JaxRsAccessJsonLogFormatter extends JaxRsAccessLogFormatter {
             int statusCode = context.getStatusCode();
             structuredObject.put(TARGET_NAME_STATUS_CODE, statusCode != -1 ? statusCode : null);
         }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void write(JaxRsAccessJsonLogWriter writer, JaxRsAccessLogContext context) throws IOException {
+            int statusCode = context.getStatusCode();
+            if (statusCode != -1) {
+                writer.writeNumber(TARGET_NAME_STATUS_CODE, statusCode);
+            }
+        }
     }
 
     /**
      * クライアント端末IPアドレスを処理するクラス。
      */
-    public static class ClientIpAddressBuilder implements JsonLogObjectBuilder<JaxRsAccessLogContext> {
+    public static class ClientIpAddressBuilder
+            implements JsonLogObjectBuilder<JaxRsAccessLogContext>, JsonLogItemWriter {
 
         /**
          * {@inheritDoc}
@@ -529,26 +994,74 @@ public class JaxRsAccessJsonLogFormatter extends JaxRsAccessLogFormatter {
         public void build(Map<String, Object> structuredObject, JaxRsAccessLogContext context) {
             structuredObject.put(TARGET_NAME_CLIENT_IP_ADDRESS, context.getClientIpAddress());
         }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void write(JaxRsAccessJsonLogWriter writer, JaxRsAccessLogContext context) throws IOException {
+            writer.writeString(TARGET_NAME_CLIENT_IP_ADDRESS, context.getClientIpAddress());
+        }
     }
 
     /**
      * クライアント端末ホストを処理するクラス。
      */
-    public static class ClientHostBuilder implements JsonLogObjectBuilder<JaxRsAccessLogContext> {
+    public static class ClientHostBuilder
+            implements JsonLogObjectBuilder<JaxRsAccessLogContext>, JsonLogItemWriter {
+
+        /** クライアント端末ホストを逆引きしてキャッシュするクラス。コンテナから取得する場合は{@code null} */
+        private final ClientHostResolver resolver;
+
+        /**
+         * コンストラクタ。
+         * <p>
+         * クライアント端末ホストはコンテナから取得する。
+         * </p>
+         */
+        public ClientHostBuilder() {
+            this(null);
+        }
+
+        /**
+         * コンストラクタ。
+         * @param resolver クライアント端末ホストを逆引きしてキャッシュするクラス。コンテナから取得する場合は{@code null}
+         */
+        ClientHostBuilder(ClientHostResolver resolver) {
+            this.resolver = resolver;
+        }
 
         /**
          * {@inheritDoc}
          */
         @Override
         public void build(Map<String, Object> structuredObject, JaxRsAccessLogContext context) {
-            structuredObject.put(TARGET_NAME_CLIENT_HOST, context.getClientHost());
+            structuredObject.put(TARGET_NAME_CLIENT_HOST, getClientHost(context));
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void write(JaxRsAccessJsonLogWriter writer, JaxRsAccessLogContext context) throws IOException {
+            writer.writeString(TARGET_NAME_CLIENT_HOST, getClientHost(context));
+        }
+
+        /**
+         * クライアント端末ホストを取得する。
+         * @param context JaxRsAccessLogContext
+         * @return クライアント端末ホスト
+         */
+        private String getClientHost(JaxRsAccessLogContext context) {
+            return resolver == null ? context.getClientHost() : resolver.resolve(context.getClientIpAddress());
         }
     }
 
     /**
      * HTTPヘッダのUser-Agentを処理するクラス。
      */
-    public static class ClientUserAgentBuilder implements JsonLogObjectBuilder<JaxRsAccessLogContext> {
+    public static class ClientUserAgentBuilder
+            implements JsonLogObjectBuilder<JaxRsAccessLogContext>, JsonLogItemWriter {
 
         /**
          * {@inheritDoc}
@@ -557,12 +1070,21 @@ public class JaxRsAccessJsonLogFormatter extends JaxRsAccessLogFormatter {
         public void build(Map<String, Object> structuredObject, JaxRsAccessLogContext context) {
             structuredObject.put(TARGET_NAME_CLIENT_USER_AGENT, context.getServletRequest().getHeader("User-Agent"));
         }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void write(JaxRsAccessJsonLogWriter writer, JaxRsAccessLogContext context) throws IOException {
+            writer.writeString(TARGET_NAME_CLIENT_USER_AGENT, context.getServletRequest().getHeader("User-Agent"));
+        }
     }
 
     /**
      * 開始日時を処理するクラス。
      */
-    public static class StartTimeBuilder implements JsonLogObjectBuilder<JaxRsAccessLogContext> {
+    public static class StartTimeBuilder
+            implements JsonLogObjectBuilder<JaxRsAccessLogContext>, JsonLogItemWriter {
 
         /**
          * {@inheritDoc}
@@ -571,12 +1093,21 @@ public class JaxRsAccessJsonLogFormatter extends JaxRsAccessLogFormatter {
         public void build(Map<String, Object> structuredObject, JaxRsAccessLogContext context) {
             structuredObject.put(TARGET_NAME_START_TIME,  new Date(context.getStartTime()));
         }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void write(JaxRsAccessJsonLogWriter writer, JaxRsAccessLogContext context) throws IOException {
+            writer.writeObject(TARGET_NAME_START_TIME, new Date(context.getStartTime()));
+        }
     }
 
     /**
      * 終了日時を処理するクラス。
      */
-    public static class EndTimeBuilder implements JsonLogObjectBuilder<JaxRsAccessLogContext> {
+    public static class EndTimeBuilder
+            implements JsonLogObjectBuilder<JaxRsAccessLogContext>, JsonLogItemWriter {
 
         /**
          * {@inheritDoc}
@@ -585,12 +1116,21 @@ public class JaxRsAccessJsonLogFormatter extends JaxRsAccessLogFormatter {
         public void build(Map<String, Object> structuredObject, JaxRsAccessLogContext context) {
             structuredObject.put(TARGET_NAME_END_TIME, new Date(context.getEndTime()));
         }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void write(JaxRsAccessJsonLogWriter writer, JaxRsAccessLogContext context) throws IOException {
+            writer.writeObject(TARGET_NAME_END_TIME, new Date(context.getEndTime()));
+        }
     }
 
     /**
      * 実行時間を処理するクラス。
      */
-    public static class ExecutionTimeBuilder implements JsonLogObjectBuilder<JaxRsAccessLogContext> {
+    public static class ExecutionTimeBuilder
+            implements JsonLogObjectBuilder<JaxRsAccessLogContext>, JsonLogItemWriter {
 
         /**
          * {@inheritDoc}
@@ -599,12 +1139,21 @@ public class JaxRsAccessJsonLogFormatter extends JaxRsAccessLogFormatter {
         public void build(Map<String, Object> structuredObject, JaxRsAccessLogContext context) {
             structuredObject.put(TARGET_NAME_EXECUTION_TIME, context.getExecutionTime());
         }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void write(JaxRsAccessJsonLogWriter writer, JaxRsAccessLogContext context) throws IOException {
+            writer.writeNumber(TARGET_NAME_EXECUTION_TIME, context.getExecutionTime());
+        }
     }
 
     /**
      * 最大メモリ量を処理するクラス。
      */
-    public static class MaxMemoryBuilder implements JsonLogObjectBuilder<JaxRsAccessLogContext> {
+    public static class MaxMemoryBuilder
+            implements JsonLogObjectBuilder<JaxRsAccessLogContext>, JsonLogItemWriter {
 
         /**
          * {@inheritDoc}
@@ -613,11 +1162,20 @@ public class JaxRsAccessJsonLogFormatter extends JaxRsAccessLogFormatter {
         public void build(Map<String, Object> structuredObject, JaxRsAccessLogContext context) {
             structuredObject.put(TARGET_NAME_MAX_MEMORY, context.getMaxMemory());
         }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void write(JaxRsAccessJsonLogWriter writer, JaxRsAccessLogContext context) throws IOException {
+            writer.writeNumber(TARGET_NAME_MAX_MEMORY, context.getMaxMemory());
+        }
     }
 
     /** 空きメモリ量(開始時)を処理するクラス。
      */
-    public static class FreeMemoryBuilder implements JsonLogObjectBuilder<JaxRsAccessLogContext> {
+    public static class FreeMemoryBuilder
+            implements JsonLogObjectBuilder<JaxRsAccessLogContext>, JsonLogItemWriter {
 
         /**
          * {@inheritDoc}
@@ -626,12 +1184,137 @@ public class JaxRsAccessJsonLogFormatter extends JaxRsAccessLogFormatter {
         public void build(Map<String, Object> structuredObject, JaxRsAccessLogContext context) {
             structuredObject.put(TARGET_NAME_FREE_MEMORY, context.getFreeMemory());
         }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void write(JaxRsAccessJsonLogWriter writer, JaxRsAccessLogContext context) throws IOException {
+            writer.writeNumber(TARGET_NAME_FREE_MEMORY, context.getFreeMemory());
+        }
+    }
+
+    /**
+     * GCの累計回数(開始時)を処理するクラス。
+     */
+    public static class GcCountBuilder
+            implements JsonLogObjectBuilder<JaxRsAccessLogContext>, JsonLogItemWriter {
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void build(Map<String, Object> structuredObject, JaxRsAccessLogContext context) {
+            structuredObject.put(TARGET_NAME_GC_COUNT, context.getGcCount());
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void write(JaxRsAccessJsonLogWriter writer, JaxRsAccessLogContext context) throws IOException {
+            writer.writeNumber(TARGET_NAME_GC_COUNT, context.getGcCount());
+        }
+    }
+
+    /**
+     * GCの累計時間(開始時)を処理するクラス。
+     */
+    public static class GcTimeBuilder
+            implements JsonLogObjectBuilder<JaxRsAccessLogContext>, JsonLogItemWriter {
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void build(Map<String, Object> structuredObject, JaxRsAccessLogContext context) {
+            structuredObject.put(TARGET_NAME_GC_TIME, context.getGcTime());
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void write(JaxRsAccessJsonLogWriter writer, JaxRsAccessLogContext context) throws IOException {
+            writer.writeNumber(TARGET_NAME_GC_TIME, context.getGcTime());
+        }
+    }
+
+    /**
+     * フェーズの処理時間(ナノ秒)を処理するクラス。
+     */
+    public static class PhaseTimeBuilder
+            implements JsonLogObjectBuilder<JaxRsAccessLogContext>, JsonLogItemWriter {
+
+        /** 項目名 */
+        private final String targetName;
+
+        /** フェーズ */
+        private final PhaseTimings.Phase phase;
+
+        /**
+         * コンストラクタ。
+         * @param targetName 項目名
+         * @param phase フェーズ
+         */
+        public PhaseTimeBuilder(String targetName, PhaseTimings.Phase phase) {
+            this.targetName = targetName;
+            this.phase = phase;
+        }
+
+        /**
+         * フェーズを取得する。
+         * @return フェーズ
+         */
+        public PhaseTimings.Phase getPhase() {
+            return phase;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void build(Map<String, Object> structuredObject, JaxRsAccessLogContext context) {
+            structuredObject.put(targetName, context.getElapsedNanos(phase));
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void write(JaxRsAccessJsonLogWriter writer, JaxRsAccessLogContext context) throws IOException {
+            writer.writeNumber(targetName, context.getElapsedNanos(phase));
+        }
+    }
+
+    /**
+     * 実効サンプリング率を処理するクラス。
+     */
+    public static class SampleRateBuilder
+            implements JsonLogObjectBuilder<JaxRsAccessLogContext>, JsonLogItemWriter {
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void build(Map<String, Object> structuredObject, JaxRsAccessLogContext context) {
+            structuredObject.put(TARGET_NAME_SAMPLE_RATE, context.getSampleRate());
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void write(JaxRsAccessJsonLogWriter writer, JaxRsAccessLogContext context) throws IOException {
+            writer.writeObject(TARGET_NAME_SAMPLE_RATE, context.getSampleRate());
+        }
     }
 
     /**
      * リクエストのボディを処理する。
      */
-    public static class RequestBodyBuilder implements JsonLogObjectBuilder<JaxRsAccessLogContext> {
+    public static class RequestBodyBuilder
+            implements JsonLogObjectBuilder<JaxRsAccessLogContext>, JsonLogItemWriter {
 
         /** ログ出力対象判定 */
         private final MessageBodyLogTargetMatcher logTargetMatcher;
@@ -655,7 +1338,8 @@ public class JaxRsAccessJsonLogFormatter extends JaxRsAccessLogFormatter {
          */
         @Override
         public void build(Map<String, Object> structuredObject, JaxRsAccessLogContext context) {
-            if (logTargetMatcher.isTargetRequest(context.getRequest(), context.getContext())) {
+            if (context.isBodyEnabled()
+                    && logTargetMatcher.isTargetRequest(context.getRequest(), context.getContext())) {
                 String content = readRequestBody(context);
                 structuredObject.put(TARGET_NAME_REQUEST_BODY, isJsonString(content) ? new JsonString(content) : content);
             } else {
@@ -663,6 +1347,17 @@ public class JaxRsAccessJsonLogFormatter extends JaxRsAccessLogFormatter {
             }
         }
 
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void write(JaxRsAccessJsonLogWriter writer, JaxRsAccessLogContext context) throws IOException {
+            if (context.isBodyEnabled()
+                    && logTargetMatcher.isTargetRequest(context.getRequest(), context.getContext())) {
+                writer.writeJsonOrString(TARGET_NAME_REQUEST_BODY, readRequestBody(context));
+            }
+        }
+
         /**
          * リクエストのボディを読み込む。
          *
@@ -701,7 +1396,8 @@ public class JaxRsAccessJsonLogFormatter extends JaxRsAccessLogFormatter {
     /**
      * レスポンスのボディを処理する。
      */
-    public static class ResponseBodyBuilder implements JsonLogObjectBuilder<JaxRsAccessLogContext> {
+    public static class ResponseBodyBuilder
+            implements JsonLogObjectBuilder<JaxRsAccessLogContext>, JsonLogItemWriter {
 
         /** ログ出力対象判定 */
         private final MessageBodyLogTargetMatcher logTargetMatcher;
@@ -725,7 +1421,8 @@ public class JaxRsAccessJsonLogFormatter extends JaxRsAccessLogFormatter {
          */
         @Override
         public void build(Map<String, Object> structuredObject, JaxRsAccessLogContext context) {
-            if (logTargetMatcher.isTargetResponse(context.getRequest(), context.getResponse(), context.getContext())) {
+            if (context.isBodyEnabled()
+                    && logTargetMatcher.isTargetResponse(context.getRequest(), context.getResponse(), context.getContext())) {
                 String content = readResponseBody(context);
                 structuredObject.put(TARGET_NAME_RESPONSE_BODY, isJsonString(content) ? new JsonString(content) : content);
             } else {
@@ -733,6 +1430,17 @@ public class JaxRsAccessJsonLogFormatter extends JaxRsAccessLogFormatter {
             }
         }
 
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void write(JaxRsAccessJsonLogWriter writer, JaxRsAccessLogContext context) throws IOException {
+            if (context.isBodyEnabled()
+                    && logTargetMatcher.isTargetResponse(context.getRequest(), context.getResponse(), context.getContext())) {
+                writer.writeJsonOrString(TARGET_NAME_RESPONSE_BODY, readResponseBody(context));
+            }
+        }
+
         /**
          * レスポンスのボディを読み込む。
          *
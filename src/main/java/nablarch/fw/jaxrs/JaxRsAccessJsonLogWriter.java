@@ -0,0 +1,202 @@
+package nablarch.fw.jaxrs;
+
+import nablarch.core.text.json.JsonSerializationManager;
+import nablarch.core.util.annotation.Published;
+
+import java.io.IOException;
+import java.io.StringWriter;
+
+/**
+ * アクセスログのJSON形式のメッセージを、中間のマップを作らずにバッファへ直接書き込むクラス。
+ * <p/>
+ * {@link JaxRsAccessJsonLogFormatter}の直接書き込みモードで使用し、
+ * 出力項目は{@link JaxRsAccessJsonLogFormatter.JsonLogItemWriter}から呼び出された順に書き込む。
+ * 値が{@code null}の項目は、マップを経由する場合と同様に出力しない。
+ * <p/>
+ * 文字列と整数は直接書き込む。エスケープが必要な文字を含む文字列や、日時、マップなどのその他の値は、
+ * {@link JsonSerializationManager}から取得したシリアライザで書き込むため、マップを経由する場合と同じ形式で出力される。
+ * <p/>
+ * 項目名はエスケープせずに書き込むため、エスケープが必要な文字を含めてはならない。
+ * このクラスはスレッドセーフではない。
+ */
+@Published(tag = "architect")
+public class JaxRsAccessJsonLogWriter {
+
+    /** 再利用するバッファの容量の上限。超えた場合は再利用しない */
+    private static final int MAX_REUSABLE_CAPACITY = 64 * 1024;
+
+    /** 値の書き込みに使用する{@link JsonSerializationManager} */
+    private final JsonSerializationManager serializationManager;
+
+    /** 書き込み先 */
+    private final StringWriter writer = new StringWriter(1024);
+
+    /** 書き込み先のバッファ */
+    private final StringBuffer buffer = writer.getBuffer();
+
+    /** 最初の項目であるか否か */
+    private boolean first;
+
+    /**
+     * コンストラクタ。
+     *
+     * @param serializationManager 値の書き込みに使用する{@link JsonSerializationManager}
+     */
+    JaxRsAccessJsonLogWriter(JsonSerializationManager serializationManager) {
+        this.serializationManager = serializationManager;
+    }
+
+    /**
+     * メッセージの書き込みを開始する。
+     *
+     * @param prefix メッセージの先頭に付加する文字列
+     */
+    void start(String prefix) {
+        buffer.setLength(0);
+        buffer.append(prefix).append('{');
+        first = true;
+    }
+
+    /**
+     * メッセージの書き込みを終了し、書き込んだメッセージを返す。
+     *
+     * @return 書き込んだメッセージ
+     */
+    String finish() {
+        return buffer.append('}').toString();
+    }
+
+    /**
+     * バッファを空にする。
+     *
+     * @return 再利用できる場合は{@code true}。バッファが大きく拡張されている場合は{@code false}
+     */
+    boolean reset() {
+        buffer.setLength(0);
+        return buffer.capacity() <= MAX_REUSABLE_CAPACITY;
+    }
+
+    /**
+     * 文字列の項目を書き込む。
+     *
+     * @param name 項目名
+     * @param value 値。{@code null}の場合は書き込まない
+     * @throws IOException 書き込みに失敗した場合
+     */
+    public void writeString(String name, String value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        if (!isPlainAscii(value)) {
+            writeObject(name, value);
+            return;
+        }
+        appendName(name);
+        buffer.append('"').append(value).append('"');
+    }
+
+    /**
+     * 整数の項目を書き込む。
+     *
+     * @param name 項目名
+     * @param value 値
+     */
+    public void writeNumber(String name, long value) {
+        appendName(name);
+        buffer.append(value);
+    }
+
+    /**
+     * JSONのオブジェクトまたは配列であれば値としてそのまま、それ以外であれば文字列として項目を書き込む。
+     * <p/>
+     * JSONであるか否かは、前後の空白を除いた先頭と末尾の文字のみで判定する。
+     * そのまま書き込む場合、ログが複数行にならないよう改行文字は空白に置き換える。
+     *
+     * @param name 項目名
+     * @param value 値。{@code null}の場合は書き込まない
+     * @throws IOException 書き込みに失敗した場合
+     */
+    public void writeJsonOrString(String name, String value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        if (!isJsonObjectOrArray(value)) {
+            writeString(name, value);
+            return;
+        }
+        appendName(name);
+        for (int i = 0; i < value.length(); i++) {
+            final char c = value.charAt(i);
+            buffer.append(c == '\r' || c == '\n' ? ' ' : c);
+        }
+    }
+
+    /**
+     * 項目を{@link JsonSerializationManager}から取得したシリアライザで書き込む。
+     *
+     * @param name 項目名
+     * @param value 値。{@code null}の場合は書き込まない
+     * @throws IOException 書き込みに失敗した場合
+     */
+    public void writeObject(String name, Object value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        appendName(name);
+        serializationManager.getSerializer(value).serialize(writer, value);
+    }
+
+    /**
+     * 区切り文字と項目名を書き込む。
+     *
+     * @param name 項目名
+     */
+    private void appendName(String name) {
+        if (!first) {
+            buffer.append(',');
+        }
+        first = false;
+        buffer.append('"').append(name).append("\":");
+    }
+
+    /**
+     * エスケープせずに書き込める文字列であるか否かを判定する。
+     * <p/>
+     * 二重引用符とバックスラッシュを除く、表示可能なASCII文字のみで構成される場合にエスケープ不要とする。
+     *
+     * @param value 文字列
+     * @return エスケープせずに書き込める場合は{@code true}
+     */
+    private static boolean isPlainAscii(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            final char c = value.charAt(i);
+            if (c < 0x20 || c > 0x7E || c == '"' || c == '\\') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 前後の空白を除いた先頭と末尾の文字から、JSONのオブジェクトまたは配列であるか否かを判定する。
+     *
+     * @param value 文字列
+     * @return JSONのオブジェクトまたは配列である場合は{@code true}
+     */
+    static boolean isJsonObjectOrArray(String value) {
+        int start = 0;
+        int end = value.length() - 1;
+        while (start <= end && Character.isWhitespace(value.charAt(start))) {
+            start++;
+        }
+        while (end > start && Character.isWhitespace(value.charAt(end))) {
+            end--;
+        }
+        if (end <= start) {
+            return false;
+        }
+        final char head = value.charAt(start);
+        final char tail = value.charAt(end);
+        return (head == '{' || head == '[') && (tail == '}' || tail == ']');
+    }
+}
@@ -0,0 +1,61 @@
+package nablarch.fw.jaxrs;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+import nablarch.core.util.annotation.Published;
+
+/**
+ * リソースメソッドのアクセスログの出力方法を指定するアノテーション。
+ * <p/>
+ * リソースクラスに指定した場合は、そのクラスの全てのリソースメソッドに適用する。
+ * リソースメソッドとリソースクラスの両方に指定した場合は、リソースメソッドの指定を優先する。
+ * <p/>
+ * 開始ログはリソースメソッドが決定する前に出力するため、この指定は適用しない。
+ * ただし、サンプリングが有効な場合は開始ログを終了ログの直前に出力するため、開始ログにも適用する。
+ *
+ * @see JaxRsAccessLogHandler
+ */
+@Documented
+@Target({ElementType.METHOD, ElementType.TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+@Published
+public @interface JaxRsAccessLog {
+
+    /**
+     * リクエストボディとレスポンスボディを出力するか否か。
+     * <p/>
+     * {@code false}の場合はボディを取り込まず、ボディのログ出力項目は出力対象の判定及びマスク処理を行わない。
+     *
+     * @return 出力する場合は{@code true}
+     */
+    boolean body() default true;
+
+    /**
+     * ボディを取り込む上限のバイト数。
+     * <p/>
+     * {@link JaxRsAccessLogFormatter}に設定された取り込む上限のバイト数より大きい値は、その値に切り詰める。
+     * 0以下の場合は{@link JaxRsAccessLogFormatter}に設定された値を使用する。
+     *
+     * @return ボディを取り込む上限のバイト数
+     */
+    int maxBodySize() default 0;
+
+    /**
+     * サンプリング率。
+     * <p/>
+     * 0.0から1.0の範囲で指定する。
+     * リソースメソッドのパスごとの設定より優先して使用する。
+     * 負の値の場合は{@link JaxRsAccessLogHandler}の設定を使用する。
+     * 1.0より大きい場合は、ワーニングログを出力し、指定がないものとして扱う。
+     * <p/>
+     * {@link JaxRsAccessLogHandler}でサンプリングが有効な場合のみ使用する。
+     * この指定だけでサンプリングを行う場合は、{@link JaxRsAccessLogHandler#setAnnotationSamplingEnabled(boolean)}を有効にする。
+     *
+     * @return サンプリング率
+     */
+    double samplingRate() default -1.0;
+}
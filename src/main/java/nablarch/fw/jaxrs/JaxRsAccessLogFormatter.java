@@ -36,6 +36,11 @@ import java.util.regex.Pattern;
 
 /**
  * RESTfulウェブサービスのアクセスログのメッセージをフォーマットするクラス。
+ * <p>
+ * フォーマットは初期化時にログ出力項目の配列へ変換しておき、
+ * 各項目の値はスレッドごとに再利用する{@link StringBuilder}へ順に追加する。
+ * {@link AppendableLogItem}を実装した項目は、値を文字列に変換せずに直接追加する。
+ * </p>
  */
 @Published(tag = "architect")
 public class JaxRsAccessLogFormatter {
@@ -81,6 +86,33 @@ public class JaxRsAccessLogFormatter {
     /** デフォルトのリクエスト処理終了時の出力が有効か否か。 */
     private static final String DEFAULT_END_OUTPUT_ENABLED = Boolean.TRUE.toString();
 
+    /** デフォルトのボディを取り込む上限のバイト数(取り込まない) */
+    private static final String DEFAULT_BODY_CAPTURE_SIZE = "0";
+
+    /** デフォルトのクライアント端末ホストをキャッシュするか否か(キャッシュせずコンテナから取得する) */
+    private static final String DEFAULT_CLIENT_HOST_CACHE_ENABLED = Boolean.FALSE.toString();
+
+    /** デフォルトのクライアント端末ホストをキャッシュする件数の上限 */
+    private static final String DEFAULT_CLIENT_HOST_CACHE_SIZE = "1024";
+
+    /** デフォルトのクライアント端末ホストのキャッシュの有効期間(ミリ秒) */
+    private static final String DEFAULT_CLIENT_HOST_CACHE_TTL = "300000";
+
+    /** デフォルトのクライアント端末ホストの逆引きのタイムアウト(ミリ秒) */
+    private static final String DEFAULT_CLIENT_HOST_LOOKUP_TIMEOUT = "1000";
+
+    /** デフォルトのセッションを読み込まずに出力するか否か(読み込んで出力する) */
+    private static final String DEFAULT_LAZY_SESSION_ENABLED = Boolean.FALSE.toString();
+
+    /** デフォルトのセッションストアIDを保持するクッキーの名前 */
+    private static final String DEFAULT_SESSION_STORE_COOKIE_NAME = "NABLARCH_SID";
+
+    /** ボディを上限で切り捨てた場合に末尾に付加する文字列 */
+    private static final String TRUNCATION_MARKER = "...(truncated)";
+
+    /** スレッドごとに再利用するバッファの容量の上限。超えた場合は再利用しない */
+    private static final int MAX_REUSABLE_CAPACITY = 64 * 1024;
+
     /** プロパティ名のプレフィックス */
     public static final String PROPS_PREFIX = "jaxRsAccessLogFormatter.";
 
@@ -117,6 +149,30 @@ public class JaxRsAccessLogFormatter {
     /** ボディ出力対象か判定するクラス名を取得する際に使用するプロパティ名 */
     private static final String PROPS_BODY_LOG_TARGET_MATCHER = PROPS_PREFIX + "bodyLogTargetMatcher";
 
+    /** リクエストボディを取り込む上限のバイト数を取得する際に使用するプロパティ名 */
+    private static final String PROPS_REQUEST_BODY_CAPTURE_SIZE = PROPS_PREFIX + "requestBodyCaptureSize";
+
+    /** レスポンスボディを取り込む上限のバイト数を取得する際に使用するプロパティ名 */
+    private static final String PROPS_RESPONSE_BODY_CAPTURE_SIZE = PROPS_PREFIX + "responseBodyCaptureSize";
+
+    /** クライアント端末ホストをキャッシュするか否かを取得する際に使用するプロパティ名 */
+    private static final String PROPS_CLIENT_HOST_CACHE_ENABLED = PROPS_PREFIX + "clientHostCacheEnabled";
+
+    /** クライアント端末ホストをキャッシュする件数の上限を取得する際に使用するプロパティ名 */
+    private static final String PROPS_CLIENT_HOST_CACHE_SIZE = PROPS_PREFIX + "clientHostCacheSize";
+
+    /** クライアント端末ホストのキャッシュの有効期間(ミリ秒)を取得する際に使用するプロパティ名 */
+    private static final String PROPS_CLIENT_HOST_CACHE_TTL = PROPS_PREFIX + "clientHostCacheTtl";
+
+    /** クライアント端末ホストの逆引きのタイムアウト(ミリ秒)を取得する際に使用するプロパティ名 */
+    private static final String PROPS_CLIENT_HOST_LOOKUP_TIMEOUT = PROPS_PREFIX + "clientHostLookupTimeout";
+
+    /** セッションを読み込まずに出力するか否かを取得する際に使用するプロパティ名 */
+    private static final String PROPS_LAZY_SESSION_ENABLED = PROPS_PREFIX + "lazySessionEnabled";
+
+    /** セッションストアIDを保持するクッキーの名前を取得する際に使用するプロパティ名 */
+    private static final String PROPS_SESSION_STORE_COOKIE_NAME = PROPS_PREFIX + "sessionStoreCookieName";
+
     /** 多値指定(カンマ区切り)のプロパティを分割する際に使用するパターン */
     private static final Pattern MULTIVALUE_SEPARATOR_PATTERN = Pattern.compile(",");
 
@@ -129,12 +185,44 @@ public class JaxRsAccessLogFormatter {
     /** 出力対象にメモリ項目が含まれているか否か。 */
     private boolean containsMemoryItem = false;
 
+    /** 出力対象にフェーズごとの処理時間の項目が含まれているか否か。 */
+    private boolean containsPhaseTimeItem = false;
+
+    /** 出力対象にレスポンスの書き込みの処理時間の項目が含まれているか否か。 */
+    private boolean containsResponseWriteTimeItem = false;
+
+    /** リクエストボディを取り込む上限のバイト数 */
+    private int requestBodyCaptureSize;
+
+    /** レスポンスボディを取り込む上限のバイト数 */
+    private int responseBodyCaptureSize;
+
+    /** クライアント端末ホストを逆引きしてキャッシュするクラス。キャッシュしない場合は{@code null} */
+    private ClientHostResolver clientHostResolver;
+
+    /** セッションを読み込まずにセッションの識別子を取得するクラス。セッションを読み込む場合は{@code null} */
+    private RequestedSessionReader requestedSessionReader;
+
     /** リクエスト処理開始時のフォーマット済みのログ出力項目 */
     private LogItem<JaxRsAccessLogContext>[] beginLogItems;
 
     /** リクエスト処理終了時のフォーマット済みのログ出力項目 */
     private LogItem<JaxRsAccessLogContext>[] endLogItems;
 
+    /** リクエスト処理開始時のログ出力項目を、値を直接追加する形式に変換したもの */
+    private AppendableLogItem[] beginAppendableItems;
+
+    /** リクエスト処理終了時のログ出力項目を、値を直接追加する形式に変換したもの */
+    private AppendableLogItem[] endAppendableItems;
+
+    /** スレッドごとに再利用するバッファ */
+    private final ThreadLocal<StringBuilder> buffers = new ThreadLocal<StringBuilder>() {
+        @Override
+        protected StringBuilder initialValue() {
+            return new StringBuilder(512);
+        }
+    };
+
     /**
      * 初期化する。
      *
@@ -142,6 +230,9 @@ public class JaxRsAccessLogFormatter {
      */
     public void initialize(Map<String, String> props) {
         initializeEnabled(props);
+        initializeBodyCapture(props);
+        initializeClientHost(props);
+        initializeSession(props);
         initializeLogItems(props);
     }
 
@@ -154,6 +245,96 @@ public class JaxRsAccessLogFormatter {
         endOutputEnabled = Boolean.parseBoolean(getProp(props, PROPS_END_OUTPUT_ENABLED, DEFAULT_END_OUTPUT_ENABLED));
     }
 
+    /**
+     * リクエストボディとレスポンスボディを取り込む上限のバイト数を初期化する。
+     * @param props 各種ログ出力の設定情報
+     */
+    protected void initializeBodyCapture(Map<String, String> props) {
+        requestBodyCaptureSize = Integer.parseInt(
+                getProp(props, PROPS_REQUEST_BODY_CAPTURE_SIZE, DEFAULT_BODY_CAPTURE_SIZE));
+        responseBodyCaptureSize = Integer.parseInt(
+                getProp(props, PROPS_RESPONSE_BODY_CAPTURE_SIZE, DEFAULT_BODY_CAPTURE_SIZE));
+    }
+
+    /**
+     * クライアント端末ホストの取得方法を初期化する。
+     * <p>
+     * キャッシュする設定の場合、クライアント端末ホストはコンテナから取得せず、
+     * IPアドレスをバックグラウンドで逆引きした結果をキャッシュから取得する。
+     * キャッシュにない場合は逆引きの完了を待たずにIPアドレスを出力する。
+     * </p>
+     * @param props 各種ログ出力の設定情報
+     */
+    protected void initializeClientHost(Map<String, String> props) {
+        if (!Boolean.parseBoolean(getProp(props, PROPS_CLIENT_HOST_CACHE_ENABLED, DEFAULT_CLIENT_HOST_CACHE_ENABLED))) {
+            clientHostResolver = null;
+            return;
+        }
+        clientHostResolver = new ClientHostResolver(
+                Integer.parseInt(getProp(props, PROPS_CLIENT_HOST_CACHE_SIZE, DEFAULT_CLIENT_HOST_CACHE_SIZE)),
+                Long.parseLong(getProp(props, PROPS_CLIENT_HOST_CACHE_TTL, DEFAULT_CLIENT_HOST_CACHE_TTL)),
+                Long.parseLong(getProp(props, PROPS_CLIENT_HOST_LOOKUP_TIMEOUT, DEFAULT_CLIENT_HOST_LOOKUP_TIMEOUT)));
+    }
+
+    /**
+     * セッションに関する項目の取得方法を初期化する。
+     * <p>
+     * セッションを読み込まずに出力する設定の場合、セッションIDとセッションストアIDはクライアントから送信された値を出力し、
+     * セッションスコープ情報は出力しない。
+     * セッションの保存先によっては、セッションの取得にデシリアライズやデータベースへのアクセスを伴うため、
+     * ログ出力のためだけにセッションを読み込まないようにする場合に使用する。
+     * </p>
+     * @param props 各種ログ出力の設定情報
+     */
+    protected void initializeSession(Map<String, String> props) {
+        if (!Boolean.parseBoolean(getProp(props, PROPS_LAZY_SESSION_ENABLED, DEFAULT_LAZY_SESSION_ENABLED))) {
+            requestedSessionReader = null;
+            return;
+        }
+        requestedSessionReader = new RequestedSessionReader(
+                getProp(props, PROPS_SESSION_STORE_COOKIE_NAME, DEFAULT_SESSION_STORE_COOKIE_NAME));
+    }
+
+    /**
+     * セッションを読み込まずにセッションの識別子を取得するクラスを取得する。
+     * @return セッションを読み込まずにセッションの識別子を取得するクラス。セッションを読み込む場合は{@code null}
+     */
+    RequestedSessionReader getRequestedSessionReader() {
+        return requestedSessionReader;
+    }
+
+    /**
+     * クライアント端末ホストを逆引きしてキャッシュするクラスを取得する。
+     * @return クライアント端末ホストを逆引きしてキャッシュするクラス。キャッシュしない場合は{@code null}
+     */
+    ClientHostResolver getClientHostResolver() {
+        return clientHostResolver;
+    }
+
+    /**
+     * クライアント端末ホストをキャッシュから取得した件数を取得する。
+     * @return 件数。キャッシュしない場合は0
+     */
+    public long getClientHostCacheHitCount() {
+        return clientHostResolver == null ? 0 : clientHostResolver.getHitCount();
+    }
+
+    /**
+     * クライアント端末ホストがキャッシュにない、または有効期間が過ぎていた件数を取得する。
+     * @return 件数。キャッシュしない場合は0
+     */
+    public long getClientHostCacheMissCount() {
+        return clientHostResolver == null ? 0 : clientHostResolver.getMissCount();
+    }
+
+    /**
+     * クライアント端末ホストの逆引きがタイムアウトより時間がかかった件数を取得する。
+     * @return 件数。キャッシュしない場合は0
+     */
+    public long getClientHostLookupTimeoutCount() {
+        return clientHostResolver == null ? 0 : clientHostResolver.getTimeoutCount();
+    }
+
     /**
      * フォーマット済みのログ出力項目を初期化する。
      * @param props 各種ログ出力の設定情報
@@ -163,11 +344,57 @@ public class JaxRsAccessLogFormatter {
 
         if (isBeginOutputEnabled()) {
             beginLogItems = LogUtil.createFormattedLogItems(logItems, getProp(props, PROPS_BEGIN_FORMAT, DEFAULT_BEGIN_FORMAT));
+            beginAppendableItems = toAppendableItems(beginLogItems);
         }
         if (isEndOutputEnabled()) {
             endLogItems = LogUtil.createFormattedLogItems(logItems, getProp(props, PROPS_END_FORMAT, DEFAULT_END_FORMAT));
-            containsMemoryItem = LogUtil.contains(endLogItems, MaxMemoryItem.class, FreeMemoryItem.class);
+            endAppendableItems = toAppendableItems(endLogItems);
+            containsMemoryItem = LogUtil.contains(endLogItems,
+                    MaxMemoryItem.class, FreeMemoryItem.class, GcCountItem.class, GcTimeItem.class);
+            containsPhaseTimeItem = LogUtil.contains(endLogItems, PhaseTimeItem.class);
+            containsResponseWriteTimeItem = containsResponseWriteTimeItem(endLogItems);
+        }
+    }
+
+    /**
+     * ログ出力項目にレスポンスの書き込みの処理時間の項目が含まれているか否かを判定する。
+     * @param logItems フォーマット済みのログ出力項目
+     * @return 含まれている場合はtrue
+     */
+    private static boolean containsResponseWriteTimeItem(LogItem<JaxRsAccessLogContext>[] logItems) {
+        for (LogItem<JaxRsAccessLogContext> logItem : logItems) {
+            if (logItem instanceof PhaseTimeItem
+                    && ((PhaseTimeItem) logItem).getPhase() == PhaseTimings.Phase.RESPONSE_WRITE) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * ログ出力項目を、値を直接追加する形式に変換する。
+     * <p>
+     * {@link AppendableLogItem}を実装していない項目は、取得した値を追加する形式に変換する。
+     * </p>
+     * @param logItems フォーマット済みのログ出力項目
+     * @return 値を直接追加する形式に変換したログ出力項目
+     */
+    private static AppendableLogItem[] toAppendableItems(LogItem<JaxRsAccessLogContext>[] logItems) {
+        AppendableLogItem[] appendableItems = new AppendableLogItem[logItems.length];
+        for (int i = 0; i < logItems.length; i++) {
+            final LogItem<JaxRsAccessLogContext> logItem = logItems[i];
+            if (logItem instanceof AppendableLogItem) {
+                appendableItems[i] = (AppendableLogItem) logItem;
+            } else {
+                appendableItems[i] = new AppendableLogItem() {
+                    @Override
+                    public void appendTo(StringBuilder sb, JaxRsAccessLogContext context) {
+                        sb.append(logItem.get(context));
+                    }
+                };
+            }
         }
+        return appendableItems;
     }
 
     /**
@@ -186,6 +413,53 @@ public class JaxRsAccessLogFormatter {
         return containsMemoryItem;
     }
 
+    /**
+     * 出力対象にフェーズごとの処理時間の項目が含まれているか否かを判定する。
+     * @return 出力対象にフェーズごとの処理時間の項目が含まれている場合はtrue
+     */
+    public boolean containsPhaseTimeItem() {
+        return containsPhaseTimeItem;
+    }
+
+    /**
+     * 出力対象にレスポンスの書き込みの処理時間の項目が含まれているか否かを判定する。
+     * <p>
+     * レスポンスの書き込みは{@link JaxRsAccessLogHandler}の外側の{@link JaxRsResponseHandler}で行うため、
+     * 含まれている場合、{@link JaxRsAccessLogHandler}は終了ログの出力を書き込みの完了時まで遅延する。
+     * </p>
+     * @return 出力対象にレスポンスの書き込みの処理時間の項目が含まれている場合はtrue
+     */
+    public boolean containsResponseWriteTimeItem() {
+        return containsResponseWriteTimeItem;
+    }
+
+    /**
+     * リクエストボディを取り込む上限のバイト数を取得する。
+     * <p>
+     * 0より大きい場合、{@link JaxRsAccessLogHandler}はアプリケーションが読み込んだリクエストボディの先頭を
+     * このバイト数まで取り込み、リクエストボディの出力項目は取り込んだ内容を出力する。
+     * 取り込みはアプリケーションによる読み込みと同時に行うため、リクエストボディはリクエスト処理終了時にのみ出力できる。
+     * 0以下の場合は取り込まず、出力時にリクエストボディ全体を先読みする。
+     * @return リクエストボディを取り込む上限のバイト数
+     */
+    public int getRequestBodyCaptureSize() {
+        return requestBodyCaptureSize;
+    }
+
+    /**
+     * レスポンスボディを取り込む上限のバイト数を取得する。
+     * <p>
+     * 0より大きい場合、{@link JaxRsResponseHandler}がクライアントに書き込んだレスポンスボディの先頭を
+     * このバイト数まで取り込み、レスポンスボディの出力項目は取り込んだ内容を出力する。
+     * この場合、{@link JaxRsAccessLogHandler}はレスポンスの書き込みが完了した時点で終了ログを出力するため、
+     * {@link JaxRsResponseHandler}より後ろに配置する必要がある。
+     * 0以下の場合は取り込まず、出力時にレスポンスのバッファからボディ全体を読み込む。
+     * @return レスポンスボディを取り込む上限のバイト数
+     */
+    public int getResponseBodyCaptureSize() {
+        return responseBodyCaptureSize;
+    }
+
     /**
      * フォーマット対象のログ出力項目を取得する。
      * @param props 各種ログの設定情報
@@ -205,13 +479,15 @@ public class JaxRsAccessLogFormatter {
         logItems.put("$parameters$", new ParametersItem(maskingChar, maskingPatterns,
                 getSeparator(props, PROPS_PARAMETERS_SEPARATOR, DEFAULT_PARAMETERS_SEPARATOR)));
         logItems.put("$sessionScope$", new SessionScopeItem(maskingChar, maskingPatterns,
-                getSeparator(props, PROPS_SESSION_SCOPE_SEPARATOR, DEFAULT_SESSION_SCOPE_SEPARATOR)));
+                getSeparator(props, PROPS_SESSION_SCOPE_SEPARATOR, DEFAULT_SESSION_SCOPE_SEPARATOR),
+                requestedSessionReader));
 
-        logItems.put("$sessionId$", new SessionIdItem());
-        logItems.put("$sessionStoreId$", new SessionStoreIdItem());
+        logItems.put("$sessionId$", new SessionIdItem(requestedSessionReader));
+        logItems.put("$sessionStoreId$", new SessionStoreIdItem(requestedSessionReader));
+        logItems.put("$sessionSkipped$", new SessionSkippedItem(requestedSessionReader));
         logItems.put("$statusCode$", new StatusCodeItem());
         logItems.put("$clientIpAddress$", new ClientIpAddressItem());
-        logItems.put("$clientHost$", new ClientHostItem());
+        logItems.put("$clientHost$", new ClientHostItem(clientHostResolver));
         logItems.put("$clientUserAgent$", new ClientUserAgentItem());
 
         DateFormat dateFormat = getDateFormat(props);
@@ -220,6 +496,15 @@ public class JaxRsAccessLogFormatter {
         logItems.put("$executionTime$", new ExecutionTimeItem());
         logItems.put("$maxMemory$", new MaxMemoryItem());
         logItems.put("$freeMemory$", new FreeMemoryItem());
+        logItems.put("$gcCount$", new GcCountItem());
+        logItems.put("$gcTime$", new GcTimeItem());
+        logItems.put("$dispatchTime$", new PhaseTimeItem(PhaseTimings.Phase.DISPATCH));
+        logItems.put("$requestBodyReadTime$", new PhaseTimeItem(PhaseTimings.Phase.REQUEST_BODY_READ));
+        logItems.put("$validationTime$", new PhaseTimeItem(PhaseTimings.Phase.VALIDATION));
+        logItems.put("$resourceMethodTime$", new PhaseTimeItem(PhaseTimings.Phase.RESOURCE_METHOD));
+        logItems.put("$responseBodyWriteTime$", new PhaseTimeItem(PhaseTimings.Phase.RESPONSE_BODY_WRITE));
+        logItems.put("$responseWriteTime$", new PhaseTimeItem(PhaseTimings.Phase.RESPONSE_WRITE));
+        logItems.put("$sampleRate$", new SampleRateItem());
 
         MessageBodyLogTargetMatcher bodyLogTargetMatcher = createBodyLogTargetMatcher(props);
         LogContentMaskingFilter bodyMaskingFilter = createBodyMaskingFilter(props);
@@ -344,7 +629,7 @@ public class JaxRsAccessLogFormatter {
      * @return フォーマット済みのメッセージ
      */
     public String formatBegin(JaxRsAccessLogContext context) {
-        return LogUtil.formatMessage(beginLogItems, context);
+        return format(beginAppendableItems, context);
     }
 
     /**
@@ -353,7 +638,29 @@ public class JaxRsAccessLogFormatter {
      * @return フォーマット済みのメッセージ
      */
     public String formatEnd(JaxRsAccessLogContext context) {
-        return LogUtil.formatMessage(endLogItems, context);
+        return format(endAppendableItems, context);
+    }
+
+    /**
+     * ログ出力項目の値をスレッドごとに再利用するバッファに追加し、メッセージをフォーマットする。
+     * @param appendableItems ログ出力項目
+     * @param context JaxRsAccessLogContext
+     * @return フォーマット済みのメッセージ
+     */
+    private String format(AppendableLogItem[] appendableItems, JaxRsAccessLogContext context) {
+        StringBuilder sb = buffers.get();
+        try {
+            for (AppendableLogItem appendableItem : appendableItems) {
+                appendableItem.appendTo(sb, context);
+            }
+            return sb.toString();
+        } finally {
+            sb.setLength(0);
+            if (sb.capacity() > MAX_REUSABLE_CAPACITY) {
+                // 大きなメッセージで拡張したバッファは保持し続けない
+                buffers.remove();
+            }
+        }
     }
 
     /**
@@ -372,6 +679,24 @@ public class JaxRsAccessLogFormatter {
         return endOutputEnabled;
     }
 
+    /**
+     * ログ出力項目の値を{@link StringBuilder}に直接追加するインタフェース。
+     * <p>
+     * ログ出力項目がこのインタフェースを実装している場合、フォーマット時は{@link LogItem#get(Object)}の代わりに
+     * {@link #appendTo(StringBuilder, JaxRsAccessLogContext)}を使用する。
+     * 数値などを文字列に変換せずに追加することで、フォーマット時に生成するオブジェクトを減らせる。
+     * </p>
+     */
+    public interface AppendableLogItem {
+
+        /**
+         * ログ出力項目の値を追加する。
+         * @param sb 追加先
+         * @param context JaxRsAccessLogContext
+         */
+        void appendTo(StringBuilder sb, JaxRsAccessLogContext context);
+    }
+
     public static class JaxRsAccessLogContext {
 
         /** {@link nablarch.fw.ExecutionContext } */
@@ -395,6 +720,27 @@ public class JaxRsAccessLogFormatter {
         /** 空きメモリ量(開始時) */
         private long freeMemory;
 
+        /** GCの累計回数(開始時) */
+        private long gcCount;
+
+        /** GCの累計時間(開始時) */
+        private long gcTime;
+
+        /** フェーズごとの処理時間 */
+        private PhaseTimings phaseTimings;
+
+        /** 実効サンプリング率 */
+        private double sampleRate = 1.0;
+
+        /** リクエストボディの取り込み先 */
+        private BodyCapture requestBodyCapture;
+
+        /** レスポンスボディの取り込み先 */
+        private BodyCapture responseBodyCapture;
+
+        /** リソースメソッドのアクセスログの出力方法 */
+        private JaxRsAccessLogRoutes.Route route;
+
         /**
          * {@link nablarch.fw.ExecutionContext}を設定する。
          * @return {@link nablarch.fw.ExecutionContext}
@@ -617,14 +963,175 @@ public class JaxRsAccessLogFormatter {
             this.freeMemory = freeMemory;
         }
 
+        /**
+         * GCの累計回数(開始時)を取得する。
+         * @return GCの累計回数(開始時)
+         */
+        public long getGcCount() {
+            return gcCount;
+        }
+
+        /**
+         * GCの累計回数(開始時)を設定する。
+         * @param gcCount GCの累計回数(開始時)
+         */
+        public void setGcCount(long gcCount) {
+            this.gcCount = gcCount;
+        }
+
+        /**
+         * GCの累計時間(開始時)を取得する。
+         * @return GCの累計時間(ミリ秒)
+         */
+        public long getGcTime() {
+            return gcTime;
+        }
+
+        /**
+         * GCの累計時間(開始時)を設定する。
+         * @param gcTime GCの累計時間(ミリ秒)
+         */
+        public void setGcTime(long gcTime) {
+            this.gcTime = gcTime;
+        }
+
+        /**
+         * フェーズごとの処理時間を取得する。
+         * @return フェーズごとの処理時間。計測していない場合は{@code null}
+         */
+        public PhaseTimings getPhaseTimings() {
+            return phaseTimings;
+        }
+
+        /**
+         * フェーズごとの処理時間を設定する。
+         * @param phaseTimings フェーズごとの処理時間
+         */
+        public void setPhaseTimings(PhaseTimings phaseTimings) {
+            this.phaseTimings = phaseTimings;
+        }
+
+        /**
+         * フェーズの処理時間を取得する。
+         * @param phase フェーズ
+         * @return 処理時間(ナノ秒)。計測していない場合は0
+         */
+        public long getElapsedNanos(PhaseTimings.Phase phase) {
+            return phaseTimings != null ? phaseTimings.getElapsedNanos(phase) : 0L;
+        }
+
+        /**
+         * 実効サンプリング率を取得する。
+         * <p>
+         * このログが何件に1件の割合で出力されたかを表す。サンプリングしていない場合は1.0。
+         * @return 実効サンプリング率
+         */
+        public double getSampleRate() {
+            return sampleRate;
+        }
+
+        /**
+         * 実効サンプリング率を設定する。
+         * @param sampleRate 実効サンプリング率
+         */
+        public void setSampleRate(double sampleRate) {
+            this.sampleRate = sampleRate;
+        }
+
+        /**
+         * 再利用できるよう、保持している情報を生成時の状態に戻す。
+         */
+        void clear() {
+            context = null;
+            request = null;
+            response = null;
+            startTime = 0;
+            endTime = 0;
+            maxMemory = 0;
+            freeMemory = 0;
+            gcCount = 0;
+            gcTime = 0;
+            phaseTimings = null;
+            sampleRate = 1.0;
+            requestBodyCapture = null;
+            responseBodyCapture = null;
+            route = null;
+        }
+
+        /**
+         * リソースメソッドのアクセスログの出力方法を取得する。
+         * @return リソースメソッドのアクセスログの出力方法。リソースメソッドが決定していない場合は{@code null}
+         */
+        JaxRsAccessLogRoutes.Route getRoute() {
+            return route;
+        }
+
+        /**
+         * リソースメソッドのアクセスログの出力方法を設定する。
+         * @param route リソースメソッドのアクセスログの出力方法
+         */
+        void setRoute(JaxRsAccessLogRoutes.Route route) {
+            this.route = route;
+        }
+
+        /**
+         * ボディを出力するか否かを判定する。
+         * <p>
+         * リソースメソッドに{@link JaxRsAccessLog#body()}で出力しないことが指定されている場合は{@code false}を返す。
+         * </p>
+         * @return 出力する場合は{@code true}
+         */
+        boolean isBodyEnabled() {
+            return route == null || route.isBodyEnabled();
+        }
+
+        /**
+         * リクエストボディの取り込み先を取得する。
+         * @return リクエストボディの取り込み先。取り込まない場合は{@code null}
+         */
+        BodyCapture getRequestBodyCapture() {
+            return requestBodyCapture;
+        }
+
+        /**
+         * リクエストボディの取り込み先を設定する。
+         * @param requestBodyCapture リクエストボディの取り込み先
+         */
+        void setRequestBodyCapture(BodyCapture requestBodyCapture) {
+            this.requestBodyCapture = requestBodyCapture;
+        }
+
+        /**
+         * レスポンスボディの取り込み先を取得する。
+         * @return レスポンスボディの取り込み先。取り込まない場合は{@code null}
+         */
+        BodyCapture getResponseBodyCapture() {
+            return responseBodyCapture;
+        }
+
+        /**
+         * レスポンスボディの取り込み先を設定する。
+         * @param responseBodyCapture レスポンスボディの取り込み先
+         */
+        void setResponseBodyCapture(BodyCapture responseBodyCapture) {
+            this.responseBodyCapture = responseBodyCapture;
+        }
+
         /**
          * リクエストのボディを読み込む。
+         * <p>
+         * リクエストボディを取り込んでいる場合は、取り込んだ内容を返す。
+         * 上限で切り捨てている場合は、末尾に切り捨てたことを表す文字列を付加する。
          *
          * @return ボディの文字列表現
          * @throws IOException 読込に失敗した場合
          */
         public String readRequestBody() throws IOException {
             NablarchHttpServletRequestWrapper servletRequest = context.getServletRequest();
+            if (requestBodyCapture != null) {
+                String content = requestBodyCapture.toString(servletRequest.getCharacterEncoding());
+                return requestBodyCapture.isTruncated() ? content + TRUNCATION_MARKER : content;
+            }
             int contentLength = servletRequest.getContentLength();
             if (contentLength < 1) {
                 // マイナス値が返ってくる場合もあるため考慮しておく
@@ -645,11 +1152,18 @@ public class JaxRsAccessLogFormatter {
 
         /**
          * レスポンスのボディを読み込む。
+         * <p>
+         * レスポンスボディを取り込んでいる場合は、取り込んだ内容を返す。
+         * 上限で切り捨てている場合は、末尾に切り捨てたことを表す文字列を付加する。
          *
          * @return ボディの文字列表現
          * @throws IOException 読込に失敗した場合
          */
         public String readResponseBody() throws IOException {
+            if (responseBodyCapture != null) {
+                String content = responseBodyCapture.toString(response.getCharset().name());
+                return responseBodyCapture.isTruncated() ? content + TRUNCATION_MARKER : content;
+            }
             if (response.isBodyEmpty()) {
                 return "";
             }
@@ -679,7 +1193,7 @@ public class JaxRsAccessLogFormatter {
     /**
      * リクエストIDを取得するクラス。
      */
-    public static class RequestIdItem implements LogItem<JaxRsAccessLogContext> {
+    public static class RequestIdItem implements LogItem<JaxRsAccessLogContext>, AppendableLogItem {
 
         /**
          * リクエストIDを取得する。
@@ -689,12 +1203,17 @@ public class JaxRsAccessLogFormatter {
         public String get(JaxRsAccessLogContext context) {
             return ThreadContext.getRequestId();
         }
+
+        @Override
+        public void appendTo(StringBuilder sb, JaxRsAccessLogContext context) {
+            sb.append(ThreadContext.getRequestId());
+        }
     }
 
     /**
      * ユーザIDを取得する。
      */
-    public static class UserIdItem implements LogItem<JaxRsAccessLogContext> {
+    public static class UserIdItem implements LogItem<JaxRsAccessLogContext>, AppendableLogItem {
 
         /**
          * ユーザIDを取得する。
@@ -704,12 +1223,17 @@ public class JaxRsAccessLogFormatter {
         public String get(JaxRsAccessLogContext context) {
             return ThreadContext.getUserId();
         }
+
+        @Override
+        public void appendTo(StringBuilder sb, JaxRsAccessLogContext context) {
+            sb.append(ThreadContext.getUserId());
+        }
     }
 
     /**
      * URLを取得するクラス。
      */
-    public static class UrlItem implements LogItem<JaxRsAccessLogContext> {
+    public static class UrlItem implements LogItem<JaxRsAccessLogContext>, AppendableLogItem {
 
         /**
          * URLを取得する。
@@ -719,12 +1243,17 @@ public class JaxRsAccessLogFormatter {
         public String get(JaxRsAccessLogContext context) {
             return context.getUrl();
         }
+
+        @Override
+        public void appendTo(StringBuilder sb, JaxRsAccessLogContext context) {
+            sb.append(context.getServletRequest().getRequestURL());
+        }
     }
 
     /**
      * クエリ文字列を取得するクラス。
      */
-    public static class QueryStringItem implements LogItem<JaxRsAccessLogContext> {
+    public static class QueryStringItem implements LogItem<JaxRsAccessLogContext>, AppendableLogItem {
 
         /**
          * クエリ文字列を取得する。
@@ -735,12 +1264,20 @@ public class JaxRsAccessLogFormatter {
         public String get(JaxRsAccessLogContext context) {
             return context.getQueryString();
         }
+
+        @Override
+        public void appendTo(StringBuilder sb, JaxRsAccessLogContext context) {
+            String queryString = context.getServletRequest().getQueryString();
+            if (queryString != null) {
+                sb.append('?').append(queryString);
+            }
+        }
     }
 
     /**
      * ポート番号を取得するクラス。
      */
-    public static class PortItem implements LogItem<JaxRsAccessLogContext> {
+    public static class PortItem implements LogItem<JaxRsAccessLogContext>, AppendableLogItem {
 
         /**
          * ポート番号を取得する。
@@ -750,12 +1287,17 @@ public class JaxRsAccessLogFormatter {
         public String get(JaxRsAccessLogContext context) {
             return String.valueOf(context.getPort());
         }
+
+        @Override
+        public void appendTo(StringBuilder sb, JaxRsAccessLogContext context) {
+            sb.append(context.getPort());
+        }
     }
 
     /**
      * HTTPメソッドを取得するクラス。
      */
-    public static class MethodItem implements LogItem<JaxRsAccessLogContext> {
+    public static class MethodItem implements LogItem<JaxRsAccessLogContext>, AppendableLogItem {
 
         /**
          * HTTPメソッドを取得する。
@@ -765,12 +1307,21 @@ public class JaxRsAccessLogFormatter {
         public String get(JaxRsAccessLogContext context) {
             return context.getMethod();
         }
+
+        @Override
+        public void appendTo(StringBuilder sb, JaxRsAccessLogContext context) {
+            sb.append(context.getMethod());
+        }
     }
 
     /**
      * リクエストパラメータを取得するクラス。
      */
     public static class ParametersItem extends MaskingMapItemSupport<JaxRsAccessLogContext> {
+
+        /** マスク対象であるか否かの判定結果をキャッシュしてマスクするクラス */
+        private final CachedMaskingMapValueEditor mapValueEditor;
+
         /**
          * コンストラクタ。
          * @param maskingChar マスク文字
@@ -778,12 +1329,14 @@ public class JaxRsAccessLogFormatter {
          * @param paramSeparator パラメータ間の区切り文字
          */
         public ParametersItem(char maskingChar, Pattern[] maskingPatterns, String paramSeparator) {
-            super(maskingChar, maskingPatterns, paramSeparator);
+            // マスクはgetMapで済ませるため、親クラスではマスクしない
+            super(maskingChar, new Pattern[0], paramSeparator);
+            mapValueEditor = new CachedMaskingMapValueEditor(maskingChar, maskingPatterns);
         }
 
         @Override
         protected Map<String, ?> getMap(JaxRsAccessLogContext context) {
-            return context.getParameters();
+            return mapValueEditor.mask(context.getParameters());
         }
     }
 
@@ -792,6 +1345,12 @@ public class JaxRsAccessLogFormatter {
      */
     public static class SessionScopeItem extends MaskingMapItemSupport<JaxRsAccessLogContext> {
 
+        /** マスク対象であるか否かの判定結果をキャッシュしてマスクするクラス */
+        private final CachedMaskingMapValueEditor mapValueEditor;
+
+        /** セッションを読み込まずにセッションの識別子を取得するクラス。セッションを読み込む場合は{@code null} */
+        private final RequestedSessionReader reader;
+
         /**
          * コンストラクタ。
          * @param maskingChar マスク文字
@@ -799,19 +1358,58 @@ public class JaxRsAccessLogFormatter {
          * @param varSeparator 変数間の区切り文字
          */
         public SessionScopeItem(char maskingChar, Pattern[] maskingPatterns, String varSeparator) {
-            super(maskingChar, maskingPatterns, varSeparator);
+            this(maskingChar, maskingPatterns, varSeparator, null);
+        }
+
+        /**
+         * コンストラクタ。
+         * @param maskingChar マスク文字
+         * @param maskingPatterns マスク対象のパターン
+         * @param varSeparator 変数間の区切り文字
+         * @param reader セッションを読み込まずにセッションの識別子を取得するクラス。セッションを読み込む場合は{@code null}
+         */
+        SessionScopeItem(char maskingChar, Pattern[] maskingPatterns, String varSeparator,
+                         RequestedSessionReader reader) {
+            // マスクはgetMapで済ませるため、親クラスではマスクしない
+            super(maskingChar, new Pattern[0], varSeparator);
+            mapValueEditor = new CachedMaskingMapValueEditor(maskingChar, maskingPatterns);
+            this.reader = reader;
         }
 
         @Override
         protected Map<String, ?> getMap(JaxRsAccessLogContext context) {
-            return context.getSessionScopeMap();
+            if (reader != null) {
+                return Collections.emptyMap();
+            }
+            return mapValueEditor.mask(context.getSessionScopeMap());
         }
     }
 
     /**
      * セッションIDを取得するクラス。
      */
-    public static class SessionIdItem implements LogItem<JaxRsAccessLogContext> {
+    public static class SessionIdItem implements LogItem<JaxRsAccessLogContext>, AppendableLogItem {
+
+        /** セッションを読み込まずにセッションの識別子を取得するクラス。セッションを読み込む場合は{@code null} */
+        private final RequestedSessionReader reader;
+
+        /**
+         * コンストラクタ。
+         * <p>
+         * セッションIDはセッションから取得する。
+         * </p>
+         */
+        public SessionIdItem() {
+            this(null);
+        }
+
+        /**
+         * コンストラクタ。
+         * @param reader セッションを読み込まずにセッションの識別子を取得するクラス。セッションを読み込む場合は{@code null}
+         */
+        SessionIdItem(RequestedSessionReader reader) {
+            this.reader = reader;
+        }
 
         /**
          * セッションIDを取得する。
@@ -819,14 +1417,40 @@ public class JaxRsAccessLogFormatter {
          * @return セッションID
          */
         public String get(JaxRsAccessLogContext context) {
-            return context.getSessionId();
+            return reader == null ? context.getSessionId() : reader.getSessionId(context.getServletRequest());
+        }
+
+        @Override
+        public void appendTo(StringBuilder sb, JaxRsAccessLogContext context) {
+            sb.append(get(context));
         }
     }
 
     /**
      * セッションストアIDを取得するクラス。
      */
-    public static class SessionStoreIdItem implements LogItem<JaxRsAccessLogContext> {
+    public static class SessionStoreIdItem implements LogItem<JaxRsAccessLogContext>, AppendableLogItem {
+
+        /** セッションを読み込まずにセッションの識別子を取得するクラス。セッションを読み込む場合は{@code null} */
+        private final RequestedSessionReader reader;
+
+        /**
+         * コンストラクタ。
+         * <p>
+         * セッションストアIDはセッションストアから取得する。
+         * </p>
+         */
+        public SessionStoreIdItem() {
+            this(null);
+        }
+
+        /**
+         * コンストラクタ。
+         * @param reader セッションを読み込まずにセッションの識別子を取得するクラス。セッションを読み込む場合は{@code null}
+         */
+        SessionStoreIdItem(RequestedSessionReader reader) {
+            this.reader = reader;
+        }
 
         /**
          * セッションストアIDを取得する。
@@ -834,14 +1458,66 @@ public class JaxRsAccessLogFormatter {
          * @return セッションストアID
          */
         public String get(JaxRsAccessLogContext context) {
-            return InternalSessionUtil.getId(context.getContext());
+            return reader == null
+                    ? InternalSessionUtil.getId(context.getContext())
+                    : reader.getSessionStoreId(context.getServletRequest());
+        }
+
+        @Override
+        public void appendTo(StringBuilder sb, JaxRsAccessLogContext context) {
+            sb.append(get(context));
+        }
+    }
+
+    /**
+     * セッションの読み込みを省略したか否かを取得するクラス。
+     * <p>
+     * セッションを読み込まずに出力する設定で、クライアントがセッションIDまたはセッションストアIDを送信している場合に{@code true}となる。
+     * この場合、セッションスコープ情報は出力されず、セッションIDとセッションストアIDは有効なセッションのものとは限らない。
+     * </p>
+     */
+    public static class SessionSkippedItem implements LogItem<JaxRsAccessLogContext>, AppendableLogItem {
+
+        /** セッションを読み込まずにセッションの識別子を取得するクラス。セッションを読み込む場合は{@code null} */
+        private final RequestedSessionReader reader;
+
+        /**
+         * コンストラクタ。
+         * <p>
+         * セッションを読み込むため、常に{@code false}となる。
+         * </p>
+         */
+        public SessionSkippedItem() {
+            this(null);
+        }
+
+        /**
+         * コンストラクタ。
+         * @param reader セッションを読み込まずにセッションの識別子を取得するクラス。セッションを読み込む場合は{@code null}
+         */
+        SessionSkippedItem(RequestedSessionReader reader) {
+            this.reader = reader;
+        }
+
+        /**
+         * セッションの読み込みを省略したか否かを取得する。
+         * @param context JaxRsAccessLogContext
+         * @return 省略した場合は"true"
+         */
+        public String get(JaxRsAccessLogContext context) {
+            return String.valueOf(reader != null && reader.isSkipped(context.getServletRequest()));
+        }
+
+        @Override
+        public void appendTo(StringBuilder sb, JaxRsAccessLogContext context) {
+            sb.append(reader != null && reader.isSkipped(context.getServletRequest()));
         }
     }
 
     /**
      * ステータスコードを取得するクラス。
      */
-    public static class StatusCodeItem implements LogItem<JaxRsAccessLogContext> {
+    public static class StatusCodeItem implements LogItem<JaxRsAccessLogContext>, AppendableLogItem {
 
         /**
          * ステータスコードを取得する。
@@ -852,12 +1528,20 @@ public class JaxRsAccessLogFormatter {
             int statusCode = context.getStatusCode();
             return statusCode != -1 ? String.valueOf(statusCode) : "";
         }
+
+        @Override
+        public void appendTo(StringBuilder sb, JaxRsAccessLogContext context) {
+            int statusCode = context.getStatusCode();
+            if (statusCode != -1) {
+                sb.append(statusCode);
+            }
+        }
     }
 
     /**
      * クライアント端末IPアドレスを取得するクラス。
      */
-    public static class ClientIpAddressItem implements LogItem<JaxRsAccessLogContext> {
+    public static class ClientIpAddressItem implements LogItem<JaxRsAccessLogContext>, AppendableLogItem {
 
         /**
          * クライアント端末IPアドレスを取得する。
@@ -867,12 +1551,38 @@ public class JaxRsAccessLogFormatter {
         public String get(JaxRsAccessLogContext context) {
             return context.getClientIpAddress();
         }
+
+        @Override
+        public void appendTo(StringBuilder sb, JaxRsAccessLogContext context) {
+            sb.append(context.getClientIpAddress());
+        }
     }
 
     /**
      * クライアント端末ホストを取得するクラス。
      */
-    public static class ClientHostItem implements LogItem<JaxRsAccessLogContext> {
+    public static class ClientHostItem implements LogItem<JaxRsAccessLogContext>, AppendableLogItem {
+
+        /** クライアント端末ホストを逆引きしてキャッシュするクラス。コンテナから取得する場合は{@code null} */
+        private final ClientHostResolver resolver;
+
+        /**
+         * コンストラクタ。
+         * <p>
+         * クライアント端末ホストはコンテナから取得する。
+         * </p>
+         */
+        public ClientHostItem() {
+            this(null);
+        }
+
+        /**
+         * コンストラクタ。
+         * @param resolver クライアント端末ホストを逆引きしてキャッシュするクラス。コンテナから取得する場合は{@code null}
+         */
+        ClientHostItem(ClientHostResolver resolver) {
+            this.resolver = resolver;
+        }
 
         /**
          * クライアント端末ホストを取得する。
@@ -880,14 +1590,26 @@ public class JaxRsAccessLogFormatter {
          * @return クライアント端末ホスト
          */
         public String get(JaxRsAccessLogContext context) {
-            return context.getClientHost();
+            return resolver == null ? context.getClientHost() : resolver.resolve(context.getClientIpAddress());
+        }
+
+        @Override
+        public void appendTo(StringBuilder sb, JaxRsAccessLogContext context) {
+            sb.append(get(context));
         }
     }
 
     /**
      * 開始日時を取得するクラス。
+     * <p>
+     * 日時フォーマットが{@link SimpleDateFormat}で、同じ出力となる{@link CachedTimestampFormatter}を生成できる場合は、
+     * {@link Date}を生成せずに{@link CachedTimestampFormatter}でフォーマットする。
+     * </p>
      */
-    public static class StartTimeItem extends DateItemSupport<JaxRsAccessLogContext> {
+    public static class StartTimeItem extends DateItemSupport<JaxRsAccessLogContext> implements AppendableLogItem {
+
+        /** 日時のフォーマッタ。生成できない場合は{@code null} */
+        private final CachedTimestampFormatter timestampFormatter;
 
         /**
          * コンストラクタ。
@@ -895,6 +1617,24 @@ public class JaxRsAccessLogFormatter {
          */
         public StartTimeItem(DateFormat dateFormat) {
             super(dateFormat);
+            timestampFormatter = CachedTimestampFormatter.create(dateFormat);
+        }
+
+        @Override
+        public String get(JaxRsAccessLogContext context) {
+            if (timestampFormatter == null) {
+                return super.get(context);
+            }
+            return timestampFormatter.format(context.getStartTime());
+        }
+
+        @Override
+        public void appendTo(StringBuilder sb, JaxRsAccessLogContext context) {
+            if (timestampFormatter == null) {
+                sb.append(super.get(context));
+            } else {
+                timestampFormatter.formatTo(context.getStartTime(), sb);
+            }
         }
 
         @Override
@@ -905,8 +1645,15 @@ public class JaxRsAccessLogFormatter {
 
     /**
      * 終了日時を取得するクラス。
+     * <p>
+     * 日時フォーマットが{@link SimpleDateFormat}で、同じ出力となる{@link CachedTimestampFormatter}を生成できる場合は、
+     * {@link Date}を生成せずに{@link CachedTimestampFormatter}でフォーマットする。
+     * </p>
      */
-    public static class EndTimeItem extends DateItemSupport<JaxRsAccessLogContext> {
+    public static class EndTimeItem extends DateItemSupport<JaxRsAccessLogContext> implements AppendableLogItem {
+
+        /** 日時のフォーマッタ。生成できない場合は{@code null} */
+        private final CachedTimestampFormatter timestampFormatter;
 
         /**
          * コンストラクタ。
@@ -914,6 +1661,24 @@ public class JaxRsAccessLogFormatter {
          */
         public EndTimeItem(DateFormat dateFormat) {
             super(dateFormat);
+            timestampFormatter = CachedTimestampFormatter.create(dateFormat);
+        }
+
+        @Override
+        public String get(JaxRsAccessLogContext context) {
+            if (timestampFormatter == null) {
+                return super.get(context);
+            }
+            return timestampFormatter.format(context.getEndTime());
+        }
+
+        @Override
+        public void appendTo(StringBuilder sb, JaxRsAccessLogContext context) {
+            if (timestampFormatter == null) {
+                sb.append(super.get(context));
+            } else {
+                timestampFormatter.formatTo(context.getEndTime(), sb);
+            }
         }
 
         @Override
@@ -924,7 +1689,7 @@ public class JaxRsAccessLogFormatter {
     /**
      * 実行時間を取得するクラス。
      */
-    public static class ExecutionTimeItem implements LogItem<JaxRsAccessLogContext> {
+    public static class ExecutionTimeItem implements LogItem<JaxRsAccessLogContext>, AppendableLogItem {
 
         /**
          * 実行時間を取得する。
@@ -934,12 +1699,17 @@ public class JaxRsAccessLogFormatter {
         public String get(JaxRsAccessLogContext context) {
             return String.valueOf(context.getExecutionTime());
         }
+
+        @Override
+        public void appendTo(StringBuilder sb, JaxRsAccessLogContext context) {
+            sb.append(context.getExecutionTime());
+        }
     }
 
     /**
      * 最大メモリ量を取得するクラス。
      */
-    public static class MaxMemoryItem implements LogItem<JaxRsAccessLogContext> {
+    public static class MaxMemoryItem implements LogItem<JaxRsAccessLogContext>, AppendableLogItem {
 
         /**
          * 最大メモリ量を取得する。
@@ -949,12 +1719,17 @@ public class JaxRsAccessLogFormatter {
         public String get(JaxRsAccessLogContext context) {
             return String.valueOf(context.getMaxMemory());
         }
+
+        @Override
+        public void appendTo(StringBuilder sb, JaxRsAccessLogContext context) {
+            sb.append(context.getMaxMemory());
+        }
     }
 
     /**
      * 空きメモリ量(開始時)を取得するクラス。
      */
-    public static class FreeMemoryItem implements LogItem<JaxRsAccessLogContext> {
+    public static class FreeMemoryItem implements LogItem<JaxRsAccessLogContext>, AppendableLogItem {
 
         /**
          * 開始時の空きメモリ量を取得する。
@@ -964,12 +1739,116 @@ public class JaxRsAccessLogFormatter {
         public String get(JaxRsAccessLogContext context) {
             return String.valueOf(context.getFreeMemory());
         }
+
+        @Override
+        public void appendTo(StringBuilder sb, JaxRsAccessLogContext context) {
+            sb.append(context.getFreeMemory());
+        }
+    }
+
+    /**
+     * GCの累計回数(開始時)を取得するクラス。
+     */
+    public static class GcCountItem implements LogItem<JaxRsAccessLogContext>, AppendableLogItem {
+
+        /**
+         * 開始時のGCの累計回数を取得する。
+         * @param context JaxRsAccessLogContext
+         * @return 開始時のGCの累計回数
+         */
+        public String get(JaxRsAccessLogContext context) {
+            return String.valueOf(context.getGcCount());
+        }
+
+        @Override
+        public void appendTo(StringBuilder sb, JaxRsAccessLogContext context) {
+            sb.append(context.getGcCount());
+        }
+    }
+
+    /**
+     * GCの累計時間(開始時)を取得するクラス。
+     */
+    public static class GcTimeItem implements LogItem<JaxRsAccessLogContext>, AppendableLogItem {
+
+        /**
+         * 開始時のGCの累計時間を取得する。
+         * @param context JaxRsAccessLogContext
+         * @return 開始時のGCの累計時間(ミリ秒)
+         */
+        public String get(JaxRsAccessLogContext context) {
+            return String.valueOf(context.getGcTime());
+        }
+
+        @Override
+        public void appendTo(StringBuilder sb, JaxRsAccessLogContext context) {
+            sb.append(context.getGcTime());
+        }
+    }
+
+    /**
+     * フェーズの処理時間(ナノ秒)を取得するクラス。
+     */
+    public static class PhaseTimeItem implements LogItem<JaxRsAccessLogContext>, AppendableLogItem {
+
+        /** フェーズ */
+        private final PhaseTimings.Phase phase;
+
+        /**
+         * コンストラクタ。
+         * @param phase フェーズ
+         */
+        public PhaseTimeItem(PhaseTimings.Phase phase) {
+            this.phase = phase;
+        }
+
+        /**
+         * フェーズを取得する。
+         * @return フェーズ
+         */
+        public PhaseTimings.Phase getPhase() {
+            return phase;
+        }
+
+        /**
+         * フェーズの処理時間を取得する。
+         * @param context JaxRsAccessLogContext
+         * @return フェーズの処理時間(ナノ秒)
+         */
+        public String get(JaxRsAccessLogContext context) {
+            return String.valueOf(context.getElapsedNanos(phase));
+        }
+
+        @Override
+        public void appendTo(StringBuilder sb, JaxRsAccessLogContext context) {
+            sb.append(context.getElapsedNanos(phase));
+        }
+    }
+
+    /**
+     * 実効サンプリング率を取得するクラス。
+     */
+    public static class SampleRateItem implements LogItem<JaxRsAccessLogContext>, AppendableLogItem {
+
+        /**
+         * 実効サンプリング率を取得する。
+         * @param context JaxRsAccessLogContext
+         * @return 実効サンプリング率
+         */
+        public String get(JaxRsAccessLogContext context) {
+            return String.valueOf(context.getSampleRate());
+        }
+
+        @Override
+        public void appendTo(StringBuilder sb, JaxRsAccessLogContext context) {
+            sb.append(context.getSampleRate());
+        }
     }
 
     /**
      * HTTPヘッダの User-Agent を取得する。
      */
-    public static class ClientUserAgentItem implements LogItem<JaxRsAccessLogContext> {
+    public static class ClientUserAgentItem implements LogItem<JaxRsAccessLogContext>, AppendableLogItem {
 
         /**
          * HTTPヘッダの User-Agent を取得する。
@@ -980,6 +1859,14 @@ public class JaxRsAccessLogFormatter {
             String info = context.getServletRequest().getHeader("User-Agent");
             return info == null ? "" : info;
         }
+
+        @Override
+        public void appendTo(StringBuilder sb, JaxRsAccessLogContext context) {
+            String info = context.getServletRequest().getHeader("User-Agent");
+            if (info != null) {
+                sb.append(info);
+            }
+        }
     }
 
     /**
@@ -1006,7 +1893,8 @@ public class JaxRsAccessLogFormatter {
 
         @Override
         public String get(JaxRsAccessLogContext context) {
-            if (logTargetMatcher.isTargetRequest(context.getRequest(), context.getContext())) {
+            if (context.isBodyEnabled()
+                    && logTargetMatcher.isTargetRequest(context.getRequest(), context.getContext())) {
                 try {
                     String content = context.readRequestBody();
                     return maskingFilter.mask(content);
@@ -1043,7 +1931,8 @@ public class JaxRsAccessLogFormatter {
 
         @Override
         public String get(JaxRsAccessLogContext context) {
-            if (logTargetMatcher.isTargetResponse(context.getRequest(), context.getResponse(), context.getContext())) {
+            if (context.isBodyEnabled()
+                    && logTargetMatcher.isTargetResponse(context.getRequest(), context.getResponse(), context.getContext())) {
                 try {
                     String content = context.readResponseBody();
                     return maskingFilter.mask(content);
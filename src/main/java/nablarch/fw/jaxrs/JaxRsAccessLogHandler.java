@@ -3,6 +3,7 @@ package nablarch.fw.jaxrs;
 import nablarch.core.log.Logger;
 import nablarch.core.log.LoggerManager;
 import nablarch.core.log.app.AppLogUtil;
+import nablarch.core.repository.disposal.Disposable;
 import nablarch.core.util.ObjectUtil;
 import nablarch.fw.ExecutionContext;
 import nablarch.fw.Handler;
@@ -10,26 +11,116 @@ import nablarch.fw.jaxrs.JaxRsAccessLogFormatter.JaxRsAccessLogContext;
 import nablarch.fw.web.HttpErrorResponse;
 import nablarch.fw.web.HttpRequest;
 import nablarch.fw.web.HttpResponse;
+import nablarch.fw.web.servlet.NablarchHttpServletRequestWrapper;
 import nablarch.fw.web.servlet.ServletExecutionContext;
 
-import java.lang.management.ManagementFactory;
-import java.lang.management.MemoryUsage;
+import jakarta.servlet.http.HttpServletRequest;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * RESTfulウェブサービスのアクセスログを出力するハンドラ。
+ * <p/>
+ * レスポンスが非同期に書き込まれる場合({@link ResponseCompletion}がリクエストスコープに設定されている場合)は、
+ * 書き込みが完了した時点で終了ログを出力する。
+ * <p/>
+ * {@link #setAsync(boolean)}で非同期出力を有効にした場合、リクエストスレッドではメッセージのフォーマットまでを行い、
+ * ロガーへの出力はバックグラウンドのスレッドで行う。
+ * ログ出力項目はリクエストやセッションの状態を参照するため、フォーマットはリクエストスレッドで行う。
+ * 出力待ちのメッセージは事前に確保したリングバッファに格納し、空きがない場合の動作は
+ * {@link #setOverflowPolicy(String)}で指定する。
+ * 非同期出力を有効にした場合、ヒープメモリの使用状況をバックグラウンドで取得する場合
+ * ({@link #setMemorySamplingInterval(long)})、またはクライアント端末ホストを逆引きしてキャッシュする場合は、
+ * このハンドラを{@code disposer}コンポーネントの破棄対象に登録すること。
+ * 破棄時({@link #dispose()})に出力待ちのメッセージを出力し、バックグラウンドのスレッドを終了する。
+ * <p/>
+ * {@link #setSamplingRate(String)}、{@link #setSamplingRates(Map)}または{@link #setAnnotationSamplingEnabled(boolean)}で
+ * サンプリングを有効にした場合、
+ * 2xx以外のステータスコードのリクエストと、{@link #setSlowThreshold(long)}以上の時間を要したリクエストは常に出力し、
+ * それ以外のリクエストはサンプリング率に従って出力する。
+ * 出力するか否かはリクエストの処理を終えるまで決まらないため、開始ログは終了ログの直前にフォーマットして出力する。
+ * 出力したログの実効サンプリング率は{@link JaxRsAccessLogContext#getSampleRate()}で参照できる。
+ * <p/>
+ * {@link JaxRsAccessLogFormatter#getRequestBodyCaptureSize()}が0より大きい場合、リクエストの入力ストリームをラップし、
+ * アプリケーションが読み込んだリクエストボディの先頭を上限のバイト数まで取り込む。
+ * {@link JaxRsAccessLogFormatter#getResponseBodyCaptureSize()}が0より大きい場合、
+ * {@link JaxRsResponseHandler}が書き込んだレスポンスボディの先頭を上限のバイト数まで取り込み、
+ * 書き込みが完了した時点で終了ログを出力する。
+ * ログ出力項目にレスポンスの書き込みの処理時間({@link PhaseTimings.Phase#RESPONSE_WRITE})が含まれる場合も同様に、
+ * 書き込みが完了した時点で終了ログを出力する。
+ * 取り込みに使用するバッファは、ログを出力した後に再利用する。
+ * <p/>
+ * リクエストスレッドで終了ログを出力した場合、{@link JaxRsAccessLogContext}は同じスレッドの次のリクエストで再利用する。
+ * 終了ログの出力を書き込みの完了時まで遅延する場合は、別のスレッドから参照されるため再利用しない。
+ * <p/>
+ * リソースクラスまたはリソースメソッドに{@link JaxRsAccessLog}を指定した場合、ボディの出力と取り込む上限、
+ * サンプリング率をリソースメソッドごとに変更できる。
+ * 指定はリソースメソッドごとに1度だけ解決し、以降はキャッシュから取得する。
+ * サンプリング率の指定は、サンプリングが有効な場合のみ使用する。
  */
-public class JaxRsAccessLogHandler implements Handler<HttpRequest, HttpResponse> {
+public class JaxRsAccessLogHandler implements Handler<HttpRequest, HttpResponse>, Disposable {
 
     /** ロガー */
     private static final Logger LOGGER = LoggerManager.get("HTTP_ACCESS");
 
+    /** 破棄時に出力待ちのメッセージを出力し終えるまで待機する時間(ミリ秒) */
+    private static final long DISPOSE_TIMEOUT_MILLIS = 5000;
+
     /** 空のオプション情報 */
     private static final Object[] EMPTY_OPTIONS = new Object[0];
 
     /** ログフォーマッター */
     private final JaxRsAccessLogFormatter logFormatter;
 
+    /** 非同期に出力するか否か */
+    private boolean async = false;
+
+    /** 非同期出力で使用するリングバッファのサイズ */
+    private int bufferSize = 1024;
+
+    /** リングバッファに空きがない場合の動作 */
+    private AsyncAccessLogWriter.OverflowPolicy overflowPolicy = AsyncAccessLogWriter.OverflowPolicy.BLOCK;
+
+    /** リングバッファの使用量が半分を超えた場合に、何件に1件を出力するか */
+    private int overflowSampleInterval = 10;
+
+    /** 非同期出力を行うライター */
+    private volatile AsyncAccessLogWriter asyncWriter;
+
+    /** ヒープメモリの使用状況を取得する間隔(ミリ秒) */
+    private long memorySamplingInterval = 0;
+
+    /** ヒープメモリの使用状況をバックグラウンドで取得するクラス */
+    private volatile HeapMemorySampler memorySampler;
+
+    /** サンプリング率 */
+    private double samplingRate = 1.0;
+
+    /** リソースメソッドのパスごとのサンプリング率 */
+    private Map<String, Double> samplingRates = Collections.emptyMap();
+
+    /** {@link JaxRsAccessLog#samplingRate()}によるサンプリングを有効にするか否か */
+    private boolean annotationSamplingEnabled = false;
+
+    /** リソースメソッドごとのアクセスログの出力方法 */
+    private JaxRsAccessLogRoutes routes = new JaxRsAccessLogRoutes();
+
+    /** 常に出力する処理時間の閾値(ミリ秒) */
+    private long slowThreshold = -1;
+
+    /** リクエストボディの取り込みに使用するバッファ */
+    private final Queue<byte[]> requestCaptureBuffers = new ConcurrentLinkedQueue<byte[]>();
+
+    /** レスポンスボディの取り込みに使用するバッファ */
+    private final Queue<byte[]> responseCaptureBuffers = new ConcurrentLinkedQueue<byte[]>();
+
+    /** スレッドごとに再利用する{@link JaxRsAccessLogContext} */
+    private final ThreadLocal<JaxRsAccessLogContext> recycledLogContexts = new ThreadLocal<JaxRsAccessLogContext>();
+
     /**
      * コンストラクタ。
      */
@@ -49,16 +140,36 @@ public class JaxRsAccessLogHandler implements Handler<HttpRequest, HttpResponse>
      */
     @Override
     public HttpResponse handle(HttpRequest request, ExecutionContext context) {
-        JaxRsAccessLogContext logContext = logFormatter.createAccessLogContext();
+        final JaxRsAccessLogContext logContext = acquireLogContext();
         logContext.setContext((ServletExecutionContext) context);
         logContext.setRequest(request);
-        writeBeginLog(logContext);
+        final boolean sampling = isSamplingEnabled();
+        if (logFormatter.getRequestBodyCaptureSize() > 0) {
+            // 開始ログでリクエストボディを先読みすると以降はラップできないため、開始ログの出力前に取り込みを開始する
+            logContext.setRequestBodyCapture(startRequestBodyCapture((ServletExecutionContext) context));
+        }
+        if (logFormatter.getResponseBodyCaptureSize() > 0) {
+            final BodyCapture responseCapture = new BodyCapture(
+                    acquireBuffer(responseCaptureBuffers, logFormatter.getResponseBodyCaptureSize()));
+            responseCapture.bindRoutes(context, routes);
+            BodyCapture.setResponseCapture(context, responseCapture);
+            logContext.setResponseBodyCapture(responseCapture);
+        }
+        if (!sampling) {
+            writeBeginLog(logContext);
+        }
 
         if (logFormatter.containsMemoryItem()) {
-            MemoryUsage heapMemory = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage();
-            long max = heapMemory.getMax();
-            logContext.setMaxMemory(max);
-            logContext.setFreeMemory(max - heapMemory.getUsed());
+            final HeapMemorySampler.Sample sample = memorySamplingInterval > 0
+                    ? getMemorySampler().getLatest() : HeapMemorySampler.take();
+            logContext.setMaxMemory(sample.getMaxMemory());
+            logContext.setFreeMemory(sample.getFreeMemory());
+            logContext.setGcCount(sample.getGcCount());
+            logContext.setGcTime(sample.getGcTime());
+        }
+
+        if (logFormatter.containsPhaseTimeItem()) {
+            logContext.setPhaseTimings(PhaseTimings.start(context));
         }
 
         logContext.setStartTime(System.currentTimeMillis());
@@ -72,11 +183,197 @@ public class JaxRsAccessLogHandler implements Handler<HttpRequest, HttpResponse>
             throw errorResponse;
 
         } finally {
-            logContext.setEndTime(System.currentTimeMillis());
-            writeEndLog(logContext);
+            if (sampling) {
+                logContext.setRoute(routes.get(context));
+            }
+            ResponseCompletion completion = ResponseCompletion.get(context);
+            final BodyCapture responseCapture = logContext.getResponseBodyCapture();
+            if (completion == null && (responseCapture != null && !responseCapture.isWritingStarted()
+                    || logFormatter.containsResponseWriteTimeItem())) {
+                // レスポンスボディの取り込みやレスポンスの書き込みの処理時間を出力するため、
+                // JaxRsResponseHandlerによる書き込みの完了時に終了ログを出力する
+                completion = ResponseCompletion.defer(context);
+            }
+            if (completion == null) {
+                logContext.setEndTime(System.currentTimeMillis());
+                try {
+                    writeLogsAndRelease(logContext, sampling);
+                } finally {
+                    recycleLogContext(logContext);
+                }
+            } else {
+                // レスポンスが非同期に書き込まれる場合は、書き込みの完了時に終了ログを出力する
+                completion.whenComplete(new Runnable() {
+                    @Override
+                    public void run() {
+                        logContext.setEndTime(System.currentTimeMillis());
+                        writeLogsAndRelease(logContext, sampling);
+                    }
+                });
+            }
+        }
+    }
+
+    /**
+     * {@link JaxRsAccessLogContext}を取得する。
+     * <p/>
+     * このスレッドで再利用できるものがあればそれを返し、なければ生成する。
+     * 処理中のリクエストから再度呼び出された場合にも同じものを返さないよう、返したものは再利用の対象から外す。
+     *
+     * @return {@link JaxRsAccessLogContext}
+     */
+    private JaxRsAccessLogContext acquireLogContext() {
+        final JaxRsAccessLogContext recycled = recycledLogContexts.get();
+        if (recycled != null) {
+            recycledLogContexts.set(null);
+            return recycled;
+        }
+        return logFormatter.createAccessLogContext();
+    }
+
+    /**
+     * ログの出力を終えた{@link JaxRsAccessLogContext}を、このスレッドで再利用できるようにする。
+     * <p/>
+     * フォーマッターが{@link JaxRsAccessLogContext}のサブクラスを生成している場合は、
+     * サブクラスが保持する情報を初期化できないため再利用しない。
+     *
+     * @param logContext ログの出力を終えた{@link JaxRsAccessLogContext}
+     */
+    private void recycleLogContext(JaxRsAccessLogContext logContext) {
+        if (logContext.getClass() == JaxRsAccessLogContext.class) {
+            logContext.clear();
+            recycledLogContexts.set(logContext);
+        }
+    }
+
+    /**
+     * リクエストボディの取り込みを開始する。
+     * <p/>
+     * サーブレットリクエストが内包するリクエストを、読み込んだバイト列を取り込むリクエストに差し替える。
+     *
+     * @param context {@link ServletExecutionContext}
+     * @return リクエストボディの取り込み先
+     */
+    private BodyCapture startRequestBodyCapture(ServletExecutionContext context) {
+        final BodyCapture capture = new BodyCapture(
+                acquireBuffer(requestCaptureBuffers, logFormatter.getRequestBodyCaptureSize()));
+        capture.bindRoutes(context, routes);
+        final NablarchHttpServletRequestWrapper servletRequest = context.getServletRequest();
+        servletRequest.setRequest(capture.wrap((HttpServletRequest) servletRequest.getRequest()));
+        return capture;
+    }
+
+    /**
+     * ボディの取り込みに使用するバッファを取得する。
+     * <p/>
+     * 返却されたバッファがあれば再利用し、なければ生成する。
+     *
+     * @param buffers 返却されたバッファ
+     * @param size バッファのサイズ
+     * @return バッファ
+     */
+    private static byte[] acquireBuffer(Queue<byte[]> buffers, int size) {
+        final byte[] buffer = buffers.poll();
+        return buffer != null ? buffer : new byte[size];
+    }
+
+    /**
+     * ボディの取り込みを終了し、使用したバッファを返却する。
+     *
+     * @param buffers 返却先
+     * @param capture ボディの取り込み先。取り込んでいない場合は{@code null}
+     */
+    private static void releaseBuffer(Queue<byte[]> buffers, BodyCapture capture) {
+        if (capture != null) {
+            final byte[] buffer = capture.release();
+            if (buffer != null) {
+                buffers.offer(buffer);
+            }
+        }
+    }
+
+    /**
+     * リクエスト処理終了時のログを出力し、ボディの取り込みに使用したバッファを返却する。
+     *
+     * @param logContext {@link JaxRsAccessLogContext}
+     * @param sampling サンプリングが有効か否か
+     */
+    private void writeLogsAndRelease(JaxRsAccessLogContext logContext, boolean sampling) {
+        try {
+            writeLogs(logContext, sampling);
+        } finally {
+            releaseBuffer(requestCaptureBuffers, logContext.getRequestBodyCapture());
+            releaseBuffer(responseCaptureBuffers, logContext.getResponseBodyCapture());
         }
     }
 
+    /**
+     * リクエスト処理終了時のログを出力する。
+     * <p/>
+     * サンプリングが有効な場合は、出力対象と判定したリクエストについてのみ、開始ログと終了ログを出力する。
+     *
+     * @param logContext {@link JaxRsAccessLogContext}
+     * @param sampling サンプリングが有効か否か
+     */
+    private void writeLogs(JaxRsAccessLogContext logContext, boolean sampling) {
+        if (sampling) {
+            final double rate = getEffectiveSampleRate(logContext);
+            if (rate <= 0.0) {
+                return;
+            }
+            logContext.setSampleRate(rate);
+            writeBeginLog(logContext);
+        }
+        writeEndLog(logContext);
+    }
+
+    /**
+     * サンプリングが有効か否かを判定する。
+     *
+     * @return サンプリングが有効な場合は{@code true}
+     */
+    private boolean isSamplingEnabled() {
+        return samplingRate < 1.0 || !samplingRates.isEmpty() || annotationSamplingEnabled;
+    }
+
+    /**
+     * リクエストをサンプリングし、出力する場合は実効サンプリング率を返す。
+     * <p/>
+     * 2xx以外のステータスコードのリクエストと、閾値以上の時間を要したリクエストは常に出力する(実効サンプリング率は1.0)。
+     * サンプリング率は、リソースメソッドの{@link JaxRsAccessLog}、リソースメソッドのパスごとの設定、
+     * {@link #setSamplingRate(String)}の設定の順に優先して使用する。
+     *
+     * @param logContext {@link JaxRsAccessLogContext}
+     * @return 実効サンプリング率。出力しない場合は0.0
+     */
+    private double getEffectiveSampleRate(JaxRsAccessLogContext logContext) {
+        final HttpResponse response = logContext.getResponse();
+        if (response == null || response.getStatusCode() < 200 || response.getStatusCode() >= 300) {
+            return 1.0;
+        }
+        if (slowThreshold >= 0 && logContext.getExecutionTime() >= slowThreshold) {
+            return 1.0;
+        }
+        double rate = samplingRate;
+        final JaxRsAccessLogRoutes.Route route = logContext.getRoute();
+        if (route != null && route.getSamplingRate() >= 0.0) {
+            rate = route.getSamplingRate();
+        }
+        if (rate >= 1.0) {
+            return 1.0;
+        }
+        return rate > 0.0 && random() < rate ? rate : 0.0;
+    }
+
+    /**
+     * サンプリングに使用する乱数を返す。
+     *
+     * @return 0.0以上1.0未満の乱数
+     */
+    protected double random() {
+        return ThreadLocalRandom.current().nextDouble();
+    }
+
     /**
      * 使用する {@link JaxRsAccessLogFormatter} を生成します。
      *
@@ -99,7 +396,7 @@ public class JaxRsAccessLogHandler implements Handler<HttpRequest, HttpResponse>
     protected void writeBeginLog(JaxRsAccessLogContext logContext) {
         if (logFormatter.isBeginOutputEnabled()) {
             Object[] requestLogOptions = getRequestOptions(logContext.getRequest(), logContext.getContext());
-            LOGGER.logInfo(logFormatter.formatBegin(logContext), requestLogOptions);
+            writeLog(logFormatter.formatBegin(logContext), requestLogOptions);
         }
     }
     
@@ -111,10 +408,258 @@ public class JaxRsAccessLogHandler implements Handler<HttpRequest, HttpResponse>
     protected void writeEndLog(JaxRsAccessLogContext logContext) {
         if (logFormatter.isEndOutputEnabled()) {
             Object[] responseOptions = getResponseOptions(logContext.getRequest(), logContext.getResponse(), logContext.getContext());
-            LOGGER.logInfo(logFormatter.formatEnd(logContext), responseOptions);
+            writeLog(logFormatter.formatEnd(logContext), responseOptions);
         }
     }
 
+    /**
+     * フォーマット済みのメッセージを出力する。
+     * <p/>
+     * 非同期出力が有効な場合は、バックグラウンドのスレッドでの出力待ちにする。
+     *
+     * @param message フォーマット済みのメッセージ
+     * @param options オプション情報
+     */
+    private void writeLog(String message, Object[] options) {
+        if (async) {
+            getAsyncWriter().offer(message, options);
+        } else {
+            LOGGER.logInfo(message, options);
+        }
+    }
+
+    /**
+     * 非同期出力を行うライターを取得する。
+     * <p/>
+     * 初回の呼び出し時に生成する。出力待ちのメッセージは{@link #dispose()}で出力する。
+     *
+     * @return 非同期出力を行うライター
+     */
+    AsyncAccessLogWriter getAsyncWriter() {
+        AsyncAccessLogWriter result = asyncWriter;
+        if (result == null) {
+            synchronized (this) {
+                result = asyncWriter;
+                if (result == null) {
+                    result = new AsyncAccessLogWriter(LOGGER, bufferSize, overflowPolicy, overflowSampleInterval);
+                    asyncWriter = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * バックグラウンドのスレッドを終了する。
+     * <p/>
+     * 非同期出力を行っている場合は、出力待ちのメッセージを出力してから終了する。
+     * 以降に非同期出力しようとしたメッセージは破棄する。
+     * ヒープメモリの使用状況をバックグラウンドで取得している場合は取得を停止し、
+     * 以降は最後に取得した値をログに出力する。
+     * クライアント端末ホストを逆引きしている場合は逆引きを停止し、以降はキャッシュにないIPアドレスをそのまま出力する。
+     */
+    @Override
+    public void dispose() {
+        final AsyncAccessLogWriter writer = asyncWriter;
+        if (writer != null) {
+            writer.close(DISPOSE_TIMEOUT_MILLIS);
+        }
+        final HeapMemorySampler sampler = memorySampler;
+        if (sampler != null) {
+            sampler.stop();
+        }
+        final ClientHostResolver resolver = logFormatter.getClientHostResolver();
+        if (resolver != null) {
+            resolver.stop();
+        }
+    }
+
+    /**
+     * ヒープメモリの使用状況をバックグラウンドで取得するクラスを取得する。
+     * <p/>
+     * 初回の呼び出し時に生成し、取得を開始する。
+     *
+     * @return ヒープメモリの使用状況をバックグラウンドで取得するクラス
+     */
+    HeapMemorySampler getMemorySampler() {
+        HeapMemorySampler result = memorySampler;
+        if (result == null) {
+            synchronized (this) {
+                result = memorySampler;
+                if (result == null) {
+                    result = new HeapMemorySampler(memorySamplingInterval);
+                    memorySampler = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * ヒープメモリの使用状況とGCの累計を取得する間隔を設定する。
+     * <p/>
+     * ログ出力項目にメモリ量またはGCの累計が含まれる場合に使用する。
+     * 0より大きい値を指定した場合は、バックグラウンドで指定した間隔ごとに取得した値をログに出力する。
+     * 0以下を指定した場合は、リクエストごとに取得する。
+     * デフォルトは0(リクエストごとに取得する)。
+     *
+     * @param memorySamplingInterval 取得間隔(ミリ秒)
+     */
+    public void setMemorySamplingInterval(long memorySamplingInterval) {
+        this.memorySamplingInterval = memorySamplingInterval;
+    }
+
+    /**
+     * サンプリング率を設定する。
+     * <p/>
+     * 0.0から1.0の範囲で指定する。デフォルトは1.0(全てのリクエストを出力する)。
+     * 1.0未満を指定した場合は、サンプリングを有効にする。
+     *
+     * @param samplingRate サンプリング率
+     */
+    public void setSamplingRate(String samplingRate) {
+        this.samplingRate = parseSamplingRate(samplingRate);
+    }
+
+    /**
+     * リソースメソッドごとのサンプリング率を設定する。
+     * <p/>
+     * キーにリソースメソッドのパス({@link JaxRsContext#toResourcePath()}の値)、値にサンプリング率を指定する。
+     * 指定されていないリソースメソッドは{@link #setSamplingRate(String)}の値を使用する。
+     * リソースメソッドに{@link JaxRsAccessLog#samplingRate()}が指定されている場合は、そちらを優先する。
+     * 1件以上指定した場合は、サンプリングを有効にする。
+     *
+     * @param samplingRates リソースメソッドのパスごとのサンプリング率
+     */
+    public void setSamplingRates(Map<String, String> samplingRates) {
+        final Map<String, Double> converted = new HashMap<String, Double>();
+        for (Map.Entry<String, String> entry : samplingRates.entrySet()) {
+            converted.put(entry.getKey(), parseSamplingRate(entry.getValue()));
+        }
+        this.samplingRates = converted;
+        routes = new JaxRsAccessLogRoutes(converted);
+    }
+
+    /**
+     * リソースメソッドに指定した{@link JaxRsAccessLog#samplingRate()}によるサンプリングを有効にするか否かを設定する。
+     * <p/>
+     * {@code true}を指定した場合は、他のサンプリング率の設定によらずサンプリングを有効にする。
+     * 開始ログはリソースメソッドが決定する前に出力するため、サンプリング率を指定していないリソースメソッドも含めて、
+     * 全てのリクエストで開始ログを終了ログの直前に出力する。
+     * デフォルトは{@code false}(他の設定でサンプリングが有効な場合のみ使用する)。
+     *
+     * @param annotationSamplingEnabled 有効にする場合は{@code true}
+     */
+    public void setAnnotationSamplingEnabled(boolean annotationSamplingEnabled) {
+        this.annotationSamplingEnabled = annotationSamplingEnabled;
+    }
+
+    /**
+     * サンプリングが有効な場合に、常に出力する処理時間の閾値を設定する。
+     * <p/>
+     * デフォルトは-1(処理時間によらずサンプリングする)。
+     *
+     * @param slowThreshold 常に出力する処理時間の閾値(ミリ秒)
+     */
+    public void setSlowThreshold(long slowThreshold) {
+        this.slowThreshold = slowThreshold;
+    }
+
+    /**
+     * サンプリング率を解析する。
+     *
+     * @param value サンプリング率
+     * @return サンプリング率
+     * @throws IllegalArgumentException 0.0から1.0の範囲の数値でない場合
+     */
+    private static double parseSamplingRate(String value) {
+        final double rate = Double.parseDouble(value);
+        if (!(rate >= 0.0 && rate <= 1.0)) {
+            throw new IllegalArgumentException("sampling rate must be between 0.0 and 1.0. value = [" + value + ']');
+        }
+        return rate;
+    }
+
+    /**
+     * 非同期出力で、リングバッファに空きがないため破棄した件数を取得する。
+     *
+     * @return 破棄した件数
+     */
+    public long getDroppedCount() {
+        final AsyncAccessLogWriter writer = asyncWriter;
+        return writer == null ? 0 : writer.getDroppedCount();
+    }
+
+    /**
+     * 非同期出力で、ロガーへの出力で例外が発生した件数を取得する。
+     *
+     * @return 例外が発生した件数
+     */
+    public long getFailedCount() {
+        final AsyncAccessLogWriter writer = asyncWriter;
+        return writer == null ? 0 : writer.getFailedCount();
+    }
+
+    /**
+     * 非同期出力で、SAMPLEにより間引いた件数を取得する。
+     *
+     * @return 間引いた件数
+     */
+    public long getOverflowSampledOutCount() {
+        final AsyncAccessLogWriter writer = asyncWriter;
+        return writer == null ? 0 : writer.getSampledOutCount();
+    }
+
+    /**
+     * アクセスログを非同期に出力するか否かを設定する。
+     * <p/>
+     * デフォルトは{@code false}(リクエストスレッドで出力する)。
+     *
+     * @param async 非同期に出力する場合は{@code true}
+     */
+    public void setAsync(boolean async) {
+        this.async = async;
+    }
+
+    /**
+     * 非同期出力で使用するリングバッファのサイズを設定する。
+     * <p/>
+     * デフォルトは1024。2のべき乗に切り上げる。
+     *
+     * @param bufferSize リングバッファのサイズ
+     */
+    public void setBufferSize(int bufferSize) {
+        this.bufferSize = bufferSize;
+    }
+
+    /**
+     * 非同期出力で、リングバッファに空きがない場合の動作を設定する。
+     * <p/>
+     * 以下のいずれかを指定する。
+     * <ul>
+     *     <li>BLOCK(デフォルト):空きができるまでリクエストスレッドを待機させる。</li>
+     *     <li>DROP:出力せずに破棄する。</li>
+     *     <li>SAMPLE:使用量が半分を超えたら{@link #setOverflowSampleInterval(int)}件に1件のみ出力し、空きがない場合は破棄する。</li>
+     * </ul>
+     *
+     * @param overflowPolicy リングバッファに空きがない場合の動作
+     */
+    public void setOverflowPolicy(String overflowPolicy) {
+        this.overflowPolicy = AsyncAccessLogWriter.OverflowPolicy.valueOf(overflowPolicy);
+    }
+
+    /**
+     * 非同期出力のSAMPLEで、何件に1件を出力するかを設定する。
+     * <p/>
+     * デフォルトは10。
+     * {@link #setSamplingRate(String)}(リクエストのサンプリング率)とは異なり、リングバッファの使用量による間引きにのみ使用する。
+     *
+     * @param overflowSampleInterval 何件に1件を出力するか
+     */
+    public void setOverflowSampleInterval(int overflowSampleInterval) {
+        this.overflowSampleInterval = overflowSampleInterval;
+    }
+
     /**
      * リクエスト処理開始時のログ出力で使用するオプション情報を取得する。
      *
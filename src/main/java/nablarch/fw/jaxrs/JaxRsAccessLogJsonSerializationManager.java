@@ -15,15 +15,96 @@ import nablarch.core.text.json.NumberToJsonSerializer;
 import nablarch.core.text.json.StringToJsonSerializer;
 import nablarch.core.util.annotation.Published;
 
+import nablarch.fw.jaxrs.JsonStringToJsonSerializer.JsonString;
+
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * RESTfulウェブサービスのアクセスログのJSON形式による出力に対応した{@link JsonSerializationManager}の実装クラス。
+ * <p/>
+ * アクセスログでは1行ごとに多数の値をシリアライズするため、値のクラスごとに使用する{@link JsonSerializer}をキャッシュし、
+ * {@link JsonSerializer}の探索は各クラスにつき1度だけ行う。
+ * 特に頻度の高い{@link String}、{@link Integer}、{@link Long}、{@link JsonString}は、
+ * キャッシュも参照せずに、専用に保持した{@link JsonSerializer}を返す。
+ * <p/>
+ * キャッシュは{@link #createSerializers(JsonSerializationSettings)}が返した{@link JsonSerializer}から作るため、
+ * 初期化後に使用する{@link JsonSerializer}を変更してはならない。
+ * キャッシュはインスタンスごとに保持するため、インスタンスとともに破棄される。
  */
 @Published(tag = "architect")
 public class JaxRsAccessLogJsonSerializationManager extends BasicJsonSerializationManager {
 
+    /** 値のクラスごとに使用する{@link JsonSerializer}のキャッシュ */
+    private final ConcurrentMap<Class<?>, JsonSerializer> serializerCache =
+            new ConcurrentHashMap<Class<?>, JsonSerializer>();
+
+    /** {@link String}に使用する{@link JsonSerializer} */
+    private final AtomicReference<JsonSerializer> stringSerializer = new AtomicReference<JsonSerializer>();
+
+    /** {@link Integer}に使用する{@link JsonSerializer} */
+    private final AtomicReference<JsonSerializer> integerSerializer = new AtomicReference<JsonSerializer>();
+
+    /** {@link Long}に使用する{@link JsonSerializer} */
+    private final AtomicReference<JsonSerializer> longSerializer = new AtomicReference<JsonSerializer>();
+
+    /** {@link JsonString}に使用する{@link JsonSerializer} */
+    private final AtomicReference<JsonSerializer> jsonStringSerializer = new AtomicReference<JsonSerializer>();
+
+    /**
+     * {@inheritDoc}
+     * <p/>
+     * 値のクラスに対応する{@link JsonSerializer}がキャッシュされていない場合のみ、
+     * {@link BasicJsonSerializationManager}と同様に探索してキャッシュする。
+     */
+    @Override
+    public JsonSerializer getSerializer(Object value) {
+        if (value == null) {
+            return super.getSerializer(null);
+        }
+        final Class<?> valueClass = value.getClass();
+        if (valueClass == String.class) {
+            return getCachedSerializer(stringSerializer, value);
+        }
+        if (valueClass == Integer.class) {
+            return getCachedSerializer(integerSerializer, value);
+        }
+        if (valueClass == Long.class) {
+            return getCachedSerializer(longSerializer, value);
+        }
+        if (valueClass == JsonString.class) {
+            return getCachedSerializer(jsonStringSerializer, value);
+        }
+        JsonSerializer serializer = serializerCache.get(valueClass);
+        if (serializer == null) {
+            serializer = super.getSerializer(value);
+            serializerCache.putIfAbsent(valueClass, serializer);
+        }
+        return serializer;
+    }
+
+    /**
+     * 専用に保持した{@link JsonSerializer}を取得する。
+     * <p/>
+     * キャッシュされていない場合は探索してキャッシュする。
+     * 複数のスレッドで同時に探索した場合も、同じ結果となるため問題ない。
+     *
+     * @param cache キャッシュ
+     * @param value 値
+     * @return {@link JsonSerializer}
+     */
+    private JsonSerializer getCachedSerializer(AtomicReference<JsonSerializer> cache, Object value) {
+        JsonSerializer serializer = cache.get();
+        if (serializer == null) {
+            serializer = super.getSerializer(value);
+            cache.set(serializer);
+        }
+        return serializer;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -0,0 +1,162 @@
+package nablarch.fw.jaxrs;
+
+import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import nablarch.core.log.Logger;
+import nablarch.core.log.LoggerManager;
+import nablarch.fw.ExecutionContext;
+
+/**
+ * リソースメソッドごとのアクセスログの出力方法を保持するクラス。
+ * <p/>
+ * {@link JaxRsAccessLog}とリソースメソッドのパスごとのサンプリング率から、
+ * リソースメソッドごとに1度だけ出力方法({@link Route})を決定し、以降はキャッシュから取得する。
+ */
+final class JaxRsAccessLogRoutes {
+
+    /** ロガー */
+    private static final Logger LOGGER = LoggerManager.get(JaxRsAccessLogRoutes.class);
+
+    /** 出力方法を指定していないリソースメソッドの{@link Route} */
+    static final Route DEFAULT = new Route(true, 0, -1.0);
+
+    /** リソースメソッドごとの{@link Route} */
+    private final ConcurrentMap<Method, Route> routes = new ConcurrentHashMap<Method, Route>();
+
+    /** リソースメソッドのパスごとのサンプリング率 */
+    private final Map<String, Double> samplingRates;
+
+    /**
+     * コンストラクタ。
+     */
+    JaxRsAccessLogRoutes() {
+        this(Collections.<String, Double>emptyMap());
+    }
+
+    /**
+     * コンストラクタ。
+     *
+     * @param samplingRates リソースメソッドのパス({@link JaxRsContext#toResourcePath()}の値)ごとのサンプリング率
+     */
+    JaxRsAccessLogRoutes(Map<String, Double> samplingRates) {
+        this.samplingRates = samplingRates;
+    }
+
+    /**
+     * 処理中のリクエストのリソースメソッドの{@link Route}を取得する。
+     *
+     * @param context 実行コンテキスト
+     * @return {@link Route}。リソースメソッドが決定していない場合は{@code null}
+     */
+    Route get(ExecutionContext context) {
+        final JaxRsContext jaxRsContext = JaxRsContext.get(context);
+        return jaxRsContext == null ? null : get(jaxRsContext.getResourceMethod());
+    }
+
+    /**
+     * リソースメソッドの{@link Route}を取得する。
+     *
+     * @param resourceMethod リソースメソッド
+     * @return {@link Route}
+     */
+    Route get(Method resourceMethod) {
+        final Route route = routes.get(resourceMethod);
+        if (route != null) {
+            return route;
+        }
+        final Route created = createRoute(resourceMethod);
+        final Route existing = routes.putIfAbsent(resourceMethod, created);
+        return existing != null ? existing : created;
+    }
+
+    /**
+     * リソースメソッドの{@link Route}を生成する。
+     * <p/>
+     * {@link JaxRsAccessLog#samplingRate()}が1.0より大きい場合は、ワーニングログを出力し、指定がないものとして扱う。
+     *
+     * @param resourceMethod リソースメソッド
+     * @return {@link Route}
+     */
+    private Route createRoute(Method resourceMethod) {
+        JaxRsAccessLog annotation = resourceMethod.getAnnotation(JaxRsAccessLog.class);
+        if (annotation == null) {
+            annotation = resourceMethod.getDeclaringClass().getAnnotation(JaxRsAccessLog.class);
+        }
+        double samplingRate = -1.0;
+        if (annotation != null && annotation.samplingRate() > 1.0) {
+            LOGGER.logWarn("sampling rate must be between 0.0 and 1.0, so it was ignored. "
+                    + "resource method = [" + resourceMethod + "], value = [" + annotation.samplingRate() + ']');
+        } else if (annotation != null && annotation.samplingRate() >= 0.0) {
+            samplingRate = annotation.samplingRate();
+        }
+        if (samplingRate < 0.0 && !samplingRates.isEmpty()) {
+            final Double pathRate = samplingRates.get(new JaxRsContext(resourceMethod).toResourcePath());
+            if (pathRate != null) {
+                samplingRate = pathRate;
+            }
+        }
+        if (annotation == null) {
+            return samplingRate < 0.0 ? DEFAULT : new Route(true, 0, samplingRate);
+        }
+        return new Route(annotation.body(), annotation.maxBodySize(), samplingRate);
+    }
+
+    /**
+     * リソースメソッドのアクセスログの出力方法。
+     */
+    static final class Route {
+
+        /** ボディを出力するか否か */
+        private final boolean bodyEnabled;
+
+        /** ボディを取り込む上限のバイト数。0以下の場合は指定なし */
+        private final int maxBodySize;
+
+        /** サンプリング率。負の値の場合は指定なし */
+        private final double samplingRate;
+
+        /**
+         * コンストラクタ。
+         *
+         * @param bodyEnabled ボディを出力するか否か
+         * @param maxBodySize ボディを取り込む上限のバイト数。0以下の場合は指定なし
+         * @param samplingRate サンプリング率。負の値の場合は指定なし
+         */
+        Route(boolean bodyEnabled, int maxBodySize, double samplingRate) {
+            this.bodyEnabled = bodyEnabled;
+            this.maxBodySize = maxBodySize;
+            this.samplingRate = samplingRate;
+        }
+
+        /**
+         * ボディを出力するか否かを判定する。
+         *
+         * @return 出力する場合は{@code true}
+         */
+        boolean isBodyEnabled() {
+            return bodyEnabled;
+        }
+
+        /**
+         * ボディを取り込む上限のバイト数を取得する。
+         *
+         * @return ボディを取り込む上限のバイト数。0以下の場合は指定なし
+         */
+        int getMaxBodySize() {
+            return maxBodySize;
+        }
+
+        /**
+         * サンプリング率を取得する。
+         *
+         * @return サンプリング率。負の値の場合は指定なし
+         */
+        double getSamplingRate() {
+            return samplingRate;
+        }
+    }
+}
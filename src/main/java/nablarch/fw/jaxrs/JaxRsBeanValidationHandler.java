@@ -30,10 +30,15 @@ public class JaxRsBeanValidationHandler implements Handler<HttpRequest, Object>
         final JaxRsContext jaxRsContext = JaxRsContext.get(context);
 
         if (jaxRsContext.hasValidAnnotation() && jaxRsContext.hasRequest()) {
-            if(jaxRsContext.hasConvertGroupAnnotation() && Default.class == jaxRsContext.getFromOfConvertGroupAnnotation()) {
-                validateParamWithGroup(jaxRsContext);
-            } else {
-                validateParam(jaxRsContext);
+            final long start = System.nanoTime();
+            try {
+                if(jaxRsContext.hasConvertGroupAnnotation() && Default.class == jaxRsContext.getFromOfConvertGroupAnnotation()) {
+                    validateParamWithGroup(jaxRsContext);
+                } else {
+                    validateParam(jaxRsContext);
+                }
+            } finally {
+                PhaseTimings.record(context, PhaseTimings.Phase.VALIDATION, start);
             }
         }
         return context.handleNext(request);
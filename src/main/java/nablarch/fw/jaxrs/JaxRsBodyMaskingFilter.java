@@ -6,27 +6,53 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
-import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 /**
  * ログ出力するJAX-RSのボディ文字列をマスク処理するフィルタ。
+ * <p/>
+ * ボディをJSONとみなして先頭から1度だけ走査し、マスク対象の項目名(大文字小文字は区別しない)を持つ項目の値をマスクする。
+ * 項目はオブジェクトや配列の階層によらずマスクする。
+ * マスク対象となる値の型は文字列、数値、真偽値とし、null、配列、オブジェクトはマスクしない。
+ * <p/>
+ * 走査は文字列リテラルの中の二重引用符やエスケープを考慮して行うため、値の中に項目名に似た文字列が含まれていてもマスク対象とはならない。
+ * マスク処理の結果はスレッドごとに再利用するバッファに書き込む。
+ * <p/>
+ * {@code bodyMaskingMaxLength}を指定した場合、先頭からその文字数までを走査して出力し、以降は切り捨てる。
  */
 public class JaxRsBodyMaskingFilter implements LogContentMaskingFilter {
 
     /** プロパティ名のプレフィックス */
     private static final String PROP_PREFIX = "jaxRsAccessLogFormatter.";
 
+    /** 切り捨てた場合に末尾に付加する文字列 */
+    static final String TRUNCATION_MARKER = "...(truncated)";
+
+    /** スレッドごとに再利用するバッファの容量の上限。超えた場合は再利用しない */
+    private static final int MAX_REUSABLE_CAPACITY = 64 * 1024;
+
+    /** スレッドごとに再利用するバッファ */
+    private static final ThreadLocal<StringBuilder> BUFFER = new ThreadLocal<StringBuilder>() {
+        @Override
+        protected StringBuilder initialValue() {
+            return new StringBuilder(1024);
+        }
+    };
+
     /** マスク文字 */
     private String maskingString;
 
-    /** マスク対象のJSON文字列パターン */
-    private List<Pattern> maskingJsonPatterns;
+    /** マスク対象の項目名 */
+    private String[] maskingItemNames;
+
+    /** 走査する最大文字数 */
+    private int maxLength;
 
     @Override
     public void initialize(Map<String, String> props) {
         maskingString = getMaskingString(props);
-        maskingJsonPatterns = getMaskingJsonPatterns(props);
+        maskingItemNames = getMaskingItemNames(props);
+        maxLength = getMaxLength(props);
     }
 
     /**
@@ -58,28 +84,60 @@ public class JaxRsBodyMaskingFilter implements LogContentMaskingFilter {
         return value.charAt(0);
     }
 
+    /**
+     * マスク対象の項目名を取得する。
+     *
+     * @param props 各種ログ出力の設定情報
+     * @return マスク対象の項目名
+     */
+    protected String[] getMaskingItemNames(Map<String, String> props) {
+        String value = props.get(PROP_PREFIX + "bodyMaskingItemNames");
+        if (value == null) {
+            return new String[0];
+        }
+        List<String> names = new ArrayList<String>();
+        for (String name : value.split(",")) {
+            String trimmed = name.trim();
+            if (!trimmed.isEmpty()) {
+                names.add(trimmed);
+            }
+        }
+        return names.toArray(new String[0]);
+    }
+
+    /**
+     * 走査する最大文字数を取得する。
+     *
+     * @param props 各種ログ出力の設定情報
+     * @return 走査する最大文字数。指定されていない場合は-1(全て走査する)
+     */
+    protected int getMaxLength(Map<String, String> props) {
+        String value = props.get(PROP_PREFIX + "bodyMaskingMaxLength");
+        if (StringUtil.isNullOrEmpty(value)) {
+            return -1;
+        }
+        return Integer.parseInt(value);
+    }
+
     /**
      * マスク対象のJSON文字列パターンを取得する。
      *
      * @param props 各種ログ出力の設定情報
      * @return マスク対象のパターン
+     * @deprecated マスク処理は正規表現を使用せずに行うため、このメソッドは使用しない。
+     *             マスク対象の項目名は{@link #getMaskingItemNames(Map)}で取得する。
      */
+    @Deprecated
     protected List<Pattern> getMaskingJsonPatterns(Map<String, String> props) {
         String value = props.get(PROP_PREFIX + "bodyMaskingItemNames");
         if (value == null || value.matches("^[ ,]*$")) {
             return Collections.emptyList();
         }
         List<Pattern> patterns = new ArrayList<Pattern>();
-        // 部分一致や完全一致を指定できるように正規表現を指定可能にすることも検討したが、
-        // 複雑なパターンを指定された際にJSON文字列にマッチするように変換するのが難しい。
-        // また、正規表現の先読み後読みを使用するため特定の構文を使用できないこともあり、
-        // JSONの項目名のみを指定してもらう方針とする
         String itemNameRegex = "\"(?:" + value.replace(",", "|") + ")\"";
         String stringValueRegex = "(?:(?!(?<!\\\\)\").)*";
         String numberValueRegex = "[+-]?(?:\\d+\\.?\\d*|\\.\\d+)(?:[eE][+-]?\\d+)?";
         String booleanValueRegex = "true|false";
-        // 1つのPatternにまとめたかったが、二重引用符の有無を考慮しつつ後読みで
-        // マッチさせる正規表現が不明だったため、二重引用符の有無で分けている
         String quotedItemRegex = "(?<=" + itemNameRegex + ":(?: |)\")" + stringValueRegex + "(?=\")";
         String nonQuotedItemRegex = "(?<=" + itemNameRegex + ":(?: |))(" + numberValueRegex + "|" + booleanValueRegex + ")";
         patterns.add(Pattern.compile(quotedItemRegex, Pattern.CASE_INSENSITIVE));
@@ -92,23 +150,204 @@ public class JaxRsBodyMaskingFilter implements LogContentMaskingFilter {
         if (content.isEmpty()) {
             return content;
         }
-        // JAX-RSのボディ形式としてJSONとXMLを扱っているが、現時点ではJSONのみ対応する
+        // XMLのマスク処理はJaxRsXmlBodyMaskingFilterで行う
         if (content.startsWith("<?xml")) {
             return content;
         }
-        List<Pattern> maskingPatterns = maskingJsonPatterns;
+        final boolean truncated = maxLength >= 0 && content.length() > maxLength;
+        final int end = truncated ? maxLength : content.length();
+        if (maskingItemNames.length == 0 && !truncated) {
+            return content;
+        }
+
+        final StringBuilder out = BUFFER.get();
+        try {
+            // 未出力の範囲の開始位置
+            int copied = 0;
+            int i = 0;
+            while (i < end) {
+                if (content.charAt(i) != '"') {
+                    i++;
+                    continue;
+                }
+                final int nameEnd = findClosingQuote(content, i + 1, end);
+                if (nameEnd == end) {
+                    break;
+                }
+                final int colon = skipWhitespace(content, nameEnd + 1, end);
+                if (colon == end || content.charAt(colon) != ':' || !isMaskingItemName(content, i + 1, nameEnd)) {
+                    i = nameEnd + 1;
+                    continue;
+                }
+                final int valueStart = skipWhitespace(content, colon + 1, end);
+                if (valueStart < end && content.charAt(valueStart) == '"') {
+                    // 二重引用符は残し、中身のみマスクする。閉じられていない場合は終了位置までをマスクする
+                    final int closing = findClosingQuote(content, valueStart + 1, end);
+                    out.append(content, copied, valueStart + 1).append(maskingString);
+                    copied = closing;
+                    i = closing + 1;
+                    continue;
+                }
+                final int valueEnd = findLiteralEnd(content, valueStart, end);
+                if (valueEnd < 0) {
+                    i = valueStart;
+                    continue;
+                }
+                out.append(content, copied, valueStart).append(maskingString);
+                copied = valueEnd;
+                i = valueEnd;
+            }
+            if (copied == 0 && !truncated) {
+                // マスク対象がない場合はコピーせずに返す
+                return content;
+            }
+            out.append(content, copied, end);
+            if (truncated) {
+                out.append(TRUNCATION_MARKER);
+            }
+            return out.toString();
+        } finally {
+            out.setLength(0);
+            if (out.capacity() > MAX_REUSABLE_CAPACITY) {
+                // 大きなボディで拡張したバッファは保持し続けない
+                BUFFER.remove();
+            }
+        }
+    }
+
+    /**
+     * 文字列リテラルを閉じる二重引用符の位置を返す。
+     * <p/>
+     * バックスラッシュでエスケープされた文字は読み飛ばす。
+     *
+     * @param content 走査対象の文字列
+     * @param from 文字列リテラルの中身の開始位置
+     * @param end 走査の終了位置
+     * @return 閉じる二重引用符の位置。見つからない場合は{@code end}
+     */
+    private static int findClosingQuote(String content, int from, int end) {
+        int i = from;
+        while (i < end) {
+            final char c = content.charAt(i);
+            if (c == '"') {
+                return i;
+            }
+            i += c == '\\' ? 2 : 1;
+        }
+        return end;
+    }
 
-        String result = content;
-        for (Pattern maskingPattern : maskingPatterns) {
-            // Matcher#appendReplacementがStringBuilderに対応していないため、StringBufferを使う
-            StringBuffer buf = new StringBuffer();
-            Matcher matcher = maskingPattern.matcher(result);
-            while(matcher.find()) {
-                matcher.appendReplacement(buf, maskingString);
+    /**
+     * 空白文字を読み飛ばした位置を返す。
+     *
+     * @param content 走査対象の文字列
+     * @param from 開始位置
+     * @param end 走査の終了位置
+     * @return 空白文字でない最初の位置。見つからない場合は{@code end}
+     */
+    private static int skipWhitespace(String content, int from, int end) {
+        int i = from;
+        while (i < end) {
+            final char c = content.charAt(i);
+            if (c != ' ' && c != '\t' && c != '\r' && c != '\n') {
+                return i;
             }
-            matcher.appendTail(buf);
-            result = buf.toString();
+            i++;
+        }
+        return end;
+    }
+
+    /**
+     * 項目名がマスク対象であるか否かを判定する。
+     *
+     * @param content 走査対象の文字列
+     * @param from 項目名の開始位置
+     * @param to 項目名の終了位置(この位置は含まない)
+     * @return マスク対象の場合は{@code true}
+     */
+    private boolean isMaskingItemName(String content, int from, int to) {
+        final int length = to - from;
+        for (String name : maskingItemNames) {
+            if (name.length() == length && content.regionMatches(true, from, name, 0, length)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * マスク対象となる数値または真偽値の終了位置を返す。
+     * <p/>
+     * 値が走査の終了位置をまたぐ場合は、終了位置までを値とみなす。
+     *
+     * @param content 走査対象の文字列
+     * @param from 値の開始位置
+     * @param end 走査の終了位置
+     * @return 値の終了位置(この位置は含まない)。数値及び真偽値でない場合は-1
+     */
+    private static int findLiteralEnd(String content, int from, int end) {
+        if (from >= end) {
+            return -1;
+        }
+        if (content.regionMatches(true, from, "true", 0, 4)) {
+            return Math.min(from + 4, end);
+        }
+        if (content.regionMatches(true, from, "false", 0, 5)) {
+            return Math.min(from + 5, end);
+        }
+        return findNumberEnd(content, from, end);
+    }
+
+    /**
+     * 数値の終了位置を返す。
+     *
+     * @param content 走査対象の文字列
+     * @param from 数値の開始位置
+     * @param end 走査の終了位置
+     * @return 数値の終了位置(この位置は含まない)。数値でない場合は-1
+     */
+    private static int findNumberEnd(String content, int from, int end) {
+        int i = from;
+        if (i < end && (content.charAt(i) == '+' || content.charAt(i) == '-')) {
+            i++;
+        }
+        final int integerStart = i;
+        i = skipDigits(content, i, end);
+        boolean hasDigits = i > integerStart;
+        if (i < end && content.charAt(i) == '.') {
+            final int fractionStart = ++i;
+            i = skipDigits(content, i, end);
+            hasDigits |= i > fractionStart;
+        }
+        if (!hasDigits) {
+            return -1;
+        }
+        if (i < end && (content.charAt(i) == 'e' || content.charAt(i) == 'E')) {
+            int exponent = i + 1;
+            if (exponent < end && (content.charAt(exponent) == '+' || content.charAt(exponent) == '-')) {
+                exponent++;
+            }
+            final int exponentEnd = skipDigits(content, exponent, end);
+            if (exponentEnd > exponent) {
+                i = exponentEnd;
+            }
+        }
+        return i;
+    }
+
+    /**
+     * 数字を読み飛ばした位置を返す。
+     *
+     * @param content 走査対象の文字列
+     * @param from 開始位置
+     * @param end 走査の終了位置
+     * @return 数字でない最初の位置
+     */
+    private static int skipDigits(String content, int from, int end) {
+        int i = from;
+        while (i < end && content.charAt(i) >= '0' && content.charAt(i) <= '9') {
+            i++;
         }
-        return result;
+        return i;
     }
 }
@@ -271,7 +271,12 @@ public class JaxRsMethodBinder implements MethodBinder<HttpRequest, Object> {
                 @Override
                 public Object handle(final HttpRequest req, final ExecutionContext ctx) {
                     saveBoundClassAndMethodToRequestScope(ctx, delegate.getClass(), boundMethod);
-                    return resourceMethod.invoke(delegate, req, ctx);
+                    final long start = System.nanoTime();
+                    try {
+                        return resourceMethod.invoke(delegate, req, ctx);
+                    } finally {
+                        PhaseTimings.record(ctx, PhaseTimings.Phase.RESOURCE_METHOD, start);
+                    }
                 }
             };
 
@@ -282,7 +287,12 @@ public class JaxRsMethodBinder implements MethodBinder<HttpRequest, Object> {
             }
             final Handler<HttpRequest, Object> wrappedHandler = 
                     Factory.wrap(handler, boundMethod.getAnnotations());
-            return ctx.addHandler(wrappedHandler).handleNext(req);
+            final long start = System.nanoTime();
+            try {
+                return ctx.addHandler(wrappedHandler).handleNext(req);
+            } finally {
+                PhaseTimings.record(ctx, PhaseTimings.Phase.DISPATCH, start);
+            }
         }
     }
 }
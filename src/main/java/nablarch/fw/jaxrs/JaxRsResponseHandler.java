@@ -7,6 +7,10 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.ServletOutputStream;
 import jakarta.servlet.http.HttpServletResponse;
 
 import nablarch.core.log.Logger;
@@ -27,6 +31,18 @@ import nablarch.fw.web.servlet.ServletExecutionContext;
  * <p/>
  * 後続のハンドラ及び{@link ErrorResponseBuilder}で{@link HttpResponse}を生成する際には、レスポンスヘッダーも含めて設定する必要がある。
  * このハンドラでは、レスポンスヘッダーを自動的に設定するようなことはしない。
+ * <p/>
+ * 後続のハンドラから戻された{@link HttpResponse}が{@link StreamingResponse}を実装している場合は、
+ * サーブレットの非同期処理を開始し、ボディの書き込みを{@link StreamingResponse}に委譲する。
+ * <p/>
+ * {@link #setNonBlockingWrite(boolean)}で{@code true}を設定した場合は、サーブレットの非同期処理を開始し、
+ * {@link jakarta.servlet.WriteListener}を使用してボディをノンブロッキングで書き込む。
+ * 受信の遅いクライアントへの書き込みでスレッドを占有しないため、大きなボディを返す場合に有効である。
+ * <p/>
+ * 非同期処理でボディを書き込む場合、このハンドラの処理を終えた時点では書き込みは完了していない。
+ * 書き込みの完了後に行う処理は、{@link ResponseCompletion}に登録すること。
+ * 後続のハンドラが{@link ResponseCompletion}をリクエストスコープに設定している場合は、
+ * 同期的に書き込む場合も、書き込みを終えた時点で完了を通知する。
  *
  * @author Hisaaki Shioiri
  */
@@ -44,6 +60,12 @@ public class JaxRsResponseHandler implements HttpRequestHandler {
     /** レスポンスフィニッシャー */
     private List<ResponseFinisher> responseFinishers = Collections.emptyList();
 
+    /** ボディをノンブロッキングで書き込むか否か */
+    private boolean nonBlockingWrite = false;
+
+    /** ボディを非同期に書き込む際のタイムアウト(ミリ秒) */
+    private long asyncWriteTimeout = 0L;
+
     /** ロガー */
     private static final Logger LOGGER = LoggerManager.get(JaxRsResponseHandler.class);
 
@@ -68,7 +90,21 @@ public class JaxRsResponseHandler implements HttpRequestHandler {
         if (LOGGER.isDebugEnabled()) {
             LOGGER.logDebug(request.getMethod() + ' ' + request.getRequestUri() + " status code=[" + response.getStatusCode() + "], content length=[" + response.getContentLength() + ']');
         }
-        writeResponse(response, (ServletExecutionContext) context);
+        final ResponseCompletion pending = ResponseCompletion.get(context);
+        final BodyCapture capture = BodyCapture.getResponseCapture(context);
+        if (capture != null) {
+            capture.startWriting();
+        }
+        final long start = System.nanoTime();
+        try {
+            writeResponse(response, (ServletExecutionContext) context);
+        } finally {
+            PhaseTimings.record(context, PhaseTimings.Phase.RESPONSE_WRITE, start);
+            if (pending != null && ResponseCompletion.get(context) == pending) {
+                // 後続のハンドラが書き込みの完了を待っている場合は、書き込みに失敗しても終えたことを通知する
+                pending.complete();
+            }
+        }
         return response;
     }
 
@@ -93,8 +129,16 @@ public class JaxRsResponseHandler implements HttpRequestHandler {
     protected void writeResponse(final HttpResponse response, final ServletExecutionContext context) {
         final HttpServletResponse nativeResponse = context.getServletResponse();
         writeHeaders(response, nativeResponse);
-        final InputStream inputStream = response.getBodyStream();
+        if (response instanceof StreamingResponse) {
+            writeStreamingBody((StreamingResponse) response, context);
+            return;
+        }
+        final InputStream inputStream = wrapBodyStream(response.getBodyStream(), context);
         if (inputStream != null) {
+            if (nonBlockingWrite) {
+                writeBodyNonBlocking(response, inputStream, context);
+                return;
+            }
             try {
                 writeBody(inputStream, context.getServletResponse());
             } catch (IOException e) {
@@ -106,6 +150,117 @@ public class JaxRsResponseHandler implements HttpRequestHandler {
         }
     }
 
+    /**
+     * ボディの入力ストリームを、アクセスログに出力するためにボディを取り込む入力ストリームでラップする。
+     * <p/>
+     * リクエストスコープにボディの取り込み先が設定されていない場合は、そのまま返す。
+     *
+     * @param inputStream ボディの入力ストリーム
+     * @param context {@link ServletExecutionContext}
+     * @return 入力ストリーム
+     */
+    private static InputStream wrapBodyStream(final InputStream inputStream, final ServletExecutionContext context) {
+        final BodyCapture capture = BodyCapture.getResponseCapture(context);
+        if (inputStream == null || capture == null) {
+            return inputStream;
+        }
+        return capture.wrap(inputStream);
+    }
+
+    /**
+     * {@link StreamingResponse}のボディを非同期に書き込む。
+     * <p/>
+     * サーブレットの非同期処理を開始し、ボディの書き込みを{@link StreamingResponse}に委譲する。
+     * 書き込みの開始に失敗した場合は、証跡ログのみを残して非同期処理を終了する。
+     *
+     * @param response {@link StreamingResponse}
+     * @param context {@link ServletExecutionContext}
+     */
+    protected void writeStreamingBody(final StreamingResponse response, final ServletExecutionContext context) {
+        final AsyncContext asyncContext = startAsync(context);
+        try {
+            response.startStreaming(asyncContext, context);
+        } catch (IOException e) {
+            LOGGER.logWarn("failed to write response.", e);
+            asyncContext.complete();
+        }
+    }
+
+    /**
+     * レスポンスのボディをノンブロッキングで書き込む。
+     * <p/>
+     * サーブレットの非同期処理を開始し、出力ストリームが書き込み可能になるたびにボディを書き込む。
+     * 書き込みが終了した時点で、ボディの入力ストリームのクローズと{@link HttpResponse#cleanup()}を行う。
+     *
+     * @param response {@link HttpResponse}
+     * @param inputStream ボディの入力ストリーム
+     * @param context {@link ServletExecutionContext}
+     */
+    protected void writeBodyNonBlocking(final HttpResponse response, final InputStream inputStream,
+            final ServletExecutionContext context) {
+        final AsyncContext asyncContext = startAsync(context);
+        final ServletOutputStream out;
+        try {
+            out = asyncContext.getResponse().getOutputStream();
+        } catch (IOException e) {
+            LOGGER.logWarn("failed to write response.", e);
+            FileUtil.closeQuietly(inputStream);
+            response.cleanup();
+            asyncContext.complete();
+            return;
+        }
+        final NonBlockingBodyWriter writer = new NonBlockingBodyWriter(asyncContext, out, inputStream, response, BUFFER_SIZE);
+        asyncContext.addListener(writer);
+        out.setWriteListener(writer);
+    }
+
+    /**
+     * サーブレットの非同期処理を開始する。
+     * <p/>
+     * 非同期処理が終了した時点で書き込みの完了を通知するため、{@link ResponseCompletion}をリクエストスコープに設定する。
+     * 後続のハンドラが既に{@link ResponseCompletion}を設定している場合は、あわせて通知する。
+     *
+     * @param context {@link ServletExecutionContext}
+     * @return 非同期処理のコンテキスト
+     */
+    private AsyncContext startAsync(final ServletExecutionContext context) {
+        final ResponseCompletion pending = ResponseCompletion.get(context);
+        final ResponseCompletion completion = ResponseCompletion.defer(context);
+        if (pending != null) {
+            // 後続のハンドラが書き込みの完了を待っている場合は、非同期処理の終了時に通知する
+            completion.whenComplete(new Runnable() {
+                @Override
+                public void run() {
+                    pending.complete();
+                }
+            });
+        }
+        final AsyncContext asyncContext = context.getServletRequest().startAsync();
+        asyncContext.setTimeout(asyncWriteTimeout);
+        asyncContext.addListener(new AsyncListener() {
+            @Override
+            public void onComplete(AsyncEvent event) {
+                completion.complete();
+            }
+
+            @Override
+            public void onTimeout(AsyncEvent event) {
+                // 非同期処理の終了はonCompleteで通知される
+            }
+
+            @Override
+            public void onError(AsyncEvent event) {
+                // 非同期処理の終了はonCompleteで通知される
+            }
+
+            @Override
+            public void onStartAsync(AsyncEvent event) {
+                // NOP
+            }
+        });
+        return asyncContext;
+    }
+
     /**
      * レスポンスヘッダーを書き込む。
      * <p/>
@@ -184,5 +339,28 @@ public class JaxRsResponseHandler implements HttpRequestHandler {
     public void setResponseFinishers(List<ResponseFinisher> responseFinishers) {
         this.responseFinishers = responseFinishers;
     }
+
+    /**
+     * ボディをノンブロッキングで書き込むか否かを設定する。
+     * <p/>
+     * デフォルトは{@code false}(書き込みが完了するまでスレッドをブロックする)。
+     *
+     * @param nonBlockingWrite ノンブロッキングで書き込む場合は{@code true}
+     */
+    public void setNonBlockingWrite(boolean nonBlockingWrite) {
+        this.nonBlockingWrite = nonBlockingWrite;
+    }
+
+    /**
+     * ボディを非同期に書き込む際のタイムアウト(ミリ秒)を設定する。
+     * <p/>
+     * デフォルトは0(タイムアウトしない)。
+     * {@link StreamingResponse}が独自にタイムアウトを設定する場合は、そちらが優先される。
+     *
+     * @param asyncWriteTimeout タイムアウト(ミリ秒)
+     */
+    public void setAsyncWriteTimeout(long asyncWriteTimeout) {
+        this.asyncWriteTimeout = asyncWriteTimeout;
+    }
 }
 
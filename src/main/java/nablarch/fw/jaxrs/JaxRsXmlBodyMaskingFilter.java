@@ -0,0 +1,302 @@
+package nablarch.fw.jaxrs;
+
+import nablarch.core.util.annotation.Published;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.StringReader;
+import java.util.Map;
+
+/**
+ * ログ出力するJAX-RSのボディ文字列を、JSONに加えてXMLもマスク処理するフィルタ。
+ * <p/>
+ * {@code <}で始まるボディはXMLとみなし、StAXのプルパーサで先頭から1度だけ読み込みながら出力を組み立てる。
+ * ボディ全体をツリーとして保持しないため、使用するメモリはボディの大きさによらず、出力する文字列の分のみとなる。
+ * それ以外のボディは{@link JaxRsBodyMaskingFilter}と同様にJSONとしてマスクする。
+ * <p/>
+ * XMLでは、マスク対象の項目名(大文字小文字は区別しない)とローカル名が一致する次の値をマスクする。
+ * <ul>
+ *     <li>要素のテキスト。子孫要素のテキストも含めてマスクする(空白のみのテキストはマスクしない)</li>
+ *     <li>属性の値</li>
+ * </ul>
+ * 出力は読み込んだイベントから組み立てるため、空要素の表記や属性の引用符、文字参照の表記など、元の文字列と異なる場合がある。
+ * DTDは処理せず出力にも含めない。外部エンティティも解決しない。
+ * <p/>
+ * XMLとして解析できない場合は、解析できた位置までを出力し、末尾に切り捨てたことを示す文字列を付加する。
+ * {@code bodyMaskingMaxLength}を指定した場合は、出力をその文字数までで切り捨てる。
+ * <p/>
+ * 使用する場合は{@code jaxRsAccessLogFormatter.bodyMaskingFilter}にこのクラスの完全修飾名を指定する。
+ */
+@Published(tag = "architect")
+public class JaxRsXmlBodyMaskingFilter extends JaxRsBodyMaskingFilter {
+
+    /** XMLの解析に使用するファクトリ */
+    private XMLInputFactory inputFactory;
+
+    /** マスク文字列 */
+    private String maskingString;
+
+    /** マスク対象の項目名 */
+    private String[] maskingItemNames;
+
+    /** 出力する最大文字数 */
+    private int maxLength;
+
+    @Override
+    public void initialize(Map<String, String> props) {
+        super.initialize(props);
+        maskingString = getMaskingString(props);
+        maskingItemNames = getMaskingItemNames(props);
+        maxLength = getMaxLength(props);
+        inputFactory = createInputFactory();
+    }
+
+    /**
+     * XMLの解析に使用するファクトリを生成する。
+     * <p/>
+     * DTDと外部エンティティは処理せず、連続するテキストは1つのイベントにまとめる設定とする。
+     *
+     * @return ファクトリ
+     */
+    protected XMLInputFactory createInputFactory() {
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, Boolean.FALSE);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, Boolean.FALSE);
+        factory.setProperty(XMLInputFactory.IS_COALESCING, Boolean.TRUE);
+        return factory;
+    }
+
+    @Override
+    public String mask(String content) {
+        if (!content.startsWith("<")) {
+            return super.mask(content);
+        }
+        if (maskingItemNames.length == 0 && (maxLength < 0 || content.length() <= maxLength)) {
+            return content;
+        }
+
+        final StringBuilder out = new StringBuilder(content.length());
+        boolean completed = false;
+        XMLStreamReader reader = null;
+        try {
+            reader = inputFactory.createXMLStreamReader(new StringReader(content));
+            writeDeclaration(reader, content, out);
+            // マスク対象の要素の深さ。マスク対象の要素の中でない場合は-1
+            int maskedDepth = -1;
+            int depth = 0;
+            while (reader.hasNext() && !exceedsMaxLength(out)) {
+                switch (reader.next()) {
+                    case XMLStreamConstants.START_ELEMENT:
+                        depth++;
+                        if (maskedDepth < 0 && isMaskingItemName(reader.getLocalName())) {
+                            maskedDepth = depth;
+                        }
+                        writeStartElement(reader, out);
+                        break;
+                    case XMLStreamConstants.END_ELEMENT:
+                        if (depth == maskedDepth) {
+                            maskedDepth = -1;
+                        }
+                        depth--;
+                        out.append("</");
+                        appendName(reader.getPrefix(), reader.getLocalName(), out);
+                        out.append('>');
+                        break;
+                    case XMLStreamConstants.CHARACTERS:
+                    case XMLStreamConstants.CDATA:
+                    case XMLStreamConstants.SPACE:
+                        if (maskedDepth >= 0 && !reader.isWhiteSpace()) {
+                            out.append(maskingString);
+                        } else {
+                            appendEscaped(reader.getText(), false, out);
+                        }
+                        break;
+                    case XMLStreamConstants.COMMENT:
+                        out.append("<!--").append(reader.getText()).append("-->");
+                        break;
+                    case XMLStreamConstants.PROCESSING_INSTRUCTION:
+                        out.append("<?").append(reader.getPITarget());
+                        if (reader.getPIData() != null && !reader.getPIData().isEmpty()) {
+                            out.append(' ').append(reader.getPIData());
+                        }
+                        out.append("?>");
+                        break;
+                    case XMLStreamConstants.ENTITY_REFERENCE:
+                        out.append('&').append(reader.getLocalName()).append(';');
+                        break;
+                    default:
+                        // DTDは出力しない
+                        break;
+                }
+            }
+            completed = !exceedsMaxLength(out);
+        } catch (XMLStreamException e) {
+            // 解析できた位置までを出力する
+        } finally {
+            close(reader);
+        }
+        if (completed) {
+            return out.toString();
+        }
+        if (exceedsMaxLength(out)) {
+            out.setLength(maxLength);
+        }
+        return out.append(TRUNCATION_MARKER).toString();
+    }
+
+    /**
+     * XML宣言を出力する。
+     * <p/>
+     * 元の文字列にXML宣言が含まれない場合は出力しない。
+     *
+     * @param reader XMLの読み込みに使用しているリーダ
+     * @param content 元の文字列
+     * @param out 出力先
+     */
+    private static void writeDeclaration(XMLStreamReader reader, String content, StringBuilder out) {
+        if (!content.startsWith("<?xml")) {
+            return;
+        }
+        final String version = reader.getVersion();
+        out.append("<?xml version=\"").append(version == null ? "1.0" : version).append('"');
+        final String encoding = reader.getCharacterEncodingScheme();
+        if (encoding != null) {
+            out.append(" encoding=\"").append(encoding).append('"');
+        }
+        if (reader.standaloneSet()) {
+            out.append(" standalone=\"").append(reader.isStandalone() ? "yes" : "no").append('"');
+        }
+        out.append("?>");
+    }
+
+    /**
+     * 開始タグを出力する。
+     * <p/>
+     * マスク対象の項目名と一致する属性の値はマスクする。
+     *
+     * @param reader 開始タグを読み込んだリーダ
+     * @param out 出力先
+     */
+    private void writeStartElement(XMLStreamReader reader, StringBuilder out) {
+        out.append('<');
+        appendName(reader.getPrefix(), reader.getLocalName(), out);
+        for (int i = 0; i < reader.getNamespaceCount(); i++) {
+            out.append(' ');
+            appendName("xmlns", reader.getNamespacePrefix(i), out);
+            out.append("=\"");
+            appendEscaped(reader.getNamespaceURI(i), true, out);
+            out.append('"');
+        }
+        for (int i = 0; i < reader.getAttributeCount(); i++) {
+            final String localName = reader.getAttributeLocalName(i);
+            out.append(' ');
+            appendName(reader.getAttributePrefix(i), localName, out);
+            out.append("=\"");
+            if (isMaskingItemName(localName)) {
+                out.append(maskingString);
+            } else {
+                appendEscaped(reader.getAttributeValue(i), true, out);
+            }
+            out.append('"');
+        }
+        out.append('>');
+    }
+
+    /**
+     * 接頭辞付きの名前を出力する。
+     *
+     * @param prefix 接頭辞
+     * @param localName ローカル名
+     * @param out 出力先
+     */
+    private static void appendName(String prefix, String localName, StringBuilder out) {
+        final boolean hasPrefix = prefix != null && !prefix.isEmpty();
+        final boolean hasLocalName = localName != null && !localName.isEmpty();
+        if (hasPrefix) {
+            out.append(prefix);
+            if (hasLocalName) {
+                out.append(':');
+            }
+        }
+        if (hasLocalName) {
+            out.append(localName);
+        }
+    }
+
+    /**
+     * XMLの特殊文字をエスケープして出力する。
+     *
+     * @param value 出力する値
+     * @param attribute 属性の値の場合は{@code true}
+     * @param out 出力先
+     */
+    private static void appendEscaped(String value, boolean attribute, StringBuilder out) {
+        for (int i = 0; i < value.length(); i++) {
+            final char c = value.charAt(i);
+            switch (c) {
+                case '&':
+                    out.append("&amp;");
+                    break;
+                case '<':
+                    out.append("&lt;");
+                    break;
+                case '>':
+                    out.append("&gt;");
+                    break;
+                case '"':
+                    if (attribute) {
+                        out.append("&quot;");
+                    } else {
+                        out.append(c);
+                    }
+                    break;
+                default:
+                    out.append(c);
+                    break;
+            }
+        }
+    }
+
+    /**
+     * 名前がマスク対象の項目名と一致するか否かを判定する。
+     *
+     * @param name 名前
+     * @return 一致する場合は{@code true}
+     */
+    private boolean isMaskingItemName(String name) {
+        for (String maskingItemName : maskingItemNames) {
+            if (maskingItemName.equalsIgnoreCase(name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 出力が最大文字数を超えたか否かを判定する。
+     *
+     * @param out 出力先
+     * @return 超えた場合は{@code true}
+     */
+    private boolean exceedsMaxLength(StringBuilder out) {
+        return maxLength >= 0 && out.length() > maxLength;
+    }
+
+    /**
+     * リーダを閉じる。
+     *
+     * @param reader リーダ
+     */
+    private static void close(XMLStreamReader reader) {
+        if (reader == null) {
+            return;
+        }
+        try {
+            reader.close();
+        } catch (XMLStreamException ignored) {
+            // 文字列から読み込んでいるため、閉じる際に失敗しても問題ない
+        }
+    }
+}
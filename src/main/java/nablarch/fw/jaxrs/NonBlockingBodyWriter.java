@@ -0,0 +1,141 @@
+package nablarch.fw.jaxrs;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+
+import nablarch.core.log.Logger;
+import nablarch.core.log.LoggerManager;
+import nablarch.core.util.FileUtil;
+import nablarch.fw.web.HttpResponse;
+
+/**
+ * レスポンスのボディを{@link WriteListener}を使用してノンブロッキングで書き込むクラス。
+ * <p/>
+ * 出力ストリームが書き込み可能な間だけボディを一定サイズずつ書き込み、書き込めなくなった場合は
+ * {@link #onWritePossible()}が呼び出されるまで書き込みを中断する。
+ * 書き込みを待つ間はスレッドを占有しない。
+ * <p/>
+ * 書き込みが終了した時点で、ボディの入力ストリームのクローズと{@link HttpResponse#cleanup()}を行い、非同期処理を終了する。
+ */
+class NonBlockingBodyWriter implements WriteListener, AsyncListener {
+
+    /** ロガー */
+    private static final Logger LOGGER = LoggerManager.get(NonBlockingBodyWriter.class);
+
+    /** 非同期処理のコンテキスト */
+    private final AsyncContext asyncContext;
+
+    /** 出力ストリーム */
+    private final ServletOutputStream out;
+
+    /** ボディの入力ストリーム */
+    private final InputStream in;
+
+    /** レスポンス */
+    private final HttpResponse response;
+
+    /** 書き込みに使用するバッファ */
+    private final byte[] buffer;
+
+    /** 書き込みが終了したか否か */
+    private boolean finished = false;
+
+    /**
+     * コンストラクタ。
+     *
+     * @param asyncContext 非同期処理のコンテキスト
+     * @param out 出力ストリーム
+     * @param in ボディの入力ストリーム
+     * @param response レスポンス
+     * @param bufferSize 一度に書き込むサイズ
+     */
+    NonBlockingBodyWriter(AsyncContext asyncContext, ServletOutputStream out, InputStream in,
+            HttpResponse response, int bufferSize) {
+        this.asyncContext = asyncContext;
+        this.out = out;
+        this.in = in;
+        this.response = response;
+        this.buffer = new byte[bufferSize];
+    }
+
+    @Override
+    public synchronized void onWritePossible() {
+        if (finished) {
+            return;
+        }
+        try {
+            while (out.isReady()) {
+                final int readBytes = in.read(buffer);
+                if (readBytes == -1) {
+                    finish();
+                    return;
+                }
+                out.write(buffer, 0, readBytes);
+            }
+        } catch (IOException e) {
+            // 応答の書き込みに失敗した場合は、証跡ログのみを残して処理を終了する。
+            LOGGER.logWarn("failed to write response.", e);
+            finish();
+        }
+    }
+
+    @Override
+    public synchronized void onError(Throwable t) {
+        LOGGER.logWarn("failed to write response.", t);
+        finish();
+    }
+
+    @Override
+    public synchronized void onComplete(AsyncEvent event) {
+        if (!finished) {
+            finished = true;
+            release();
+        }
+    }
+
+    @Override
+    public synchronized void onTimeout(AsyncEvent event) {
+        LOGGER.logWarn("timed out writing response.");
+        finish();
+    }
+
+    @Override
+    public synchronized void onError(AsyncEvent event) {
+        finish();
+    }
+
+    @Override
+    public void onStartAsync(AsyncEvent event) {
+        // NOP
+    }
+
+    /**
+     * 書き込みを終了し、非同期処理を終了する。
+     */
+    synchronized void finish() {
+        if (finished) {
+            return;
+        }
+        finished = true;
+        release();
+        try {
+            asyncContext.complete();
+        } catch (IllegalStateException ignore) {
+            // 既に非同期処理が終了している場合
+        }
+    }
+
+    /**
+     * ボディに関するリソースを解放する。
+     */
+    private void release() {
+        FileUtil.closeQuietly(in);
+        response.cleanup();
+    }
+}
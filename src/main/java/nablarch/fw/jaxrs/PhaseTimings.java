@@ -0,0 +1,104 @@
+package nablarch.fw.jaxrs;
+
+import nablarch.core.util.annotation.Published;
+import nablarch.fw.ExecutionContext;
+
+/**
+ * リクエスト処理のフェーズごとの処理時間を保持するクラス。
+ * <p/>
+ * {@link JaxRsAccessLogHandler}は、ログ出力項目にフェーズごとの処理時間が含まれる場合に、
+ * このクラスを生成してリクエストスコープに設定する。
+ * 各ハンドラは{@link System#nanoTime()}で計測したフェーズの処理時間を{@link #record(ExecutionContext, Phase, long)}で記録する。
+ * リクエストスコープにこのクラスが設定されていない場合、記録は行わない。
+ * <p/>
+ * 同じフェーズが複数回実行された場合は、処理時間を合算する。
+ */
+@Published(tag = "architect")
+public class PhaseTimings {
+
+    /**
+     * リクエスト処理のフェーズ。
+     */
+    public enum Phase {
+        /** {@link JaxRsMethodBinder}によるディスパッチ(後続のハンドラリストとリソースメソッドの処理を含む) */
+        DISPATCH,
+        /** {@link BodyConvertHandler}によるリクエストボディの変換 */
+        REQUEST_BODY_READ,
+        /** {@link JaxRsBeanValidationHandler}によるバリデーション */
+        VALIDATION,
+        /** リソースメソッドの呼び出し */
+        RESOURCE_METHOD,
+        /** {@link BodyConvertHandler}によるレスポンスボディの変換 */
+        RESPONSE_BODY_WRITE,
+        /**
+         * {@link JaxRsResponseHandler}によるレスポンスの書き込み(非同期に書き込む場合は書き込みの開始まで)。
+         * 出力する場合、{@link JaxRsAccessLogHandler}は終了ログの出力を書き込みの完了時まで遅延する。
+         */
+        RESPONSE_WRITE
+    }
+
+    /** リクエストスコープに{@link PhaseTimings}を設定する際に使用するキー */
+    private static final String CONTEXT_KEY = ExecutionContext.FW_PREFIX + PhaseTimings.class.getSimpleName();
+
+    /** フェーズごとの処理時間(ナノ秒) */
+    private final long[] elapsedNanos = new long[Phase.values().length];
+
+    /**
+     * リクエストスコープに設定された{@link PhaseTimings}を取得する。
+     *
+     * @param context 実行コンテキスト
+     * @return {@link PhaseTimings}。設定されていない場合は{@code null}
+     */
+    public static PhaseTimings get(final ExecutionContext context) {
+        return context.getRequestScopedVar(CONTEXT_KEY);
+    }
+
+    /**
+     * {@link PhaseTimings}を生成し、リクエストスコープに設定する。
+     *
+     * @param context 実行コンテキスト
+     * @return 生成した{@link PhaseTimings}
+     */
+    public static PhaseTimings start(final ExecutionContext context) {
+        final PhaseTimings timings = new PhaseTimings();
+        context.setRequestScopedVar(CONTEXT_KEY, timings);
+        return timings;
+    }
+
+    /**
+     * フェーズの処理時間を記録する。
+     * <p/>
+     * 終了時刻は呼び出し時の{@link System#nanoTime()}とする。
+     * リクエストスコープに{@link PhaseTimings}が設定されていない場合は何もしない。
+     *
+     * @param context 実行コンテキスト
+     * @param phase フェーズ
+     * @param startNanos フェーズの開始時に取得した{@link System#nanoTime()}
+     */
+    public static void record(final ExecutionContext context, final Phase phase, final long startNanos) {
+        final PhaseTimings timings = get(context);
+        if (timings != null) {
+            timings.add(phase, System.nanoTime() - startNanos);
+        }
+    }
+
+    /**
+     * フェーズの処理時間を加算する。
+     *
+     * @param phase フェーズ
+     * @param nanos 処理時間(ナノ秒)
+     */
+    public synchronized void add(final Phase phase, final long nanos) {
+        elapsedNanos[phase.ordinal()] += nanos;
+    }
+
+    /**
+     * フェーズの処理時間を取得する。
+     *
+     * @param phase フェーズ
+     * @return 処理時間(ナノ秒)。フェーズが実行されていない場合は0
+     */
+    public synchronized long getElapsedNanos(final Phase phase) {
+        return elapsedNanos[phase.ordinal()];
+    }
+}
@@ -0,0 +1,213 @@
+package nablarch.fw.jaxrs;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Flow;
+
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.ServletOutputStream;
+
+import nablarch.core.util.FileUtil;
+import nablarch.fw.ExecutionContext;
+import nablarch.fw.web.HttpResponse;
+import nablarch.fw.web.servlet.ServletExecutionContext;
+
+/**
+ * リソースメソッドが返した{@link Flow.Publisher}の要素をストリーミングするレスポンス。
+ * <p/>
+ * {@link BodyConvertHandler}が{@link Flow.Publisher}から生成する。
+ * 要素はクライアントへの書き込みが可能になった時点で1件ずつ要求するため、
+ * クライアントの受信速度を超えて要素がメモリ上に滞留することはない。
+ * <p/>
+ * 各要素は{@link BodyConverter}で変換し、{@link Format}に従ってJSONの配列またはNDJSONとして書き込む。
+ */
+public class PublisherResponse extends HttpResponse implements StreamingResponse {
+
+    /** 要素の発行元 */
+    private final Flow.Publisher<?> publisher;
+
+    /** 要素を変換する{@link BodyConverter} */
+    private final BodyConverter converter;
+
+    /** 出力形式 */
+    private final Format format;
+
+    /** 要素の変換に使用する実行コンテキスト */
+    private final ExecutionContext executionContext;
+
+    /**
+     * コンストラクタ。
+     *
+     * @param publisher 要素の発行元
+     * @param converter 要素を変換する{@link BodyConverter}
+     * @param format 出力形式
+     * @param contentType Content-Type
+     * @param executionContext 要素の変換に使用する実行コンテキスト
+     */
+    PublisherResponse(Flow.Publisher<?> publisher, BodyConverter converter, Format format,
+            String contentType, ExecutionContext executionContext) {
+        super(Status.OK.getStatusCode());
+        this.publisher = publisher;
+        this.converter = converter;
+        this.format = format;
+        this.executionContext = executionContext;
+        setContentType(contentType);
+    }
+
+    /**
+     * 要素の発行元を取得する。
+     *
+     * @return 要素の発行元
+     */
+    Flow.Publisher<?> getPublisher() {
+        return publisher;
+    }
+
+    /**
+     * 出力形式を取得する。
+     *
+     * @return 出力形式
+     */
+    public Format getFormat() {
+        return format;
+    }
+
+    @Override
+    public void startStreaming(AsyncContext asyncContext, ServletExecutionContext context) throws IOException {
+        asyncContext.setTimeout(0);
+        final ServletOutputStream out = asyncContext.getResponse().getOutputStream();
+        final PublisherSubscriber subscriber = new PublisherSubscriber(asyncContext, out, format,
+                new PublisherSubscriber.ElementEncoder() {
+                    @Override
+                    public byte[] encode(Object element) {
+                        return PublisherResponse.this.encode(element);
+                    }
+                });
+        asyncContext.addListener(subscriber);
+        out.setWriteListener(subscriber.getWriteListener());
+        publisher.subscribe(subscriber);
+    }
+
+    /**
+     * 要素をUTF-8のバイト列に変換する。
+     * <p/>
+     * 変換結果の末尾の改行は取り除く。
+     * NDJSONの場合は、1要素が1行となるように要素内の改行を空白に置き換える。
+     * JSONの文字列内の改行は必ずエスケープされるため、要素内の改行を置き換えても意味は変わらない。
+     *
+     * @param element 要素
+     * @return 変換したバイト列
+     */
+    byte[] encode(Object element) {
+        final HttpResponse converted = converter.write(element, executionContext);
+        final InputStream in = converted.getBodyStream();
+        if (in == null) {
+            return new byte[0];
+        }
+        try {
+            final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+            final byte[] bytes = new byte[1024];
+            int readSize;
+            while ((readSize = in.read(bytes)) != -1) {
+                buffer.write(bytes, 0, readSize);
+            }
+            byte[] encoded = buffer.toByteArray();
+            final Charset charset = converted.getCharset();
+            if (!StandardCharsets.UTF_8.equals(charset)) {
+                encoded = String.valueOf(charset.decode(ByteBuffer.wrap(encoded))).getBytes(StandardCharsets.UTF_8);
+            }
+            int length = encoded.length;
+            while (length > 0 && (encoded[length - 1] == '\n' || encoded[length - 1] == '\r')) {
+                length--;
+            }
+            final byte[] result = new byte[length];
+            for (int i = 0; i < length; i++) {
+                final byte b = encoded[i];
+                result[i] = format == Format.NDJSON && (b == '\n' || b == '\r') ? (byte) ' ' : b;
+            }
+            return result;
+        } catch (IOException e) {
+            throw new IllegalStateException("failed to convert element.", e);
+        } finally {
+            FileUtil.closeQuietly(in);
+            converted.cleanup();
+        }
+    }
+
+    /**
+     * 要素の出力形式。
+     */
+    public enum Format {
+
+        /** JSONの配列 */
+        JSON_ARRAY("[", ",", "]", ""),
+
+        /** 改行区切りのJSON(NDJSON) */
+        NDJSON("", "", "", "\n");
+
+        /** 先頭に出力する文字列 */
+        private final byte[] start;
+
+        /** 要素間に出力する文字列 */
+        private final byte[] separator;
+
+        /** 末尾に出力する文字列 */
+        private final byte[] end;
+
+        /** 要素ごとに末尾に出力する文字列 */
+        private final byte[] terminator;
+
+        /**
+         * コンストラクタ。
+         *
+         * @param start 先頭に出力する文字列
+         * @param separator 要素間に出力する文字列
+         * @param end 末尾に出力する文字列
+         * @param terminator 要素ごとに末尾に出力する文字列
+         */
+        Format(String start, String separator, String end, String terminator) {
+            this.start = start.getBytes(StandardCharsets.UTF_8);
+            this.separator = separator.getBytes(StandardCharsets.UTF_8);
+            this.end = end.getBytes(StandardCharsets.UTF_8);
+            this.terminator = terminator.getBytes(StandardCharsets.UTF_8);
+        }
+
+        /**
+         * 先頭に出力するバイト列を取得する。
+         *
+         * @return バイト列
+         */
+        byte[] start() {
+            return start;
+        }
+
+        /**
+         * 末尾に出力するバイト列を取得する。
+         *
+         * @return バイト列
+         */
+        byte[] end() {
+            return end;
+        }
+
+        /**
+         * 要素を出力するバイト列に変換する。
+         *
+         * @param element 変換した要素
+         * @param first 最初の要素か否か
+         * @return バイト列
+         */
+        byte[] frame(byte[] element, boolean first) {
+            final byte[] prefix = first ? new byte[0] : separator;
+            final byte[] frame = new byte[prefix.length + element.length + terminator.length];
+            System.arraycopy(prefix, 0, frame, 0, prefix.length);
+            System.arraycopy(element, 0, frame, prefix.length, element.length);
+            System.arraycopy(terminator, 0, frame, prefix.length + element.length, terminator.length);
+            return frame;
+        }
+    }
+}
@@ -0,0 +1,318 @@
+package nablarch.fw.jaxrs;
+
+import java.io.IOException;
+import java.util.concurrent.Flow;
+
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.ServletResponse;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletResponse;
+
+import nablarch.core.log.Logger;
+import nablarch.core.log.LoggerManager;
+
+/**
+ * {@link Flow.Publisher}が発行する要素をクライアントに書き込む{@link Flow.Subscriber}。
+ * <p/>
+ * 要素は常に1件ずつ要求し、前の要素を書き込み終えて、かつ出力ストリームが書き込み可能な場合にのみ次の要素を要求する。
+ * 出力ストリームが書き込み可能になるのは{@link WriteListener#onWritePossible()}で通知されるため、
+ * クライアントの受信速度に合わせて発行元に背圧がかかる。
+ */
+class PublisherSubscriber implements Flow.Subscriber<Object>, AsyncListener {
+
+    /** ロガー */
+    private static final Logger LOGGER = LoggerManager.get(PublisherSubscriber.class);
+
+    /** 非同期処理のコンテキスト */
+    private final AsyncContext asyncContext;
+
+    /** 出力ストリーム */
+    private final ServletOutputStream out;
+
+    /** 出力形式 */
+    private final PublisherResponse.Format format;
+
+    /** 要素のエンコーダ */
+    private final ElementEncoder encoder;
+
+    /** 出力ストリームのリスナー */
+    private final WriteListener writeListener = new OutputListener();
+
+    /** 購読 */
+    private Flow.Subscription subscription;
+
+    /** 出力ストリームへの書き込みが開始されたか否か */
+    private boolean writable = false;
+
+    /** 先頭の文字列を書き込んだか否か */
+    private boolean started = false;
+
+    /** 次の要素が最初の要素か否か */
+    private boolean first = true;
+
+    /** 書き込み待ちの要素 */
+    private byte[] pending;
+
+    /** 要素を要求中か否か */
+    private boolean demanded = false;
+
+    /** 発行元が要素の発行を終えたか否か */
+    private boolean upstreamDone = false;
+
+    /** 書き込みが終了したか否か */
+    private boolean finished = false;
+
+    /**
+     * コンストラクタ。
+     *
+     * @param asyncContext 非同期処理のコンテキスト
+     * @param out 出力ストリーム
+     * @param format 出力形式
+     * @param encoder 要素のエンコーダ
+     */
+    PublisherSubscriber(AsyncContext asyncContext, ServletOutputStream out,
+            PublisherResponse.Format format, ElementEncoder encoder) {
+        this.asyncContext = asyncContext;
+        this.out = out;
+        this.format = format;
+        this.encoder = encoder;
+    }
+
+    /**
+     * 出力ストリームのリスナーを取得する。
+     *
+     * @return 出力ストリームのリスナー
+     */
+    WriteListener getWriteListener() {
+        return writeListener;
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+        synchronized (this) {
+            if (this.subscription != null || finished) {
+                subscription.cancel();
+                return;
+            }
+            this.subscription = subscription;
+        }
+        requestIfPossible();
+    }
+
+    @Override
+    public void onNext(Object item) {
+        final byte[] element;
+        try {
+            element = encoder.encode(item);
+        } catch (RuntimeException e) {
+            cancel();
+            onError(e);
+            return;
+        }
+        synchronized (this) {
+            if (finished) {
+                return;
+            }
+            demanded = false;
+            pending = format.frame(element, first);
+            first = false;
+            drain();
+        }
+        requestIfPossible();
+    }
+
+    @Override
+    public synchronized void onError(Throwable throwable) {
+        if (finished) {
+            return;
+        }
+        upstreamDone = true;
+        LOGGER.logWarn("failed to publish response.", throwable);
+        final ServletResponse response = asyncContext.getResponse();
+        if (!started && !response.isCommitted()) {
+            response.reset();
+            ((HttpServletResponse) response).setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+        }
+        finish();
+    }
+
+    @Override
+    public synchronized void onComplete() {
+        upstreamDone = true;
+        drain();
+    }
+
+    @Override
+    public void onComplete(AsyncEvent event) {
+        synchronized (this) {
+            finished = true;
+        }
+        cancel();
+    }
+
+    @Override
+    public void onTimeout(AsyncEvent event) {
+        cancel();
+        synchronized (this) {
+            finish();
+        }
+    }
+
+    @Override
+    public void onError(AsyncEvent event) {
+        cancel();
+        synchronized (this) {
+            finish();
+        }
+    }
+
+    @Override
+    public void onStartAsync(AsyncEvent event) {
+        // NOP
+    }
+
+    /**
+     * 次の要素を書き込める状態であれば、発行元に要素を1件要求する。
+     * <p/>
+     * 発行元が要求を受けて同じスレッドで要素を発行する場合があるため、要求はロックの外で行う。
+     */
+    private void requestIfPossible() {
+        final Flow.Subscription s;
+        synchronized (this) {
+            if (subscription == null || finished || upstreamDone || demanded || pending != null
+                    || !writable || !out.isReady()) {
+                return;
+            }
+            demanded = true;
+            s = subscription;
+        }
+        s.request(1);
+    }
+
+    /**
+     * 書き込み待ちの内容を、出力ストリームが書き込み可能な間だけ書き込む。
+     * <p/>
+     * 書き込めなくなった場合は、{@link WriteListener#onWritePossible()}が呼び出されるまで書き込みを中断する。
+     */
+    private void drain() {
+        if (!writable || finished) {
+            return;
+        }
+        try {
+            if (!started) {
+                if (!write(format.start())) {
+                    return;
+                }
+                started = true;
+            }
+            if (pending != null) {
+                if (!write(pending)) {
+                    return;
+                }
+                pending = null;
+            }
+            if (upstreamDone) {
+                if (!write(format.end())) {
+                    return;
+                }
+                finish();
+            }
+        } catch (IOException e) {
+            LOGGER.logDebug("failed to write response.", e);
+            upstreamDone = true;
+            finish();
+            // Subscription#cancelは冪等かつ非ブロッキングであるため、ロックを保持したまま呼び出す。
+            if (subscription != null) {
+                subscription.cancel();
+            }
+        }
+    }
+
+    /**
+     * 出力ストリームが書き込み可能であれば書き込む。
+     *
+     * @param bytes 書き込む内容
+     * @return 書き込んだ場合は{@code true}
+     * @throws IOException 書き込みに失敗した場合
+     */
+    private boolean write(byte[] bytes) throws IOException {
+        if (bytes.length == 0) {
+            return true;
+        }
+        if (!out.isReady()) {
+            return false;
+        }
+        out.write(bytes);
+        return true;
+    }
+
+    /**
+     * 非同期処理を終了する。
+     */
+    private void finish() {
+        if (finished) {
+            return;
+        }
+        finished = true;
+        try {
+            asyncContext.complete();
+        } catch (IllegalStateException ignore) {
+            // 既に非同期処理が終了している場合
+        }
+    }
+
+    /**
+     * 発行元の購読を解除する。
+     */
+    private void cancel() {
+        final Flow.Subscription s;
+        synchronized (this) {
+            s = subscription;
+            upstreamDone = true;
+        }
+        if (s != null) {
+            s.cancel();
+        }
+    }
+
+    /**
+     * 出力ストリームのリスナー。
+     */
+    private class OutputListener implements WriteListener {
+
+        @Override
+        public void onWritePossible() {
+            synchronized (PublisherSubscriber.this) {
+                writable = true;
+                drain();
+            }
+            requestIfPossible();
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            LOGGER.logDebug("failed to write response.", t);
+            cancel();
+            synchronized (PublisherSubscriber.this) {
+                finish();
+            }
+        }
+    }
+
+    /**
+     * 要素を書き込むバイト列に変換するインタフェース。
+     */
+    interface ElementEncoder {
+
+        /**
+         * 要素をバイト列に変換する。
+         *
+         * @param element 要素
+         * @return バイト列
+         */
+        byte[] encode(Object element);
+    }
+}
@@ -0,0 +1,240 @@
+package nablarch.fw.jaxrs;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import nablarch.core.log.Logger;
+import nablarch.core.log.LoggerManager;
+import nablarch.core.util.annotation.Published;
+import nablarch.fw.ExecutionContext;
+
+/**
+ * リクエストの処理期限を保持するクラス。
+ * <p/>
+ * {@link RequestDeadlineHandler}がリクエストスコープに設定し、処理中のスレッドからは{@link #current()}でも取得できる。
+ * アクションやDAOは、時間のかかる処理の前に{@link #checkNotExpired()}を呼び出すか、
+ * {@link #getRemainingMillis()}をもとにタイムアウトを設定することで、クライアントが待てなくなった処理を打ち切る。
+ * <p/>
+ * 別スレッドで行う処理(非同期処理など)は、{@link #whenExpired(Runnable)}で期限切れの際に処理を中断するよう登録する。
+ */
+@Published
+public class RequestDeadline {
+
+    /** ロガー */
+    private static final Logger LOGGER = LoggerManager.get(RequestDeadline.class);
+
+    /** リクエストスコープに{@link RequestDeadline}を設定する際に使用するキー */
+    private static final String CONTEXT_KEY = ExecutionContext.FW_PREFIX + RequestDeadline.class.getSimpleName();
+
+    /** 処理中のスレッドの{@link RequestDeadline} */
+    private static final ThreadLocal<RequestDeadline> CURRENT = new ThreadLocal<RequestDeadline>();
+
+    /**
+     * リクエストスコープに設定された{@link RequestDeadline}を取得する。
+     *
+     * @param context 実行コンテキスト
+     * @return {@link RequestDeadline}。処理期限がない場合は<code>null</code>
+     */
+    public static RequestDeadline get(final ExecutionContext context) {
+        return context.getRequestScopedVar(CONTEXT_KEY);
+    }
+
+    /**
+     * {@link RequestDeadline}をリクエストスコープに設定する。
+     *
+     * @param context 実行コンテキスト
+     * @param deadline {@link RequestDeadline}
+     */
+    public static void set(final ExecutionContext context, final RequestDeadline deadline) {
+        context.setRequestScopedVar(CONTEXT_KEY, deadline);
+    }
+
+    /**
+     * 処理中のスレッドの{@link RequestDeadline}を取得する。
+     * <p/>
+     * {@link ExecutionContext}を参照できないDAOなどから使用する。
+     *
+     * @return {@link RequestDeadline}。処理期限がない場合は<code>null</code>
+     */
+    public static RequestDeadline current() {
+        return CURRENT.get();
+    }
+
+    /** タイムアウト(ミリ秒) */
+    private final long timeoutMillis;
+
+    /** 処理期限({@link System#nanoTime()}の値) */
+    private final long deadlineNanos;
+
+    /** 期限切れの際に行う処理 */
+    private final List<Runnable> callbacks = new ArrayList<Runnable>();
+
+    /** 期限切れになったか否か */
+    private boolean expired = false;
+
+    /** 処理中のスレッド */
+    private Thread boundThread;
+
+    /** 期限切れの際に処理中のスレッドに割り込むか否か */
+    private boolean interruptOnExpiry;
+
+    /** 処理中のスレッドに割り込んだか否か */
+    private boolean interrupted = false;
+
+    /**
+     * コンストラクタ。
+     *
+     * @param timeoutMillis タイムアウト(ミリ秒)
+     */
+    public RequestDeadline(final long timeoutMillis) {
+        this(timeoutMillis, System.nanoTime());
+    }
+
+    /**
+     * コンストラクタ。
+     *
+     * @param timeoutMillis タイムアウト(ミリ秒)
+     * @param startNanos 処理の開始時刻({@link System#nanoTime()}の値)
+     */
+    RequestDeadline(final long timeoutMillis, final long startNanos) {
+        this.timeoutMillis = timeoutMillis;
+        this.deadlineNanos = startNanos + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+    }
+
+    /**
+     * タイムアウト(ミリ秒)を取得する。
+     *
+     * @return タイムアウト(ミリ秒)
+     */
+    public long getTimeoutMillis() {
+        return timeoutMillis;
+    }
+
+    /**
+     * 処理期限までの残り時間(ミリ秒)を取得する。
+     *
+     * @return 残り時間(ミリ秒)。期限を過ぎている場合は0
+     */
+    public long getRemainingMillis() {
+        return Math.max(0L, TimeUnit.NANOSECONDS.toMillis(getRemainingNanos()));
+    }
+
+    /**
+     * 処理期限までの残り時間(ナノ秒)を取得する。
+     *
+     * @return 残り時間(ナノ秒)。期限を過ぎている場合は0以下
+     */
+    long getRemainingNanos() {
+        return deadlineNanos - nanoTime();
+    }
+
+    /**
+     * 処理期限を過ぎたか否かを判定する。
+     *
+     * @return 過ぎた場合は{@code true}
+     */
+    public boolean isExpired() {
+        return getRemainingNanos() <= 0L;
+    }
+
+    /**
+     * 処理期限を過ぎていないことを確認する。
+     *
+     * @throws DeadlineExceededException 処理期限を過ぎている場合
+     */
+    public void checkNotExpired() throws DeadlineExceededException {
+        if (isExpired()) {
+            throw new DeadlineExceededException(timeoutMillis, false);
+        }
+    }
+
+    /**
+     * 期限切れの際に行う処理を登録する。
+     * <p/>
+     * 既に期限切れになっている場合は、呼び出し元のスレッドですぐに実行する。
+     * 処理はタイマーのスレッドで実行されるため、短時間で終わる処理(中断の指示など)とすること。
+     *
+     * @param callback 期限切れの際に行う処理
+     */
+    public void whenExpired(final Runnable callback) {
+        synchronized (this) {
+            if (!expired) {
+                callbacks.add(callback);
+                return;
+            }
+        }
+        run(callback);
+    }
+
+    /**
+     * 期限切れを通知する。
+     * <p/>
+     * 登録された処理を登録順に実行し、設定されている場合は処理中のスレッドに割り込む。
+     * 2回目以降の呼び出しでは何もしない。
+     */
+    void expire() {
+        final List<Runnable> targets;
+        synchronized (this) {
+            if (expired) {
+                return;
+            }
+            expired = true;
+            targets = new ArrayList<Runnable>(callbacks);
+            callbacks.clear();
+            if (interruptOnExpiry && boundThread != null) {
+                interrupted = true;
+                boundThread.interrupt();
+            }
+        }
+        for (Runnable callback : targets) {
+            run(callback);
+        }
+    }
+
+    /**
+     * 処理中のスレッドに関連付ける。
+     *
+     * @param interruptOnExpiry 期限切れの際に処理中のスレッドに割り込む場合は{@code true}
+     */
+    synchronized void bind(final boolean interruptOnExpiry) {
+        this.boundThread = Thread.currentThread();
+        this.interruptOnExpiry = interruptOnExpiry;
+        CURRENT.set(this);
+    }
+
+    /**
+     * 処理中のスレッドとの関連付けを解除する。
+     * <p/>
+     * 期限切れによって割り込んだ場合は、スレッドの割り込み状態をクリアする。
+     */
+    synchronized void unbind() {
+        boundThread = null;
+        CURRENT.remove();
+        if (interrupted) {
+            Thread.interrupted();
+        }
+    }
+
+    /**
+     * 現在時刻を取得する。
+     *
+     * @return 現在時刻({@link System#nanoTime()}の値)
+     */
+    long nanoTime() {
+        return System.nanoTime();
+    }
+
+    /**
+     * 期限切れの際に行う処理を実行する。
+     *
+     * @param callback 期限切れの際に行う処理
+     */
+    private static void run(final Runnable callback) {
+        try {
+            callback.run();
+        } catch (RuntimeException e) {
+            LOGGER.logWarn("failed to run request deadline callback.", e);
+        }
+    }
+}
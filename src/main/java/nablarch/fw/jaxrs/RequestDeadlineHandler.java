@@ -0,0 +1,264 @@
+package nablarch.fw.jaxrs;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import nablarch.core.log.Logger;
+import nablarch.core.log.LoggerManager;
+import nablarch.core.repository.disposal.Disposable;
+import nablarch.core.util.StringUtil;
+import nablarch.core.util.annotation.Published;
+import nablarch.fw.ExecutionContext;
+import nablarch.fw.Handler;
+import nablarch.fw.web.HttpRequest;
+
+/**
+ * リクエストの処理期限を設定し、期限を過ぎた処理を打ち切るハンドラ。
+ * <p/>
+ * 処理期限のタイムアウトは、以下のうち最も短いものとする。いずれも指定されていない場合は処理期限を設定しない。
+ * <pre>
+ * ・{@link #setHeaderName(String)}で設定したリクエストヘッダ(デフォルトはX-Request-Timeout)のミリ秒
+ * ・リソースメソッドまたはリソースクラスに指定された{@link RequestTimeout}
+ * ・{@link #setDefaultTimeout(long)}で設定したタイムアウト
+ * </pre>
+ * 処理期限は{@link RequestDeadline}としてリクエストスコープに設定し、後続の処理中は{@link RequestDeadline#current()}でも取得できる。
+ * <p/>
+ * 処理期限を過ぎた場合は{@link DeadlineExceededException}を送出する。
+ * 送出された例外は{@link ErrorResponseBuilder}により、処理の開始前に期限を過ぎていた場合は503、
+ * 処理中に期限を過ぎた場合は504のレスポンスとなる。
+ * 後続の処理が正常に終了した場合は、処理期限を過ぎていても結果をそのまま返し、警告ログを出力する。
+ * 処理は既に完了しているため、エラーのレスポンスに置き換えるとクライアントが再試行して処理が重複するおそれがある。
+ * <p/>
+ * {@link #setInterruptOnExpiry(boolean)}に{@code true}を設定すると、期限を過ぎた時点で処理中のスレッドに割り込む。
+ * 仮想スレッドで処理している場合や、割り込みに応答するI/Oを使用している場合は、期限を過ぎた処理をすぐに打ち切れる。
+ * <p/>
+ * 期限切れの通知にはバックグラウンドのスレッドを使用するため、このハンドラを{@code disposer}コンポーネントの破棄対象に登録すること。
+ * 破棄時({@link #dispose()})にスレッドを終了し、以降は期限切れの通知を行わず、処理の終了時にのみ期限を判定する。
+ * <p/>
+ * このハンドラは{@link JaxRsHandlerListFactory}が生成するハンドラリストの先頭に設定すること。
+ */
+@Published(tag = "architect")
+public class RequestDeadlineHandler implements Handler<HttpRequest, Object>, Disposable {
+
+    /** ロガー */
+    private static final Logger LOGGER = LoggerManager.get(RequestDeadlineHandler.class);
+
+    /** タイムアウトを指定するリクエストヘッダの名前 */
+    private String headerName = "X-Request-Timeout";
+
+    /** デフォルトのタイムアウト(ミリ秒) */
+    private long defaultTimeout = 0L;
+
+    /** 期限を過ぎた時点で処理中のスレッドに割り込むか否か */
+    private boolean interruptOnExpiry = false;
+
+    /** 期限切れを通知するタイマー */
+    private volatile ScheduledThreadPoolExecutor timer;
+
+    /** 破棄されたか否か */
+    private boolean disposed = false;
+
+    @Override
+    public Object handle(HttpRequest request, ExecutionContext context) {
+        final long timeout = resolveTimeout(request, context);
+        if (timeout < 0L) {
+            return context.handleNext(request);
+        }
+        if (timeout == 0L) {
+            throw new DeadlineExceededException(timeout, true);
+        }
+        final RequestDeadline deadline = new RequestDeadline(timeout);
+        RequestDeadline.set(context, deadline);
+
+        final Object result;
+        deadline.bind(interruptOnExpiry);
+        final ScheduledFuture<?> expiry = scheduleExpiry(deadline);
+        try {
+            if (deadline.isExpired()) {
+                throw new DeadlineExceededException(timeout, true);
+            }
+            result = context.handleNext(request);
+        } catch (DeadlineExceededException e) {
+            throw e;
+        } catch (RuntimeException e) {
+            if (deadline.isExpired()) {
+                throw new DeadlineExceededException(timeout, false, e);
+            }
+            throw e;
+        } finally {
+            if (expiry != null) {
+                expiry.cancel(false);
+            }
+            deadline.unbind();
+        }
+        if (deadline.isExpired()) {
+            LOGGER.logWarn("request completed after the deadline. timeout = [" + timeout + "ms]");
+        }
+        return result;
+    }
+
+    /**
+     * タイムアウトを解決する。
+     *
+     * @param request リクエスト
+     * @param context 実行コンテキスト
+     * @return タイムアウト(ミリ秒)。処理期限を設定しない場合は-1
+     */
+    private long resolveTimeout(HttpRequest request, ExecutionContext context) {
+        long timeout = defaultTimeout > 0L ? defaultTimeout : -1L;
+        final JaxRsContext jaxRsContext = JaxRsContext.get(context);
+        if (jaxRsContext != null) {
+            final Method resourceMethod = jaxRsContext.getResourceMethod();
+            RequestTimeout annotation = resourceMethod.getAnnotation(RequestTimeout.class);
+            if (annotation == null) {
+                annotation = resourceMethod.getDeclaringClass().getAnnotation(RequestTimeout.class);
+            }
+            if (annotation != null && annotation.value() > 0L) {
+                timeout = annotation.value();
+            }
+        }
+        final long requested = parseHeader(request);
+        if (requested >= 0L && (timeout < 0L || requested < timeout)) {
+            timeout = requested;
+        }
+        return timeout;
+    }
+
+    /**
+     * リクエストヘッダからタイムアウトを取得する。
+     *
+     * @param request リクエスト
+     * @return タイムアウト(ミリ秒)。指定されていない場合は-1
+     */
+    private long parseHeader(HttpRequest request) {
+        if (headerName == null) {
+            return -1L;
+        }
+        final String value = request.getHeader(headerName);
+        if (StringUtil.isNullOrEmpty(value)) {
+            return -1L;
+        }
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            LOGGER.logDebug("invalid request timeout header. " + headerName + " = [" + value + ']');
+            return -1L;
+        }
+    }
+
+    /**
+     * 期限切れの通知を登録する。
+     *
+     * @param deadline 処理期限
+     * @return 登録した通知。破棄済みの場合は{@code null}
+     */
+    private ScheduledFuture<?> scheduleExpiry(final RequestDeadline deadline) {
+        final ScheduledThreadPoolExecutor currentTimer = getTimer();
+        if (currentTimer == null) {
+            return null;
+        }
+        try {
+            return currentTimer.schedule(new Runnable() {
+                @Override
+                public void run() {
+                    deadline.expire();
+                }
+            }, deadline.getRemainingNanos(), TimeUnit.NANOSECONDS);
+        } catch (RejectedExecutionException e) {
+            // 登録中に破棄された場合
+            return null;
+        }
+    }
+
+    /**
+     * 期限切れを通知するタイマーを取得する。
+     *
+     * @return タイマー。破棄済みの場合は{@code null}
+     */
+    private ScheduledThreadPoolExecutor getTimer() {
+        ScheduledThreadPoolExecutor result = timer;
+        if (result == null) {
+            synchronized (this) {
+                result = timer;
+                if (result == null && !disposed) {
+                    result = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+                        private final ThreadFactory delegate = Executors.defaultThreadFactory();
+
+                        @Override
+                        public Thread newThread(Runnable runnable) {
+                            final Thread thread = delegate.newThread(runnable);
+                            thread.setName("request-deadline-timer");
+                            thread.setDaemon(true);
+                            return thread;
+                        }
+                    });
+                    result.setRemoveOnCancelPolicy(true);
+                    timer = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 期限切れを通知するバックグラウンドのスレッドを終了する。
+     * <p/>
+     * 以降のリクエストでは期限切れの通知を行わない。
+     */
+    @Override
+    public synchronized void dispose() {
+        disposed = true;
+        final ScheduledThreadPoolExecutor current = timer;
+        if (current != null) {
+            current.shutdownNow();
+        }
+    }
+
+    /**
+     * 期限切れを通知するタイマーを終了したか否かを判定する。
+     *
+     * @return 終了した場合は{@code true}
+     */
+    boolean isTimerStopped() {
+        final ScheduledThreadPoolExecutor current = timer;
+        return current == null || current.isShutdown();
+    }
+
+    /**
+     * タイムアウトを指定するリクエストヘッダの名前を設定する。
+     * <p/>
+     * デフォルトはX-Request-Timeout。{@code null}を設定した場合はリクエストヘッダを参照しない。
+     *
+     * @param headerName リクエストヘッダの名前
+     */
+    public void setHeaderName(final String headerName) {
+        this.headerName = headerName;
+    }
+
+    /**
+     * デフォルトのタイムアウト(ミリ秒)を設定する。
+     * <p/>
+     * デフォルトは0(処理期限を設定しない)。
+     *
+     * @param defaultTimeout デフォルトのタイムアウト(ミリ秒)
+     */
+    public void setDefaultTimeout(final long defaultTimeout) {
+        this.defaultTimeout = defaultTimeout;
+    }
+
+    /**
+     * 期限を過ぎた時点で処理中のスレッドに割り込むか否かを設定する。
+     * <p/>
+     * デフォルトは{@code false}。
+     *
+     * @param interruptOnExpiry 割り込む場合は{@code true}
+     */
+    public void setInterruptOnExpiry(final boolean interruptOnExpiry) {
+        this.interruptOnExpiry = interruptOnExpiry;
+    }
+}
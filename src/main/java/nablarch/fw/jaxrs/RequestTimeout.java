@@ -0,0 +1,32 @@
+package nablarch.fw.jaxrs;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+import nablarch.core.util.annotation.Published;
+
+/**
+ * リソースメソッドの処理期限を指定するアノテーション。
+ * <p/>
+ * リソースクラスに指定した場合は、そのクラスの全てのリソースメソッドに適用する。
+ * リソースメソッドとリソースクラスの両方に指定した場合は、リソースメソッドの指定を優先する。
+ * リクエストヘッダでより短いタイムアウトが指定された場合は、ヘッダのタイムアウトを優先する。
+ *
+ * @see RequestDeadlineHandler
+ */
+@Documented
+@Target({ElementType.METHOD, ElementType.TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+@Published
+public @interface RequestTimeout {
+
+    /**
+     * タイムアウト(ミリ秒)。
+     *
+     * @return タイムアウト(ミリ秒)
+     */
+    long value();
+}
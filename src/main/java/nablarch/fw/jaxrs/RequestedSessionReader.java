@@ -0,0 +1,72 @@
+package nablarch.fw.jaxrs;
+
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+
+/**
+ * セッションを読み込まずに、クライアントから送信されたセッションの識別子を取得するクラス。
+ * <p/>
+ * {@code HttpServletRequest#getSession(false)}やセッションストアへのアクセスは、
+ * セッションの保存先によってはデシリアライズやデータベースへのアクセスを伴う。
+ * このクラスはリクエストに含まれるセッションIDとセッションストアのクッキーのみを参照するため、
+ * ログ出力のためにセッションを読み込むことはない。
+ * <p/>
+ * 取得したIDはクライアントが送信した値のため、有効なセッションのIDであるとは限らない。
+ */
+class RequestedSessionReader {
+
+    /** セッションストアIDを保持するクッキーの名前 */
+    private final String sessionStoreCookieName;
+
+    /**
+     * コンストラクタ。
+     *
+     * @param sessionStoreCookieName セッションストアIDを保持するクッキーの名前
+     */
+    RequestedSessionReader(String sessionStoreCookieName) {
+        this.sessionStoreCookieName = sessionStoreCookieName;
+    }
+
+    /**
+     * クライアントから送信されたセッションIDを取得する。
+     *
+     * @param request リクエスト
+     * @return セッションID。送信されていない場合は空文字
+     */
+    String getSessionId(HttpServletRequest request) {
+        final String sessionId = request.getRequestedSessionId();
+        return sessionId == null ? "" : sessionId;
+    }
+
+    /**
+     * クライアントから送信されたセッションストアIDを取得する。
+     *
+     * @param request リクエスト
+     * @return セッションストアID。送信されていない場合は{@code null}
+     */
+    String getSessionStoreId(HttpServletRequest request) {
+        final Cookie[] cookies = request.getCookies();
+        if (cookies == null) {
+            return null;
+        }
+        for (Cookie cookie : cookies) {
+            if (sessionStoreCookieName.equals(cookie.getName())) {
+                return cookie.getValue();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * セッションの読み込みを省略したか否かを判定する。
+     * <p/>
+     * クライアントがセッションIDまたはセッションストアIDを送信している場合、
+     * セッションが存在する可能性があるため、読み込みを省略したものとみなす。
+     *
+     * @param request リクエスト
+     * @return 省略した場合は{@code true}
+     */
+    boolean isSkipped(HttpServletRequest request) {
+        return request.getRequestedSessionId() != null || getSessionStoreId(request) != null;
+    }
+}
@@ -0,0 +1,121 @@
+package nablarch.fw.jaxrs;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import nablarch.core.log.Logger;
+import nablarch.core.log.LoggerManager;
+import nablarch.core.util.annotation.Published;
+import nablarch.fw.ExecutionContext;
+
+/**
+ * レスポンスの書き込みが非同期に行われる場合に、書き込みの完了を通知するクラス。
+ * <p/>
+ * {@link JaxRsResponseHandler}がサーブレットの非同期処理でレスポンスを書き込む場合、
+ * ハンドラの処理を終えた時点ではまだ書き込みが完了していない。
+ * この場合、{@link JaxRsResponseHandler}はこのクラスをリクエストスコープに設定し、書き込みが完了した時点で{@link #complete()}を呼び出す。
+ * <p/>
+ * 書き込みの完了後に行う処理(アクセスログの出力など)は、{@link #whenComplete(Runnable)}で登録する。
+ * リクエストスコープにこのクラスが設定されていない場合は、ハンドラの処理を終えた時点で書き込みが完了している。
+ * <p/>
+ * {@link JaxRsResponseHandler}より後ろのハンドラが書き込みの完了を待つ場合は、{@link #defer(ExecutionContext)}で設定する。
+ * この場合、{@link JaxRsResponseHandler}は同期的に書き込む場合も、書き込みを終えた時点で{@link #complete()}を呼び出す。
+ */
+@Published(tag = "architect")
+public class ResponseCompletion {
+
+    /** ロガー */
+    private static final Logger LOGGER = LoggerManager.get(ResponseCompletion.class);
+
+    /** リクエストスコープに{@link ResponseCompletion}を設定する際に使用するキー */
+    private static final String CONTEXT_KEY = ExecutionContext.FW_PREFIX + ResponseCompletion.class.getSimpleName();
+
+    /**
+     * リクエストスコープに設定された{@link ResponseCompletion}を取得する。
+     *
+     * @param context 実行コンテキスト
+     * @return {@link ResponseCompletion}。レスポンスの書き込みが非同期に行われない場合は<code>null</code>
+     */
+    public static ResponseCompletion get(final ExecutionContext context) {
+        return context.getRequestScopedVar(CONTEXT_KEY);
+    }
+
+    /**
+     * レスポンスの書き込みを非同期に行うことを表す{@link ResponseCompletion}を生成し、リクエストスコープに設定する。
+     *
+     * @param context 実行コンテキスト
+     * @return 生成した{@link ResponseCompletion}
+     */
+    public static ResponseCompletion defer(final ExecutionContext context) {
+        final ResponseCompletion completion = new ResponseCompletion();
+        context.setRequestScopedVar(CONTEXT_KEY, completion);
+        return completion;
+    }
+
+    /** 書き込みの完了後に行う処理 */
+    private final List<Runnable> callbacks = new ArrayList<Runnable>();
+
+    /** 書き込みが完了したか否か */
+    private boolean completed = false;
+
+    /**
+     * 書き込みの完了後に行う処理を登録する。
+     * <p/>
+     * 既に書き込みが完了している場合は、呼び出し元のスレッドですぐに実行する。
+     *
+     * @param callback 書き込みの完了後に行う処理
+     */
+    public void whenComplete(final Runnable callback) {
+        synchronized (this) {
+            if (!completed) {
+                callbacks.add(callback);
+                return;
+            }
+        }
+        run(callback);
+    }
+
+    /**
+     * 書き込みの完了を通知する。
+     * <p/>
+     * 登録された処理を登録順に実行する。2回目以降の呼び出しでは何もしない。
+     */
+    public void complete() {
+        final List<Runnable> targets;
+        synchronized (this) {
+            if (completed) {
+                return;
+            }
+            completed = true;
+            targets = new ArrayList<Runnable>(callbacks);
+            callbacks.clear();
+        }
+        for (Runnable callback : targets) {
+            run(callback);
+        }
+    }
+
+    /**
+     * 書き込みが完了したか否かを判定する。
+     *
+     * @return 書き込みが完了した場合は{@code true}
+     */
+    public synchronized boolean isCompleted() {
+        return completed;
+    }
+
+    /**
+     * 書き込みの完了後に行う処理を実行する。
+     * <p/>
+     * 処理で例外が発生した場合は、後続の処理を実行できるように証跡ログのみを残す。
+     *
+     * @param callback 書き込みの完了後に行う処理
+     */
+    private static void run(final Runnable callback) {
+        try {
+            callback.run();
+        } catch (RuntimeException e) {
+            LOGGER.logWarn("failed to run response completion callback.", e);
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package nablarch.fw.jaxrs;
+
+import nablarch.core.util.annotation.Published;
+import nablarch.fw.web.HttpResponse;
+
+/**
+ * {@link HttpResponse.Status}に定義されていないステータスコードも返せるレスポンス。
+ * <p/>
+ * {@link HttpResponse}は{@link HttpResponse.Status}に定義されたステータスコードしか設定できず、
+ * 429(Too Many Requests)などを設定すると{@link IllegalArgumentException}が送出される。
+ * このクラスは定義されていないステータスコードを自身で保持し、{@link #getStatusCode()}で返す。
+ * 定義されているステータスコードは{@link HttpResponse}と同じように扱う。
+ */
+@Published(tag = "architect")
+public class StatusCodeResponse extends HttpResponse {
+
+    /** {@link HttpResponse.Status}に定義されていないステータスコード。定義されている場合は0 */
+    private int undefinedStatusCode;
+
+    /**
+     * コンストラクタ。
+     *
+     * @param statusCode ステータスコード
+     */
+    public StatusCodeResponse(int statusCode) {
+        super(statusCode);
+    }
+
+    @Override
+    public HttpResponse setStatusCode(int code) {
+        if (isDefined(code)) {
+            undefinedStatusCode = 0;
+            return super.setStatusCode(code);
+        }
+        if (code < 100 || code > 999) {
+            throw new IllegalArgumentException("invalid status code:" + code);
+        }
+        undefinedStatusCode = code;
+        return this;
+    }
+
+    @Override
+    public int getStatusCode() {
+        return undefinedStatusCode != 0 ? undefinedStatusCode : super.getStatusCode();
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p/>
+     * {@link HttpResponse.Status}に定義されていないステータスコードの場合は空文字を返す。
+     */
+    @Override
+    public String getReasonPhrase() {
+        return undefinedStatusCode != 0 ? "" : super.getReasonPhrase();
+    }
+
+    @Override
+    public String getMessage() {
+        return undefinedStatusCode != 0 ? undefinedStatusCode + ": " : super.getMessage();
+    }
+
+    /**
+     * ステータスコードが{@link HttpResponse.Status}に定義されているか否かを判定する。
+     *
+     * @param code ステータスコード
+     * @return 定義されている場合は{@code true}
+     */
+    private static boolean isDefined(int code) {
+        for (Status status : Status.values()) {
+            if (status.getStatusCode() == code) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,33 @@
+package nablarch.fw.jaxrs;
+
+import jakarta.servlet.AsyncContext;
+
+import java.io.IOException;
+
+import nablarch.core.util.annotation.Published;
+import nablarch.fw.web.HttpResponse;
+import nablarch.fw.web.servlet.ServletExecutionContext;
+
+/**
+ * レスポンスボディを非同期に書き込むレスポンスを表すインタフェース。
+ * <p/>
+ * {@link JaxRsResponseHandler}は、後続のハンドラから戻された{@link HttpResponse}がこのインタフェースを実装している場合、
+ * レスポンスヘッダーを書き込んだ後にサーブレットの非同期処理を開始し、ボディの書き込みをこのインタフェースに委譲する。
+ * ボディの書き込み中にリクエストを処理したスレッドを占有することはない。
+ * <p/>
+ * このインタフェースを使用する場合は、サーブレットフィルタ及びサーブレットで非同期処理を有効にしておく必要がある。
+ */
+@Published(tag = "architect")
+public interface StreamingResponse {
+
+    /**
+     * レスポンスボディの書き込みを開始する。
+     * <p/>
+     * 実装クラスでは、ボディの書き込みが終わった時点で{@link AsyncContext#complete()}を呼び出すこと。
+     *
+     * @param asyncContext 非同期処理のコンテキスト
+     * @param context 実行コンテキスト
+     * @throws IOException 書き込みの開始に失敗した場合
+     */
+    void startStreaming(AsyncContext asyncContext, ServletExecutionContext context) throws IOException;
+}
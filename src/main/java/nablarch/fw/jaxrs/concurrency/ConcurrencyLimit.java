@@ -0,0 +1,56 @@
+package nablarch.fw.jaxrs.concurrency;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+import nablarch.core.util.annotation.Published;
+
+/**
+ * リソースメソッドの同時実行数の上限を指定するアノテーション。
+ * <p/>
+ * リソースクラスに指定した場合は、そのクラスの全てのリソースメソッドに適用する。
+ * リソースメソッドとリソースクラスの両方に指定した場合は、リソースメソッドの指定を優先する。
+ *
+ * @see ConcurrencyLimitHandler
+ */
+@Documented
+@Target({ElementType.METHOD, ElementType.TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+@Published
+public @interface ConcurrencyLimit {
+
+    /**
+     * 同時実行数の上限。
+     * <p/>
+     * {@link #adaptive()}が{@code true}の場合は、上限の初期値かつ最大値となる。
+     *
+     * @return 同時実行数の上限
+     */
+    int value();
+
+    /**
+     * 処理時間に応じて上限を自動的に調整するか否か。
+     *
+     * @return 自動的に調整する場合は{@code true}
+     */
+    boolean adaptive() default false;
+
+    /**
+     * 自動的に調整する場合の上限の最小値。
+     *
+     * @return 上限の最小値
+     */
+    int minLimit() default 1;
+
+    /**
+     * 自動的に調整する場合に、上限を下げる処理時間のしきい値(ミリ秒)。
+     * <p/>
+     * 0以下の場合は{@link ConcurrencyLimitHandler}に設定されたしきい値を使用する。
+     *
+     * @return 処理時間のしきい値(ミリ秒)
+     */
+    long latencyThreshold() default 0L;
+}
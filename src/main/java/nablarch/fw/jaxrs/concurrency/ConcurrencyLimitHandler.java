@@ -0,0 +1,262 @@
+package nablarch.fw.jaxrs.concurrency;
+
+import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import nablarch.core.log.Logger;
+import nablarch.core.log.LoggerManager;
+import nablarch.core.util.annotation.Published;
+import nablarch.fw.ExecutionContext;
+import nablarch.fw.Handler;
+import nablarch.fw.jaxrs.JaxRsContext;
+import nablarch.fw.jaxrs.StatusCodeResponse;
+import nablarch.fw.web.HttpErrorResponse;
+import nablarch.fw.web.HttpRequest;
+import nablarch.fw.web.HttpResponse;
+
+/**
+ * リソースメソッドごとに同時実行数を制限するハンドラ。
+ * <p/>
+ * 処理の遅いリソースメソッドがスレッドを使い切り、他のリソースメソッドが処理できなくなることを防ぐ。
+ * 同時実行数が上限に達している場合は、後続のハンドラを実行せずに
+ * {@link #setRejectStatusCode(int)}で指定したステータスコード(デフォルトは503)と
+ * Retry-Afterヘッダを持つ{@link HttpErrorResponse}を送出する。
+ * <p/>
+ * 同時実行数の上限は、以下の優先順で決定する。
+ * <pre>
+ * ・リソースメソッドに指定された{@link ConcurrencyLimit}
+ * ・リソースクラスに指定された{@link ConcurrencyLimit}
+ * ・{@link #setLimits(Map)}でリソースメソッドのパス(クラスの完全修飾名#メソッド名)に対して設定された上限
+ * ・{@link #setDefaultLimit(int)}で設定された上限(0以下の場合は制限しない)
+ * </pre>
+ * <p/>
+ * このハンドラは{@link nablarch.fw.jaxrs.JaxRsHandlerListFactory}が生成するハンドラリストの先頭に設定すること。
+ * 同時実行数及び上限は{@link #getLimiters()}で取得できる。
+ */
+@Published(tag = "architect")
+public class ConcurrencyLimitHandler implements Handler<HttpRequest, Object> {
+
+    /** ロガー */
+    private static final Logger LOGGER = LoggerManager.get(ConcurrencyLimitHandler.class);
+
+    /** 制限しないことを表す{@link ConcurrencyLimiter} */
+    private static final ConcurrencyLimiter UNLIMITED = new ConcurrencyLimiter(Integer.MAX_VALUE, 1, false, 0L, 0.5);
+
+    /** リソースメソッドごとの{@link ConcurrencyLimiter} */
+    private final ConcurrentMap<Method, ConcurrencyLimiter> limiters = new ConcurrentHashMap<Method, ConcurrencyLimiter>();
+
+    /** リソースメソッドのパスごとの上限 */
+    private Map<String, Integer> limits = Collections.emptyMap();
+
+    /** デフォルトの上限 */
+    private int defaultLimit = 0;
+
+    /** 設定による上限を自動的に調整するか否か */
+    private boolean adaptive = false;
+
+    /** 自動的に調整する場合の上限の最小値 */
+    private int minLimit = 1;
+
+    /** 上限を下げる処理時間のしきい値(ミリ秒) */
+    private long latencyThreshold = 1000L;
+
+    /** 上限を下げる際の減少率 */
+    private double backoffRatio = 0.9;
+
+    /** 拒否する際のステータスコード */
+    private int rejectStatusCode = HttpResponse.Status.SERVICE_UNAVAILABLE.getStatusCode();
+
+    /** 拒否する際のRetry-Afterヘッダの値(秒) */
+    private int retryAfter = 1;
+
+    @Override
+    public Object handle(HttpRequest request, ExecutionContext context) {
+        final JaxRsContext jaxRsContext = JaxRsContext.get(context);
+        final ConcurrencyLimiter limiter = getLimiter(jaxRsContext.getResourceMethod());
+        if (limiter == UNLIMITED) {
+            return context.handleNext(request);
+        }
+        if (!limiter.tryAcquire()) {
+            if (LOGGER.isDebugEnabled()) {
+                LOGGER.logDebug("concurrency limit exceeded. "
+                        + "resource method = [" + jaxRsContext.toResourcePath() + "], "
+                        + "limit = [" + limiter.getLimit() + ']');
+            }
+            throw new HttpErrorResponse(createRejectedResponse());
+        }
+        final long start = System.nanoTime();
+        try {
+            return context.handleNext(request);
+        } finally {
+            limiter.release(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * 拒否する際のレスポンスを生成する。
+     *
+     * @return レスポンス
+     */
+    protected HttpResponse createRejectedResponse() {
+        final HttpResponse response = new StatusCodeResponse(rejectStatusCode);
+        response.setHeader("Retry-After", String.valueOf(retryAfter));
+        return response;
+    }
+
+    /**
+     * リソースメソッドの{@link ConcurrencyLimiter}を取得する。
+     *
+     * @param resourceMethod リソースメソッド
+     * @return {@link ConcurrencyLimiter}
+     */
+    private ConcurrencyLimiter getLimiter(final Method resourceMethod) {
+        final ConcurrencyLimiter limiter = limiters.get(resourceMethod);
+        if (limiter != null) {
+            return limiter;
+        }
+        final ConcurrencyLimiter created = createLimiter(resourceMethod);
+        final ConcurrencyLimiter existing = limiters.putIfAbsent(resourceMethod, created);
+        return existing != null ? existing : created;
+    }
+
+    /**
+     * リソースメソッドの{@link ConcurrencyLimiter}を生成する。
+     *
+     * @param resourceMethod リソースメソッド
+     * @return {@link ConcurrencyLimiter}。制限しない場合は{@link #UNLIMITED}
+     */
+    private ConcurrencyLimiter createLimiter(final Method resourceMethod) {
+        ConcurrencyLimit annotation = resourceMethod.getAnnotation(ConcurrencyLimit.class);
+        if (annotation == null) {
+            annotation = resourceMethod.getDeclaringClass().getAnnotation(ConcurrencyLimit.class);
+        }
+        if (annotation != null) {
+            return new ConcurrencyLimiter(annotation.value(), annotation.minLimit(), annotation.adaptive(),
+                    annotation.latencyThreshold() > 0 ? annotation.latencyThreshold() : latencyThreshold, backoffRatio);
+        }
+        final Integer configured = limits.get(toResourcePath(resourceMethod));
+        final int limit = configured != null ? configured : defaultLimit;
+        if (limit <= 0) {
+            return UNLIMITED;
+        }
+        return new ConcurrencyLimiter(limit, Math.min(minLimit, limit), adaptive, latencyThreshold, backoffRatio);
+    }
+
+    /**
+     * リソースメソッドのパスを取得する。
+     *
+     * @param resourceMethod リソースメソッド
+     * @return リソースメソッドのパス
+     */
+    private static String toResourcePath(final Method resourceMethod) {
+        return resourceMethod.getDeclaringClass().getName() + '#' + resourceMethod.getName();
+    }
+
+    /**
+     * 同時実行数を制限しているリソースメソッドの{@link ConcurrencyLimiter}を取得する。
+     * <p/>
+     * 一度も実行されていないリソースメソッドは含まない。
+     *
+     * @return リソースメソッドのパスをキーとした{@link ConcurrencyLimiter}
+     */
+    public Map<String, ConcurrencyLimiter> getLimiters() {
+        final Map<String, ConcurrencyLimiter> result = new TreeMap<String, ConcurrencyLimiter>();
+        for (Map.Entry<Method, ConcurrencyLimiter> entry : limiters.entrySet()) {
+            if (entry.getValue() != UNLIMITED) {
+                result.put(toResourcePath(entry.getKey()), entry.getValue());
+            }
+        }
+        return Collections.unmodifiableMap(result);
+    }
+
+    /**
+     * リソースメソッドのパス(クラスの完全修飾名#メソッド名)ごとの上限を設定する。
+     *
+     * @param limits リソースメソッドのパスごとの上限
+     */
+    public void setLimits(final Map<String, Integer> limits) {
+        this.limits = new HashMap<String, Integer>(limits);
+    }
+
+    /**
+     * デフォルトの上限を設定する。
+     * <p/>
+     * デフォルトは0(制限しない)。
+     *
+     * @param defaultLimit デフォルトの上限
+     */
+    public void setDefaultLimit(final int defaultLimit) {
+        this.defaultLimit = defaultLimit;
+    }
+
+    /**
+     * 設定による上限を自動的に調整するか否かを設定する。
+     * <p/>
+     * デフォルトは{@code false}。{@link ConcurrencyLimit}を指定したリソースメソッドには適用しない。
+     *
+     * @param adaptive 自動的に調整する場合は{@code true}
+     */
+    public void setAdaptive(final boolean adaptive) {
+        this.adaptive = adaptive;
+    }
+
+    /**
+     * 自動的に調整する場合の上限の最小値を設定する。
+     * <p/>
+     * デフォルトは1。{@link ConcurrencyLimit}を指定したリソースメソッドには適用しない。
+     *
+     * @param minLimit 上限の最小値
+     */
+    public void setMinLimit(final int minLimit) {
+        this.minLimit = minLimit;
+    }
+
+    /**
+     * 上限を下げる処理時間のしきい値(ミリ秒)を設定する。
+     * <p/>
+     * デフォルトは1000ミリ秒。
+     *
+     * @param latencyThreshold 処理時間のしきい値(ミリ秒)
+     */
+    public void setLatencyThreshold(final long latencyThreshold) {
+        this.latencyThreshold = latencyThreshold;
+    }
+
+    /**
+     * 上限を下げる際の減少率を設定する。
+     * <p/>
+     * デフォルトは0.9。0より大きく1より小さい値を指定すること。
+     *
+     * @param backoffRatio 減少率
+     */
+    public void setBackoffRatio(final double backoffRatio) {
+        this.backoffRatio = backoffRatio;
+    }
+
+    /**
+     * 拒否する際のステータスコードを設定する。
+     * <p/>
+     * デフォルトは503。{@link HttpResponse.Status}に定義されていない429なども指定できる。
+     *
+     * @param rejectStatusCode ステータスコード
+     */
+    public void setRejectStatusCode(final int rejectStatusCode) {
+        this.rejectStatusCode = rejectStatusCode;
+    }
+
+    /**
+     * 拒否する際のRetry-Afterヘッダの値(秒)を設定する。
+     * <p/>
+     * デフォルトは1秒。
+     *
+     * @param retryAfter Retry-Afterヘッダの値(秒)
+     */
+    public void setRetryAfter(final int retryAfter) {
+        this.retryAfter = retryAfter;
+    }
+}
@@ -0,0 +1,160 @@
+package nablarch.fw.jaxrs.concurrency;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import nablarch.core.util.annotation.Published;
+
+/**
+ * リソースメソッドごとの同時実行数を制限するクラス。
+ * <p/>
+ * 実行中のリクエスト数が上限に達している場合は、新たなリクエストの実行を許可しない。
+ * <p/>
+ * 上限の自動調整が有効な場合は、AIMD(Additive Increase/Multiplicative Decrease)で上限を調整する。
+ * 処理時間がしきい値を超えた場合は上限に減少率を掛けて下げ、
+ * しきい値以内で処理でき、かつ上限の半分以上が使用されている場合は、上限を(1/現在の上限)ずつ上げる。
+ * これにより、おおよそ上限と同じ件数のリクエストを処理するごとに上限が1上がる。
+ * 上限は最小値と最大値の範囲内で調整する。
+ * <p/>
+ * このクラスはスレッドセーフである。
+ */
+@Published(tag = "architect")
+public class ConcurrencyLimiter {
+
+    /** 上限の最大値 */
+    private final int maxLimit;
+
+    /** 上限の最小値 */
+    private final int minLimit;
+
+    /** 上限を自動的に調整するか否か */
+    private final boolean adaptive;
+
+    /** 上限を下げる処理時間のしきい値(ナノ秒) */
+    private final long latencyThresholdNanos;
+
+    /** 上限を下げる際の減少率 */
+    private final double backoffRatio;
+
+    /** 実行中のリクエスト数 */
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    /** 拒否したリクエスト数 */
+    private final LongAdder rejectedCount = new LongAdder();
+
+    /** 現在の上限 */
+    private volatile double limit;
+
+    /**
+     * コンストラクタ。
+     *
+     * @param maxLimit 上限の最大値(上限を自動的に調整しない場合は上限)
+     * @param minLimit 上限の最小値
+     * @param adaptive 上限を自動的に調整するか否か
+     * @param latencyThresholdMillis 上限を下げる処理時間のしきい値(ミリ秒)
+     * @param backoffRatio 上限を下げる際の減少率
+     */
+    public ConcurrencyLimiter(int maxLimit, int minLimit, boolean adaptive, long latencyThresholdMillis, double backoffRatio) {
+        if (maxLimit < 1) {
+            throw new IllegalArgumentException("limit must be greater than 0. limit = [" + maxLimit + ']');
+        }
+        if (minLimit < 1 || minLimit > maxLimit) {
+            throw new IllegalArgumentException(
+                    "minLimit must be between 1 and limit. minLimit = [" + minLimit + "], limit = [" + maxLimit + ']');
+        }
+        if (backoffRatio <= 0.0 || backoffRatio >= 1.0) {
+            throw new IllegalArgumentException("backoffRatio must be between 0 and 1. backoffRatio = [" + backoffRatio + ']');
+        }
+        this.maxLimit = maxLimit;
+        this.minLimit = minLimit;
+        this.adaptive = adaptive;
+        this.latencyThresholdNanos = latencyThresholdMillis * 1000L * 1000L;
+        this.backoffRatio = backoffRatio;
+        this.limit = maxLimit;
+    }
+
+    /**
+     * リクエストの実行を開始する。
+     * <p/>
+     * 実行中のリクエスト数が上限に達している場合は実行を許可しない。
+     * 実行を許可した場合は、処理の終了時に必ず{@link #release(long)}を呼び出すこと。
+     *
+     * @return 実行を許可した場合は{@code true}
+     */
+    public boolean tryAcquire() {
+        final int currentLimit = getLimit();
+        while (true) {
+            final int current = inFlight.get();
+            if (current >= currentLimit) {
+                rejectedCount.increment();
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * リクエストの実行を終了する。
+     *
+     * @param latencyNanos リクエストの処理時間(ナノ秒)
+     */
+    public void release(long latencyNanos) {
+        final int current = inFlight.getAndDecrement();
+        if (adaptive) {
+            adjust(latencyNanos, current);
+        }
+    }
+
+    /**
+     * 処理時間に応じて上限を調整する。
+     *
+     * @param latencyNanos リクエストの処理時間(ナノ秒)
+     * @param inFlightAtRelease 終了時点の実行中のリクエスト数(終了したリクエストを含む)
+     */
+    private synchronized void adjust(long latencyNanos, int inFlightAtRelease) {
+        final double current = limit;
+        if (latencyNanos > latencyThresholdNanos) {
+            limit = Math.max(minLimit, current * backoffRatio);
+        } else if (inFlightAtRelease * 2 >= current) {
+            limit = Math.min(maxLimit, current + 1.0 / current);
+        }
+    }
+
+    /**
+     * 現在の上限を取得する。
+     *
+     * @return 現在の上限
+     */
+    public int getLimit() {
+        return (int) limit;
+    }
+
+    /**
+     * 上限の最大値を取得する。
+     *
+     * @return 上限の最大値
+     */
+    public int getMaxLimit() {
+        return maxLimit;
+    }
+
+    /**
+     * 実行中のリクエスト数を取得する。
+     *
+     * @return 実行中のリクエスト数
+     */
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    /**
+     * 拒否したリクエスト数を取得する。
+     *
+     * @return 拒否したリクエスト数
+     */
+    public long getRejectedCount() {
+        return rejectedCount.sum();
+    }
+}
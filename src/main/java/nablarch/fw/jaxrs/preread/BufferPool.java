@@ -0,0 +1,73 @@
+package nablarch.fw.jaxrs.preread;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * リクエストボディの読み込みに使用する固定長のバッファをプールするクラス。
+ * <p/>
+ * プールに空きがない場合は新たにバッファを生成する。
+ * 返却されたバッファは上限数までプールし、上限を超えた分は破棄する。
+ */
+class BufferPool {
+
+    /** バッファのサイズ */
+    private final int chunkSize;
+
+    /** プールするバッファ数の上限 */
+    private final int maxPooledChunks;
+
+    /** プールされたバッファ */
+    private final Queue<byte[]> pool = new ConcurrentLinkedQueue<byte[]>();
+
+    /** プールされたバッファ数 */
+    private final AtomicInteger pooled = new AtomicInteger();
+
+    /**
+     * コンストラクタ。
+     *
+     * @param chunkSize バッファのサイズ
+     * @param maxPooledChunks プールするバッファ数の上限
+     */
+    BufferPool(int chunkSize, int maxPooledChunks) {
+        this.chunkSize = chunkSize;
+        this.maxPooledChunks = maxPooledChunks;
+    }
+
+    /**
+     * バッファを取得する。
+     *
+     * @return バッファ
+     */
+    byte[] acquire() {
+        final byte[] chunk = pool.poll();
+        if (chunk == null) {
+            return new byte[chunkSize];
+        }
+        pooled.decrementAndGet();
+        return chunk;
+    }
+
+    /**
+     * バッファを返却する。
+     *
+     * @param chunk バッファ
+     */
+    void release(byte[] chunk) {
+        if (pooled.incrementAndGet() <= maxPooledChunks) {
+            pool.offer(chunk);
+        } else {
+            pooled.decrementAndGet();
+        }
+    }
+
+    /**
+     * プールされているバッファ数を取得する。
+     *
+     * @return プールされているバッファ数
+     */
+    int getPooledCount() {
+        return pooled.get();
+    }
+}
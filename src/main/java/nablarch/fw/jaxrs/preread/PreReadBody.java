@@ -0,0 +1,95 @@
+package nablarch.fw.jaxrs.preread;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 事前に読み込んだリクエストボディを保持するクラス。
+ * <p/>
+ * ボディは{@link BufferPool}から取得した固定長のバッファを連結して保持するため、
+ * 読み込み中にバッファを拡張するためのコピーは発生しない。
+ */
+class PreReadBody {
+
+    /** バッファのプール */
+    private final BufferPool pool;
+
+    /** ボディを格納したバッファ */
+    private final List<byte[]> chunks = new ArrayList<byte[]>();
+
+    /** 最後のバッファに格納したサイズ */
+    private int lastChunkLength = 0;
+
+    /** ボディのサイズ */
+    private long size = 0L;
+
+    /**
+     * コンストラクタ。
+     *
+     * @param pool バッファのプール
+     */
+    PreReadBody(BufferPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * 入力ストリームから読み込んでバッファに格納する。
+     *
+     * @param in 入力ストリーム
+     * @return 読み込んだサイズ。終端に達した場合は-1
+     * @throws IOException 読み込みに失敗した場合
+     */
+    synchronized int readFrom(InputStream in) throws IOException {
+        if (chunks.isEmpty() || lastChunkLength == chunks.get(chunks.size() - 1).length) {
+            chunks.add(pool.acquire());
+            lastChunkLength = 0;
+        }
+        final byte[] chunk = chunks.get(chunks.size() - 1);
+        final int readSize = in.read(chunk, lastChunkLength, chunk.length - lastChunkLength);
+        if (readSize > 0) {
+            lastChunkLength += readSize;
+            size += readSize;
+        }
+        return readSize;
+    }
+
+    /**
+     * ボディのサイズを取得する。
+     *
+     * @return ボディのサイズ
+     */
+    synchronized long size() {
+        return size;
+    }
+
+    /**
+     * ボディを読み込む入力ストリームを生成する。
+     *
+     * @return 入力ストリーム
+     */
+    synchronized InputStream openStream() {
+        final List<InputStream> streams = new ArrayList<InputStream>(chunks.size());
+        for (int i = 0; i < chunks.size(); i++) {
+            final byte[] chunk = chunks.get(i);
+            streams.add(new ByteArrayInputStream(chunk, 0, i == chunks.size() - 1 ? lastChunkLength : chunk.length));
+        }
+        return new SequenceInputStream(Collections.enumeration(streams));
+    }
+
+    /**
+     * バッファをプールに返却する。
+     */
+    synchronized void release() {
+        for (byte[] chunk : chunks) {
+            pool.release(chunk);
+        }
+        chunks.clear();
+        lastChunkLength = 0;
+        size = 0L;
+    }
+}
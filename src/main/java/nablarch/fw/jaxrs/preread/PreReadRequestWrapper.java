@@ -0,0 +1,137 @@
+package nablarch.fw.jaxrs.preread;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+
+/**
+ * 事前に読み込んだリクエストボディをメモリから返すリクエストのラッパー。
+ * <p/>
+ * {@link #getInputStream()}及び{@link #getReader()}は、ソケットから読み込まずにメモリ上のボディを返すため、ブロックすることはない。
+ */
+class PreReadRequestWrapper extends HttpServletRequestWrapper {
+
+    /** デフォルトの文字エンコーディング */
+    private static final String DEFAULT_ENCODING = "ISO-8859-1";
+
+    /** 事前に読み込んだボディ */
+    private final PreReadBody body;
+
+    /** 入力ストリーム */
+    private ServletInputStream inputStream;
+
+    /** リーダ */
+    private BufferedReader reader;
+
+    /**
+     * コンストラクタ。
+     *
+     * @param request リクエスト
+     * @param body 事前に読み込んだボディ
+     */
+    PreReadRequestWrapper(HttpServletRequest request, PreReadBody body) {
+        super(request);
+        this.body = body;
+    }
+
+    @Override
+    public ServletInputStream getInputStream() throws IOException {
+        if (reader != null) {
+            throw new IllegalStateException("getReader() has already been called for this request.");
+        }
+        if (inputStream == null) {
+            inputStream = new PreReadInputStream(body.openStream());
+        }
+        return inputStream;
+    }
+
+    @Override
+    public BufferedReader getReader() throws IOException {
+        if (inputStream != null) {
+            throw new IllegalStateException("getInputStream() has already been called for this request.");
+        }
+        if (reader == null) {
+            final String encoding = getCharacterEncoding();
+            reader = new BufferedReader(new InputStreamReader(body.openStream(),
+                    encoding != null ? encoding : DEFAULT_ENCODING));
+        }
+        return reader;
+    }
+
+    @Override
+    public int getContentLength() {
+        final long size = body.size();
+        return size > Integer.MAX_VALUE ? -1 : (int) size;
+    }
+
+    @Override
+    public long getContentLengthLong() {
+        return body.size();
+    }
+
+    /**
+     * メモリ上のボディを読み込む{@link ServletInputStream}。
+     */
+    private static final class PreReadInputStream extends ServletInputStream {
+
+        /** ボディの入力ストリーム */
+        private final InputStream in;
+
+        /** 終端に達したか否か */
+        private boolean finished = false;
+
+        /**
+         * コンストラクタ。
+         *
+         * @param in ボディの入力ストリーム
+         */
+        PreReadInputStream(InputStream in) {
+            this.in = in;
+        }
+
+        @Override
+        public int read() throws IOException {
+            final int b = in.read();
+            if (b == -1) {
+                finished = true;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            final int readSize = in.read(b, off, len);
+            if (readSize == -1) {
+                finished = true;
+            }
+            return readSize;
+        }
+
+        @Override
+        public boolean isFinished() {
+            return finished;
+        }
+
+        @Override
+        public boolean isReady() {
+            return true;
+        }
+
+        @Override
+        public void setReadListener(ReadListener readListener) {
+            // ボディは全てメモリ上にあるため、すぐに読み込み可能であることを通知する
+            try {
+                readListener.onDataAvailable();
+                readListener.onAllDataRead();
+            } catch (IOException e) {
+                readListener.onError(e);
+            }
+        }
+    }
+}
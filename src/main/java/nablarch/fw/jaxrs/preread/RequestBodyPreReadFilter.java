@@ -0,0 +1,338 @@
+package nablarch.fw.jaxrs.preread;
+
+import java.io.IOException;
+
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.Filter;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.FilterConfig;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import nablarch.core.log.Logger;
+import nablarch.core.log.LoggerManager;
+import nablarch.core.util.StringUtil;
+import nablarch.core.util.annotation.Published;
+
+/**
+ * リクエストボディをノンブロッキングで事前に読み込むサーブレットフィルタ。
+ * <p/>
+ * ボディを持つリクエストを受け付けると、サーブレットの非同期処理を開始し、{@link ReadListener}を使用してボディをメモリに読み込む。
+ * ボディを全て読み込んだ時点で{@link AsyncContext#dispatch()}を行い、ハンドラキューを実行する。
+ * ハンドラキューからはメモリ上のボディを参照するため、{@link nablarch.fw.jaxrs.BodyConverter}がボディの受信を待ってブロックすることはない。
+ * <p/>
+ * ボディのサイズが上限を超える場合は、ステータスコード413を返す。
+ * 以下のリクエストは事前に読み込まずに後続に処理を委譲する。
+ * <pre>
+ * ・ボディを持たないリクエスト
+ * ・非同期処理をサポートしないリクエスト
+ * ・Content-Typeが"application/x-www-form-urlencoded"または"multipart/form-data"のリクエスト
+ *   (サーブレットコンテナがボディを解析するため)
+ * </pre>
+ * <p/>
+ * このフィルタは{@link nablarch.fw.web.servlet.RepositoryBasedWebFrontController}より前に配置し、
+ * 両方のフィルタに{@code <async-supported>true</async-supported>}と{@code <dispatcher>ASYNC</dispatcher>}を指定すること。
+ * 以下の初期化パラメータを指定できる。
+ * <pre>
+ * maxBodySize: ボディのサイズの上限(バイト)。デフォルトは1048576。
+ * chunkSize: ボディを格納するバッファ1つあたりのサイズ(バイト)。デフォルトは8192。
+ * maxPooledChunks: プールするバッファ数の上限。デフォルトは256。
+ * readTimeout: ボディの読み込みのタイムアウト(ミリ秒)。デフォルトは30000。
+ * </pre>
+ */
+@Published(tag = "architect")
+public class RequestBodyPreReadFilter implements Filter {
+
+    /** ロガー */
+    private static final Logger LOGGER = LoggerManager.get(RequestBodyPreReadFilter.class);
+
+    /** 事前に読み込んだボディをリクエストスコープに設定する際に使用するキー */
+    static final String BODY_KEY = RequestBodyPreReadFilter.class.getName() + ".body";
+
+    /** ボディのサイズの上限(バイト) */
+    private long maxBodySize = 1024L * 1024L;
+
+    /** ボディを格納するバッファ1つあたりのサイズ(バイト) */
+    private int chunkSize = 8192;
+
+    /** プールするバッファ数の上限 */
+    private int maxPooledChunks = 256;
+
+    /** ボディの読み込みのタイムアウト(ミリ秒) */
+    private long readTimeout = 30000L;
+
+    /** バッファのプール */
+    private BufferPool bufferPool;
+
+    @Override
+    public void init(FilterConfig filterConfig) throws ServletException {
+        final String maxBodySize = filterConfig.getInitParameter("maxBodySize");
+        if (StringUtil.hasValue(maxBodySize)) {
+            this.maxBodySize = Long.parseLong(maxBodySize);
+        }
+        final String chunkSize = filterConfig.getInitParameter("chunkSize");
+        if (StringUtil.hasValue(chunkSize)) {
+            this.chunkSize = Integer.parseInt(chunkSize);
+        }
+        final String maxPooledChunks = filterConfig.getInitParameter("maxPooledChunks");
+        if (StringUtil.hasValue(maxPooledChunks)) {
+            this.maxPooledChunks = Integer.parseInt(maxPooledChunks);
+        }
+        final String readTimeout = filterConfig.getInitParameter("readTimeout");
+        if (StringUtil.hasValue(readTimeout)) {
+            this.readTimeout = Long.parseLong(readTimeout);
+        }
+        bufferPool = new BufferPool(this.chunkSize, this.maxPooledChunks);
+    }
+
+    @Override
+    public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
+            throws IOException, ServletException {
+
+        final HttpServletRequest httpRequest = (HttpServletRequest) request;
+
+        if (httpRequest.getDispatcherType() == DispatcherType.ASYNC) {
+            final PreReadBody body = (PreReadBody) httpRequest.getAttribute(BODY_KEY);
+            if (body != null) {
+                httpRequest.removeAttribute(BODY_KEY);
+                dispatch(httpRequest, response, chain, body);
+                return;
+            }
+        }
+
+        if (httpRequest.getDispatcherType() != DispatcherType.REQUEST
+                || !httpRequest.isAsyncSupported()
+                || !hasBody(httpRequest)
+                || isParsedByContainer(httpRequest)) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        if (httpRequest.getContentLengthLong() > maxBodySize) {
+            LOGGER.logInfo("request body is too large. content length = [" + httpRequest.getContentLengthLong() + "], "
+                    + "max body size = [" + maxBodySize + ']');
+            ((HttpServletResponse) response).setStatus(HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE);
+            return;
+        }
+
+        final AsyncContext asyncContext = httpRequest.startAsync(request, response);
+        asyncContext.setTimeout(readTimeout);
+        final ServletInputStream in = httpRequest.getInputStream();
+        final BodyReader reader = new BodyReader(asyncContext, in, new PreReadBody(bufferPool));
+        asyncContext.addListener(reader);
+        in.setReadListener(reader);
+    }
+
+    /**
+     * 事前に読み込んだボディを返すリクエストで後続に処理を委譲する。
+     * <p/>
+     * 後続で非同期処理が開始された場合は、非同期処理の終了時にバッファを返却する。
+     *
+     * @param request リクエスト
+     * @param response レスポンス
+     * @param chain フィルタチェーン
+     * @param body 事前に読み込んだボディ
+     * @throws IOException 入出力エラーが発生した場合
+     * @throws ServletException 後続の処理で例外が発生した場合
+     */
+    private void dispatch(HttpServletRequest request, ServletResponse response, FilterChain chain, final PreReadBody body)
+            throws IOException, ServletException {
+        try {
+            chain.doFilter(new PreReadRequestWrapper(request, body), response);
+        } finally {
+            if (request.isAsyncStarted()) {
+                try {
+                    request.getAsyncContext().addListener(new ReleaseListener(body));
+                } catch (IllegalStateException ignore) {
+                    // リスナーを追加できない場合は、バッファを返却せずにGCに任せる
+                }
+            } else {
+                body.release();
+            }
+        }
+    }
+
+    /**
+     * リクエストがボディを持つか否かを判定する。
+     *
+     * @param request リクエスト
+     * @return ボディを持つ場合は{@code true}
+     */
+    private static boolean hasBody(HttpServletRequest request) {
+        return request.getContentLengthLong() > 0 || request.getHeader("Transfer-Encoding") != null;
+    }
+
+    /**
+     * サーブレットコンテナがボディを解析するリクエストか否かを判定する。
+     *
+     * @param request リクエスト
+     * @return サーブレットコンテナがボディを解析する場合は{@code true}
+     */
+    private static boolean isParsedByContainer(HttpServletRequest request) {
+        final String contentType = request.getContentType();
+        if (contentType == null) {
+            return false;
+        }
+        final String lowerContentType = contentType.toLowerCase();
+        return lowerContentType.startsWith("application/x-www-form-urlencoded")
+                || lowerContentType.startsWith("multipart/form-data");
+    }
+
+    @Override
+    public void destroy() {
+        // NOP
+    }
+
+    /**
+     * ボディを読み込む{@link ReadListener}。
+     */
+    private final class BodyReader implements ReadListener, AsyncListener {
+
+        /** 非同期処理のコンテキスト */
+        private final AsyncContext asyncContext;
+
+        /** 入力ストリーム */
+        private final ServletInputStream in;
+
+        /** 読み込んだボディ */
+        private final PreReadBody body;
+
+        /** 読み込みが終了したか否か */
+        private boolean done = false;
+
+        /**
+         * コンストラクタ。
+         *
+         * @param asyncContext 非同期処理のコンテキスト
+         * @param in 入力ストリーム
+         * @param body 読み込んだボディ
+         */
+        BodyReader(AsyncContext asyncContext, ServletInputStream in, PreReadBody body) {
+            this.asyncContext = asyncContext;
+            this.in = in;
+            this.body = body;
+        }
+
+        @Override
+        public synchronized void onDataAvailable() throws IOException {
+            while (!done && in.isReady() && !in.isFinished()) {
+                if (body.readFrom(in) == -1) {
+                    return;
+                }
+                if (body.size() > maxBodySize) {
+                    LOGGER.logInfo("request body is too large. max body size = [" + maxBodySize + ']');
+                    abort(HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE);
+                    return;
+                }
+            }
+        }
+
+        @Override
+        public synchronized void onAllDataRead() {
+            if (done) {
+                return;
+            }
+            done = true;
+            asyncContext.getRequest().setAttribute(BODY_KEY, body);
+            asyncContext.dispatch();
+        }
+
+        @Override
+        public synchronized void onError(Throwable t) {
+            LOGGER.logDebug("failed to read request body.", t);
+            abort(HttpServletResponse.SC_BAD_REQUEST);
+        }
+
+        @Override
+        public synchronized void onTimeout(AsyncEvent event) {
+            LOGGER.logInfo("timed out reading request body. read size = [" + body.size() + ']');
+            abort(HttpServletResponse.SC_REQUEST_TIMEOUT);
+        }
+
+        @Override
+        public synchronized void onError(AsyncEvent event) {
+            abort(HttpServletResponse.SC_BAD_REQUEST);
+        }
+
+        @Override
+        public synchronized void onComplete(AsyncEvent event) {
+            if (!done) {
+                done = true;
+                body.release();
+            }
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            // NOP
+        }
+
+        /**
+         * 読み込みを中断し、指定されたステータスコードを返して非同期処理を終了する。
+         *
+         * @param statusCode ステータスコード
+         */
+        private void abort(int statusCode) {
+            if (done) {
+                return;
+            }
+            done = true;
+            body.release();
+            final ServletResponse response = asyncContext.getResponse();
+            if (!response.isCommitted()) {
+                ((HttpServletResponse) response).setStatus(statusCode);
+            }
+            try {
+                asyncContext.complete();
+            } catch (IllegalStateException ignore) {
+                // 既に非同期処理が終了している場合
+            }
+        }
+    }
+
+    /**
+     * 非同期処理の終了時にバッファを返却する{@link AsyncListener}。
+     */
+    private static final class ReleaseListener implements AsyncListener {
+
+        /** 事前に読み込んだボディ */
+        private final PreReadBody body;
+
+        /**
+         * コンストラクタ。
+         *
+         * @param body 事前に読み込んだボディ
+         */
+        ReleaseListener(PreReadBody body) {
+            this.body = body;
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            body.release();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            // 非同期処理の終了はonCompleteで通知される
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            // 非同期処理の終了はonCompleteで通知される
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            // NOP
+        }
+    }
+}
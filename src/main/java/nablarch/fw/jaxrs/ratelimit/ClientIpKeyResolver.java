@@ -0,0 +1,45 @@
+package nablarch.fw.jaxrs.ratelimit;
+
+import nablarch.core.util.StringUtil;
+import nablarch.core.util.annotation.Published;
+import nablarch.fw.ExecutionContext;
+import nablarch.fw.web.HttpRequest;
+import nablarch.fw.web.servlet.ServletExecutionContext;
+
+/**
+ * クライアントのIPアドレスをキーとする{@link RateLimitKeyResolver}。
+ * <p/>
+ * リバースプロキシを経由する場合は、{@link #setForwardedHeaderName(String)}で
+ * クライアントのIPアドレスを設定するヘッダ(X-Forwarded-Forなど)を指定する。
+ * ヘッダに複数のIPアドレスが含まれる場合は、先頭のIPアドレスを使用する。
+ * ヘッダはクライアントが任意に設定できるため、プロキシが必ず上書きする構成の場合のみ指定すること。
+ */
+@Published(tag = "architect")
+public class ClientIpKeyResolver implements RateLimitKeyResolver {
+
+    /** クライアントのIPアドレスを設定するヘッダの名前 */
+    private String forwardedHeaderName;
+
+    @Override
+    public String resolve(HttpRequest request, ExecutionContext context) {
+        if (forwardedHeaderName != null) {
+            final String forwarded = request.getHeader(forwardedHeaderName);
+            if (StringUtil.hasValue(forwarded)) {
+                final int comma = forwarded.indexOf(',');
+                return (comma == -1 ? forwarded : forwarded.substring(0, comma)).trim();
+            }
+        }
+        return ((ServletExecutionContext) context).getServletRequest().getRemoteAddr();
+    }
+
+    /**
+     * クライアントのIPアドレスを設定するヘッダの名前を設定する。
+     * <p/>
+     * デフォルトは未設定(接続元のIPアドレスを使用する)。
+     *
+     * @param forwardedHeaderName ヘッダの名前
+     */
+    public void setForwardedHeaderName(final String forwardedHeaderName) {
+        this.forwardedHeaderName = forwardedHeaderName;
+    }
+}
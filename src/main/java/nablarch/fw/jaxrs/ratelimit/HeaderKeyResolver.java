@@ -0,0 +1,48 @@
+package nablarch.fw.jaxrs.ratelimit;
+
+import nablarch.core.util.StringUtil;
+import nablarch.core.util.annotation.Published;
+import nablarch.fw.ExecutionContext;
+import nablarch.fw.web.HttpRequest;
+
+/**
+ * リクエストヘッダの値(APIキーなど)をキーとする{@link RateLimitKeyResolver}。
+ * <p/>
+ * ヘッダが存在しないリクエストは、{@link #setMissingKey(String)}で設定したキーで制限する。
+ * キーが設定されていない場合は流量を制限しない。
+ */
+@Published(tag = "architect")
+public class HeaderKeyResolver implements RateLimitKeyResolver {
+
+    /** キーとするヘッダの名前 */
+    private String headerName;
+
+    /** ヘッダが存在しない場合のキー */
+    private String missingKey;
+
+    @Override
+    public String resolve(HttpRequest request, ExecutionContext context) {
+        final String value = request.getHeader(headerName);
+        return StringUtil.hasValue(value) ? value : missingKey;
+    }
+
+    /**
+     * キーとするヘッダの名前を設定する。
+     *
+     * @param headerName ヘッダの名前
+     */
+    public void setHeaderName(final String headerName) {
+        this.headerName = headerName;
+    }
+
+    /**
+     * ヘッダが存在しない場合のキーを設定する。
+     * <p/>
+     * デフォルトは未設定(流量を制限しない)。
+     *
+     * @param missingKey ヘッダが存在しない場合のキー
+     */
+    public void setMissingKey(final String missingKey) {
+        this.missingKey = missingKey;
+    }
+}
@@ -0,0 +1,295 @@
+package nablarch.fw.jaxrs.ratelimit;
+
+import java.util.concurrent.TimeUnit;
+
+import nablarch.core.log.Logger;
+import nablarch.core.log.LoggerManager;
+import nablarch.core.util.annotation.Published;
+import nablarch.fw.ExecutionContext;
+import nablarch.fw.jaxrs.StatusCodeResponse;
+import nablarch.fw.web.HttpRequest;
+import nablarch.fw.web.HttpRequestHandler;
+import nablarch.fw.web.HttpResponse;
+
+/**
+ * トークンバケットを使用してリクエストの流量を制限するハンドラ。
+ * <p/>
+ * {@link #setKeyResolver(RateLimitKeyResolver)}で設定した{@link RateLimitKeyResolver}が返すキーごとにトークンバケットを持ち、
+ * リクエストごとにトークンを1つ消費する。
+ * トークンは{@link #setCapacity(int)}で設定した容量まで、{@link #setPermitsPerSecond(double)}で設定した速度で補充される。
+ * トークンが残っていない場合は、後続のハンドラを実行せずにステータスコード429のレスポンスを返す。
+ * <p/>
+ * レスポンスには以下のヘッダを設定する。
+ * <pre>
+ * RateLimit-Limit: 容量
+ * RateLimit-Remaining: 残りのトークン数
+ * RateLimit-Reset: バケットが満杯に戻るまでの秒数
+ * Retry-After: 次のトークンが補充されるまでの秒数(429の場合のみ)
+ * </pre>
+ * <p/>
+ * 一定時間({@link #setIdleTimeout(long)})アクセスのないキーのバケットは破棄する。
+ * 管理するキーの数が上限({@link #setMaxKeys(int)})に達している場合、新しいキーのリクエストは1つの共有のバケットで制限する。
+ * <p/>
+ * このハンドラは{@link nablarch.fw.jaxrs.JaxRsResponseHandler}の後、
+ * {@link nablarch.fw.jaxrs.CorsPreflightRequestHandler}の前後いずれかに設定する。
+ * {@link nablarch.fw.jaxrs.JaxRsHandlerListFactory}が生成するハンドラリストに設定することもできる。
+ */
+@Published(tag = "architect")
+public class RateLimitHandler implements HttpRequestHandler {
+
+    /** ロガー */
+    private static final Logger LOGGER = LoggerManager.get(RateLimitHandler.class);
+
+    /** 流量を超えた場合のステータスコード */
+    private static final int TOO_MANY_REQUESTS = 429;
+
+    /** 事前に文字列に変換しておくヘッダの値の上限 */
+    private static final int CACHED_HEADER_VALUES = 1024;
+
+    /** 事前に文字列に変換したヘッダの値 */
+    private static final String[] HEADER_VALUES = new String[CACHED_HEADER_VALUES + 1];
+
+    static {
+        for (int i = 0; i <= CACHED_HEADER_VALUES; i++) {
+            HEADER_VALUES[i] = String.valueOf(i);
+        }
+    }
+
+    /** キーを解決する{@link RateLimitKeyResolver} */
+    private RateLimitKeyResolver keyResolver = new ClientIpKeyResolver();
+
+    /** バケットの容量 */
+    private int capacity = 100;
+
+    /** 1秒あたりに補充するトークン数 */
+    private double permitsPerSecond = 10.0;
+
+    /** バケットを破棄するまでのアクセスのない時間(ミリ秒) */
+    private long idleTimeout = 60000L;
+
+    /** タイムホイールのスロット数 */
+    private int wheelSize = 60;
+
+    /** 管理するキーの数の上限 */
+    private int maxKeys = 100000;
+
+    /** レスポンスヘッダを設定するか否か */
+    private boolean includeHeaders = true;
+
+    /** キーごとのバケット */
+    private volatile TokenBucketRegistry registry;
+
+    /** トークン1つの補充間隔(ナノ秒) */
+    private long interval;
+
+    /** 補充間隔×(容量-1)(ナノ秒) */
+    private long tolerance;
+
+    /** RateLimit-Limitヘッダの値 */
+    private String limitHeaderValue;
+
+    @Override
+    public HttpResponse handle(HttpRequest request, ExecutionContext context) {
+        final String key = keyResolver.resolve(request, context);
+        if (key == null) {
+            return context.handleNext(request);
+        }
+        final long now = nanoTime();
+        final TokenBucket bucket = getRegistry(now).get(key, now);
+        final long wait = bucket.tryAcquire(now, interval, tolerance);
+        if (wait > 0L) {
+            if (LOGGER.isDebugEnabled()) {
+                LOGGER.logDebug("rate limit exceeded. key = [" + key + "], capacity = [" + capacity + ']');
+            }
+            final HttpResponse response = createRejectedResponse();
+            setHeaders(response, bucket, now);
+            response.setHeader("Retry-After", toHeaderValue(toSeconds(wait)));
+            return response;
+        }
+        final HttpResponse response = context.handleNext(request);
+        if (response != null) {
+            setHeaders(response, bucket, now);
+        }
+        return response;
+    }
+
+    /**
+     * 流量を超えた場合のレスポンスを生成する。
+     * <p/>
+     * 429は{@link HttpResponse.Status}に定義されていないため、{@link StatusCodeResponse}を使用する。
+     * レスポンスヘッダは、このメソッドが返したレスポンスに設定する。
+     *
+     * @return レスポンス
+     */
+    protected HttpResponse createRejectedResponse() {
+        return new StatusCodeResponse(TOO_MANY_REQUESTS);
+    }
+
+    /**
+     * 現在時刻を取得する。
+     *
+     * @return 現在時刻(ナノ秒)
+     */
+    protected long nanoTime() {
+        return System.nanoTime();
+    }
+
+    /**
+     * 流量制限のレスポンスヘッダを設定する。
+     *
+     * @param response レスポンス
+     * @param bucket バケット
+     * @param now 現在時刻(ナノ秒)
+     */
+    private void setHeaders(HttpResponse response, TokenBucket bucket, long now) {
+        if (!includeHeaders) {
+            return;
+        }
+        response.setHeader("RateLimit-Limit", limitHeaderValue);
+        response.setHeader("RateLimit-Remaining", toHeaderValue(bucket.remaining(now, interval, capacity)));
+        response.setHeader("RateLimit-Reset", toHeaderValue(toSeconds(bucket.untilFull(now))));
+    }
+
+    /**
+     * キーごとのバケットを取得する。
+     * <p/>
+     * 初回のみ、設定値をもとにバケットの管理に必要な値を計算する。
+     *
+     * @param now 現在時刻(ナノ秒)
+     * @return キーごとのバケット
+     */
+    private TokenBucketRegistry getRegistry(long now) {
+        TokenBucketRegistry result = registry;
+        if (result == null) {
+            synchronized (this) {
+                result = registry;
+                if (result == null) {
+                    interval = Math.max(1L, (long) (TimeUnit.SECONDS.toNanos(1L) / permitsPerSecond));
+                    tolerance = interval * (capacity - 1);
+                    limitHeaderValue = String.valueOf(capacity);
+                    result = new TokenBucketRegistry(maxKeys, TimeUnit.MILLISECONDS.toNanos(idleTimeout), wheelSize, now);
+                    registry = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * ナノ秒を秒に切り上げて変換する。
+     *
+     * @param nanos ナノ秒
+     * @return 秒
+     */
+    private static long toSeconds(long nanos) {
+        return (nanos + TimeUnit.SECONDS.toNanos(1L) - 1) / TimeUnit.SECONDS.toNanos(1L);
+    }
+
+    /**
+     * 数値をヘッダの値に変換する。
+     *
+     * @param value 数値
+     * @return ヘッダの値
+     */
+    private static String toHeaderValue(long value) {
+        return value <= CACHED_HEADER_VALUES ? HEADER_VALUES[(int) value] : String.valueOf(value);
+    }
+
+    /**
+     * 管理しているキーの数を取得する。
+     *
+     * @return キーの数
+     */
+    public int getKeyCount() {
+        final TokenBucketRegistry result = registry;
+        return result == null ? 0 : result.size();
+    }
+
+    /**
+     * キーの数が上限に達したため共有のバケットで制限したリクエストの数を取得する。
+     *
+     * @return 共有のバケットで制限したリクエストの数
+     */
+    public long getOverflowCount() {
+        final TokenBucketRegistry result = registry;
+        return result == null ? 0L : result.getOverflowCount();
+    }
+
+    /**
+     * キーを解決する{@link RateLimitKeyResolver}を設定する。
+     * <p/>
+     * デフォルトは{@link ClientIpKeyResolver}。
+     *
+     * @param keyResolver キーを解決する{@link RateLimitKeyResolver}
+     */
+    public void setKeyResolver(final RateLimitKeyResolver keyResolver) {
+        this.keyResolver = keyResolver;
+    }
+
+    /**
+     * バケットの容量(連続して受け付けられるリクエスト数)を設定する。
+     * <p/>
+     * デフォルトは100。
+     *
+     * @param capacity バケットの容量
+     */
+    public void setCapacity(final int capacity) {
+        this.capacity = capacity;
+    }
+
+    /**
+     * 1秒あたりに補充するトークン数を設定する。
+     * <p/>
+     * デフォルトは10。
+     *
+     * @param permitsPerSecond 1秒あたりに補充するトークン数
+     */
+    public void setPermitsPerSecond(final double permitsPerSecond) {
+        this.permitsPerSecond = permitsPerSecond;
+    }
+
+    /**
+     * バケットを破棄するまでのアクセスのない時間(ミリ秒)を設定する。
+     * <p/>
+     * デフォルトは60000ミリ秒。
+     * 満杯に戻っていないバケットは、この時間を過ぎても破棄しない。
+     *
+     * @param idleTimeout アクセスのない時間(ミリ秒)
+     */
+    public void setIdleTimeout(final long idleTimeout) {
+        this.idleTimeout = idleTimeout;
+    }
+
+    /**
+     * タイムホイールのスロット数を設定する。
+     * <p/>
+     * デフォルトは60。スロット数を増やすほど、アクセスのない時間を細かく判定できる。
+     *
+     * @param wheelSize タイムホイールのスロット数
+     */
+    public void setWheelSize(final int wheelSize) {
+        this.wheelSize = wheelSize;
+    }
+
+    /**
+     * 管理するキーの数の上限を設定する。
+     * <p/>
+     * デフォルトは100000。
+     *
+     * @param maxKeys 管理するキーの数の上限
+     */
+    public void setMaxKeys(final int maxKeys) {
+        this.maxKeys = maxKeys;
+    }
+
+    /**
+     * 流量制限のレスポンスヘッダを設定するか否かを設定する。
+     * <p/>
+     * デフォルトは{@code true}。{@code false}の場合も、429のレスポンスにはRetry-Afterヘッダを設定する。
+     *
+     * @param includeHeaders レスポンスヘッダを設定する場合は{@code true}
+     */
+    public void setIncludeHeaders(final boolean includeHeaders) {
+        this.includeHeaders = includeHeaders;
+    }
+}
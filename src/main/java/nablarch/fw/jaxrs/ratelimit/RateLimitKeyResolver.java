@@ -0,0 +1,23 @@
+package nablarch.fw.jaxrs.ratelimit;
+
+import nablarch.core.util.annotation.Published;
+import nablarch.fw.ExecutionContext;
+import nablarch.fw.web.HttpRequest;
+
+/**
+ * 流量制限の単位となるキーを解決するインタフェース。
+ * <p/>
+ * 同じキーを返すリクエストは、同じトークンバケットを共有する。
+ */
+@Published(tag = "architect")
+public interface RateLimitKeyResolver {
+
+    /**
+     * リクエストからキーを解決する。
+     *
+     * @param request リクエスト
+     * @param context 実行コンテキスト
+     * @return キー。流量を制限しない場合は{@code null}
+     */
+    String resolve(HttpRequest request, ExecutionContext context);
+}
@@ -0,0 +1,27 @@
+package nablarch.fw.jaxrs.ratelimit;
+
+import nablarch.core.util.annotation.Published;
+import nablarch.fw.ExecutionContext;
+import nablarch.fw.jaxrs.JaxRsContext;
+import nablarch.fw.web.HttpRequest;
+
+/**
+ * リソースメソッドをキーとする{@link RateLimitKeyResolver}。
+ * <p/>
+ * {@link JaxRsContext}が存在する場合(ルーティング後にハンドラを配置した場合)は、
+ * リソースメソッドのパス(クラスの完全修飾名#メソッド名)をキーとする。
+ * {@link JaxRsContext}が存在しない場合(ルーティング前にハンドラを配置した場合)は、
+ * HTTPメソッドとリクエストパスをキーとする。
+ */
+@Published(tag = "architect")
+public class ResourceMethodKeyResolver implements RateLimitKeyResolver {
+
+    @Override
+    public String resolve(HttpRequest request, ExecutionContext context) {
+        final JaxRsContext jaxRsContext = JaxRsContext.get(context);
+        if (jaxRsContext != null) {
+            return jaxRsContext.toResourcePath();
+        }
+        return request.getMethod() + ' ' + request.getRequestPath();
+    }
+}
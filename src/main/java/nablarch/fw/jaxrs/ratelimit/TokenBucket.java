@@ -0,0 +1,96 @@
+package nablarch.fw.jaxrs.ratelimit;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * ロックを使用しないトークンバケット。
+ * <p/>
+ * トークン数と最終補充時刻を個別に保持する代わりに、バケットが満杯に戻る理論上の時刻(以下、満杯時刻)のみを保持する
+ * (GCRA: Generic Cell Rate Algorithm)。
+ * トークン1つの補充間隔をT、容量をNとすると、満杯時刻が現在時刻+T×(N-1)以下であればトークンを取得でき、
+ * 取得時は満杯時刻をTだけ進める。
+ * 状態が1つの{@code long}値に収まるため、CASのみで更新できる。
+ */
+final class TokenBucket {
+
+    /** 満杯時刻(ナノ秒) */
+    private final AtomicLong fullAt;
+
+    /** 最後にアクセスされたタイムホイールの目盛り */
+    private volatile long lastTick;
+
+    /**
+     * コンストラクタ。
+     *
+     * @param now 現在時刻(ナノ秒)
+     * @param tick 現在のタイムホイールの目盛り
+     */
+    TokenBucket(long now, long tick) {
+        this.fullAt = new AtomicLong(now);
+        this.lastTick = tick;
+    }
+
+    /**
+     * トークンを1つ取得する。
+     *
+     * @param now 現在時刻(ナノ秒)
+     * @param interval トークン1つの補充間隔(ナノ秒)
+     * @param tolerance 補充間隔×(容量-1)(ナノ秒)
+     * @return 取得できた場合は0。取得できなかった場合は取得できるまでの時間(ナノ秒)
+     */
+    long tryAcquire(long now, long interval, long tolerance) {
+        while (true) {
+            final long current = fullAt.get();
+            final long base = Math.max(current, now);
+            final long wait = base - tolerance - now;
+            if (wait > 0) {
+                return wait;
+            }
+            if (fullAt.compareAndSet(current, base + interval)) {
+                return 0L;
+            }
+        }
+    }
+
+    /**
+     * 残りのトークン数を取得する。
+     *
+     * @param now 現在時刻(ナノ秒)
+     * @param interval トークン1つの補充間隔(ナノ秒)
+     * @param capacity 容量
+     * @return 残りのトークン数
+     */
+    int remaining(long now, long interval, int capacity) {
+        final long debt = untilFull(now);
+        final long consumed = (debt + interval - 1) / interval;
+        return (int) Math.max(0L, capacity - consumed);
+    }
+
+    /**
+     * バケットが満杯に戻るまでの時間を取得する。
+     *
+     * @param now 現在時刻(ナノ秒)
+     * @return 満杯に戻るまでの時間(ナノ秒)。満杯の場合は0
+     */
+    long untilFull(long now) {
+        return Math.max(0L, fullAt.get() - now);
+    }
+
+    /**
+     * 最後にアクセスされたタイムホイールの目盛りを取得する。
+     *
+     * @return 目盛り
+     */
+    long getLastTick() {
+        return lastTick;
+    }
+
+    /**
+     * 最後にアクセスされたタイムホイールの目盛りを設定する。
+     *
+     * @param lastTick 目盛り
+     */
+    void setLastTick(long lastTick) {
+        this.lastTick = lastTick;
+    }
+}
@@ -0,0 +1,202 @@
+package nablarch.fw.jaxrs.ratelimit;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * キーごとの{@link TokenBucket}を管理するクラス。
+ * <p/>
+ * 一定時間アクセスのないキーは、タイムホイールを使用して削除する。
+ * タイムホイールは{@code wheelSize}個のスロットからなり、キーは最後にアクセスされた目盛りのスロットに登録される。
+ * 目盛りが進むと、次に使用するスロットに登録されているキーのうち、1周の間アクセスのなかったキーを削除する。
+ * 削除は目盛りを進めたリクエストのスレッドで行うため、削除用のスレッドは使用しない。
+ * <p/>
+ * 管理するキーの数が上限に達している場合、新しいキーは全て1つの共有のバケットで制限する。
+ * これにより、大量のキーを生成するリクエストを受けてもメモリの使用量は一定に抑えられる。
+ */
+final class TokenBucketRegistry {
+
+    /** キーごとのバケット */
+    private final ConcurrentHashMap<String, TokenBucket> buckets = new ConcurrentHashMap<String, TokenBucket>();
+
+    /** 管理しているキーの数 */
+    private final AtomicInteger size = new AtomicInteger();
+
+    /** 管理するキーの数の上限 */
+    private final int maxKeys;
+
+    /** キーの数が上限に達した場合に使用する共有のバケット */
+    private final TokenBucket overflow;
+
+    /** 共有のバケットを使用した回数 */
+    private final LongAdder overflowCount = new LongAdder();
+
+    /** タイムホイールのスロット */
+    private final ConcurrentLinkedQueue<String>[] wheel;
+
+    /** 目盛り1つあたりの時間(ナノ秒) */
+    private final long tickNanos;
+
+    /** 目盛りの起点となる時刻(ナノ秒) */
+    private final long origin;
+
+    /** 現在の目盛り */
+    private final AtomicLong currentTick = new AtomicLong();
+
+    /**
+     * コンストラクタ。
+     *
+     * @param maxKeys 管理するキーの数の上限
+     * @param idleTimeoutNanos キーを削除するまでのアクセスのない時間(ナノ秒)
+     * @param wheelSize タイムホイールのスロット数
+     * @param now 現在時刻(ナノ秒)
+     */
+    TokenBucketRegistry(int maxKeys, long idleTimeoutNanos, int wheelSize, long now) {
+        this.maxKeys = maxKeys;
+        this.wheel = createWheel(wheelSize);
+        this.tickNanos = Math.max(1L, idleTimeoutNanos / wheelSize);
+        this.origin = now;
+        this.overflow = new TokenBucket(now, 0L);
+    }
+
+    /**
+     * タイムホイールのスロットを生成する。
+     *
+     * @param wheelSize タイムホイールのスロット数
+     * @return タイムホイールのスロット
+     */
+    private static ConcurrentLinkedQueue<String>[] createWheel(int wheelSize) {
+        // ジェネリクスの配列は生成できないため、要素がConcurrentLinkedQueue<String>のみであることをここで保証する。
+        @SuppressWarnings("unchecked")
+        final ConcurrentLinkedQueue<String>[] wheel = (ConcurrentLinkedQueue<String>[]) new ConcurrentLinkedQueue<?>[wheelSize];
+        for (int i = 0; i < wheelSize; i++) {
+            wheel[i] = new ConcurrentLinkedQueue<String>();
+        }
+        return wheel;
+    }
+
+    /**
+     * キーに対応するバケットを取得する。
+     * <p/>
+     * バケットが存在しない場合は生成する。キーの数が上限に達している場合は共有のバケットを返す。
+     *
+     * @param key キー
+     * @param now 現在時刻(ナノ秒)
+     * @return バケット
+     */
+    TokenBucket get(String key, long now) {
+        final long tick = (now - origin) / tickNanos;
+        advance(tick, now);
+        TokenBucket bucket = buckets.get(key);
+        if (bucket == null) {
+            if (size.get() >= maxKeys) {
+                overflowCount.increment();
+                return overflow;
+            }
+            final TokenBucket created = new TokenBucket(now, tick);
+            bucket = buckets.putIfAbsent(key, created);
+            if (bucket == null) {
+                size.incrementAndGet();
+                wheel[slot(tick)].add(key);
+                return created;
+            }
+        }
+        if (bucket.getLastTick() != tick) {
+            bucket.setLastTick(tick);
+            wheel[slot(tick)].add(key);
+        }
+        return bucket;
+    }
+
+    /**
+     * タイムホイールの目盛りを進め、アクセスのないキーを削除する。
+     * <p/>
+     * 目盛りを進められるのは1スレッドのみで、他のスレッドは待たずに処理を続ける。
+     *
+     * @param tick 現在の目盛り
+     * @param now 現在時刻(ナノ秒)
+     */
+    private void advance(long tick, long now) {
+        final long previous = currentTick.get();
+        if (tick <= previous || !currentTick.compareAndSet(previous, tick)) {
+            return;
+        }
+        for (long t = Math.max(previous + 1, tick - wheel.length + 1); t <= tick; t++) {
+            expire(slot(t), tick, now);
+        }
+    }
+
+    /**
+     * スロットに登録されたキーのうち、1周の間アクセスのなかったキーを削除する。
+     * <p/>
+     * バケットが満杯に戻っていないキーは、削除すると制限が緩むため削除せずに現在の目盛りのスロットに登録し直す。
+     *
+     * @param index スロットのインデックス
+     * @param tick 現在の目盛り
+     * @param now 現在時刻(ナノ秒)
+     */
+    private void expire(int index, long tick, long now) {
+        final ConcurrentLinkedQueue<String> queue = wheel[index];
+        final List<String> retained = new ArrayList<String>();
+        String key;
+        while ((key = queue.poll()) != null) {
+            final TokenBucket bucket = buckets.get(key);
+            if (bucket == null) {
+                continue;
+            }
+            final long lastTick = bucket.getLastTick();
+            if (tick - lastTick < wheel.length) {
+                // 登録後にアクセスされたキーは、最後にアクセスされた目盛りのスロットに登録されている。
+                // そのスロットがこのスロットの場合のみ登録し直す。
+                if (slot(lastTick) == index) {
+                    retained.add(key);
+                }
+            } else if (bucket.untilFull(now) > 0L) {
+                bucket.setLastTick(tick);
+                retained.add(key);
+            } else if (buckets.remove(key, bucket)) {
+                size.decrementAndGet();
+            }
+        }
+        // ドレイン中に登録し直すと同じキーを繰り返し取り出すため、ドレインが終わってから登録する。
+        for (String retainedKey : retained) {
+            final TokenBucket bucket = buckets.get(retainedKey);
+            if (bucket != null) {
+                wheel[slot(bucket.getLastTick())].add(retainedKey);
+            }
+        }
+    }
+
+    /**
+     * 目盛りに対応するスロットのインデックスを取得する。
+     *
+     * @param tick 目盛り
+     * @return スロットのインデックス
+     */
+    private int slot(long tick) {
+        return (int) (tick % wheel.length);
+    }
+
+    /**
+     * 管理しているキーの数を取得する。
+     *
+     * @return キーの数
+     */
+    int size() {
+        return size.get();
+    }
+
+    /**
+     * 共有のバケットを使用した回数を取得する。
+     *
+     * @return 共有のバケットを使用した回数
+     */
+    long getOverflowCount() {
+        return overflowCount.sum();
+    }
+}
@@ -0,0 +1,80 @@
+package nablarch.fw.jaxrs.shedding;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * CoDel(Controlled Delay)の考え方でキューイング遅延から過負荷を判定するクラス。
+ * <p/>
+ * 一定間隔(インターバル)ごとに、その間に観測したキューイング遅延の最小値を求める。
+ * 最小値が目標値を超えている場合は、一時的なバーストではなくキューが解消されていない状態とみなし、打ち切りレベルを1つ上げる。
+ * 最小値が目標値以下の場合は、打ち切りレベルを0に戻す。
+ * <p/>
+ * 打ち切りレベルがnの場合、序数がn未満の{@link SheddingPriority}のリクエストのうち、
+ * キューイング遅延が目標値を超えているものを打ち切る。
+ */
+final class CoDelController {
+
+    /** 遅延が観測されていないことを表す最小値 */
+    private static final long NO_SAMPLE = Long.MAX_VALUE;
+
+    /** 打ち切りレベルの上限 */
+    private static final int MAX_LEVEL = SheddingPriority.CRITICAL.ordinal();
+
+    /** キューイング遅延の目標値(ミリ秒) */
+    private final long target;
+
+    /** インターバル(ミリ秒) */
+    private final long interval;
+
+    /** 現在のインターバルの開始時刻(ミリ秒) */
+    private final AtomicLong intervalStart;
+
+    /** 現在のインターバルで観測したキューイング遅延の最小値(ミリ秒) */
+    private final AtomicLong minDelay = new AtomicLong(NO_SAMPLE);
+
+    /** 打ち切りレベル */
+    private volatile int level = 0;
+
+    /**
+     * コンストラクタ。
+     *
+     * @param target キューイング遅延の目標値(ミリ秒)
+     * @param interval インターバル(ミリ秒)
+     * @param now 現在時刻(ミリ秒)
+     */
+    CoDelController(long target, long interval, long now) {
+        this.target = target;
+        this.interval = interval;
+        this.intervalStart = new AtomicLong(now);
+    }
+
+    /**
+     * キューイング遅延を記録し、リクエストを打ち切るか否かを判定する。
+     *
+     * @param delay キューイング遅延(ミリ秒)
+     * @param priority リクエストの優先度
+     * @param now 現在時刻(ミリ秒)
+     * @return 打ち切る場合は{@code true}
+     */
+    boolean record(long delay, SheddingPriority priority, long now) {
+        long current = minDelay.get();
+        while (delay < current && !minDelay.compareAndSet(current, delay)) {
+            current = minDelay.get();
+        }
+        final long start = intervalStart.get();
+        if (now - start >= interval && intervalStart.compareAndSet(start, now)) {
+            final long min = minDelay.getAndSet(NO_SAMPLE);
+            level = min != NO_SAMPLE && min > target ? Math.min(level + 1, MAX_LEVEL) : 0;
+        }
+        return delay > target && priority.ordinal() < level;
+    }
+
+    /**
+     * 打ち切りレベルを取得する。
+     *
+     * @return 打ち切りレベル。過負荷でない場合は0
+     */
+    int getLevel() {
+        return level;
+    }
+}
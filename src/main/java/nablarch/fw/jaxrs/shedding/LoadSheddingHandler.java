@@ -0,0 +1,366 @@
+package nablarch.fw.jaxrs.shedding;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import nablarch.core.log.Logger;
+import nablarch.core.log.LoggerManager;
+import nablarch.core.util.StringUtil;
+import nablarch.core.util.annotation.Published;
+import nablarch.fw.ExecutionContext;
+import nablarch.fw.jaxrs.JaxRsContext;
+import nablarch.fw.web.HttpRequest;
+import nablarch.fw.web.HttpRequestHandler;
+import nablarch.fw.web.HttpResponse;
+
+/**
+ * キューイング遅延をもとに過負荷時のリクエストを打ち切るハンドラ。
+ * <p/>
+ * リクエストの到着時刻からこのハンドラが実行されるまでの時間(キューイング遅延)を計測し、
+ * {@link #setInterval(long)}で設定した間隔の間、キューイング遅延の最小値が{@link #setTarget(long)}で設定した目標値を
+ * 超え続けた場合に過負荷と判定する(CoDel: Controlled Delay)。
+ * 過負荷の間は、キューイング遅延が目標値を超えたリクエストを、後続のハンドラを実行せずにステータスコード503で打ち切る。
+ * 打ち切ったリクエストはクライアントがすでにタイムアウトしている可能性が高く、処理しても無駄になるためである。
+ * <p/>
+ * 過負荷が続くほど、{@link SheddingPriority}が低いものから順に打ち切る対象を広げる。
+ * 優先度は{@link #setPriorities(Map)}でリソースメソッドのパス(クラスの完全修飾名#メソッド名)ごとに設定できる。
+ * リソースメソッドごとの優先度は、{@link JaxRsContext}が存在する場合
+ * (このハンドラを{@link nablarch.fw.jaxrs.JaxRsHandlerListFactory}が生成するハンドラリストの先頭に設定した場合)のみ適用される。
+ * <p/>
+ * リクエストの到着時刻は、以下の順で取得する。いずれも取得できないリクエストは打ち切らない。
+ * <pre>
+ * ・{@link #setArrivalTimeAttributeName(String)}で設定したリクエストスコープの値(エポックミリ秒のLongまたは文字列)
+ * ・{@link #setArrivalTimeHeaderName(String)}で設定したリクエストヘッダ(デフォルトはX-Request-Start)
+ * </pre>
+ * リクエストヘッダは、リバースプロキシが設定する以下の形式に対応する。
+ * <pre>
+ * ・"t="接頭辞の有無
+ * ・小数点を含む秒(例: 1700000000.123)
+ * ・整数の秒、ミリ秒またはマイクロ秒(桁数で判定する)
+ * </pre>
+ */
+@Published(tag = "architect")
+public class LoadSheddingHandler implements HttpRequestHandler {
+
+    /** ロガー */
+    private static final Logger LOGGER = LoggerManager.get(LoadSheddingHandler.class);
+
+    /** エポックミリ秒とみなす最小値(2001年) */
+    private static final long MIN_EPOCH_MILLIS = 1000000000000L;
+
+    /** エポックマイクロ秒とみなす最小値 */
+    private static final long MIN_EPOCH_MICROS = MIN_EPOCH_MILLIS * 1000L;
+
+    /** キューイング遅延の目標値(ミリ秒) */
+    private long target = 5L;
+
+    /** インターバル(ミリ秒) */
+    private long interval = 100L;
+
+    /** 過負荷でなくても打ち切るキューイング遅延(ミリ秒) */
+    private long maxQueueDelay = 0L;
+
+    /** 到着時刻を設定するリクエストヘッダの名前 */
+    private String arrivalTimeHeaderName = "X-Request-Start";
+
+    /** 到着時刻を設定するリクエストスコープの名前 */
+    private String arrivalTimeAttributeName;
+
+    /** リソースメソッドのパスごとの優先度 */
+    private Map<String, SheddingPriority> priorities = Collections.emptyMap();
+
+    /** デフォルトの優先度 */
+    private SheddingPriority defaultPriority = SheddingPriority.NORMAL;
+
+    /** 打ち切るステータスコード */
+    private int shedStatusCode = HttpResponse.Status.SERVICE_UNAVAILABLE.getStatusCode();
+
+    /** 過負荷の判定 */
+    private volatile CoDelController controller;
+
+    /** 処理したリクエストの数 */
+    private final LongAdder servedCount = new LongAdder();
+
+    /** 優先度ごとの打ち切ったリクエストの数 */
+    private final Map<SheddingPriority, LongAdder> shedCounts = new EnumMap<SheddingPriority, LongAdder>(SheddingPriority.class);
+
+    /**
+     * コンストラクタ。
+     */
+    public LoadSheddingHandler() {
+        for (SheddingPriority priority : SheddingPriority.values()) {
+            shedCounts.put(priority, new LongAdder());
+        }
+    }
+
+    @Override
+    public HttpResponse handle(HttpRequest request, ExecutionContext context) {
+        final long arrivalTime = getArrivalTime(request, context);
+        if (arrivalTime > 0L) {
+            final long now = currentTimeMillis();
+            final long delay = Math.max(0L, now - arrivalTime);
+            final SheddingPriority priority = getPriority(context);
+            final boolean overloaded = getController(now).record(delay, priority, now);
+            if (overloaded || (maxQueueDelay > 0L && delay > maxQueueDelay && priority != SheddingPriority.CRITICAL)) {
+                shedCounts.get(priority).increment();
+                if (LOGGER.isDebugEnabled()) {
+                    LOGGER.logDebug("request was shed. queue delay = [" + delay + "ms], priority = [" + priority + ']');
+                }
+                return createShedResponse();
+            }
+        }
+        servedCount.increment();
+        return context.handleNext(request);
+    }
+
+    /**
+     * 打ち切る際のレスポンスを生成する。
+     *
+     * @return レスポンス
+     */
+    protected HttpResponse createShedResponse() {
+        return new HttpResponse(shedStatusCode);
+    }
+
+    /**
+     * 現在時刻を取得する。
+     *
+     * @return 現在時刻(エポックミリ秒)
+     */
+    protected long currentTimeMillis() {
+        return System.currentTimeMillis();
+    }
+
+    /**
+     * リクエストの到着時刻を取得する。
+     *
+     * @param request リクエスト
+     * @param context 実行コンテキスト
+     * @return 到着時刻(エポックミリ秒)。取得できない場合は0
+     */
+    private long getArrivalTime(HttpRequest request, ExecutionContext context) {
+        if (arrivalTimeAttributeName != null) {
+            final Object value = context.getRequestScopedVar(arrivalTimeAttributeName);
+            if (value instanceof Number) {
+                return ((Number) value).longValue();
+            }
+            if (value != null) {
+                return parseArrivalTime(value.toString());
+            }
+        }
+        if (arrivalTimeHeaderName != null) {
+            final String value = request.getHeader(arrivalTimeHeaderName);
+            if (StringUtil.hasValue(value)) {
+                return parseArrivalTime(value);
+            }
+        }
+        return 0L;
+    }
+
+    /**
+     * 到着時刻の文字列をエポックミリ秒に変換する。
+     *
+     * @param value 到着時刻の文字列
+     * @return 到着時刻(エポックミリ秒)。変換できない場合は0
+     */
+    static long parseArrivalTime(String value) {
+        String time = value.trim();
+        if (time.startsWith("t=")) {
+            time = time.substring(2);
+        }
+        try {
+            if (time.indexOf('.') != -1) {
+                return Math.round(Double.parseDouble(time) * 1000.0);
+            }
+            final long number = Long.parseLong(time);
+            if (number >= MIN_EPOCH_MICROS) {
+                return number / 1000L;
+            }
+            if (number >= MIN_EPOCH_MILLIS) {
+                return number;
+            }
+            return number * 1000L;
+        } catch (NumberFormatException e) {
+            return 0L;
+        }
+    }
+
+    /**
+     * リクエストの優先度を取得する。
+     *
+     * @param context 実行コンテキスト
+     * @return 優先度
+     */
+    private SheddingPriority getPriority(ExecutionContext context) {
+        if (priorities.isEmpty()) {
+            return defaultPriority;
+        }
+        final JaxRsContext jaxRsContext = JaxRsContext.get(context);
+        if (jaxRsContext == null) {
+            return defaultPriority;
+        }
+        final SheddingPriority priority = priorities.get(jaxRsContext.toResourcePath());
+        return priority != null ? priority : defaultPriority;
+    }
+
+    /**
+     * 過負荷の判定を取得する。
+     *
+     * @param now 現在時刻(ミリ秒)
+     * @return 過負荷の判定
+     */
+    private CoDelController getController(long now) {
+        CoDelController result = controller;
+        if (result == null) {
+            synchronized (this) {
+                result = controller;
+                if (result == null) {
+                    result = new CoDelController(target, interval, now);
+                    controller = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 処理したリクエストの数を取得する。
+     *
+     * @return 処理したリクエストの数
+     */
+    public long getServedCount() {
+        return servedCount.sum();
+    }
+
+    /**
+     * 打ち切ったリクエストの数を取得する。
+     *
+     * @return 打ち切ったリクエストの数
+     */
+    public long getShedCount() {
+        long count = 0L;
+        for (LongAdder adder : shedCounts.values()) {
+            count += adder.sum();
+        }
+        return count;
+    }
+
+    /**
+     * 優先度ごとの打ち切ったリクエストの数を取得する。
+     *
+     * @param priority 優先度
+     * @return 打ち切ったリクエストの数
+     */
+    public long getShedCount(SheddingPriority priority) {
+        return shedCounts.get(priority).sum();
+    }
+
+    /**
+     * 打ち切りレベルを取得する。
+     * <p/>
+     * 序数がこの値未満の{@link SheddingPriority}のリクエストが打ち切りの対象となる。
+     *
+     * @return 打ち切りレベル。過負荷でない場合は0
+     */
+    public int getSheddingLevel() {
+        final CoDelController result = controller;
+        return result == null ? 0 : result.getLevel();
+    }
+
+    /**
+     * キューイング遅延の目標値(ミリ秒)を設定する。
+     * <p/>
+     * デフォルトは5ミリ秒。
+     *
+     * @param target キューイング遅延の目標値(ミリ秒)
+     */
+    public void setTarget(final long target) {
+        this.target = target;
+    }
+
+    /**
+     * 過負荷を判定するインターバル(ミリ秒)を設定する。
+     * <p/>
+     * デフォルトは100ミリ秒。
+     *
+     * @param interval インターバル(ミリ秒)
+     */
+    public void setInterval(final long interval) {
+        this.interval = interval;
+    }
+
+    /**
+     * 過負荷でなくても打ち切るキューイング遅延(ミリ秒)を設定する。
+     * <p/>
+     * クライアントのタイムアウトを設定すると、タイムアウト済みのリクエストを常に打ち切る。
+     * デフォルトは0(過負荷の場合のみ打ち切る)。{@link SheddingPriority#CRITICAL}のリクエストには適用しない。
+     *
+     * @param maxQueueDelay キューイング遅延(ミリ秒)
+     */
+    public void setMaxQueueDelay(final long maxQueueDelay) {
+        this.maxQueueDelay = maxQueueDelay;
+    }
+
+    /**
+     * 到着時刻を設定するリクエストヘッダの名前を設定する。
+     * <p/>
+     * デフォルトはX-Request-Start。
+     *
+     * @param arrivalTimeHeaderName リクエストヘッダの名前
+     */
+    public void setArrivalTimeHeaderName(final String arrivalTimeHeaderName) {
+        this.arrivalTimeHeaderName = arrivalTimeHeaderName;
+    }
+
+    /**
+     * 到着時刻を設定するリクエストスコープの名前を設定する。
+     * <p/>
+     * サーブレットコンテナやサーブレットフィルタが到着時刻をリクエスト属性に設定する場合に指定する。
+     * デフォルトは未設定。
+     *
+     * @param arrivalTimeAttributeName リクエストスコープの名前
+     */
+    public void setArrivalTimeAttributeName(final String arrivalTimeAttributeName) {
+        this.arrivalTimeAttributeName = arrivalTimeAttributeName;
+    }
+
+    /**
+     * リソースメソッドのパス(クラスの完全修飾名#メソッド名)ごとの優先度を設定する。
+     * <p/>
+     * 値には{@link SheddingPriority}の名前を指定する。
+     *
+     * @param priorities リソースメソッドのパスごとの優先度
+     */
+    public void setPriorities(final Map<String, String> priorities) {
+        final Map<String, SheddingPriority> converted = new HashMap<String, SheddingPriority>();
+        for (Map.Entry<String, String> entry : priorities.entrySet()) {
+            converted.put(entry.getKey(), SheddingPriority.valueOf(entry.getValue()));
+        }
+        this.priorities = converted;
+    }
+
+    /**
+     * デフォルトの優先度を設定する。
+     * <p/>
+     * デフォルトは{@link SheddingPriority#NORMAL}。
+     *
+     * @param defaultPriority {@link SheddingPriority}の名前
+     */
+    public void setDefaultPriority(final String defaultPriority) {
+        this.defaultPriority = SheddingPriority.valueOf(defaultPriority);
+    }
+
+    /**
+     * 打ち切る際のステータスコードを設定する。
+     * <p/>
+     * デフォルトは503。
+     *
+     * @param shedStatusCode ステータスコード
+     */
+    public void setShedStatusCode(final int shedStatusCode) {
+        this.shedStatusCode = shedStatusCode;
+    }
+}
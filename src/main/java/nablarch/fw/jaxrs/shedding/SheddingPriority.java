@@ -0,0 +1,25 @@
+package nablarch.fw.jaxrs.shedding;
+
+import nablarch.core.util.annotation.Published;
+
+/**
+ * 負荷制限時のリクエストの優先度。
+ * <p/>
+ * 過負荷の状態が続くほど、優先度の低いものから順に高いものまで処理を打ち切る対象を広げる。
+ * {@link #CRITICAL}のリクエストは打ち切らない。
+ */
+@Published(tag = "architect")
+public enum SheddingPriority {
+
+    /** 低 */
+    LOW,
+
+    /** 通常 */
+    NORMAL,
+
+    /** 高 */
+    HIGH,
+
+    /** 打ち切らない */
+    CRITICAL
+}
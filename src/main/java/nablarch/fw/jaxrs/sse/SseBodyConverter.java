@@ -0,0 +1,304 @@
+package nablarch.fw.jaxrs.sse;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import jakarta.ws.rs.core.MediaType;
+
+import nablarch.core.util.FileUtil;
+import nablarch.core.util.annotation.Published;
+import nablarch.fw.ExecutionContext;
+import nablarch.fw.jaxrs.BodyConverter;
+import nablarch.fw.jaxrs.JaxRsContext;
+import nablarch.fw.web.HttpRequest;
+import nablarch.fw.web.HttpResponse;
+
+/**
+ * "text/event-stream"(Server-Sent Events)のレスポンスを生成する{@link BodyConverter}の実装クラス。
+ * <p/>
+ * リソースメソッドが返した{@link SseEventSource}を、イベントをストリーミングする{@link SseResponse}に変換する。
+ * {@link nablarch.fw.jaxrs.JaxRsResponseHandler}は、{@link SseResponse}を受け取るとサーブレットの非同期処理を開始するため、
+ * 接続ごとにスレッドを占有することはない。
+ * <p/>
+ * イベントのデータは、{@link #setDataConverters(List)}で設定された{@link BodyConverter}のうち、
+ * {@link #setDataMediaType(String)}で設定されたメディアタイプを変換できるものを使用して文字列に変換する。
+ * データが文字列の場合は変換せずにそのまま送信する。
+ */
+@Published(tag = "architect")
+public class SseBodyConverter implements BodyConverter {
+
+    /** イベントのデータを変換する{@link BodyConverter} */
+    private List<BodyConverter> dataConverters = Collections.emptyList();
+
+    /** イベントのデータのメディアタイプ */
+    private String dataMediaType = MediaType.APPLICATION_JSON;
+
+    /** ハートビートの送信間隔(ミリ秒) */
+    private long heartbeatInterval = 15000L;
+
+    /** 接続ごとにバッファに格納できるイベント数の上限 */
+    private int maxBufferedEvents = 256;
+
+    /** 非同期処理のタイムアウト(ミリ秒) */
+    private long asyncTimeout = 0L;
+
+    /**
+     * リクエストボディとしてイベントストリームを受け付けることはないためサポートしない。
+     *
+     * @param request HTTPリクエスト
+     * @param executionContext 実行コンテキスト
+     * @return なし
+     * @throws UnsupportedOperationException 常に送出する
+     */
+    @Override
+    public Object read(HttpRequest request, ExecutionContext executionContext) {
+        throw new UnsupportedOperationException("text/event-stream is not supported in request.");
+    }
+
+    /**
+     * リソースメソッドが返した{@link SseEventSource}を{@link SseResponse}に変換する。
+     *
+     * @param response {@link SseEventSource}
+     * @param executionContext 実行コンテキスト
+     * @return {@link SseResponse}
+     * @throws IllegalStateException リソースメソッドの戻り値が{@link SseEventSource}でない場合
+     */
+    @Override
+    public HttpResponse write(Object response, ExecutionContext executionContext) {
+        if (!(response instanceof SseEventSource)) {
+            final JaxRsContext jaxRsContext = JaxRsContext.get(executionContext);
+            throw new IllegalStateException(
+                    String.format("return type of resource method that specified "
+                                    + "@Produces({ \"text/event-stream\" }) should be SseEventSource. "
+                                    + "resource method = [%s], return type = [%s]",
+                            jaxRsContext.toResourcePath(),
+                            response == null ? null : response.getClass().getSimpleName()));
+        }
+        return new SseResponse((SseEventSource) response, this, executionContext);
+    }
+
+    @Override
+    public boolean isConvertible(String mediaType) {
+        return mediaType.toLowerCase().startsWith(MediaType.SERVER_SENT_EVENTS);
+    }
+
+    /**
+     * イベントを"text/event-stream"形式のバイト列に変換する。
+     *
+     * @param event イベント
+     * @param context 実行コンテキスト
+     * @return 変換したバイト列
+     */
+    byte[] encode(SseEvent event, ExecutionContext context) {
+        final StringBuilder sb = new StringBuilder();
+        if (event.getId() != null) {
+            sb.append("id: ").append(removeLineBreaks(event.getId())).append('\n');
+        }
+        if (event.getName() != null) {
+            sb.append("event: ").append(removeLineBreaks(event.getName())).append('\n');
+        }
+        final String data = convertData(event.getData(), context);
+        int start = 0;
+        for (int i = 0; i <= data.length(); i++) {
+            if (i == data.length() || data.charAt(i) == '\n' || data.charAt(i) == '\r') {
+                sb.append("data: ").append(data, start, i).append('\n');
+                if (i < data.length() - 1 && data.charAt(i) == '\r' && data.charAt(i + 1) == '\n') {
+                    i++;
+                }
+                start = i + 1;
+            }
+        }
+        sb.append('\n');
+        return sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * イベントのデータを文字列に変換する。
+     *
+     * @param data データ
+     * @param context 実行コンテキスト
+     * @return 変換した文字列
+     */
+    private String convertData(Object data, ExecutionContext context) {
+        if (data == null) {
+            return "";
+        }
+        if (data instanceof CharSequence) {
+            return data.toString();
+        }
+        final HttpResponse converted = findDataConverter().write(data, context);
+        final InputStream in = converted.getBodyStream();
+        if (in == null) {
+            return "";
+        }
+        try {
+            final ByteArrayOutputStream out = new ByteArrayOutputStream();
+            final byte[] buffer = new byte[1024];
+            int readSize;
+            while ((readSize = in.read(buffer)) != -1) {
+                out.write(buffer, 0, readSize);
+            }
+            final String content = String.valueOf(converted.getCharset().decode(ByteBuffer.wrap(out.toByteArray())));
+            // 変換結果の末尾の改行は、空のdata行にならないように取り除く
+            int end = content.length();
+            while (end > 0 && (content.charAt(end - 1) == '\n' || content.charAt(end - 1) == '\r')) {
+                end--;
+            }
+            return content.substring(0, end);
+        } catch (IOException e) {
+            throw new IllegalStateException("failed to convert event data.", e);
+        } finally {
+            FileUtil.closeQuietly(in);
+            converted.cleanup();
+        }
+    }
+
+    /**
+     * イベントのデータを変換する{@link BodyConverter}を取得する。
+     *
+     * @return {@link BodyConverter}
+     * @throws IllegalStateException 変換できる{@link BodyConverter}が存在しない場合
+     */
+    private BodyConverter findDataConverter() {
+        for (BodyConverter converter : dataConverters) {
+            if (converter.isConvertible(dataMediaType)) {
+                return converter;
+            }
+        }
+        throw new IllegalStateException("BodyConverter for event data was not found. data media type = [" + dataMediaType + ']');
+    }
+
+    /**
+     * 改行文字を取り除く。
+     *
+     * @param value 値
+     * @return 改行文字を取り除いた値
+     */
+    private static String removeLineBreaks(String value) {
+        return value.replace("\r", "").replace("\n", "");
+    }
+
+    /**
+     * ハートビートの送信に使用するスケジューラを取得する。
+     *
+     * @return スケジューラ
+     */
+    ScheduledExecutorService getHeartbeatScheduler() {
+        return HeartbeatSchedulerHolder.SCHEDULER;
+    }
+
+    /**
+     * イベントのデータを変換する{@link BodyConverter}のリストを設定する。
+     *
+     * @param dataConverters {@link BodyConverter}のリスト
+     */
+    public void setDataConverters(List<BodyConverter> dataConverters) {
+        this.dataConverters = Collections.unmodifiableList(dataConverters);
+    }
+
+    /**
+     * イベントのデータのメディアタイプを設定する。
+     * <p/>
+     * デフォルトは"application/json"。
+     *
+     * @param dataMediaType メディアタイプ
+     */
+    public void setDataMediaType(String dataMediaType) {
+        this.dataMediaType = dataMediaType;
+    }
+
+    /**
+     * ハートビートの送信間隔(ミリ秒)を取得する。
+     *
+     * @return ハートビートの送信間隔(ミリ秒)
+     */
+    public long getHeartbeatInterval() {
+        return heartbeatInterval;
+    }
+
+    /**
+     * ハートビートの送信間隔(ミリ秒)を設定する。
+     * <p/>
+     * デフォルトは15000ミリ秒。0以下を指定した場合はハートビートを送信しない。
+     *
+     * @param heartbeatInterval ハートビートの送信間隔(ミリ秒)
+     */
+    public void setHeartbeatInterval(long heartbeatInterval) {
+        this.heartbeatInterval = heartbeatInterval;
+    }
+
+    /**
+     * 接続ごとにバッファに格納できるイベント数の上限を取得する。
+     *
+     * @return イベント数の上限
+     */
+    public int getMaxBufferedEvents() {
+        return maxBufferedEvents;
+    }
+
+    /**
+     * 接続ごとにバッファに格納できるイベント数の上限を設定する。
+     * <p/>
+     * デフォルトは256。上限を超えた場合は、受信が遅いクライアントとみなして接続を終了する。
+     *
+     * @param maxBufferedEvents イベント数の上限
+     */
+    public void setMaxBufferedEvents(int maxBufferedEvents) {
+        this.maxBufferedEvents = maxBufferedEvents;
+    }
+
+    /**
+     * 非同期処理のタイムアウト(ミリ秒)を取得する。
+     *
+     * @return 非同期処理のタイムアウト(ミリ秒)
+     */
+    public long getAsyncTimeout() {
+        return asyncTimeout;
+    }
+
+    /**
+     * 非同期処理のタイムアウト(ミリ秒)を設定する。
+     * <p/>
+     * デフォルトは0(タイムアウトしない)。
+     *
+     * @param asyncTimeout 非同期処理のタイムアウト(ミリ秒)
+     */
+    public void setAsyncTimeout(long asyncTimeout) {
+        this.asyncTimeout = asyncTimeout;
+    }
+
+    /**
+     * ハートビートの送信に使用するスケジューラを保持するクラス。
+     * <p/>
+     * 全ての接続で1つのデーモンスレッドを共有する。
+     */
+    private static final class HeartbeatSchedulerHolder {
+
+        /** スケジューラ */
+        private static final ScheduledExecutorService SCHEDULER;
+
+        static {
+            final ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+                private final AtomicInteger count = new AtomicInteger();
+
+                @Override
+                public Thread newThread(Runnable r) {
+                    final Thread thread = new Thread(r, "nablarch-sse-heartbeat-" + count.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+            executor.setRemoveOnCancelPolicy(true);
+            SCHEDULER = executor;
+        }
+    }
+}
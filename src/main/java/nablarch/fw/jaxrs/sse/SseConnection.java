@@ -0,0 +1,262 @@
+package nablarch.fw.jaxrs.sse;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+
+import nablarch.core.log.Logger;
+import nablarch.core.log.LoggerManager;
+
+/**
+ * クライアントとのServer-Sent Eventsの接続を表すクラス。
+ * <p/>
+ * 送信するイベントは接続ごとのバッファに格納し、{@link WriteListener}を使用してソケットが書き込み可能になった時点で書き込む。
+ * このため、イベントの送信元のスレッドがクライアントへの書き込みで待たされることはない。
+ * バッファに格納できるイベント数の上限を超えた場合は、受信が遅いクライアントとみなして接続を終了する。
+ */
+class SseConnection implements WriteListener, AsyncListener {
+
+    /** ロガー */
+    private static final Logger LOGGER = LoggerManager.get(SseConnection.class);
+
+    /** ハートビートとして送信するコメント行 */
+    private static final byte[] HEARTBEAT = ":\n\n".getBytes(StandardCharsets.UTF_8);
+
+    /** 非同期処理のコンテキスト */
+    private final AsyncContext asyncContext;
+
+    /** 出力ストリーム */
+    private final ServletOutputStream out;
+
+    /** イベントを送信する形式に変換するエンコーダ */
+    private final SseEventEncoder encoder;
+
+    /** イベントの発行元 */
+    private final SseEventSource source;
+
+    /** バッファに格納できるイベント数の上限 */
+    private final int maxBufferedEvents;
+
+    /** 書き込み待ちのイベント */
+    private final Deque<byte[]> queue = new ArrayDeque<byte[]>();
+
+    /** ソケットへの書き込みが開始されたか否か */
+    private boolean writable = false;
+
+    /** フラッシュされていない書き込みがあるか否か */
+    private boolean dirty = false;
+
+    /** 書き込み待ちのイベントを書き込んだ後に接続を終了するか否か */
+    private boolean closing = false;
+
+    /** 接続が終了したか否か */
+    private boolean closed = false;
+
+    /** ハートビートのスケジュール */
+    private ScheduledFuture<?> heartbeat;
+
+    /**
+     * コンストラクタ。
+     *
+     * @param asyncContext 非同期処理のコンテキスト
+     * @param out 出力ストリーム
+     * @param encoder イベントを送信する形式に変換するエンコーダ
+     * @param source イベントの発行元
+     * @param maxBufferedEvents バッファに格納できるイベント数の上限
+     */
+    SseConnection(AsyncContext asyncContext, ServletOutputStream out, SseEventEncoder encoder,
+            SseEventSource source, int maxBufferedEvents) {
+        this.asyncContext = asyncContext;
+        this.out = out;
+        this.encoder = encoder;
+        this.source = source;
+        this.maxBufferedEvents = maxBufferedEvents;
+    }
+
+    /**
+     * ハートビートの送信を開始する。
+     *
+     * @param scheduler スケジューラ
+     * @param interval 送信間隔(ミリ秒)
+     */
+    synchronized void startHeartbeat(ScheduledExecutorService scheduler, long interval) {
+        if (closed) {
+            return;
+        }
+        heartbeat = scheduler.scheduleAtFixedRate(new Runnable() {
+            @Override
+            public void run() {
+                sendHeartbeat();
+            }
+        }, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * イベントを送信する形式に変換する。
+     *
+     * @param event イベント
+     * @return 送信するバイト列
+     */
+    byte[] encode(SseEvent event) {
+        return encoder.encode(event);
+    }
+
+    /**
+     * 送信する形式に変換したイベントを送信する。
+     * <p/>
+     * イベントはバッファに格納され、ソケットが書き込み可能な場合はすぐに書き込まれる。
+     * 複数の接続に同じバイト列を送信できるよう、バイト列は変更しない。
+     *
+     * @param frame {@link #encode(SseEvent)}で変換したバイト列
+     */
+    synchronized void send(byte[] frame) {
+        if (closed || closing) {
+            return;
+        }
+        if (queue.size() >= maxBufferedEvents) {
+            LOGGER.logInfo("evicted slow Server-Sent Events consumer. buffered events = [" + queue.size() + ']');
+            close();
+            return;
+        }
+        queue.addLast(frame);
+        drain();
+    }
+
+    /**
+     * ハートビートを送信する。
+     * <p/>
+     * 書き込み待ちのイベントが存在する場合は送信しない。
+     */
+    synchronized void sendHeartbeat() {
+        if (closed || closing || !queue.isEmpty()) {
+            return;
+        }
+        queue.addLast(HEARTBEAT);
+        drain();
+    }
+
+    /**
+     * 書き込み待ちのイベントを書き込んだ後に接続を終了する。
+     */
+    synchronized void closeAfterDrain() {
+        if (closed) {
+            return;
+        }
+        closing = true;
+        drain();
+    }
+
+    @Override
+    public synchronized void onWritePossible() {
+        writable = true;
+        drain();
+    }
+
+    @Override
+    public void onError(Throwable t) {
+        LOGGER.logDebug("failed to write Server-Sent Events.", t);
+        close();
+    }
+
+    @Override
+    public void onComplete(AsyncEvent event) {
+        release();
+    }
+
+    @Override
+    public void onTimeout(AsyncEvent event) {
+        close();
+    }
+
+    @Override
+    public void onError(AsyncEvent event) {
+        close();
+    }
+
+    @Override
+    public void onStartAsync(AsyncEvent event) {
+        // NOP
+    }
+
+    /**
+     * 書き込み待ちのイベントを、ソケットが書き込み可能な間だけ書き込む。
+     * <p/>
+     * 書き込めなくなった場合は、{@link #onWritePossible()}が呼び出されるまで書き込みを中断する。
+     */
+    private void drain() {
+        if (!writable || closed) {
+            return;
+        }
+        try {
+            while (!queue.isEmpty()) {
+                if (!out.isReady()) {
+                    return;
+                }
+                out.write(queue.removeFirst());
+                dirty = true;
+            }
+            if (closing) {
+                close();
+                return;
+            }
+            if (dirty && out.isReady()) {
+                out.flush();
+                dirty = false;
+            }
+        } catch (IOException e) {
+            LOGGER.logDebug("failed to write Server-Sent Events.", e);
+            close();
+        }
+    }
+
+    /**
+     * 接続を終了する。
+     */
+    synchronized void close() {
+        if (closed) {
+            return;
+        }
+        release();
+        try {
+            asyncContext.complete();
+        } catch (IllegalStateException ignore) {
+            // 既に非同期処理が終了している場合
+        }
+    }
+
+    /**
+     * 接続に関するリソースを解放する。
+     */
+    private synchronized void release() {
+        closed = true;
+        queue.clear();
+        if (heartbeat != null) {
+            heartbeat.cancel(false);
+        }
+        source.unregister(this);
+    }
+
+    /**
+     * イベントを送信する形式に変換するインタフェース。
+     */
+    interface SseEventEncoder {
+
+        /**
+         * イベントを送信する形式に変換する。
+         *
+         * @param event イベント
+         * @return 送信するバイト列
+         */
+        byte[] encode(SseEvent event);
+    }
+}
@@ -0,0 +1,91 @@
+package nablarch.fw.jaxrs.sse;
+
+import nablarch.core.util.annotation.Published;
+
+/**
+ * Server-Sent Eventsで送信するイベント。
+ * <p/>
+ * データが文字列の場合はそのまま送信し、それ以外の場合は{@link SseBodyConverter}に設定された
+ * {@link nablarch.fw.jaxrs.BodyConverter}を使用して文字列に変換した上で送信する。
+ */
+@Published
+public class SseEvent {
+
+    /** イベントID */
+    private final String id;
+
+    /** イベント名 */
+    private final String name;
+
+    /** データ */
+    private final Object data;
+
+    /**
+     * データのみを持つイベントを生成する。
+     *
+     * @param data データ
+     */
+    public SseEvent(Object data) {
+        this(null, null, data);
+    }
+
+    /**
+     * イベント名とデータを持つイベントを生成する。
+     *
+     * @param name イベント名
+     * @param data データ
+     */
+    public SseEvent(String name, Object data) {
+        this(null, name, data);
+    }
+
+    /**
+     * イベントID、イベント名及びデータを持つイベントを生成する。
+     *
+     * @param id イベントID。{@code null}の場合は{@link SseEventSource}が採番する。
+     * @param name イベント名
+     * @param data データ
+     */
+    public SseEvent(String id, String name, Object data) {
+        this.id = id;
+        this.name = name;
+        this.data = data;
+    }
+
+    /**
+     * イベントIDを取得する。
+     *
+     * @return イベントID
+     */
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * イベント名を取得する。
+     *
+     * @return イベント名
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * データを取得する。
+     *
+     * @return データ
+     */
+    public Object getData() {
+        return data;
+    }
+
+    /**
+     * イベントIDを差し替えたイベントを生成する。
+     *
+     * @param newId イベントID
+     * @return イベントIDを差し替えたイベント
+     */
+    SseEvent withId(String newId) {
+        return new SseEvent(newId, name, data);
+    }
+}
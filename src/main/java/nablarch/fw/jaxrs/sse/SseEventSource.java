@@ -0,0 +1,189 @@
+package nablarch.fw.jaxrs.sse;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import nablarch.core.util.annotation.Published;
+
+/**
+ * Server-Sent Eventsのイベントを発行するクラス。
+ * <p/>
+ * リソースメソッドでは{@code @Produces(MediaType.SERVER_SENT_EVENTS)}を指定し、このクラスのインスタンスを戻り値として返す。
+ * 返されたインスタンスに対して{@link #send(SseEvent)}を呼び出すと、接続中の全てのクライアントにイベントが送信される。
+ * <p/>
+ * 送信したイベントは直近の一定数を履歴として保持する。
+ * クライアントが{@code Last-Event-ID}ヘッダを付けて再接続した場合は、そのIDより後のイベントを履歴から再送する。
+ * 指定されたIDが履歴に存在しない場合は、保持している履歴を全て再送する。
+ * <p/>
+ * このクラスはスレッドセーフであり、任意のスレッドからイベントを送信できる。
+ * イベントのデータは、接続数によらずイベントごとに1度だけ変換する。
+ */
+@Published
+public class SseEventSource {
+
+    /** デフォルトの履歴の保持件数 */
+    private static final int DEFAULT_HISTORY_SIZE = 100;
+
+    /** 履歴の保持件数 */
+    private final int historySize;
+
+    /** 送信したイベントの履歴 */
+    private final Deque<SseEvent> history = new ArrayDeque<SseEvent>();
+
+    /** 接続中のクライアント */
+    private final List<SseConnection> connections = new CopyOnWriteArrayList<SseConnection>();
+
+    /** イベントIDの採番に使用する連番 */
+    private long sequence = 0L;
+
+    /** クローズ済みか否か */
+    private boolean closed = false;
+
+    /**
+     * デフォルトの履歴の保持件数(100件)でインスタンスを生成する。
+     */
+    public SseEventSource() {
+        this(DEFAULT_HISTORY_SIZE);
+    }
+
+    /**
+     * 履歴の保持件数を指定してインスタンスを生成する。
+     *
+     * @param historySize 履歴の保持件数。0の場合は再送を行わない。
+     */
+    public SseEventSource(int historySize) {
+        if (historySize < 0) {
+            throw new IllegalArgumentException("historySize must not be negative. historySize = [" + historySize + ']');
+        }
+        this.historySize = historySize;
+    }
+
+    /**
+     * データのみを持つイベントを送信する。
+     *
+     * @param data データ
+     */
+    public void send(Object data) {
+        send(new SseEvent(data));
+    }
+
+    /**
+     * イベントを送信する。
+     * <p/>
+     * イベントIDが指定されていない場合は、連番を採番して送信する。
+     *
+     * @param event イベント
+     * @throws IllegalStateException クローズ済みの場合
+     */
+    public void send(SseEvent event) {
+        synchronized (history) {
+            if (closed) {
+                throw new IllegalStateException("SseEventSource is already closed.");
+            }
+            final SseEvent numbered = event.getId() != null ? event : event.withId(String.valueOf(++sequence));
+            if (historySize > 0) {
+                if (history.size() >= historySize) {
+                    history.removeFirst();
+                }
+                history.addLast(numbered);
+            }
+            // 送信順序を保証するため、配信まで履歴のロックを保持する。
+            // 変換はイベントごとに1度だけ行い、全ての接続に同じバイト列を送信する。
+            byte[] frame = null;
+            for (SseConnection connection : connections) {
+                if (frame == null) {
+                    frame = connection.encode(numbered);
+                }
+                connection.send(frame);
+            }
+        }
+    }
+
+    /**
+     * イベントの送信を終了する。
+     * <p/>
+     * 接続中のクライアントには、送信待ちのイベントを書き込んだ後に接続を終了する。
+     */
+    public void close() {
+        synchronized (history) {
+            closed = true;
+            for (SseConnection connection : connections) {
+                connection.closeAfterDrain();
+            }
+        }
+    }
+
+    /**
+     * クローズ済みか否かを判定する。
+     *
+     * @return クローズ済みの場合は{@code true}
+     */
+    public boolean isClosed() {
+        synchronized (history) {
+            return closed;
+        }
+    }
+
+    /**
+     * 接続中のクライアント数を取得する。
+     *
+     * @return 接続中のクライアント数
+     */
+    public int getConnectionCount() {
+        return connections.size();
+    }
+
+    /**
+     * クライアントの接続を登録する。
+     * <p/>
+     * {@code lastEventId}が指定されている場合は、履歴からイベントを再送する。
+     *
+     * @param connection 接続
+     * @param lastEventId クライアントが最後に受信したイベントID
+     */
+    void register(SseConnection connection, String lastEventId) {
+        synchronized (history) {
+            if (lastEventId != null) {
+                for (SseEvent event : eventsAfter(lastEventId)) {
+                    connection.send(connection.encode(event));
+                }
+            }
+            if (closed) {
+                connection.closeAfterDrain();
+                return;
+            }
+            connections.add(connection);
+        }
+    }
+
+    /**
+     * クライアントの接続を解除する。
+     *
+     * @param connection 接続
+     */
+    void unregister(SseConnection connection) {
+        connections.remove(connection);
+    }
+
+    /**
+     * 指定されたイベントIDより後に送信したイベントを履歴から取得する。
+     *
+     * @param lastEventId イベントID
+     * @return 再送対象のイベント
+     */
+    private List<SseEvent> eventsAfter(String lastEventId) {
+        final List<SseEvent> result = new ArrayList<SseEvent>();
+        boolean found = false;
+        for (SseEvent event : history) {
+            if (found) {
+                result.add(event);
+            } else if (lastEventId.equals(event.getId())) {
+                found = true;
+            }
+        }
+        return found ? result : new ArrayList<SseEvent>(history);
+    }
+}
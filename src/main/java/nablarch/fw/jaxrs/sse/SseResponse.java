@@ -0,0 +1,74 @@
+package nablarch.fw.jaxrs.sse;
+
+import java.io.IOException;
+
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.ServletOutputStream;
+
+import nablarch.fw.ExecutionContext;
+import nablarch.fw.jaxrs.StreamingResponse;
+import nablarch.fw.web.HttpResponse;
+import nablarch.fw.web.servlet.ServletExecutionContext;
+
+/**
+ * Server-Sent Eventsのイベントをストリーミングするレスポンス。
+ * <p/>
+ * {@link SseBodyConverter}が{@link SseEventSource}から生成する。
+ */
+public class SseResponse extends HttpResponse implements StreamingResponse {
+
+    /** 再接続時に最後に受信したイベントIDを通知するヘッダ */
+    private static final String LAST_EVENT_ID = "Last-Event-ID";
+
+    /** イベントの発行元 */
+    private final SseEventSource source;
+
+    /** コンバータ */
+    private final SseBodyConverter converter;
+
+    /** イベントのデータの変換に使用する実行コンテキスト */
+    private final ExecutionContext executionContext;
+
+    /**
+     * コンストラクタ。
+     *
+     * @param source イベントの発行元
+     * @param converter コンバータ
+     * @param executionContext イベントのデータの変換に使用する実行コンテキスト
+     */
+    SseResponse(SseEventSource source, SseBodyConverter converter, ExecutionContext executionContext) {
+        super(Status.OK.getStatusCode());
+        this.source = source;
+        this.converter = converter;
+        this.executionContext = executionContext;
+        setContentType("text/event-stream;charset=UTF-8");
+        setHeader("Cache-Control", "no-cache");
+    }
+
+    /**
+     * イベントの発行元を取得する。
+     *
+     * @return イベントの発行元
+     */
+    public SseEventSource getEventSource() {
+        return source;
+    }
+
+    @Override
+    public void startStreaming(AsyncContext asyncContext, ServletExecutionContext context) throws IOException {
+        asyncContext.setTimeout(converter.getAsyncTimeout());
+        final ServletOutputStream out = asyncContext.getResponse().getOutputStream();
+        final SseConnection connection = new SseConnection(asyncContext, out, new SseConnection.SseEventEncoder() {
+            @Override
+            public byte[] encode(SseEvent event) {
+                return converter.encode(event, executionContext);
+            }
+        }, source, converter.getMaxBufferedEvents());
+        asyncContext.addListener(connection);
+        out.setWriteListener(connection);
+        source.register(connection, context.getServletRequest().getHeader(LAST_EVENT_ID));
+        if (converter.getHeartbeatInterval() > 0) {
+            connection.startHeartbeat(converter.getHeartbeatScheduler(), converter.getHeartbeatInterval());
+        }
+    }
+}
@@ -61,6 +61,16 @@ class AppLogPropertyBuilder {
         return this;
     }
 
+    public AppLogPropertyBuilder requestBodyCaptureSize(String value) {
+        props.put("jaxRsAccessLogFormatter.requestBodyCaptureSize", value);
+        return this;
+    }
+
+    public AppLogPropertyBuilder responseBodyCaptureSize(String value) {
+        props.put("jaxRsAccessLogFormatter.responseBodyCaptureSize", value);
+        return this;
+    }
+
     public AppLogPropertyBuilder bodyLogTargetMatcher(String value) {
         props.put("jaxRsAccessLogFormatter.bodyLogTargetMatcher", value);
         return this;
@@ -71,6 +81,36 @@ class AppLogPropertyBuilder {
         return this;
     }
 
+    public AppLogPropertyBuilder bodyMaskingMaxLength(String value) {
+        props.put("jaxRsAccessLogFormatter.bodyMaskingMaxLength", value);
+        return this;
+    }
+
+    public AppLogPropertyBuilder directWriteEnabled(String value) {
+        props.put("jaxRsAccessLogFormatter.directWriteEnabled", value);
+        return this;
+    }
+
+    public AppLogPropertyBuilder clientHostCacheEnabled(String value) {
+        props.put("jaxRsAccessLogFormatter.clientHostCacheEnabled", value);
+        return this;
+    }
+
+    public AppLogPropertyBuilder clientHostLookupTimeout(String value) {
+        props.put("jaxRsAccessLogFormatter.clientHostLookupTimeout", value);
+        return this;
+    }
+
+    public AppLogPropertyBuilder lazySessionEnabled(String value) {
+        props.put("jaxRsAccessLogFormatter.lazySessionEnabled", value);
+        return this;
+    }
+
+    public AppLogPropertyBuilder sessionStoreCookieName(String value) {
+        props.put("jaxRsAccessLogFormatter.sessionStoreCookieName", value);
+        return this;
+    }
+
     public AppLogPropertyBuilder beginTargets(String value) {
         props.put("jaxRsAccessLogFormatter.beginTargets", value);
         return this;
@@ -0,0 +1,253 @@
+package nablarch.fw.jaxrs;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import nablarch.core.ThreadContext;
+import nablarch.core.log.Logger;
+
+import org.junit.After;
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.mockito.Mockito.mock;
+
+/**
+ * {@link AsyncAccessLogWriter}のテスト。
+ */
+public class AsyncAccessLogWriterTest {
+
+    /** logInfoで出力されたメッセージを記録するロガー */
+    private final Logger logger = mock(Logger.class, invocation -> {
+        if (invocation.getMethod().getName().equals("logInfo")) {
+            record((String) invocation.getArgument(0), (Object[]) invocation.getRawArguments()[1]);
+        }
+        return null;
+    });
+
+    /** 最初のメッセージの出力を{@link #release}まで止めるか否か */
+    private boolean blockFirst;
+
+    /** 出力されたメッセージ */
+    private final List<String> messages = Collections.synchronizedList(new ArrayList<String>());
+
+    /** 出力時に例外を送出するか否か */
+    private volatile boolean failing;
+
+    /** 出力時のスレッドの情報 */
+    private final List<String> threadInfo = Collections.synchronizedList(new ArrayList<String>());
+
+    /** 出力を止めるためのラッチ */
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    /** 出力を開始したことを通知するラッチ */
+    private final CountDownLatch writing = new CountDownLatch(1);
+
+    private AsyncAccessLogWriter sut;
+
+    @After
+    public void tearDown() {
+        release.countDown();
+        if (sut != null) {
+            sut.close(1000);
+        }
+        ThreadContext.clear();
+    }
+
+    /**
+     * バックグラウンドのスレッドで、格納した順にリクエストスレッドの情報を復元して出力されること。
+     * バックグラウンドのスレッド名は変更されないこと。
+     */
+    @Test
+    public void testWrite() throws Exception {
+        recordMessages(false);
+        sut = new AsyncAccessLogWriter(logger, 4, AsyncAccessLogWriter.OverflowPolicy.BLOCK, 10);
+
+        ThreadContext.setRequestId("req1");
+        ThreadContext.setUserId("user1");
+        for (int i = 0; i < 10; i++) {
+            assertThat(sut.offer("message" + i, new Object[0]), is(true));
+        }
+
+        assertThat(sut.flush(5000), is(true));
+        assertThat(messages.size(), is(10));
+        for (int i = 0; i < 10; i++) {
+            assertThat(messages.get(i), is("message" + i));
+            assertThat(threadInfo.get(i), is("req1:user1:access-log-writer"));
+        }
+        assertThat(sut.getDroppedCount(), is(0L));
+    }
+
+    /**
+     * オプション情報がそのまま出力されること。
+     */
+    @Test
+    public void testOptions() throws Exception {
+        final List<Object[]> options = Collections.synchronizedList(new ArrayList<Object[]>());
+        final Logger optionLogger = mock(Logger.class, invocation -> {
+            if (invocation.getMethod().getName().equals("logInfo")) {
+                options.add((Object[]) invocation.getRawArguments()[1]);
+            }
+            return null;
+        });
+        sut = new AsyncAccessLogWriter(optionLogger, 4, AsyncAccessLogWriter.OverflowPolicy.BLOCK, 10);
+
+        final Object[] expected = {"option"};
+        sut.offer("message", expected);
+
+        assertThat(sut.flush(5000), is(true));
+        assertThat(options.get(0), is(sameInstance(expected)));
+    }
+
+    /**
+     * ロガーへの出力で例外が発生しても、件数を数えて以降のメッセージを出力すること。
+     */
+    @Test
+    public void testWriteFailure() throws Exception {
+        recordMessages(false);
+        sut = new AsyncAccessLogWriter(logger, 4, AsyncAccessLogWriter.OverflowPolicy.BLOCK, 10);
+
+        failing = true;
+        sut.offer("failed", null);
+        assertThat(sut.flush(5000), is(true));
+        failing = false;
+        sut.offer("succeeded", null);
+
+        assertThat(sut.flush(5000), is(true));
+        assertThat(sut.getFailedCount(), is(1L));
+        assertThat(messages, contains("succeeded"));
+    }
+
+    /**
+     * リングバッファのサイズは2のべき乗に切り上げられること。
+     */
+    @Test
+    public void testCapacity() {
+        sut = new AsyncAccessLogWriter(logger, 5, AsyncAccessLogWriter.OverflowPolicy.DROP, 10);
+        assertThat(sut.getCapacity(), is(8));
+    }
+
+    /**
+     * DROPの場合、空きがなければ破棄して件数が数えられること。
+     */
+    @Test
+    public void testDrop() throws Exception {
+        recordMessages(true);
+        sut = new AsyncAccessLogWriter(logger, 2, AsyncAccessLogWriter.OverflowPolicy.DROP, 10);
+
+        sut.offer("first", null);
+        assertThat(writing.await(5, TimeUnit.SECONDS), is(true));
+        // 出力中の1件はスロットを占有したままのため、空きは1件
+        assertThat(sut.offer("second", null), is(true));
+        assertThat(sut.offer("third", null), is(false));
+        assertThat(sut.offer("fourth", null), is(false));
+        assertThat(sut.getDroppedCount(), is(2L));
+
+        release.countDown();
+        assertThat(sut.flush(5000), is(true));
+        assertThat(messages, contains("first", "second"));
+    }
+
+    /**
+     * BLOCKの場合、空きができるまでリクエストスレッドが待機すること。
+     */
+    @Test
+    public void testBlock() throws Exception {
+        recordMessages(true);
+        sut = new AsyncAccessLogWriter(logger, 1, AsyncAccessLogWriter.OverflowPolicy.BLOCK, 10);
+
+        sut.offer("first", null);
+        assertThat(writing.await(5, TimeUnit.SECONDS), is(true));
+
+        final CountDownLatch offered = new CountDownLatch(1);
+        final Thread producer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                sut.offer("second", null);
+                offered.countDown();
+            }
+        });
+        producer.start();
+        assertThat(offered.await(200, TimeUnit.MILLISECONDS), is(false));
+
+        release.countDown();
+        assertThat(offered.await(5, TimeUnit.SECONDS), is(true));
+        assertThat(sut.flush(5000), is(true));
+        assertThat(messages, contains("first", "second"));
+        assertThat(sut.getDroppedCount(), is(0L));
+    }
+
+    /**
+     * SAMPLEの場合、使用量が半分を超えたら一定の割合でのみ格納されること。
+     */
+    @Test
+    public void testSample() throws Exception {
+        recordMessages(true);
+        sut = new AsyncAccessLogWriter(logger, 8, AsyncAccessLogWriter.OverflowPolicy.SAMPLE, 3);
+
+        sut.offer("m0", null);
+        assertThat(writing.await(5, TimeUnit.SECONDS), is(true));
+        for (int i = 1; i < 4; i++) {
+            assertThat(sut.offer("m" + i, null), is(true));
+        }
+        // 使用量が半分(4件)に達したため、3件に1件のみ格納する
+        assertThat(sut.offer("m4", null), is(true));
+        assertThat(sut.offer("m5", null), is(false));
+        assertThat(sut.offer("m6", null), is(false));
+        assertThat(sut.offer("m7", null), is(true));
+        assertThat(sut.getSampledOutCount(), is(2L));
+
+        release.countDown();
+        assertThat(sut.flush(5000), is(true));
+        assertThat(messages, contains("m0", "m1", "m2", "m3", "m4", "m7"));
+    }
+
+    /**
+     * 終了時に出力待ちのメッセージが出力され、以降のメッセージは破棄されること。
+     */
+    @Test
+    public void testClose() throws Exception {
+        recordMessages(false);
+        sut = new AsyncAccessLogWriter(logger, 16, AsyncAccessLogWriter.OverflowPolicy.BLOCK, 10);
+        for (int i = 0; i < 10; i++) {
+            sut.offer("message" + i, null);
+        }
+
+        sut.close(5000);
+
+        assertThat(messages.size(), is(10));
+        assertThat(sut.offer("after", null), is(false));
+        assertThat(sut.getDroppedCount(), is(1L));
+    }
+
+    /**
+     * 不正なサイズを指定した場合は例外が送出されること。
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidBufferSize() {
+        new AsyncAccessLogWriter(logger, 0, AsyncAccessLogWriter.OverflowPolicy.BLOCK, 10);
+    }
+
+    private void recordMessages(boolean blockFirst) {
+        this.blockFirst = blockFirst;
+    }
+
+    private void record(String message, Object[] options) throws InterruptedException {
+        if (failing) {
+            throw new IllegalStateException("logger failure.");
+        }
+        writing.countDown();
+        if (blockFirst && messages.isEmpty()) {
+            release.await(10, TimeUnit.SECONDS);
+        }
+        messages.add(message);
+        threadInfo.add(ThreadContext.getRequestId() + ':' + ThreadContext.getUserId() + ':'
+                + Thread.currentThread().getName());
+    }
+}
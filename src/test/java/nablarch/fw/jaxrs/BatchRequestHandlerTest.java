@@ -0,0 +1,406 @@
+package nablarch.fw.jaxrs;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+
+import jakarta.json.Json;
+import jakarta.json.JsonObject;
+import jakarta.json.JsonReader;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletContext;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import nablarch.fw.ExecutionContext;
+import nablarch.fw.web.HttpErrorResponse;
+import nablarch.fw.web.HttpRequest;
+import nablarch.fw.web.HttpRequestHandler;
+import nablarch.fw.web.HttpResponse;
+import nablarch.fw.web.servlet.ServletExecutionContext;
+import nablarch.test.support.log.app.OnMemoryLogWriter;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * {@link BatchRequestHandler}のテスト。
+ */
+public class BatchRequestHandlerTest {
+
+    private final BatchRequestHandler sut = new BatchRequestHandler();
+
+    private final HttpServletRequest mockServletRequest = mock(HttpServletRequest.class, RETURNS_DEEP_STUBS);
+
+    private final HttpServletResponse mockServletResponse = mock(HttpServletResponse.class);
+
+    private final ServletContext mockServletContext = mock(ServletContext.class);
+
+    private final HttpRequest mockHttpRequest = mock(HttpRequest.class);
+
+    private ServletExecutionContext context;
+
+    @Before
+    public void setUp() {
+        OnMemoryLogWriter.clear();
+        when(mockServletRequest.getContextPath()).thenReturn("");
+        when(mockServletRequest.getRequestURI()).thenReturn("/batch");
+        when(mockServletRequest.getMethod()).thenReturn("POST");
+        when(mockServletRequest.getContentType()).thenReturn("application/json");
+        when(mockHttpRequest.getMethod()).thenReturn("POST");
+        when(mockHttpRequest.getRequestPath()).thenReturn("/batch");
+        context = new ServletExecutionContext(mockServletRequest, mockServletResponse, mockServletContext);
+    }
+
+    @After
+    public void tearDown() {
+        OnMemoryLogWriter.clear();
+    }
+
+    /**
+     * バッチリクエスト以外のリクエストは後続のハンドラに委譲されること。
+     */
+    @Test
+    public void testNotBatchRequest() {
+        when(mockHttpRequest.getMethod()).thenReturn("GET");
+        final HttpResponse expected = new HttpResponse(200);
+        context.addHandler(sut);
+        context.addHandler(new HttpRequestHandler() {
+            @Override
+            public HttpResponse handle(HttpRequest request, ExecutionContext context) {
+                return expected;
+            }
+        });
+
+        assertThat(context.handleNext(mockHttpRequest), is(expected));
+    }
+
+    /**
+     * ボディの形式が不正な場合は400が返されること。
+     */
+    @Test
+    public void testInvalidBody() throws Exception {
+        setBody("{\"foo\": []}");
+        context.addHandler(sut);
+
+        try {
+            context.handleNext(mockHttpRequest);
+            fail();
+        } catch (HttpErrorResponse e) {
+            assertThat(e.getResponse().getStatusCode(), is(400));
+        }
+        OnMemoryLogWriter.assertLogContains("writer.memory",
+                "INFO ROO batch request is invalid. batch request must have requests array.");
+    }
+
+    /**
+     * サブリクエストが後続のハンドラで並列に処理され、処理結果がNDJSONで返されること。
+     */
+    @Test
+    public void testParallel() throws Exception {
+        setBody("["
+                + "{\"id\": \"a\", \"method\": \"GET\", \"path\": \"/users/1?name=x\"},"
+                + "{\"id\": \"b\", \"method\": \"POST\", \"path\": \"/users\", \"body\": {\"name\": \"y\"}},"
+                + "{\"id\": \"c\", \"method\": \"GET\", \"path\": \"/error\"}"
+                + "]");
+        context.addHandler(sut);
+        context.addHandler(new EchoHandler());
+
+        final HttpResponse response = context.handleNext(mockHttpRequest);
+
+        assertThat(response, is(instanceOf(PublisherResponse.class)));
+        assertThat(response.getContentType(), is(BodyConvertHandler.NDJSON + ";charset=UTF-8"));
+        final List<JsonObject> results = collect((PublisherResponse) response);
+        assertThat(results.size(), is(3));
+        Collections.sort(results, new Comparator<JsonObject>() {
+            @Override
+            public int compare(JsonObject o1, JsonObject o2) {
+                return o1.getInt("index") - o2.getInt("index");
+            }
+        });
+
+        assertThat(results.get(0).getString("id"), is("a"));
+        assertThat(results.get(0).getInt("status"), is(200));
+        assertThat(results.get(0).getJsonObject("body").getString("method"), is("GET"));
+        assertThat(results.get(0).getJsonObject("body").getString("path"), is("/users/1"));
+        assertThat(results.get(0).getJsonObject("body").getString("name"), is("x"));
+
+        assertThat(results.get(1).getString("id"), is("b"));
+        assertThat(results.get(1).getInt("status"), is(200));
+        assertThat(results.get(1).getJsonObject("body").getString("method"), is("POST"));
+        assertThat(results.get(1).getJsonObject("body").getJsonObject("body").getString("name"), is("y"));
+
+        assertThat(results.get(2).getString("id"), is("c"));
+        assertThat(results.get(2).getInt("status"), is(404));
+    }
+
+    /**
+     * 並列に処理しない場合は、記載順に処理結果が返されること。
+     */
+    @Test
+    public void testSequential() throws Exception {
+        sut.setParallel(false);
+        setBody("{\"requests\": ["
+                + "{\"method\": \"GET\", \"path\": \"/1\"},"
+                + "{\"method\": \"GET\", \"path\": \"/2\"},"
+                + "{\"method\": \"GET\", \"path\": \"/3\"}"
+                + "]}");
+        context.addHandler(sut);
+        context.addHandler(new HttpRequestHandler() {
+            @Override
+            public HttpResponse handle(HttpRequest request, ExecutionContext context) {
+                return new HttpResponse(201);
+            }
+        });
+
+        final List<JsonObject> results = collect((PublisherResponse) context.handleNext(mockHttpRequest));
+
+        assertThat(results.size(), is(3));
+        for (int i = 0; i < results.size(); i++) {
+            assertThat(results.get(i).getInt("index"), is(i));
+            assertThat(results.get(i).containsKey("id"), is(false));
+            assertThat(results.get(i).getInt("status"), is(201));
+        }
+    }
+
+    /**
+     * 並列に処理する場合は、サブリクエストごとにセッションストアのコピーが使用されること。
+     */
+    @Test
+    public void testSessionStoreInParallel() throws Exception {
+        setBody("[{\"method\": \"GET\", \"path\": \"/1\"}, {\"method\": \"GET\", \"path\": \"/2\"}]");
+        final Map<String, Object> sessionStore = new HashMap<String, Object>();
+        sessionStore.put("user", "batch");
+        context.setSessionStoreMap(sessionStore);
+        final List<Map<String, Object>> actual = new CopyOnWriteArrayList<Map<String, Object>>();
+        context.addHandler(sut);
+        context.addHandler(new HttpRequestHandler() {
+            @Override
+            public HttpResponse handle(HttpRequest request, ExecutionContext context) {
+                final Map<String, Object> subRequestStore = context.getSessionStoreMap();
+                actual.add(subRequestStore);
+                subRequestStore.put("path", request.getRequestPath());
+                return new HttpResponse(200);
+            }
+        });
+
+        collect((PublisherResponse) context.handleNext(mockHttpRequest));
+
+        assertThat(actual.size(), is(2));
+        assertThat(actual.get(0), is(not(sameInstance(sessionStore))));
+        assertThat(actual.get(0), is(not(sameInstance(actual.get(1)))));
+        assertThat(actual.get(0).get("user"), is((Object) "batch"));
+        assertThat(actual.get(1).get("user"), is((Object) "batch"));
+        assertThat(sessionStore.containsKey("path"), is(false));
+    }
+
+    /**
+     * 並列に処理しない場合は、バッチリクエストのセッションストアが使用されること。
+     */
+    @Test
+    public void testSessionStoreInSequential() throws Exception {
+        sut.setParallel(false);
+        setBody("[{\"method\": \"GET\", \"path\": \"/1\"}]");
+        final Map<String, Object> sessionStore = new HashMap<String, Object>();
+        context.setSessionStoreMap(sessionStore);
+        context.addHandler(sut);
+        context.addHandler(new HttpRequestHandler() {
+            @Override
+            public HttpResponse handle(HttpRequest request, ExecutionContext context) {
+                context.getSessionStoreMap().put("path", request.getRequestPath());
+                return new HttpResponse(200);
+            }
+        });
+
+        collect((PublisherResponse) context.handleNext(mockHttpRequest));
+
+        assertThat(sessionStore.get("path"), is((Object) "/1"));
+    }
+
+    /**
+     * サブリクエストで例外が発生した場合は、{@link ErrorResponseBuilder}で生成したレスポンスが処理結果となること。
+     * サブリクエストのリクエスト属性はバッチリクエストと独立していること。
+     */
+    @Test
+    public void testExceptionInSubRequest() throws Exception {
+        setBody("[{\"method\": \"GET\", \"path\": \"/1\"}]");
+        context.setRequestScopedVar("batch", "value");
+        context.addHandler(sut);
+        context.addHandler(new HttpRequestHandler() {
+            @Override
+            public HttpResponse handle(HttpRequest request, ExecutionContext context) {
+                if (context.getRequestScopedVar("batch") != null) {
+                    return new HttpResponse(200);
+                }
+                throw new IllegalStateException("sub request error.");
+            }
+        });
+
+        final List<JsonObject> results = collect((PublisherResponse) context.handleNext(mockHttpRequest));
+
+        assertThat(results.size(), is(1));
+        assertThat(results.get(0).getInt("status"), is(500));
+    }
+
+    /**
+     * JSONのボディは1行に書き直され、JSONとして解析できない場合は文字列として返されること。
+     */
+    @Test
+    public void testJsonBodyInSubResponse() throws Exception {
+        sut.setParallel(false);
+        setBody("[{\"method\": \"GET\", \"path\": \"/pretty\"}, {\"method\": \"GET\", \"path\": \"/blank\"}]");
+        context.addHandler(sut);
+        context.addHandler(new HttpRequestHandler() {
+            @Override
+            public HttpResponse handle(HttpRequest request, ExecutionContext context) {
+                final HttpResponse response = new HttpResponse(200);
+                response.setContentType("application/json");
+                response.write("/pretty".equals(request.getRequestPath()) ? "{\n  \"a\" : 1\n}" : "  ");
+                return response;
+            }
+        });
+
+        final List<String> records = collectRecords((PublisherResponse) context.handleNext(mockHttpRequest));
+
+        assertThat(records.size(), is(2));
+        for (String record : records) {
+            assertThat(record.trim().contains("\n"), is(false));
+        }
+        final List<JsonObject> results = toJsonObjects(records);
+        assertThat(results.get(0).getJsonObject("body").getInt("a"), is(1));
+        assertThat(results.get(1).getString("body"), is("  "));
+    }
+
+    private void setBody(String body) throws Exception {
+        final ByteArrayInputStream in = new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+        when(mockServletRequest.getInputStream()).thenReturn(new ServletInputStream() {
+            @Override
+            public int read() {
+                return in.read();
+            }
+
+            @Override
+            public boolean isFinished() {
+                return in.available() == 0;
+            }
+
+            @Override
+            public boolean isReady() {
+                return true;
+            }
+
+            @Override
+            public void setReadListener(ReadListener readListener) {
+                throw new UnsupportedOperationException();
+            }
+        });
+    }
+
+    /**
+     * 処理結果を購読し、変換後の文字列をJSONとして解析する。
+     */
+    private static List<JsonObject> collect(PublisherResponse response) throws Exception {
+        return toJsonObjects(collectRecords(response));
+    }
+
+    /**
+     * 変換後の文字列をJSONとして解析する。
+     */
+    private static List<JsonObject> toJsonObjects(List<String> records) {
+        final List<JsonObject> results = new ArrayList<JsonObject>(records.size());
+        for (String record : records) {
+            final JsonReader reader = Json.createReader(new StringReader(record));
+            results.add(reader.readObject());
+            reader.close();
+        }
+        return results;
+    }
+
+    /**
+     * 処理結果を購読し、変換後の文字列を取得する。
+     */
+    private static List<String> collectRecords(final PublisherResponse response) throws Exception {
+        final List<String> results = Collections.synchronizedList(new ArrayList<String>());
+        final CountDownLatch completed = new CountDownLatch(1);
+        response.getPublisher().subscribe(new Flow.Subscriber<Object>() {
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                subscription.request(Long.MAX_VALUE);
+            }
+
+            @Override
+            public void onNext(Object item) {
+                results.add(new String(response.encode(item), StandardCharsets.UTF_8));
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                completed.countDown();
+            }
+
+            @Override
+            public void onComplete() {
+                completed.countDown();
+            }
+        });
+        assertThat(completed.await(10, TimeUnit.SECONDS), is(true));
+        return new ArrayList<String>(results);
+    }
+
+    /**
+     * リクエストの内容をJSONで返すハンドラ。/errorの場合は404を返す。
+     */
+    private static class EchoHandler implements HttpRequestHandler {
+
+        @Override
+        public HttpResponse handle(HttpRequest request, ExecutionContext context) {
+            if ("/error".equals(request.getRequestPath())) {
+                throw new HttpErrorResponse(404);
+            }
+            final ServletExecutionContext servletContext = (ServletExecutionContext) context;
+            final StringBuilder json = new StringBuilder();
+            json.append("{\"method\":\"").append(request.getMethod()).append('"');
+            json.append(",\"path\":\"").append(request.getRequestPath()).append('"');
+            final String name = servletContext.getServletRequest().getParameter("name");
+            if (name != null) {
+                json.append(",\"name\":\"").append(name).append('"');
+            }
+            final int length = servletContext.getServletRequest().getContentLength();
+            if (length > 0) {
+                try {
+                    final byte[] body = servletContext.getServletRequest().getInputStream().readAllBytes();
+                    json.append(",\"body\":").append(new String(body, StandardCharsets.UTF_8));
+                } catch (IOException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+            final HttpResponse response = new HttpResponse(200);
+            response.setContentType("application/json;charset=UTF-8");
+            response.write(json.append('}').toString());
+            return response;
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package nablarch.fw.jaxrs;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.fail;
+
+/**
+ * {@link BatchRequestParser}のテスト。
+ */
+public class BatchRequestParserTest {
+
+    private final BatchRequestParser sut = new BatchRequestParser(3);
+
+    /**
+     * JSONの配列形式のバッチリクエストを解析できること。
+     */
+    @Test
+    public void testParseJsonArray() {
+        final List<BatchSubRequest> result = sut.parseJson(json("["
+                + "{\"id\": \"a\", \"method\": \"get\", \"path\": \"/users/1?fields=name&x=1\", \"headers\": {\"accept\": \"application/json\"}},"
+                + "{\"method\": \"POST\", \"path\": \"/users\", \"body\": \"plain text\", \"headers\": {\"Content-Type\": \"text/plain\"}}"
+                + "]"), StandardCharsets.UTF_8);
+
+        assertThat(result.size(), is(2));
+
+        final BatchSubRequest first = result.get(0);
+        assertThat(first.getIndex(), is(0));
+        assertThat(first.getId(), is("a"));
+        assertThat(first.getMethod(), is("GET"));
+        assertThat(first.getPath(), is("/users/1"));
+        assertThat(first.getQueryString(), is("fields=name&x=1"));
+        assertThat(first.getHeaders().get("Accept"), is("application/json"));
+        assertThat(first.getBody(), is(nullValue()));
+
+        final BatchSubRequest second = result.get(1);
+        assertThat(second.getIndex(), is(1));
+        assertThat(second.getId(), is(nullValue()));
+        assertThat(second.getQueryString(), is(nullValue()));
+        assertThat(new String(second.getBody(), StandardCharsets.UTF_8), is("plain text"));
+        assertThat(second.getHeaders().get("content-type"), is("text/plain"));
+    }
+
+    /**
+     * requestsを持つJSONのオブジェクト形式のバッチリクエストを解析できること。
+     * bodyがJSONのオブジェクトの場合はJSONをそのままボディとし、Content-Typeをapplication/jsonとすること。
+     */
+    @Test
+    public void testParseJsonObject() {
+        final List<BatchSubRequest> result = sut.parseJson(json(
+                "{\"requests\": [{\"id\": 1, \"method\": \"PUT\", \"path\": \"/users/1\", \"body\": {\"name\": \"a\"}}]}"),
+                StandardCharsets.UTF_8);
+
+        assertThat(result.size(), is(1));
+        assertThat(result.get(0).getId(), is("1"));
+        assertThat(new String(result.get(0).getBody(), StandardCharsets.UTF_8), is("{\"name\":\"a\"}"));
+        assertThat(result.get(0).getHeaders().get("Content-Type"), is("application/json"));
+    }
+
+    /**
+     * サブリクエスト数が上限を超える場合は例外が送出されること。
+     */
+    @Test
+    public void testTooManySubRequests() {
+        try {
+            sut.parseJson(json("["
+                    + "{\"method\": \"GET\", \"path\": \"/1\"},"
+                    + "{\"method\": \"GET\", \"path\": \"/2\"},"
+                    + "{\"method\": \"GET\", \"path\": \"/3\"},"
+                    + "{\"method\": \"GET\", \"path\": \"/4\"}"
+                    + "]"), StandardCharsets.UTF_8);
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertThat(e.getMessage(), is("too many sub requests. max = [3]"));
+        }
+    }
+
+    /**
+     * JSONとして不正な場合や、HTTPメソッド・パスが不正な場合は例外が送出されること。
+     */
+    @Test
+    public void testInvalidJson() {
+        assertInvalidJson("[", "batch request is not valid json.");
+        assertInvalidJson("{\"foo\": []}", "batch request must have requests array.");
+        assertInvalidJson("[1]", "sub request must be json object. index = [0]");
+        assertInvalidJson("[{\"path\": \"/users\"}]", "sub request must have method and absolute path. index = [0]");
+        assertInvalidJson("[{\"method\": \"GET\", \"path\": \"users\"}]",
+                "sub request must have method and absolute path. index = [0]");
+    }
+
+    /**
+     * XML形式のバッチリクエストを解析できること。
+     */
+    @Test
+    public void testParseXml() {
+        final List<BatchSubRequest> result = sut.parseXml(xml("<?xml version=\"1.0\"?>"
+                + "<batch>"
+                + "<request id=\"1\" method=\"POST\" path=\"/users\">"
+                + "<header name=\"Content-Type\">application/xml</header>"
+                + "<body><![CDATA[<user><name>a</name></user>]]></body>"
+                + "</request>"
+                + "<request method=\"DELETE\" path=\"/users/2\"/>"
+                + "</batch>"));
+
+        assertThat(result.size(), is(2));
+        assertThat(result.get(0).getId(), is("1"));
+        assertThat(result.get(0).getMethod(), is("POST"));
+        assertThat(result.get(0).getHeaders().get("content-type"), is("application/xml"));
+        assertThat(new String(result.get(0).getBody(), StandardCharsets.UTF_8), is("<user><name>a</name></user>"));
+        assertThat(result.get(1).getIndex(), is(1));
+        assertThat(result.get(1).getMethod(), is("DELETE"));
+        assertThat(result.get(1).getBody(), is(nullValue()));
+    }
+
+    /**
+     * XMLで外部エンティティが参照されても展開されないこと。
+     */
+    @Test
+    public void testXmlExternalEntityIsNotResolved() {
+        try {
+            final List<BatchSubRequest> result = sut.parseXml(xml("<?xml version=\"1.0\"?>"
+                    + "<!DOCTYPE batch [<!ENTITY xxe SYSTEM \"file:///etc/passwd\">]>"
+                    + "<batch><request method=\"POST\" path=\"/users\"><body>&xxe;</body></request></batch>"));
+            final byte[] body = result.get(0).getBody();
+            if (body != null) {
+                assertThat(new String(body, StandardCharsets.UTF_8).contains("root:"), is(false));
+            }
+        } catch (IllegalArgumentException e) {
+            assertThat(e.getMessage(), containsString("batch request is not valid xml."));
+        }
+    }
+
+    /**
+     * XMLとして不正な場合は例外が送出されること。
+     */
+    @Test
+    public void testInvalidXml() {
+        try {
+            sut.parseXml(xml("<batch><request method=\"GET\" path=\"/users\">"));
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertThat(e.getMessage(), is("batch request is not valid xml."));
+        }
+    }
+
+    private void assertInvalidJson(String json, String message) {
+        try {
+            sut.parseJson(json(json), StandardCharsets.UTF_8);
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertThat(e.getMessage(), is(message));
+        }
+    }
+
+    private static InputStream json(String json) {
+        return new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static InputStream xml(String xml) {
+        return new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8));
+    }
+}
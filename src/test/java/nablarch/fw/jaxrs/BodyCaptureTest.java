@@ -0,0 +1,250 @@
+package nablarch.fw.jaxrs;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+
+import nablarch.fw.ExecutionContext;
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * {@link BodyCapture}のテスト。
+ */
+public class BodyCaptureTest {
+
+    private final HttpServletRequest request = mock(HttpServletRequest.class);
+
+    /**
+     * 入力ストリームから読み込まれたバイト列が取り込まれること。
+     */
+    @Test
+    public void testCaptureInputStream() throws Exception {
+        final byte[] body = "{\"id\":\"test\"}".getBytes(StandardCharsets.UTF_8);
+        when(request.getInputStream()).thenReturn(new StubInputStream(body));
+        final BodyCapture sut = new BodyCapture(new byte[64]);
+
+        final HttpServletRequest wrapped = sut.wrap(request);
+
+        assertThat(readAll(wrapped.getInputStream()), is(body));
+        assertThat(wrapped.getInputStream(), is(sameInstance(wrapped.getInputStream())));
+        assertThat(sut.size(), is(body.length));
+        assertThat(sut.isTruncated(), is(false));
+        assertThat(sut.toString("UTF-8"), is("{\"id\":\"test\"}"));
+    }
+
+    /**
+     * 上限を超えた分は取り込まず、アプリケーションには全て読み込まれること。
+     */
+    @Test
+    public void testTruncate() throws Exception {
+        final byte[] body = "0123456789".getBytes(StandardCharsets.UTF_8);
+        when(request.getInputStream()).thenReturn(new StubInputStream(body));
+        final BodyCapture sut = new BodyCapture(new byte[4]);
+
+        final InputStream in = sut.wrap(request).getInputStream();
+        assertThat(in.read(), is((int) '0'));
+        final ByteArrayOutputStream rest = new ByteArrayOutputStream();
+        rest.write(readAll(in));
+
+        assertThat(rest.toString("UTF-8"), is("123456789"));
+        assertThat(sut.size(), is(4));
+        assertThat(sut.isTruncated(), is(true));
+        assertThat(sut.toString(null), is("0123"));
+    }
+
+    /**
+     * 入力ストリームをラップした場合も、読み込まれたバイト列が取り込まれること。
+     */
+    @Test
+    public void testCaptureWrappedInputStream() throws Exception {
+        final byte[] body = "0123456789".getBytes(StandardCharsets.UTF_8);
+        final BodyCapture sut = new BodyCapture(new byte[4]);
+
+        final InputStream in = sut.wrap(new ByteArrayInputStream(body));
+        assertThat(in.skip(2), is(2L));
+
+        assertThat(readAll(in), is("23456789".getBytes(StandardCharsets.UTF_8)));
+        assertThat(sut.toString("UTF-8"), is("0123"));
+        assertThat(sut.isTruncated(), is(true));
+    }
+
+    /**
+     * リーダから読み込まれた場合も、リクエストの文字エンコーディングで変換して取り込まれること。
+     */
+    @Test
+    public void testCaptureReader() throws Exception {
+        final byte[] body = "あいう".getBytes(StandardCharsets.UTF_8);
+        when(request.getInputStream()).thenReturn(new StubInputStream(body));
+        when(request.getCharacterEncoding()).thenReturn("UTF-8");
+        final BodyCapture sut = new BodyCapture(new byte[64]);
+
+        final HttpServletRequest wrapped = sut.wrap(request);
+
+        assertThat(wrapped.getReader().readLine(), is("あいう"));
+        assertThat(wrapped.getReader(), is(sameInstance(wrapped.getReader())));
+        assertThat(sut.toString("UTF-8"), is("あいう"));
+    }
+
+    /**
+     * 上限で途中が切り捨てられた文字は含めないこと。
+     */
+    @Test
+    public void testTruncateMultiByteCharacter() throws Exception {
+        final byte[] body = "あいう".getBytes(StandardCharsets.UTF_8);
+        when(request.getInputStream()).thenReturn(new StubInputStream(body));
+        final BodyCapture sut = new BodyCapture(new byte[5]);
+
+        readAll(sut.wrap(request).getInputStream());
+
+        assertThat(sut.isTruncated(), is(true));
+        assertThat(sut.toString("UTF-8"), is("あ"));
+    }
+
+    /**
+     * 入力ストリームとリーダは同時に使用できないこと。
+     */
+    @Test(expected = IllegalStateException.class)
+    public void testGetInputStreamAfterGetReader() throws Exception {
+        when(request.getInputStream()).thenReturn(new StubInputStream(new byte[0]));
+        final HttpServletRequest wrapped = new BodyCapture(new byte[4]).wrap(request);
+
+        wrapped.getReader();
+        wrapped.getInputStream();
+    }
+
+    /**
+     * 解放後は取り込まず、空文字を返すこと。
+     */
+    @Test
+    public void testRelease() throws Exception {
+        final byte[] buffer = new byte[8];
+        when(request.getInputStream()).thenReturn(new StubInputStream("abc".getBytes(StandardCharsets.UTF_8)));
+        final BodyCapture sut = new BodyCapture(buffer);
+        final InputStream in = sut.wrap(request).getInputStream();
+        in.read();
+
+        assertThat(sut.release(), is(sameInstance(buffer)));
+        assertThat(sut.release(), is(nullValue()));
+        readAll(in);
+
+        assertThat(sut.size(), is(1));
+        assertThat(sut.toString("UTF-8"), is(""));
+    }
+
+    /**
+     * リソースメソッドでボディを出力しないことが指定されている場合、取り込まないこと。
+     */
+    @Test
+    public void testBodyDisabledByRoute() throws Exception {
+        final ExecutionContext context = new ExecutionContext();
+        JaxRsContext.set(context, new JaxRsContext(Resource.class.getMethod("noBody")));
+        final BodyCapture sut = new BodyCapture(new byte[8]);
+        sut.bindRoutes(context, new JaxRsAccessLogRoutes());
+
+        assertThat(readAll(sut.wrap(new ByteArrayInputStream("0123456789".getBytes(StandardCharsets.UTF_8)))),
+                is("0123456789".getBytes(StandardCharsets.UTF_8)));
+
+        assertThat(sut.size(), is(0));
+        assertThat(sut.isTruncated(), is(false));
+        assertThat(sut.toString("UTF-8"), is(""));
+    }
+
+    /**
+     * リソースメソッドで取り込む上限が指定されている場合、バッファのサイズより小さければその上限で取り込むこと。
+     */
+    @Test
+    public void testMaxBodySizeByRoute() throws Exception {
+        final ExecutionContext context = new ExecutionContext();
+        JaxRsContext.set(context, new JaxRsContext(Resource.class.getMethod("smallBody")));
+        final BodyCapture sut = new BodyCapture(new byte[8]);
+        sut.bindRoutes(context, new JaxRsAccessLogRoutes());
+
+        readAll(sut.wrap(new ByteArrayInputStream("0123456789".getBytes(StandardCharsets.UTF_8))));
+
+        assertThat(sut.toString("UTF-8"), is("012"));
+        assertThat(sut.isTruncated(), is(true));
+    }
+
+    /**
+     * リソースメソッドが決定していない場合は、バッファのサイズを上限として取り込むこと。
+     */
+    @Test
+    public void testWithoutResourceMethod() throws Exception {
+        final BodyCapture sut = new BodyCapture(new byte[8]);
+        sut.bindRoutes(new ExecutionContext(), new JaxRsAccessLogRoutes());
+
+        readAll(sut.wrap(new ByteArrayInputStream("0123456789".getBytes(StandardCharsets.UTF_8))));
+
+        assertThat(sut.toString("UTF-8"), is("01234567"));
+    }
+
+    private static byte[] readAll(InputStream in) throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final byte[] buffer = new byte[3];
+        int readSize;
+        while ((readSize = in.read(buffer)) != -1) {
+            out.write(buffer, 0, readSize);
+        }
+        return out.toByteArray();
+    }
+
+    public static class Resource {
+
+        @JaxRsAccessLog(body = false)
+        public void noBody() {
+        }
+
+        @JaxRsAccessLog(maxBodySize = 3)
+        public void smallBody() {
+        }
+    }
+
+    /**
+     * テスト用の{@link ServletInputStream}。
+     */
+    private static final class StubInputStream extends ServletInputStream {
+
+        private final ByteArrayInputStream in;
+
+        StubInputStream(byte[] bytes) {
+            in = new ByteArrayInputStream(bytes);
+        }
+
+        @Override
+        public int read() {
+            return in.read();
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            return in.read(b, off, len);
+        }
+
+        @Override
+        public boolean isFinished() {
+            return in.available() == 0;
+        }
+
+        @Override
+        public boolean isReady() {
+            return true;
+        }
+
+        @Override
+        public void setReadListener(ReadListener readListener) {
+        }
+    }
+}
@@ -18,9 +18,12 @@ import org.junit.Test;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.concurrent.Flow;
+import java.util.concurrent.SubmissionPublisher;
 
 import static nablarch.fw.jaxrs.HttpResponseMatcher.isStatusCode;
 import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsInstanceOf.instanceOf;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.fail;
 import static org.mockito.Mockito.mock;
@@ -459,6 +462,87 @@ public class BodyConvertHandlerTest {
         assertThat(testBodyConverter.writeCount, is(0));
     }
 
+    /**
+     * レスポンスが{@link Flow.Publisher}でProducesがNDJSONの場合。
+     *
+     * 要素を変換せずに{@link PublisherResponse}が返されること。
+     */
+    @Test
+    public void publisherWithNdjson() {
+
+        final ExecutionContext context = executionContext("publisherWithNdjson");
+
+        // add resource method invoking
+        context.addHandler(new Handler<HttpRequest, Object>() {
+            @Override
+            public Object handle(final HttpRequest request, final ExecutionContext exeContext) {
+                return new TestAction().publisherWithNdjson();
+            }
+        });
+
+        final HttpResponse response = context.handleNext(mockRequest);
+
+        assertThat(response, is(instanceOf(PublisherResponse.class)));
+        assertThat(((PublisherResponse) response).getFormat(), is(PublisherResponse.Format.NDJSON));
+        assertThat(response.getStatusCode(), is(200));
+        assertThat(response.getContentType(), is("application/x-ndjson;charset=UTF-8"));
+        assertThat(testBodyConverter.writeCount, is(0));
+    }
+
+    /**
+     * レスポンスが{@link Flow.Publisher}でProducesがJSONの場合。
+     *
+     * JSONの配列として書き込む{@link PublisherResponse}が返されること。
+     */
+    @Test
+    public void publisherWithJson() {
+
+        final ExecutionContext context = executionContext("publisherWithJson");
+
+        // add resource method invoking
+        context.addHandler(new Handler<HttpRequest, Object>() {
+            @Override
+            public Object handle(final HttpRequest request, final ExecutionContext exeContext) {
+                return new TestAction().publisherWithJson();
+            }
+        });
+
+        final HttpResponse response = context.handleNext(mockRequest);
+
+        assertThat(((PublisherResponse) response).getFormat(), is(PublisherResponse.Format.JSON_ARRAY));
+        assertThat(response.getContentType(), is("application/json;charset=UTF-8"));
+        assertThat(testBodyConverter.writeCount, is(0));
+    }
+
+    /**
+     * レスポンスが{@link Flow.Publisher}でストリーミングできないメディアタイプの場合。
+     *
+     * 実行時例外がスローされること。
+     */
+    @Test
+    public void publisherWithUnsupportedMediaType() {
+
+        final ExecutionContext context = executionContext("publisherWithXml");
+
+        // add resource method invoking
+        context.addHandler(new Handler<HttpRequest, Object>() {
+            @Override
+            public Object handle(final HttpRequest request, final ExecutionContext exeContext) {
+                return new TestAction().publisherWithXml();
+            }
+        });
+
+        try {
+            context.handleNext(mockRequest);
+            fail("throws IllegalStateException");
+        } catch (IllegalStateException e) {
+            assertThat(e.getMessage(),
+                    is("Flow.Publisher can be returned only when @Produces is application/json or application/x-ndjson. "
+                     + "resource method = [nablarch.fw.jaxrs.BodyConvertHandlerTest$TestAction#publisherWithXml], "
+                     + "produces media type = [application/xml]"));
+        }
+    }
+
     /**
      * 複数の{@link BodyConverter}が設定されている場合、{@link BodyConverter#isConvertible(String)}で{@code true}
      * を返すコンバーターでボディの変換処理が行われること。
@@ -681,6 +765,21 @@ public class BodyConvertHandlerTest {
         public Void returnTypeVoid() {
             return null;
         }
+
+        @Produces("application/x-ndjson")
+        public Flow.Publisher<TestForm> publisherWithNdjson() {
+            return new SubmissionPublisher<TestForm>();
+        }
+
+        @Produces(MediaType.APPLICATION_JSON)
+        public Flow.Publisher<TestForm> publisherWithJson() {
+            return new SubmissionPublisher<TestForm>();
+        }
+
+        @Produces(MediaType.APPLICATION_XML)
+        public Flow.Publisher<TestForm> publisherWithXml() {
+            return new SubmissionPublisher<TestForm>();
+        }
     }
 
     public static final class TestForm {
@@ -0,0 +1,133 @@
+package nablarch.fw.jaxrs;
+
+import org.junit.Test;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
+
+/**
+ * {@link CachedMaskingMapValueEditor}のテスト。
+ */
+public class CachedMaskingMapValueEditorTest {
+
+    /**
+     * 名前がいずれかのパターンを含む場合にマスク対象と判定し、判定結果は繰り返しても変わらないこと。
+     */
+    @Test
+    public void testIsMaskingTarget() {
+        CachedMaskingMapValueEditor sut = new CachedMaskingMapValueEditor('x', patterns("1pa", "am2", "3param3"));
+
+        for (int i = 0; i < 2; i++) {
+            assertThat(sut.isMaskingTarget("para"), is(false));
+            assertThat(sut.isMaskingTarget("param"), is(false));
+            assertThat(sut.isMaskingTarget("1PARAM"), is(true));
+            assertThat(sut.isMaskingTarget("param2"), is(true));
+            assertThat(sut.isMaskingTarget("3param3"), is(true));
+        }
+    }
+
+    /**
+     * フラグが異なるパターンや後方参照を含むパターンも、パターンごとに判定すること。
+     */
+    @Test
+    public void testUncombinablePatterns() {
+        CachedMaskingMapValueEditor mixedFlags = new CachedMaskingMapValueEditor('x',
+                new Pattern[] {Pattern.compile("Secret"), Pattern.compile("token", Pattern.CASE_INSENSITIVE)});
+        assertThat(mixedFlags.isMaskingTarget("secret"), is(false));
+        assertThat(mixedFlags.isMaskingTarget("Secret"), is(true));
+        assertThat(mixedFlags.isMaskingTarget("TOKEN"), is(true));
+
+        CachedMaskingMapValueEditor backReference = new CachedMaskingMapValueEditor('x', patterns("(a)\\1", "(b)\\1"));
+        assertThat(backReference.isMaskingTarget("xaa"), is(true));
+        assertThat(backReference.isMaskingTarget("xbb"), is(true));
+        assertThat(backReference.isMaskingTarget("xab"), is(false));
+    }
+
+    /**
+     * パターンがない場合はマスクしないこと。
+     */
+    @Test
+    public void testNoPatterns() {
+        CachedMaskingMapValueEditor sut = new CachedMaskingMapValueEditor('x', new Pattern[0]);
+
+        assertThat(sut.isMaskingTarget("param"), is(false));
+        assertThat(sut.edit("param", "value"), is("value"));
+    }
+
+    /**
+     * マスク対象の名前の値をマスクすること。
+     */
+    @Test
+    public void testEdit() {
+        CachedMaskingMapValueEditor sut = new CachedMaskingMapValueEditor('x', patterns("param"));
+
+        assertThat(sut.edit("para", "value"), is("value"));
+        assertThat(sut.edit("param", "value"), is("xxxxx"));
+    }
+
+    /**
+     * マスク対象の名前を含まない場合は、マップをそのまま返すこと。
+     */
+    @Test
+    public void testMaskWithoutTarget() {
+        CachedMaskingMapValueEditor sut = new CachedMaskingMapValueEditor('x', patterns("password"));
+        Map<String, Object> map = new LinkedHashMap<String, Object>();
+        map.put("id", "1");
+        map.put("name", "a");
+
+        assertThat(sut.mask(map), is(sameInstance((Map<String, ?>) map)));
+    }
+
+    /**
+     * マスク対象の名前を含む場合は、その値のみをマスクしたマップを元の順序で返し、元のマップは変更しないこと。
+     */
+    @Test
+    public void testMask() {
+        CachedMaskingMapValueEditor sut = new CachedMaskingMapValueEditor('x', patterns("password"));
+        Map<String, Object> map = new LinkedHashMap<String, Object>();
+        map.put("id", "1");
+        map.put("password", "secret");
+        map.put("name", "a");
+
+        Map<String, ?> actual = sut.mask(map);
+
+        assertThat(actual.keySet(), contains("id", "password", "name"));
+        assertThat((String) actual.get("id"), is("1"));
+        assertThat((String) actual.get("password"), is("xxxxx"));
+        assertThat((String) actual.get("name"), is("a"));
+        assertThat((String) map.get("password"), is("secret"));
+    }
+
+    /**
+     * 判定結果をキャッシュする件数の上限を超えても、正しく判定すること。
+     */
+    @Test
+    public void testManyNames() {
+        CachedMaskingMapValueEditor sut = new CachedMaskingMapValueEditor('x', patterns("secret"));
+
+        for (int i = 0; i < 3000; i++) {
+            assertThat(sut.isMaskingTarget("name" + i), is(false));
+            assertThat(sut.isMaskingTarget("secret" + i), is(true));
+        }
+    }
+
+    /**
+     * 大文字小文字を区別しないパターンを生成する。
+     *
+     * @param regexes 正規表現
+     * @return パターン
+     */
+    private static Pattern[] patterns(String... regexes) {
+        Pattern[] patterns = new Pattern[regexes.length];
+        for (int i = 0; i < regexes.length; i++) {
+            patterns[i] = Pattern.compile(regexes[i], Pattern.CASE_INSENSITIVE);
+        }
+        return patterns;
+    }
+}
@@ -0,0 +1,72 @@
+package nablarch.fw.jaxrs;
+
+import org.junit.Test;
+
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+import java.util.TimeZone;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+
+/**
+ * {@link CachedTimestampFormatter}のテスト。
+ */
+public class CachedTimestampFormatterTest {
+
+    /**
+     * 秒をまたいで連続してフォーマットしても、{@link SimpleDateFormat}と同じ結果となること。
+     */
+    @Test
+    public void testFormat() {
+        SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss.SSS");
+        CachedTimestampFormatter sut = CachedTimestampFormatter.create(dateFormat);
+        assertThat(sut, is(notNullValue()));
+
+        long start = 1675126799000L;
+        for (long millis = start; millis < start + 3000; millis += 7) {
+            assertThat(sut.format(millis), is(dateFormat.format(new Date(millis))));
+        }
+    }
+
+    /**
+     * 引用符で囲んだ文字列を含み、ミリ秒が先頭や末尾にある書式もフォーマットできること。
+     */
+    @Test
+    public void testFormatMillisPosition() {
+        SimpleDateFormat head = new SimpleDateFormat("SSS'ms' yyyy");
+        head.setTimeZone(TimeZone.getTimeZone("UTC"));
+        SimpleDateFormat tail = new SimpleDateFormat("'T'HH:mm:ss.SSS");
+        tail.setTimeZone(TimeZone.getTimeZone("UTC"));
+
+        assertThat(CachedTimestampFormatter.create(head).format(1675126799005L), is("005ms 2023"));
+        assertThat(CachedTimestampFormatter.create(tail).format(1675126799050L), is("T00:59:59.050"));
+    }
+
+    /**
+     * 指定したタイムゾーンでフォーマットすること。
+     */
+    @Test
+    public void testTimeZone() {
+        SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
+        dateFormat.setTimeZone(TimeZone.getTimeZone("Asia/Tokyo"));
+
+        assertThat(CachedTimestampFormatter.create(dateFormat).format(1675126799000L), is("2023-01-31 09:59:59"));
+    }
+
+    /**
+     * {@link SimpleDateFormat}と同じ結果にできない場合は生成しないこと。
+     */
+    @Test
+    public void testIncompatible() {
+        assertThat(CachedTimestampFormatter.create(new SimpleDateFormat("yyyy-MM-dd u")), is(nullValue()));
+        assertThat(CachedTimestampFormatter.create(new SimpleDateFormat("HH:mm:ss.S")), is(nullValue()));
+        assertThat(CachedTimestampFormatter.create(new SimpleDateFormat("ss.SSS SSS")), is(nullValue()));
+        assertThat(CachedTimestampFormatter.create(new SimpleDateFormat("yyyy-MM-dd HH:mm:ssZ")), is(nullValue()));
+        assertThat(CachedTimestampFormatter.create(new SimpleDateFormat("[yyyy]")), is(nullValue()));
+        assertThat(CachedTimestampFormatter.create(new SimpleDateFormat("yyyy", new Locale("ja", "JP", "JP"))), is(nullValue()));
+    }
+}
@@ -0,0 +1,190 @@
+package nablarch.fw.jaxrs;
+
+import org.junit.Test;
+
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+/**
+ * {@link ClientHostResolver}のテスト。
+ */
+public class ClientHostResolverTest {
+
+    /** 依頼された逆引きを保持し、{@link #runAll()}で実行する{@link Executor} */
+    private final ManualExecutor executor = new ManualExecutor();
+
+    /** 逆引きしたIPアドレス */
+    private final List<String> lookedUp = new ArrayList<String>();
+
+    /**
+     * キャッシュにない場合はIPアドレスを返し、逆引きの完了後はホスト名を返すこと。
+     */
+    @Test
+    public void testResolve() {
+        ClientHostResolver sut = createResolver(10, 60000, 60000, 0);
+
+        assertThat(sut.resolve("192.0.2.1"), is("192.0.2.1"));
+        assertThat(sut.resolve("192.0.2.1"), is("192.0.2.1"));
+        executor.runAll();
+        assertThat(sut.resolve("192.0.2.1"), is("host-192.0.2.1"));
+
+        assertThat(lookedUp, contains("192.0.2.1"));
+        assertThat(sut.getMissCount(), is(1L));
+        assertThat(sut.getHitCount(), is(2L));
+        assertThat(sut.getTimeoutCount(), is(0L));
+    }
+
+    /**
+     * 有効期間が過ぎた場合は、キャッシュしていたホスト名を返して逆引きし直すこと。
+     */
+    @Test
+    public void testExpired() {
+        ClientHostResolver sut = createResolver(10, -1, 60000, 0);
+
+        sut.resolve("192.0.2.1");
+        executor.runAll();
+
+        assertThat(sut.resolve("192.0.2.1"), is("host-192.0.2.1"));
+        executor.runAll();
+        assertThat(lookedUp, contains("192.0.2.1", "192.0.2.1"));
+        assertThat(sut.getMissCount(), is(2L));
+    }
+
+    /**
+     * 逆引きがタイムアウトより時間がかかった場合は、IPアドレスをキャッシュすること。
+     */
+    @Test
+    public void testTimeout() {
+        ClientHostResolver sut = createResolver(10, 60000, 0, 20);
+
+        sut.resolve("192.0.2.1");
+        executor.runAll();
+
+        assertThat(sut.resolve("192.0.2.1"), is("192.0.2.1"));
+        assertThat(sut.getTimeoutCount(), is(1L));
+        assertThat(sut.getHitCount(), is(1L));
+    }
+
+    /**
+     * 逆引きに失敗した場合は、IPアドレスをキャッシュすること。
+     */
+    @Test
+    public void testUnknownHost() {
+        ClientHostResolver sut = new ClientHostResolver(10, 60000, 60000, executor) {
+            @Override
+            String lookup(String address) throws UnknownHostException {
+                throw new UnknownHostException(address);
+            }
+        };
+
+        sut.resolve("invalid");
+        executor.runAll();
+
+        assertThat(sut.resolve("invalid"), is("invalid"));
+        assertThat(sut.getHitCount(), is(1L));
+    }
+
+    /**
+     * キャッシュする件数の上限を超えないこと。
+     */
+    @Test
+    public void testMaxSize() {
+        ClientHostResolver sut = createResolver(2, 60000, 60000, 0);
+
+        for (int i = 1; i <= 5; i++) {
+            sut.resolve("192.0.2." + i);
+            executor.runAll();
+        }
+
+        int cached = 0;
+        for (int i = 1; i <= 5; i++) {
+            if (sut.resolve("192.0.2." + i).startsWith("host-")) {
+                cached++;
+            }
+        }
+        assertThat(cached <= 2, is(true));
+    }
+
+    /**
+     * IPアドレスが{@code null}の場合は{@code null}を返すこと。
+     */
+    @Test
+    public void testNull() {
+        ClientHostResolver sut = createResolver(10, 60000, 60000, 0);
+
+        assertThat(sut.resolve(null), is(nullValue()));
+        assertThat(sut.getMissCount(), is(0L));
+    }
+
+    /**
+     * 停止後は逆引きを依頼せず、IPアドレスを返すこと。
+     */
+    @Test
+    public void testStop() {
+        ClientHostResolver sut = new ClientHostResolver(10, 60000, 60000);
+        assertThat(sut.isStopped(), is(false));
+
+        sut.stop();
+
+        assertThat(sut.isStopped(), is(true));
+        assertThat(sut.resolve("192.0.2.1"), is("192.0.2.1"));
+    }
+
+    /**
+     * {@code host-<IPアドレス>}に逆引きする{@link ClientHostResolver}を生成する。
+     *
+     * @param maxSize キャッシュする件数の上限
+     * @param ttlMillis キャッシュの有効期間(ミリ秒)
+     * @param timeoutMillis 逆引きのタイムアウト(ミリ秒)
+     * @param lookupMillis 逆引きにかかる時間(ミリ秒)
+     * @return {@link ClientHostResolver}
+     */
+    private ClientHostResolver createResolver(int maxSize, long ttlMillis, long timeoutMillis, final long lookupMillis) {
+        return new ClientHostResolver(maxSize, ttlMillis, timeoutMillis, executor) {
+            @Override
+            String lookup(String address) {
+                lookedUp.add(address);
+                if (lookupMillis > 0) {
+                    try {
+                        Thread.sleep(lookupMillis);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                return "host-" + address;
+            }
+        };
+    }
+
+    /**
+     * 依頼された処理を保持し、テストから実行する{@link Executor}。
+     */
+    private static class ManualExecutor implements Executor {
+
+        /** 依頼された処理 */
+        private final List<Runnable> tasks = new ArrayList<Runnable>();
+
+        @Override
+        public void execute(Runnable command) {
+            tasks.add(command);
+        }
+
+        /**
+         * 依頼された処理を全て実行する。
+         */
+        void runAll() {
+            List<Runnable> running = new ArrayList<Runnable>(tasks);
+            tasks.clear();
+            for (Runnable task : running) {
+                task.run();
+            }
+        }
+    }
+}
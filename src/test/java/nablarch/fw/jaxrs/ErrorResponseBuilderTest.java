@@ -33,5 +33,22 @@ public class ErrorResponseBuilderTest {
         HttpResponse result = sut.build(null, null, new IllegalArgumentException());
         assertThat("500でBodyが空であること", result, isStatusCode(500).withEmptyBody());
     }
-}
 
+    /**
+     * 処理の開始前に期限を過ぎた{@link DeadlineExceededException}の場合、503が生成されること。
+     */
+    @Test
+    public void testDeadlineExceededBeforeProcessing() throws Exception {
+        HttpResponse result = sut.build(null, null, new DeadlineExceededException(100L, true));
+        assertThat("503でBodyが空であること", result, isStatusCode(503).withEmptyBody());
+    }
+
+    /**
+     * 処理中に期限を過ぎた{@link DeadlineExceededException}の場合、504が生成されること。
+     */
+    @Test
+    public void testDeadlineExceeded() throws Exception {
+        HttpResponse result = sut.build(null, null, new DeadlineExceededException(100L, false));
+        assertThat("504でBodyが空であること", result, isStatusCode(504).withEmptyBody());
+    }
+}
@@ -0,0 +1,74 @@
+package nablarch.fw.jaxrs;
+
+import org.junit.After;
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
+
+/**
+ * {@link HeapMemorySampler}のテスト。
+ */
+public class HeapMemorySamplerTest {
+
+    private HeapMemorySampler sut;
+
+    @After
+    public void tearDown() {
+        if (sut != null) {
+            sut.stop();
+        }
+    }
+
+    /**
+     * ヒープメモリの使用状況とGCの累計を取得できること。
+     */
+    @Test
+    public void testTake() {
+        final HeapMemorySampler.Sample sample = HeapMemorySampler.take();
+
+        assertThat(sample.getMaxMemory(), greaterThan(0L));
+        assertThat(sample.getFreeMemory(), greaterThan(0L));
+        assertThat(sample.getFreeMemory(), lessThanOrEqualTo(sample.getMaxMemory()));
+        assertThat(sample.getGcCount(), greaterThanOrEqualTo(0L));
+        assertThat(sample.getGcTime(), greaterThanOrEqualTo(0L));
+    }
+
+    /**
+     * 生成時に取得され、以降は指定した間隔で更新されること。
+     */
+    @Test
+    public void testSampling() throws Exception {
+        sut = new HeapMemorySampler(10);
+        final HeapMemorySampler.Sample first = sut.getLatest();
+        assertThat(first.getMaxMemory(), greaterThan(0L));
+
+        final long deadline = System.currentTimeMillis() + 5000;
+        while (sut.getLatest() == first && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertThat(sut.getLatest(), is(not(sameInstance(first))));
+    }
+
+    /**
+     * 停止後は更新されないこと。
+     */
+    @Test
+    public void testStop() throws Exception {
+        sut = new HeapMemorySampler(10);
+        assertThat(sut.isStopped(), is(false));
+        sut.stop();
+        assertThat(sut.isStopped(), is(true));
+        Thread.sleep(20);
+        final HeapMemorySampler.Sample stopped = sut.getLatest();
+
+        Thread.sleep(50);
+
+        assertThat(sut.getLatest(), is(sameInstance(stopped)));
+    }
+}
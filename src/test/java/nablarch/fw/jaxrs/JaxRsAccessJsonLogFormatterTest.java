@@ -1,6 +1,7 @@
 package nablarch.fw.jaxrs;
 
 import nablarch.core.ThreadContext;
+import nablarch.core.log.basic.JsonLogObjectBuilder;
 import nablarch.fw.jaxrs.JaxRsAccessLogFormatter.JaxRsAccessLogContext;
 import nablarch.fw.web.HttpRequest;
 import nablarch.fw.web.HttpResponse;
@@ -15,6 +16,8 @@ import org.junit.runner.RunWith;
 import org.mockito.invocation.InvocationOnMock;
 import org.mockito.stubbing.Answer;
 
+import jakarta.servlet.http.Cookie;
+
 import java.io.BufferedReader;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
@@ -29,6 +32,8 @@ import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.is;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @RunWith(Enclosed.class)
@@ -446,6 +451,44 @@ public class JaxRsAccessJsonLogFormatterTest {
             assertThat(actual, is("${}"));
         }
 
+        /**
+         * セッションを読み込まずに出力する場合、クライアントから送信されたセッションIDとセッションストアIDを出力し、
+         * セッションの読み込みを省略したことを出力する。
+         */
+        @Test
+        public void testFormatSessionWithLazySession() {
+            // 項目の出力順を設定順に固定するため、直接書き込みモードで検証する
+            sut.initialize(new AppLogPropertyBuilder().directWriteEnabled("true")
+                    .endOutputEnabled("true").endTargets("sessionId,sessionStoreId,sessionScope,sessionSkipped")
+                    .messagePrefix("$")
+                    .lazySessionEnabled("true").build());
+            when(servletRequestMock.getRequestedSessionId()).thenReturn("sid");
+            when(servletRequestMock.getCookies()).thenReturn(new Cookie[] {new Cookie("NABLARCH_SID", "storeId")});
+
+            String actual = sut.formatEnd(logContext);
+
+            assertThat(actual, is("${\"sessionId\":\"sid\",\"sessionStoreId\":\"storeId\","
+                    + "\"sessionScope\":{},\"sessionSkipped\":true}"));
+            verify(servletRequestMock, never()).getSession(false);
+            verify(executionContextMock, never()).hasSession();
+            verify(executionContextMock, never()).getSessionScopeMap();
+        }
+
+        /**
+         * セッションを読み込む場合、セッションの読み込みを省略していないことを出力する。
+         */
+        @Test
+        public void testFormatSessionSkippedIfDisabled() {
+            sut.initialize(new AppLogPropertyBuilder()
+                    .beginOutputEnabled("true").beginTargets("sessionSkipped")
+                    .messagePrefix("$").build());
+            when(servletRequestMock.getRequestedSessionId()).thenReturn("sid");
+
+            String actual = sut.formatBegin(logContext);
+
+            assertThat(actual, is("${\"sessionSkipped\":false}"));
+        }
+
         /**
          * リクエスト処理開始時のメッセージにクライアント端末IPアドレスを出力できる。
          */
@@ -491,6 +534,25 @@ public class JaxRsAccessJsonLogFormatterTest {
             assertThat(actual, is("${\"clientHost\":\"localhost\"}"));
         }
 
+        /**
+         * クライアント端末ホストをキャッシュする場合、コンテナから取得せず、キャッシュにない間はIPアドレスを出力する。
+         */
+        @Test
+        public void testBeginFormatClientHostWithCache() {
+            sut.initialize(new AppLogPropertyBuilder()
+                    .beginOutputEnabled("true").beginTargets("clientHost")
+                    .messagePrefix("$")
+                    .clientHostCacheEnabled("true").build());
+            when(servletRequestMock.getRemoteAddr()).thenReturn("127.0.0.1");
+
+            String actual = sut.formatBegin(logContext);
+
+            assertThat(actual, is("${\"clientHost\":\"127.0.0.1\"}"));
+            verify(servletRequestMock, never()).getRemoteHost();
+            assertThat(sut.getClientHostCacheMissCount(), is(1L));
+            assertThat(sut.getClientHostCacheHitCount(), is(0L));
+        }
+
         /**
          * リクエスト処理終了時のメッセージにクライアント端末ホストを出力できる。
          */
@@ -965,6 +1027,58 @@ public class JaxRsAccessJsonLogFormatterTest {
             assertThat(actual, is("${\"freeMemory\":100}"));
         }
 
+        /**
+         * リクエスト処理終了時のメッセージにGCの累計回数と累計時間を出力できる。
+         */
+        @Test
+        public void testEndFormatGc() {
+            sut.initialize(new AppLogPropertyBuilder()
+                    .endOutputEnabled("true").endTargets("gcCount,gcTime")
+                    .messagePrefix("$").build());
+            logContext.setGcCount(3);
+            logContext.setGcTime(40);
+
+            String actual = sut.formatEnd(logContext);
+
+            assertThat(actual, is("${\"gcCount\":3,\"gcTime\":40}"));
+        }
+
+        /**
+         * リクエスト処理終了時のメッセージにフェーズごとの処理時間を出力できる。
+         */
+        @Test
+        public void testEndFormatPhaseTime() {
+            sut.initialize(new AppLogPropertyBuilder()
+                    .endOutputEnabled("true").endTargets("dispatchTime,resourceMethodTime,responseWriteTime")
+                    .messagePrefix("$").build());
+            PhaseTimings timings = new PhaseTimings();
+            timings.add(PhaseTimings.Phase.DISPATCH, 600);
+            timings.add(PhaseTimings.Phase.RESOURCE_METHOD, 300);
+            logContext.setPhaseTimings(timings);
+
+            String actual = sut.formatEnd(logContext);
+
+            assertThat(actual, is("${\"dispatchTime\":600,\"resourceMethodTime\":300,\"responseWriteTime\":0}"));
+            assertThat(sut.containsPhaseTimeItem(), is(true));
+            assertThat(sut.containsResponseWriteTimeItem(), is(true));
+            assertThat(sut.containsMemoryItem(), is(false));
+        }
+
+        /**
+         * リクエスト処理終了時のメッセージに実効サンプリング率を出力できる。
+         */
+        @Test
+        public void testEndFormatSampleRate() {
+            sut.initialize(new AppLogPropertyBuilder()
+                    .endOutputEnabled("true").endTargets("sampleRate")
+                    .messagePrefix("$").build());
+            logContext.setSampleRate(0.25);
+
+            String actual = sut.formatEnd(logContext);
+
+            assertThat(actual, is("${\"sampleRate\":0.25}"));
+        }
+
         /**
          * リクエスト処理開始時のメッセージにラベルを出力できる。
          */
@@ -1039,6 +1153,24 @@ public class JaxRsAccessJsonLogFormatterTest {
             assertThat(actual, is("${\"requestBody\":{\"id\":\"test\"}}"));
         }
 
+        /**
+         * リソースメソッドでボディを出力しないことが指定されている場合、ボディを読み込まずに出力しない。
+         */
+        @Test
+        public void testEndFormatBodyDisabledByRoute() throws Exception {
+            sut.initialize(new AppLogPropertyBuilder()
+                    .endOutputEnabled("true").endTargets("requestBody,responseBody")
+                    .messagePrefix("$").build());
+            when(httpRequestMock.getHeader("Content-Type")).thenReturn("application/json; charset=UTF-8");
+            logContext.setRoute(new JaxRsAccessLogRoutes.Route(false, 0, -1.0));
+
+            String actual = sut.formatEnd(logContext);
+
+            assertThat(actual, is("${}"));
+            verify(servletRequestMock, never()).getReader();
+            verify(httpResponseMock, never()).getBodyStream();
+        }
+
         /**
          * リクエスト処理終了時のメッセージにリクエストボディを出力できる。
          */
@@ -1402,6 +1534,105 @@ public class JaxRsAccessJsonLogFormatterTest {
         }
     }
 
+    /**
+     * 直接書き込みモード
+     */
+    public static class DirectWrite {
+
+        private final JaxRsAccessLogContext logContext = new JaxRsAccessLogContext();
+
+        private final ServletExecutionContext executionContextMock = mock(ServletExecutionContext.class);
+
+        private final HttpRequest httpRequestMock = mock(HttpRequest.class);
+
+        private final NablarchHttpServletRequestWrapper servletRequestMock = mock(NablarchHttpServletRequestWrapper.class);
+
+        private final HttpResponse httpResponseMock = mock(HttpResponse.class);
+
+        @Before
+        public void setUp() {
+            when(executionContextMock.getServletRequest()).thenReturn(servletRequestMock);
+            logContext.setContext(executionContextMock);
+            logContext.setRequest(httpRequestMock);
+            logContext.setResponse(httpResponseMock);
+        }
+
+        @After
+        public void tearDown() {
+            ThreadContext.clear();
+        }
+
+        /**
+         * 設定された順で出力され、値がnullの項目は出力されない。
+         */
+        @Test
+        public void testFormatEnd() {
+            JaxRsAccessJsonLogFormatter sut = new JaxRsAccessJsonLogFormatter();
+            sut.initialize(new AppLogPropertyBuilder().directWriteEnabled("true")
+                    .endOutputEnabled("true").endTargets("statusCode,userId,label,requestId,startTime,sampleRate")
+                    .datePattern("yyyy/MM/dd").messagePrefix("$").build());
+            ThreadContext.setRequestId("req\"1");
+            when(httpResponseMock.getStatusCode()).thenReturn(200);
+            logContext.setStartTime(new GregorianCalendar(2023, Calendar.JANUARY, 31).getTimeInMillis());
+            logContext.setSampleRate(0.25);
+
+            String actual = sut.formatEnd(logContext);
+
+            assertThat(actual, is("${\"statusCode\":200,\"label\":\"HTTP ACCESS END\",\"requestId\":\"req\\\"1\","
+                    + "\"startTime\":\"2023/01/31\",\"sampleRate\":0.25}"));
+        }
+
+        /**
+         * JSONのボディは改行を空白に置き換えてそのまま出力し、それ以外は文字列として出力する。
+         */
+        @Test
+        public void testFormatBody() throws Exception {
+            JaxRsAccessJsonLogFormatter sut = new JaxRsAccessJsonLogFormatter();
+            sut.initialize(new AppLogPropertyBuilder().directWriteEnabled("true")
+                    .beginOutputEnabled("true").beginTargets("requestBody")
+                    .endOutputEnabled("true").endTargets("responseBody")
+                    .messagePrefix("$").build());
+            String requestBody = "{\n  \"id\": \"test\"\n}\n";
+            when(servletRequestMock.getReader()).thenReturn(new BufferedReader(new StringReader(requestBody)));
+            when(servletRequestMock.getContentLength()).thenReturn(requestBody.length());
+            when(httpRequestMock.getHeader("Content-Type")).thenReturn("application/json");
+            String responseBody = "({\"id\":\"test\"})";
+            when(httpResponseMock.getBodyStream()).thenReturn(new ByteArrayInputStream(responseBody.getBytes("UTF-8")));
+            when(httpResponseMock.getCharset()).thenReturn(Charset.forName("UTF-8"));
+            when(httpResponseMock.getHeader("Content-Type")).thenReturn("application/json");
+
+            assertThat(sut.formatBegin(logContext), is("${\"requestBody\":{   \"id\": \"test\" } }"));
+            assertThat(sut.formatEnd(logContext), is("${\"responseBody\":\"({\\\"id\\\":\\\"test\\\"})\"}"));
+        }
+
+        /**
+         * 直接書き込みに対応していない出力項目が含まれる場合は、マップを経由して出力する。
+         */
+        @Test
+        public void testFallback() {
+            JaxRsAccessJsonLogFormatter sut = new JaxRsAccessJsonLogFormatter() {
+                @Override
+                protected Map<String, JsonLogObjectBuilder<JaxRsAccessLogContext>> getObjectBuilders(Map<String, String> props) {
+                    Map<String, JsonLogObjectBuilder<JaxRsAccessLogContext>> objectBuilders = super.getObjectBuilders(props);
+                    objectBuilders.put("custom", new JsonLogObjectBuilder<JaxRsAccessLogContext>() {
+                        @Override
+                        public void build(Map<String, Object> structuredObject, JaxRsAccessLogContext context) {
+                            structuredObject.put("custom", "value");
+                        }
+                    });
+                    return objectBuilders;
+                }
+            };
+            sut.initialize(new AppLogPropertyBuilder().directWriteEnabled("true")
+                    .endOutputEnabled("true").endTargets("custom")
+                    .messagePrefix("$").build());
+
+            String actual = sut.formatEnd(logContext);
+
+            assertThat(actual, is("${\"custom\":\"value\"}"));
+        }
+    }
+
     public static class ContainsMemoryItem {
 
         private final JaxRsAccessJsonLogFormatter sut = new JaxRsAccessJsonLogFormatter();
@@ -1432,6 +1663,19 @@ public class JaxRsAccessJsonLogFormatterTest {
             assertThat(actual, is(true));
         }
 
+        /**
+         * リクエスト処理終了時のメッセージにGCの累計が含まれている場合はtrue。
+         */
+        @Test
+        public void testContainsMemoryItemIfGc() {
+            sut.initialize(new AppLogPropertyBuilder()
+                    .endOutputEnabled("true").endTargets("gcCount").build());
+
+            boolean actual = sut.containsMemoryItem();
+
+            assertThat(actual, is(true));
+        }
+
         /**
          * リクエスト処理終了時のメッセージにメモリ情報が含まれていない場合はfalse。
          */
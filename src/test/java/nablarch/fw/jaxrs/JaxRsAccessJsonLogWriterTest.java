@@ -0,0 +1,58 @@
+package nablarch.fw.jaxrs;
+
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+/**
+ * {@link JaxRsAccessJsonLogWriter}のテスト。
+ */
+public class JaxRsAccessJsonLogWriterTest {
+
+    private final JaxRsAccessJsonLogWriter sut = new JaxRsAccessJsonLogWriter(new JaxRsAccessLogJsonSerializationManager());
+
+    /**
+     * 書き込んだ順に項目が区切られて出力され、nullの項目は出力されないこと。
+     */
+    @Test
+    public void testWrite() throws Exception {
+        sut.start("$JSON$");
+        sut.writeString("a", "value");
+        sut.writeString("b", null);
+        sut.writeNumber("c", -1);
+        sut.writeJsonOrString("d", " [1, 2]\r\n");
+        sut.writeJsonOrString("e", "{");
+
+        assertThat(sut.finish(), is("$JSON${\"a\":\"value\",\"c\":-1,\"d\": [1, 2]  ,\"e\":\"{\"}"));
+    }
+
+    /**
+     * 再利用する際に、前回書き込んだ内容が残らないこと。
+     */
+    @Test
+    public void testReuse() {
+        sut.start("$");
+        sut.writeNumber("a", 1);
+        sut.finish();
+        assertThat(sut.reset(), is(true));
+
+        sut.start("$");
+        sut.writeNumber("b", 2);
+
+        assertThat(sut.finish(), is("${\"b\":2}"));
+    }
+
+    /**
+     * 前後の空白を除いた先頭と末尾の文字で、JSONのオブジェクトまたは配列であるかを判定すること。
+     */
+    @Test
+    public void testIsJsonObjectOrArray() {
+        assertThat(JaxRsAccessJsonLogWriter.isJsonObjectOrArray("{}"), is(true));
+        assertThat(JaxRsAccessJsonLogWriter.isJsonObjectOrArray("\n [\"a\"]\t"), is(true));
+        assertThat(JaxRsAccessJsonLogWriter.isJsonObjectOrArray("({})"), is(false));
+        assertThat(JaxRsAccessJsonLogWriter.isJsonObjectOrArray("{"), is(false));
+        assertThat(JaxRsAccessJsonLogWriter.isJsonObjectOrArray("   "), is(false));
+        assertThat(JaxRsAccessJsonLogWriter.isJsonObjectOrArray(""), is(false));
+    }
+}
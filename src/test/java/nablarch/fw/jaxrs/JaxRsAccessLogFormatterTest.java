@@ -16,6 +16,8 @@ import org.junit.runner.RunWith;
 import org.mockito.invocation.InvocationOnMock;
 import org.mockito.stubbing.Answer;
 
+import jakarta.servlet.http.Cookie;
+
 import java.io.BufferedReader;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
@@ -30,7 +32,10 @@ import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.instanceOf;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @RunWith(Enclosed.class)
@@ -49,6 +54,39 @@ public class JaxRsAccessLogFormatterTest {
 
             assertThat(actual, instanceOf(JaxRsAccessLogContext.class));
         }
+
+        /**
+         * 再利用のために初期化すると、保持している情報が生成時の状態に戻る。
+         */
+        @Test
+        public void testClear() {
+            JaxRsAccessLogContext sut = new JaxRsAccessLogContext();
+            sut.setContext(mock(ServletExecutionContext.class));
+            sut.setRequest(mock(HttpRequest.class));
+            sut.setResponse(mock(HttpResponse.class));
+            sut.setStartTime(1);
+            sut.setEndTime(2);
+            sut.setMaxMemory(3);
+            sut.setFreeMemory(4);
+            sut.setGcCount(5);
+            sut.setGcTime(6);
+            sut.setPhaseTimings(new PhaseTimings());
+            sut.setSampleRate(0.5);
+
+            sut.clear();
+
+            assertThat(sut.getContext(), is(nullValue()));
+            assertThat(sut.getRequest(), is(nullValue()));
+            assertThat(sut.getResponse(), is(nullValue()));
+            assertThat(sut.getStartTime(), is(0L));
+            assertThat(sut.getEndTime(), is(0L));
+            assertThat(sut.getMaxMemory(), is(0L));
+            assertThat(sut.getFreeMemory(), is(0L));
+            assertThat(sut.getGcCount(), is(0L));
+            assertThat(sut.getGcTime(), is(0L));
+            assertThat(sut.getPhaseTimings(), is(nullValue()));
+            assertThat(sut.getSampleRate(), is(1.0));
+        }
     }
 
     /**
@@ -470,6 +508,59 @@ public class JaxRsAccessLogFormatterTest {
             assertThat(actual, is("[null]"));
         }
 
+        /**
+         * セッションを読み込まずに出力する場合、クライアントから送信されたセッションIDとセッションストアIDを出力し、
+         * セッションの読み込みを省略したことを出力する。
+         */
+        @Test
+        public void testFormatSessionWithLazySession() {
+            sut.initialize(new AppLogPropertyBuilder()
+                    .endOutputEnabled("true")
+                    .endFormat("[$sessionId$] [$sessionStoreId$] [$sessionScope$] [$sessionSkipped$]")
+                    .lazySessionEnabled("true").build());
+            when(servletRequestMock.getRequestedSessionId()).thenReturn("sid");
+            when(servletRequestMock.getCookies()).thenReturn(new Cookie[] {
+                    new Cookie("other", "x"), new Cookie("NABLARCH_SID", "storeId")});
+
+            String actual = sut.formatEnd(logContext);
+
+            assertThat(actual, is("[sid] [storeId] [{}] [true]"));
+            verify(servletRequestMock, never()).getSession(false);
+            verify(executionContextMock, never()).hasSession();
+            verify(executionContextMock, never()).getSessionScopeMap();
+            verify(executionContextMock, never()).getRequestScopedVar("nablarch_internal_session_store_id");
+        }
+
+        /**
+         * セッションを読み込まずに出力する場合、クライアントがセッションの識別子を送信していなければ、
+         * セッションの読み込みを省略していないことを出力する。
+         */
+        @Test
+        public void testFormatSessionWithLazySessionIfEmpty() {
+            sut.initialize(new AppLogPropertyBuilder()
+                    .beginOutputEnabled("true").beginFormat("[$sessionId$] [$sessionStoreId$] [$sessionSkipped$]")
+                    .lazySessionEnabled("true").sessionStoreCookieName("SID").build());
+            when(servletRequestMock.getCookies()).thenReturn(new Cookie[] {new Cookie("NABLARCH_SID", "storeId")});
+
+            String actual = sut.formatBegin(logContext);
+
+            assertThat(actual, is("[] [null] [false]"));
+        }
+
+        /**
+         * セッションを読み込む場合、セッションの読み込みを省略していないことを出力する。
+         */
+        @Test
+        public void testFormatSessionSkippedIfDisabled() {
+            sut.initialize(new AppLogPropertyBuilder()
+                    .beginOutputEnabled("true").beginFormat("[$sessionSkipped$]").build());
+            when(servletRequestMock.getRequestedSessionId()).thenReturn("sid");
+
+            String actual = sut.formatBegin(logContext);
+
+            assertThat(actual, is("[false]"));
+        }
+
         /**
          * リクエスト処理開始時のメッセージにクライアント端末IPアドレスを出力できる。
          */
@@ -512,6 +603,24 @@ public class JaxRsAccessLogFormatterTest {
             assertThat(actual, is("[localhost]"));
         }
 
+        /**
+         * クライアント端末ホストをキャッシュする場合、コンテナから取得せず、キャッシュにない間はIPアドレスを出力する。
+         */
+        @Test
+        public void testBeginFormatClientHostWithCache() {
+            sut.initialize(new AppLogPropertyBuilder()
+                    .beginOutputEnabled("true").beginFormat("[$clientHost$]")
+                    .clientHostCacheEnabled("true").build());
+            when(servletRequestMock.getRemoteAddr()).thenReturn("127.0.0.1");
+
+            String actual = sut.formatBegin(logContext);
+
+            assertThat(actual, is("[127.0.0.1]"));
+            verify(servletRequestMock, never()).getRemoteHost();
+            assertThat(sut.getClientHostCacheMissCount(), is(1L));
+            assertThat(sut.getClientHostCacheHitCount(), is(0L));
+        }
+
         /**
          * リクエスト処理終了時のメッセージにクライアント端末ホストを出力できる。
          */
@@ -981,6 +1090,40 @@ public class JaxRsAccessLogFormatterTest {
             assertThat(actual, is("[2023-01-31 09:59:00.000]"));
         }
 
+        /**
+         * 同じ秒の異なるミリ秒の開始日時と終了日時を出力できる。
+         */
+        @Test
+        public void testEndFormatTimeInSameSecond() {
+            sut.initialize(new AppLogPropertyBuilder()
+                    .endOutputEnabled("true").endFormat("[$startTime$][$endTime$]").build());
+            long startTime = new GregorianCalendar(2023, Calendar.JANUARY, 31, 9, 59, 0).getTimeInMillis();
+            logContext.setStartTime(startTime + 7);
+            logContext.setEndTime(startTime + 980);
+
+            assertThat(sut.formatEnd(logContext), is("[2023-01-31 09:59:00.007][2023-01-31 09:59:00.980]"));
+
+            logContext.setStartTime(startTime + 1050);
+            logContext.setEndTime(startTime + 1051);
+
+            assertThat(sut.formatEnd(logContext), is("[2023-01-31 09:59:01.050][2023-01-31 09:59:01.051]"));
+        }
+
+        /**
+         * java.timeで同じ出力にできない書式の場合も、指定した書式で終了日時を出力できる。
+         */
+        @Test
+        public void testEndFormatEndTimeWithIncompatibleFormat() {
+            sut.initialize(new AppLogPropertyBuilder()
+                    .endOutputEnabled("true").endFormat("[$endTime$]").datePattern("yyyy/MM/dd u").build());
+            long endTime = new GregorianCalendar(2023, Calendar.JANUARY, 31).getTimeInMillis();
+            logContext.setEndTime(endTime);
+
+            String actual = sut.formatEnd(logContext);
+
+            assertThat(actual, is("[2023/01/31 2]"));
+        }
+
         /**
          * リクエスト処理終了時のメッセージに実行時間を出力できる。
          */
@@ -1026,6 +1169,121 @@ public class JaxRsAccessLogFormatterTest {
             assertThat(actual, is("[200]"));
         }
 
+        /**
+         * リクエスト処理終了時のメッセージにGCの累計回数と累計時間を出力できる。
+         */
+        @Test
+        public void testEndFormatGc() {
+            sut.initialize(new AppLogPropertyBuilder()
+                    .endOutputEnabled("true").endFormat("[$gcCount$][$gcTime$]").build());
+            logContext.setGcCount(3);
+            logContext.setGcTime(40);
+
+            String actual = sut.formatEnd(logContext);
+
+            assertThat(actual, is("[3][40]"));
+        }
+
+        /**
+         * リクエスト処理終了時のメッセージにフェーズごとの処理時間を出力できる。
+         */
+        @Test
+        public void testEndFormatPhaseTime() {
+            sut.initialize(new AppLogPropertyBuilder()
+                    .endOutputEnabled("true")
+                    .endFormat("[$dispatchTime$][$requestBodyReadTime$][$validationTime$]"
+                            + "[$resourceMethodTime$][$responseBodyWriteTime$][$responseWriteTime$]").build());
+            PhaseTimings timings = new PhaseTimings();
+            timings.add(PhaseTimings.Phase.DISPATCH, 600);
+            timings.add(PhaseTimings.Phase.REQUEST_BODY_READ, 100);
+            timings.add(PhaseTimings.Phase.VALIDATION, 50);
+            timings.add(PhaseTimings.Phase.RESOURCE_METHOD, 300);
+            timings.add(PhaseTimings.Phase.RESPONSE_BODY_WRITE, 120);
+            timings.add(PhaseTimings.Phase.RESPONSE_WRITE, 80);
+            logContext.setPhaseTimings(timings);
+
+            String actual = sut.formatEnd(logContext);
+
+            assertThat(actual, is("[600][100][50][300][120][80]"));
+            assertThat(sut.containsPhaseTimeItem(), is(true));
+            assertThat(sut.containsResponseWriteTimeItem(), is(true));
+        }
+
+        /**
+         * フェーズごとの処理時間を計測していない場合は0を出力する。
+         */
+        @Test
+        public void testEndFormatPhaseTimeNotMeasured() {
+            sut.initialize(new AppLogPropertyBuilder()
+                    .endOutputEnabled("true").endFormat("[$dispatchTime$]").build());
+
+            String actual = sut.formatEnd(logContext);
+
+            assertThat(actual, is("[0]"));
+            assertThat(sut.containsResponseWriteTimeItem(), is(false));
+        }
+
+        /**
+         * 続けてフォーマットした場合に、前回のメッセージが残らない。
+         */
+        @Test
+        public void testFormatRepeatedly() {
+            sut.initialize(new AppLogPropertyBuilder()
+                    .endOutputEnabled("true").endFormat("[$port$][$statusCode$][$executionTime$]").build());
+            when(servletRequestMock.getServerPort()).thenReturn(8080);
+            when(httpResponseMock.getStatusCode()).thenReturn(200);
+            logContext.setStartTime(1000);
+            logContext.setEndTime(1500);
+
+            assertThat(sut.formatEnd(logContext), is("[8080][200][500]"));
+
+            logContext.setResponse(null);
+            logContext.setEndTime(1001);
+
+            assertThat(sut.formatEnd(logContext), is("[8080][][1]"));
+        }
+
+        /**
+         * 値を直接追加する形式に対応していないログ出力項目も出力できる。
+         */
+        @Test
+        public void testFormatCustomItem() {
+            JaxRsAccessLogFormatter sut = new JaxRsAccessLogFormatter() {
+                @Override
+                protected Map<String, nablarch.core.log.LogItem<JaxRsAccessLogContext>> getLogItems(Map<String, String> props) {
+                    Map<String, nablarch.core.log.LogItem<JaxRsAccessLogContext>> logItems = super.getLogItems(props);
+                    logItems.put("$custom$", new nablarch.core.log.LogItem<JaxRsAccessLogContext>() {
+                        @Override
+                        public String get(JaxRsAccessLogContext context) {
+                            return "custom";
+                        }
+                    });
+                    return logItems;
+                }
+            };
+            sut.initialize(new AppLogPropertyBuilder()
+                    .beginOutputEnabled("true").beginFormat("[$custom$][$method$]").build());
+            when(httpRequestMock.getMethod()).thenReturn("GET");
+
+            String actual = sut.formatBegin(logContext);
+
+            assertThat(actual, is("[custom][GET]"));
+        }
+
+        /**
+         * リクエスト処理終了時のメッセージに実効サンプリング率を出力できる。
+         */
+        @Test
+        public void testEndFormatSampleRate() {
+            sut.initialize(new AppLogPropertyBuilder()
+                    .endOutputEnabled("true").endFormat("[$sampleRate$]").build());
+            logContext.setSampleRate(0.25);
+
+            String actual = sut.formatEnd(logContext);
+
+            assertThat(actual, is("[0.25]"));
+        }
+
         /**
          * リクエスト処理開始時のメッセージにリクエストボディを出力できる。
          */
@@ -1060,6 +1318,75 @@ public class JaxRsAccessLogFormatterTest {
             assertThat(actual, is("[{\"id\":\"test\"}]"));
         }
 
+        /**
+         * リクエストボディを取り込んでいる場合、取り込んだ内容を出力する。
+         */
+        @Test
+        public void testEndFormatCapturedRequestBody() throws Exception {
+            sut.initialize(new AppLogPropertyBuilder()
+                    .endOutputEnabled("true").endFormat("[$requestBody$]").build());
+            BodyCapture capture = new BodyCapture(new byte[64]);
+            byte[] requestBody = "{\"id\":\"test\"}".getBytes("UTF-8");
+            capture.write(requestBody, 0, requestBody.length);
+            logContext.setRequestBodyCapture(capture);
+            when(httpRequestMock.getHeader("Content-Type")).thenReturn("application/json; charset=UTF-8");
+
+            String actual = sut.formatEnd(logContext);
+
+            assertThat(actual, is("[{\"id\":\"test\"}]"));
+            verify(servletRequestMock, never()).getReader();
+        }
+
+        /**
+         * 取り込んだリクエストボディを上限で切り捨てている場合、切り捨てたことを表す文字列を付加する。
+         */
+        @Test
+        public void testEndFormatTruncatedRequestBody() throws Exception {
+            sut.initialize(new AppLogPropertyBuilder()
+                    .endOutputEnabled("true").endFormat("[$requestBody$]").build());
+            BodyCapture capture = new BodyCapture(new byte[6]);
+            byte[] requestBody = "{\"id\":\"test\"}".getBytes("UTF-8");
+            capture.write(requestBody, 0, requestBody.length);
+            logContext.setRequestBodyCapture(capture);
+            when(httpRequestMock.getHeader("Content-Type")).thenReturn("application/json; charset=UTF-8");
+
+            String actual = sut.formatEnd(logContext);
+
+            assertThat(actual, is("[{\"id\":...(truncated)]"));
+        }
+
+        /**
+         * リソースメソッドでボディを出力しないことが指定されている場合、ボディを読み込まずに空文字を出力する。
+         */
+        @Test
+        public void testEndFormatRequestBodyDisabledByRoute() throws Exception {
+            sut.initialize(new AppLogPropertyBuilder()
+                    .endOutputEnabled("true").endFormat("[$requestBody$][$responseBody$]").build());
+            when(httpRequestMock.getHeader("Content-Type")).thenReturn("application/json; charset=UTF-8");
+            logContext.setRoute(new JaxRsAccessLogRoutes.Route(false, 0, -1.0));
+
+            String actual = sut.formatEnd(logContext);
+
+            assertThat(actual, is("[][]"));
+            verify(servletRequestMock, never()).getReader();
+            verify(httpResponseMock, never()).getBodyStream();
+        }
+
+        /**
+         * リクエストボディとレスポンスボディを取り込む上限のバイト数を設定できる。
+         */
+        @Test
+        public void testBodyCaptureSize() {
+            sut.initialize(new AppLogPropertyBuilder().build());
+            assertThat(sut.getRequestBodyCaptureSize(), is(0));
+            assertThat(sut.getResponseBodyCaptureSize(), is(0));
+
+            sut.initialize(new AppLogPropertyBuilder()
+                    .requestBodyCaptureSize("1024").responseBodyCaptureSize("2048").build());
+            assertThat(sut.getRequestBodyCaptureSize(), is(1024));
+            assertThat(sut.getResponseBodyCaptureSize(), is(2048));
+        }
+
         /**
          * リクエストボディが空の場合、空文字を出力する。
          */
@@ -1183,6 +1510,26 @@ public class JaxRsAccessLogFormatterTest {
             assertThat(actual, is("[{\"id\":\"test\"}]"));
         }
 
+        /**
+         * レスポンスボディを取り込んでいる場合、バッファから読み込まずに取り込んだ内容を出力する。
+         */
+        @Test
+        public void testEndFormatCapturedResponseBody() throws Exception {
+            sut.initialize(new AppLogPropertyBuilder()
+                    .endOutputEnabled("true").endFormat("[$responseBody$]").build());
+            BodyCapture capture = new BodyCapture(new byte[6]);
+            byte[] responseBody = "{\"id\":\"test\"}".getBytes("UTF-8");
+            capture.write(responseBody, 0, responseBody.length);
+            logContext.setResponseBodyCapture(capture);
+            when(httpResponseMock.getCharset()).thenReturn(Charset.forName("UTF-8"));
+            when(httpResponseMock.getHeader("Content-Type")).thenReturn("application/json");
+
+            String actual = sut.formatEnd(logContext);
+
+            assertThat(actual, is("[{\"id\":...(truncated)]"));
+            verify(httpResponseMock, never()).getBodyStream();
+        }
+
         /**
          * レスポンスボディが空の場合、空文字を出力する。
          */
@@ -1387,6 +1734,19 @@ public class JaxRsAccessLogFormatterTest {
             assertThat(actual, is(true));
         }
 
+        /**
+         * リクエスト処理終了時のメッセージにGCの累計が含まれている場合はtrue。
+         */
+        @Test
+        public void testContainsMemoryItemIfGc() {
+            sut.initialize(new AppLogPropertyBuilder()
+                    .endOutputEnabled("true").endFormat("[$gcTime$]").build());
+
+            boolean actual = sut.containsMemoryItem();
+
+            assertThat(actual, is(true));
+        }
+
         /**
          * リクエスト処理終了時のメッセージにメモリ情報が含まれていない場合はfalse。
          */
@@ -1,19 +1,42 @@
 package nablarch.fw.jaxrs;
 
 import nablarch.core.log.LogUtil;
+import nablarch.fw.ExecutionContext;
 import nablarch.fw.web.HttpErrorResponse;
 import nablarch.fw.web.HttpResponse;
+import nablarch.fw.web.servlet.NablarchHttpServletRequestWrapper;
 import nablarch.fw.web.servlet.ServletExecutionContext;
+import nablarch.test.support.reflection.ReflectionUtil;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
 
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.http.HttpServletRequest;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.instanceOf;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
 import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
@@ -67,6 +90,418 @@ public class JaxRsAccessLogHandlerTest {
         }
     }
 
+    /**
+     * レスポンスが非同期に書き込まれる場合、書き込みの完了時に終了ログが出力される。
+     */
+    @Test
+    public void testDeferredEndLog() {
+        System.setProperty("jaxRsAccessLogFormatter.className", LogOutputMock.class.getName());
+        ServletExecutionContext contextMock = mock(ServletExecutionContext.class);
+        when(contextMock.handleNext(null)).thenReturn(new HttpResponse());
+        ResponseCompletion completion = new ResponseCompletion();
+        when(contextMock.<ResponseCompletion>getRequestScopedVar(ExecutionContext.FW_PREFIX + "ResponseCompletion"))
+                .thenReturn(completion);
+        JaxRsAccessLogHandler sut = new JaxRsAccessLogHandler();
+
+        sut.handle(null, contextMock);
+
+        assertThat(logCapture.containsInfoMessage("formatBegin"), is(true));
+        assertThat(logCapture.containsInfoMessage("formatEnd:200"), is(false));
+
+        completion.complete();
+
+        assertThat(logCapture.containsInfoMessage("formatEnd:200"), is(true));
+    }
+
+    /**
+     * 同期的に終了ログを出力したリクエストのログコンテキストは、初期化して同じスレッドの次のリクエストで再利用される。
+     */
+    @Test
+    public void testRecycleLogContext() {
+        System.setProperty("jaxRsAccessLogFormatter.className", RecycleLogMock.class.getName());
+        ServletExecutionContext contextMock = mock(ServletExecutionContext.class);
+        when(contextMock.handleNext(null)).thenReturn(new HttpResponse());
+        JaxRsAccessLogHandler sut = new JaxRsAccessLogHandler();
+
+        sut.handle(null, contextMock);
+        sut.handle(null, contextMock);
+
+        assertThat(RecycleLogMock.contexts.size(), is(2));
+        assertThat(RecycleLogMock.contexts.get(1), is(sameInstance(RecycleLogMock.contexts.get(0))));
+        assertThat(logCapture.containsInfoMessage("formatBegin:remained"), is(false));
+    }
+
+    /**
+     * 書き込みの完了時に終了ログを出力するリクエストのログコンテキストは再利用されない。
+     */
+    @Test
+    public void testNotRecycleDeferredLogContext() {
+        System.setProperty("jaxRsAccessLogFormatter.className", RecycleLogMock.class.getName());
+        ServletExecutionContext contextMock = mock(ServletExecutionContext.class);
+        when(contextMock.handleNext(null)).thenReturn(new HttpResponse());
+        ResponseCompletion completion = new ResponseCompletion();
+        when(contextMock.<ResponseCompletion>getRequestScopedVar(ExecutionContext.FW_PREFIX + "ResponseCompletion"))
+                .thenReturn(completion);
+        JaxRsAccessLogHandler sut = new JaxRsAccessLogHandler();
+
+        sut.handle(null, contextMock);
+        completion.complete();
+        sut.handle(null, contextMock);
+
+        assertThat(RecycleLogMock.contexts.size(), is(2));
+        assertThat(RecycleLogMock.contexts.get(1), is(not(sameInstance(RecycleLogMock.contexts.get(0)))));
+    }
+
+    /**
+     * 非同期出力が有効であれば、開始および終了ログがバックグラウンドのスレッドで出力される。
+     */
+    @Test
+    public void testAsyncOutputLog() {
+        System.setProperty("jaxRsAccessLogFormatter.className", LogOutputMock.class.getName());
+        ServletExecutionContext contextMock = mock(ServletExecutionContext.class);
+        when(contextMock.handleNext(null)).thenReturn(new HttpResponse());
+        JaxRsAccessLogHandler sut = new JaxRsAccessLogHandler();
+        sut.setAsync(true);
+        sut.setBufferSize(16);
+        sut.setOverflowPolicy("DROP");
+
+        sut.handle(null, contextMock);
+
+        assertThat(sut.getAsyncWriter().flush(5000), is(true));
+        assertThat(logCapture.containsInfoMessage("formatBegin"), is(true));
+        assertThat(logCapture.containsInfoMessage("formatEnd:200"), is(true));
+        assertThat(sut.getDroppedCount(), is(0L));
+        assertThat(sut.getOverflowSampledOutCount(), is(0L));
+        assertThat(sut.getFailedCount(), is(0L));
+
+        // 破棄後のメッセージは出力されない
+        sut.dispose();
+        sut.handle(null, contextMock);
+        assertThat(sut.getDroppedCount(), is(2L));
+    }
+
+    /**
+     * 破棄時にヒープメモリの使用状況の取得が停止されること。
+     */
+    @Test
+    public void testDisposeMemorySampler() {
+        System.setProperty("jaxRsAccessLogFormatter.className", MemoryLogMock.class.getName());
+        ServletExecutionContext contextMock = mock(ServletExecutionContext.class);
+        when(contextMock.handleNext(null)).thenReturn(new HttpResponse());
+        JaxRsAccessLogHandler sut = new JaxRsAccessLogHandler();
+        sut.setMemorySamplingInterval(1000);
+
+        sut.handle(null, contextMock);
+        assertThat(sut.getMemorySampler().isStopped(), is(false));
+
+        sut.dispose();
+        assertThat(sut.getMemorySampler().isStopped(), is(true));
+    }
+
+    /**
+     * デフォルトでは、ヒープメモリの使用状況をバックグラウンドで取得しないこと。
+     */
+    @Test
+    public void testNoMemorySamplerByDefault() {
+        System.setProperty("jaxRsAccessLogFormatter.className", MemoryLogMock.class.getName());
+        ServletExecutionContext contextMock = mock(ServletExecutionContext.class);
+        when(contextMock.handleNext(null)).thenReturn(new HttpResponse());
+        JaxRsAccessLogHandler sut = new JaxRsAccessLogHandler();
+
+        sut.handle(null, contextMock);
+
+        assertThat(ReflectionUtil.getFieldValue(sut, "memorySampler"), is(nullValue()));
+        assertThat(logCapture.containsInfoMessage("formatEnd:200"), is(true));
+    }
+
+    /**
+     * 破棄時にクライアント端末ホストの逆引きが停止されること。
+     */
+    @Test
+    public void testDisposeClientHostResolver() {
+        System.setProperty("jaxRsAccessLogFormatter.clientHostCacheEnabled", "true");
+        JaxRsAccessLogHandler sut = new JaxRsAccessLogHandler();
+        final JaxRsAccessLogFormatter formatter = ReflectionUtil.getFieldValue(sut, "logFormatter");
+        assertThat(formatter.getClientHostResolver().isStopped(), is(false));
+
+        sut.dispose();
+
+        assertThat(formatter.getClientHostResolver().isStopped(), is(true));
+    }
+
+    /**
+     * 非同期出力を行っていない場合も破棄できること。
+     */
+    @Test
+    public void testDisposeWithoutAsync() {
+        new JaxRsAccessLogHandler().dispose();
+    }
+
+    /**
+     * サンプリングが有効な場合、サンプリングされなかった正常終了のリクエストは開始ログも終了ログも出力されない。
+     */
+    @Test
+    public void testSamplingNotSampled() {
+        System.setProperty("jaxRsAccessLogFormatter.className", SamplingLogMock.class.getName());
+        ServletExecutionContext contextMock = mock(ServletExecutionContext.class);
+        when(contextMock.handleNext(null)).thenReturn(new HttpResponse(200));
+        JaxRsAccessLogHandler sut = new FixedRandomHandler(0.5);
+        sut.setSamplingRate("0.1");
+
+        sut.handle(null, contextMock);
+
+        assertThat(logCapture.containsInfoMessage("formatBegin"), is(false));
+        assertThat(logCapture.containsInfoMessage("formatEnd"), is(false));
+    }
+
+    /**
+     * サンプリングが有効な場合、サンプリングされたリクエストは開始ログと終了ログがサンプリング率とともに出力される。
+     */
+    @Test
+    public void testSamplingSampled() {
+        System.setProperty("jaxRsAccessLogFormatter.className", SamplingLogMock.class.getName());
+        ServletExecutionContext contextMock = mock(ServletExecutionContext.class);
+        when(contextMock.handleNext(null)).thenReturn(new HttpResponse(200));
+        JaxRsAccessLogHandler sut = new FixedRandomHandler(0.05);
+        sut.setSamplingRate("0.1");
+
+        sut.handle(null, contextMock);
+
+        assertThat(logCapture.containsInfoMessage("formatBegin:0.1"), is(true));
+        assertThat(logCapture.containsInfoMessage("formatEnd:200:0.1"), is(true));
+    }
+
+    /**
+     * サンプリングが有効でも、2xx以外のステータスコードのリクエストは常に出力される。
+     */
+    @Test
+    public void testSamplingAlwaysLogsError() {
+        System.setProperty("jaxRsAccessLogFormatter.className", SamplingLogMock.class.getName());
+        ServletExecutionContext contextMock = mock(ServletExecutionContext.class);
+        when(contextMock.handleNext(null)).thenReturn(new HttpResponse(500));
+        JaxRsAccessLogHandler sut = new FixedRandomHandler(0.99);
+        sut.setSamplingRate("0");
+
+        sut.handle(null, contextMock);
+
+        assertThat(logCapture.containsInfoMessage("formatBegin:1.0"), is(true));
+        assertThat(logCapture.containsInfoMessage("formatEnd:500:1.0"), is(true));
+    }
+
+    /**
+     * サンプリングが有効でも、閾値以上の時間を要したリクエストは常に出力される。
+     */
+    @Test
+    public void testSamplingAlwaysLogsSlowRequest() {
+        System.setProperty("jaxRsAccessLogFormatter.className", SamplingLogMock.class.getName());
+        ServletExecutionContext contextMock = mock(ServletExecutionContext.class);
+        when(contextMock.handleNext(null)).thenReturn(new HttpResponse(200));
+        JaxRsAccessLogHandler sut = new FixedRandomHandler(0.99);
+        sut.setSamplingRate("0.1");
+        sut.setSlowThreshold(0);
+
+        sut.handle(null, contextMock);
+
+        assertThat(logCapture.containsInfoMessage("formatEnd:200:1.0"), is(true));
+    }
+
+    /**
+     * リソースメソッドに指定されたサンプリング率が、リソースメソッドのパスごとの設定より優先される。
+     */
+    @Test
+    public void testSamplingRateFromAnnotation() throws Exception {
+        System.setProperty("jaxRsAccessLogFormatter.className", SamplingLogMock.class.getName());
+        final ServletExecutionContext contextMock = mockRequestScope();
+        final JaxRsContext jaxRsContext = new JaxRsContext(SampledResource.class.getMethod("annotated"));
+        when(contextMock.handleNext(null)).thenAnswer(invocation -> {
+            JaxRsContext.set(contextMock, jaxRsContext);
+            return new HttpResponse(200);
+        });
+        JaxRsAccessLogHandler sut = new FixedRandomHandler(0.5);
+        sut.setSamplingRate("0");
+        sut.setSamplingRates(Collections.singletonMap(jaxRsContext.toResourcePath(), "0"));
+
+        sut.handle(null, contextMock);
+
+        assertThat(logCapture.containsInfoMessage("formatBegin:0.75"), is(true));
+        assertThat(logCapture.containsInfoMessage("formatEnd:200:0.75"), is(true));
+    }
+
+    /**
+     * リソースメソッドに指定したサンプリング率によるサンプリングを有効にした場合、
+     * サンプリング率を指定したリソースメソッドの処理の前後によらず、全てのリクエストで開始ログが終了ログの直前に出力される。
+     */
+    @Test
+    public void testAnnotationSamplingEnabled() throws Exception {
+        System.setProperty("jaxRsAccessLogFormatter.className", SamplingLogMock.class.getName());
+        final List<Boolean> beginLogged = new ArrayList<Boolean>();
+        final ServletExecutionContext contextMock = mockResourceMethods(beginLogged, "plain", "annotated", "plain");
+        JaxRsAccessLogHandler sut = new FixedRandomHandler(0.5);
+        sut.setAnnotationSamplingEnabled(true);
+
+        for (int i = 0; i < 3; i++) {
+            sut.handle(null, contextMock);
+        }
+
+        assertThat(beginLogged, is(Arrays.asList(false, false, false)));
+        assertThat(logCapture.containsInfoMessage("formatBegin:0.75"), is(true));
+        assertThat(logCapture.containsInfoMessage("formatEnd:200:0.75"), is(true));
+    }
+
+    /**
+     * リソースメソッドに指定したサンプリング率によるサンプリングを有効にしていない場合、
+     * サンプリング率を指定したリソースメソッドを処理しても、開始ログの出力方法とサンプリングの有無は変わらない。
+     */
+    @Test
+    public void testAnnotationSamplingDisabled() throws Exception {
+        System.setProperty("jaxRsAccessLogFormatter.className", SamplingLogMock.class.getName());
+        final List<Boolean> beginLogged = new ArrayList<Boolean>();
+        final ServletExecutionContext contextMock = mockResourceMethods(beginLogged, "plain", "annotated", "plain");
+        JaxRsAccessLogHandler sut = new FixedRandomHandler(0.9);
+
+        for (int i = 0; i < 3; i++) {
+            sut.handle(null, contextMock);
+        }
+
+        assertThat(beginLogged, is(Arrays.asList(true, true, true)));
+        assertThat(logCapture.containsInfoMessage("formatEnd:200:0.75"), is(false));
+    }
+
+    /**
+     * リソースメソッドに指定がない場合は、リソースメソッドのパスごとのサンプリング率が使用される。
+     */
+    @Test
+    public void testSamplingRateFromResourcePath() throws Exception {
+        System.setProperty("jaxRsAccessLogFormatter.className", SamplingLogMock.class.getName());
+        final ServletExecutionContext contextMock = mockRequestScope();
+        final JaxRsContext jaxRsContext = new JaxRsContext(SampledResource.class.getMethod("plain"));
+        when(contextMock.handleNext(null)).thenAnswer(invocation -> {
+            JaxRsContext.set(contextMock, jaxRsContext);
+            return new HttpResponse(200);
+        });
+        JaxRsAccessLogHandler sut = new FixedRandomHandler(0.5);
+        sut.setSamplingRate("0");
+        sut.setSamplingRates(Collections.singletonMap(jaxRsContext.toResourcePath(), "1.0"));
+
+        sut.handle(null, contextMock);
+
+        assertThat(logCapture.containsInfoMessage("formatEnd:200:1.0"), is(true));
+    }
+
+    /**
+     * 範囲外のサンプリング率を指定した場合は例外が送出される。
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidSamplingRate() {
+        new JaxRsAccessLogHandler().setSamplingRate("1.5");
+    }
+
+    /**
+     * リクエストボディの取り込みが有効であれば、アプリケーションが読み込んだボディの先頭が終了ログに出力される。
+     */
+    @Test
+    public void testCaptureRequestBody() throws Exception {
+        System.setProperty("jaxRsAccessLogFormatter.className", CaptureLogMock.class.getName());
+        final ByteArrayInputStream body = new ByteArrayInputStream("0123456789".getBytes(StandardCharsets.UTF_8));
+        HttpServletRequest requestMock = mock(HttpServletRequest.class);
+        when(requestMock.getInputStream()).thenReturn(new ServletInputStream() {
+            @Override
+            public int read() {
+                return body.read();
+            }
+
+            @Override
+            public boolean isFinished() {
+                return body.available() == 0;
+            }
+
+            @Override
+            public boolean isReady() {
+                return true;
+            }
+
+            @Override
+            public void setReadListener(ReadListener readListener) {
+            }
+        });
+        NablarchHttpServletRequestWrapper servletRequestMock = mock(NablarchHttpServletRequestWrapper.class);
+        when(servletRequestMock.getRequest()).thenReturn(requestMock);
+        final AtomicReference<ServletRequest> wrapped = new AtomicReference<ServletRequest>();
+        doAnswer(invocation -> {
+            wrapped.set(invocation.getArgument(0));
+            return null;
+        }).when(servletRequestMock).setRequest(any(ServletRequest.class));
+        ServletExecutionContext contextMock = mock(ServletExecutionContext.class);
+        when(contextMock.getServletRequest()).thenReturn(servletRequestMock);
+        when(contextMock.handleNext(null)).thenAnswer(invocation -> {
+            InputStream in = wrapped.get().getInputStream();
+            while (in.read() != -1) {
+                // アプリケーションによるボディの読み込み
+            }
+            return new HttpResponse();
+        });
+        JaxRsAccessLogHandler sut = new JaxRsAccessLogHandler();
+
+        sut.handle(null, contextMock);
+
+        assertThat(logCapture.containsInfoMessage("formatEnd:0123...(truncated)"), is(true));
+    }
+
+    /**
+     * レスポンスボディの取り込みが有効であれば、書き込みの完了時に書き込んだボディの先頭が終了ログに出力される。
+     */
+    @Test
+    public void testCaptureResponseBody() throws Exception {
+        System.setProperty("jaxRsAccessLogFormatter.className", ResponseCaptureLogMock.class.getName());
+        final Map<String, Object> requestScope = new HashMap<String, Object>();
+        ServletExecutionContext contextMock = mock(ServletExecutionContext.class);
+        doAnswer(invocation -> {
+            requestScope.put(invocation.getArgument(0), invocation.getArgument(1));
+            return contextMock;
+        }).when(contextMock).setRequestScopedVar(anyString(), any());
+        when(contextMock.getRequestScopedVar(anyString()))
+                .thenAnswer(invocation -> requestScope.get(invocation.<String>getArgument(0)));
+        when(contextMock.handleNext(null)).thenReturn(new HttpResponse());
+        JaxRsAccessLogHandler sut = new JaxRsAccessLogHandler();
+
+        sut.handle(null, contextMock);
+
+        assertThat(logCapture.containsInfoMessage("formatBegin"), is(true));
+        assertThat("書き込みの完了までは出力されないこと", logCapture.containsInfoMessage("formatEnd:"), is(false));
+
+        // JaxRsResponseHandlerによる書き込み
+        BodyCapture capture = BodyCapture.getResponseCapture(contextMock);
+        capture.startWriting();
+        InputStream in = capture.wrap(new ByteArrayInputStream("0123456789".getBytes(StandardCharsets.UTF_8)));
+        while (in.read() != -1) {
+            // クライアントへの書き込み
+        }
+        ResponseCompletion.get(contextMock).complete();
+
+        assertThat(logCapture.containsInfoMessage("formatEnd:0123...(truncated)"), is(true));
+    }
+
+    /**
+     * レスポンスの書き込みの処理時間を出力する場合は、JaxRsResponseHandlerによる書き込みの完了時に終了ログが出力される。
+     */
+    @Test
+    public void testDeferEndLogForResponseWriteTime() {
+        System.setProperty("jaxRsAccessLogFormatter.className", ResponseWriteTimeLogMock.class.getName());
+        ServletExecutionContext contextMock = mockRequestScope();
+        when(contextMock.handleNext(null)).thenReturn(new HttpResponse());
+        JaxRsAccessLogHandler sut = new JaxRsAccessLogHandler();
+
+        sut.handle(null, contextMock);
+
+        assertThat("書き込みの完了までは出力されないこと", logCapture.containsInfoMessage("formatEnd:"), is(false));
+
+        // JaxRsResponseHandlerによる書き込み
+        PhaseTimings.get(contextMock).add(PhaseTimings.Phase.RESPONSE_WRITE, 80);
+        ResponseCompletion.get(contextMock).complete();
+
+        assertThat(logCapture.containsInfoMessage("formatEnd:80"), is(true));
+    }
+
     /**
      * アクセスログ出力が無効であれば、開始および終了ログが出力されない。
      */
@@ -121,6 +556,198 @@ public class JaxRsAccessLogHandlerTest {
         }
     }
 
+    /**
+     * レスポンスの書き込みの処理時間を出力するモック。
+     */
+    public static class ResponseWriteTimeLogMock extends LogOutputMock {
+
+        @Override
+        public boolean containsPhaseTimeItem() {
+            return true;
+        }
+
+        @Override
+        public boolean containsResponseWriteTimeItem() {
+            return true;
+        }
+
+        @Override
+        public String formatEnd(JaxRsAccessLogContext context) {
+            return "formatEnd:" + context.getElapsedNanos(PhaseTimings.Phase.RESPONSE_WRITE);
+        }
+    }
+
+    /**
+     * ヒープメモリの使用状況を出力するモック。
+     */
+    public static class MemoryLogMock extends LogOutputMock {
+
+        @Override
+        public boolean containsMemoryItem() {
+            return true;
+        }
+    }
+
+    /**
+     * ログコンテキストの再利用を検証するためのモック。
+     */
+    public static class RecycleLogMock extends LogOutputMock {
+
+        /** 開始ログの出力に使用されたログコンテキスト */
+        private static final List<JaxRsAccessLogContext> contexts = new ArrayList<JaxRsAccessLogContext>();
+
+        public RecycleLogMock() {
+            contexts.clear();
+        }
+
+        @Override
+        public String formatBegin(JaxRsAccessLogContext context) {
+            contexts.add(context);
+            return "formatBegin:" + (context.getResponse() == null ? "cleared" : "remained");
+        }
+    }
+
+    /**
+     * サンプリングを検証するためのモック。
+     */
+    public static class SamplingLogMock extends LogOutputMock {
+
+        @Override
+        public String formatBegin(JaxRsAccessLogContext context) {
+            return "formatBegin:" + context.getSampleRate();
+        }
+
+        @Override
+        public String formatEnd(JaxRsAccessLogContext context) {
+            return "formatEnd:" + context.getResponse().getStatusCode() + ':' + context.getSampleRate();
+        }
+    }
+
+    /**
+     * {@link SampledResource}のリソースメソッドを順に処理する{@link ServletExecutionContext}のモックを生成する。
+     *
+     * @param beginLogged リソースメソッドの処理時に開始ログが出力済みだったか否かを格納するリスト
+     * @param methodNames リソースメソッドの名前
+     * @return {@link ServletExecutionContext}のモック
+     */
+    private ServletExecutionContext mockResourceMethods(final List<Boolean> beginLogged, String... methodNames)
+            throws Exception {
+        final List<JaxRsContext> jaxRsContexts = new ArrayList<JaxRsContext>();
+        for (String methodName : methodNames) {
+            jaxRsContexts.add(new JaxRsContext(SampledResource.class.getMethod(methodName)));
+        }
+        final ServletExecutionContext contextMock = mockRequestScope();
+        when(contextMock.handleNext(null)).thenAnswer(invocation -> {
+            beginLogged.add(countLogLines("formatBegin") == beginLogged.size() + 1);
+            JaxRsContext.set(contextMock, jaxRsContexts.get(beginLogged.size() - 1));
+            return new HttpResponse(200);
+        });
+        return contextMock;
+    }
+
+    /**
+     * メッセージを含むログの件数を数える。
+     *
+     * @param message メッセージ
+     * @return 件数
+     */
+    private int countLogLines(String message) {
+        int count = 0;
+        for (String line : logCapture.getLogLines()) {
+            if (line.contains(message)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * リクエストスコープを保持する{@link ServletExecutionContext}のモックを生成する。
+     *
+     * @return {@link ServletExecutionContext}のモック
+     */
+    private static ServletExecutionContext mockRequestScope() {
+        final Map<String, Object> requestScope = new HashMap<String, Object>();
+        final ServletExecutionContext contextMock = mock(ServletExecutionContext.class);
+        doAnswer(invocation -> {
+            requestScope.put(invocation.getArgument(0), invocation.getArgument(1));
+            return contextMock;
+        }).when(contextMock).setRequestScopedVar(anyString(), any());
+        when(contextMock.getRequestScopedVar(anyString()))
+                .thenAnswer(invocation -> requestScope.get(invocation.<String>getArgument(0)));
+        return contextMock;
+    }
+
+    /**
+     * サンプリング率の指定を検証するためのリソースクラス。
+     */
+    public static class SampledResource {
+
+        @JaxRsAccessLog(samplingRate = 0.75)
+        public void annotated() {
+        }
+
+        public void plain() {
+        }
+    }
+
+    /**
+     * サンプリングに使用する乱数を固定したハンドラ。
+     */
+    private static class FixedRandomHandler extends JaxRsAccessLogHandler {
+
+        private final double random;
+
+        FixedRandomHandler(double random) {
+            this.random = random;
+        }
+
+        @Override
+        protected double random() {
+            return random;
+        }
+    }
+
+    /**
+     * リクエストボディの取り込みを検証するためのモック。
+     */
+    public static class CaptureLogMock extends LogOutputMock {
+
+        @Override
+        public int getRequestBodyCaptureSize() {
+            return 4;
+        }
+
+        @Override
+        public String formatEnd(JaxRsAccessLogContext context) {
+            try {
+                return "formatEnd:" + context.readRequestBody();
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    /**
+     * レスポンスボディの取り込みを検証するためのモック。
+     */
+    public static class ResponseCaptureLogMock extends LogOutputMock {
+
+        @Override
+        public int getResponseBodyCaptureSize() {
+            return 4;
+        }
+
+        @Override
+        public String formatEnd(JaxRsAccessLogContext context) {
+            try {
+                return "formatEnd:" + context.readResponseBody();
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
     /**
      * アクセスログ出力の無効化を検証するためのモック。
      */
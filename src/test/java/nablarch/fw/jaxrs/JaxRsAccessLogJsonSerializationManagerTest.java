@@ -0,0 +1,119 @@
+package nablarch.fw.jaxrs;
+
+import nablarch.core.log.basic.AppLogMapToJsonSerializer;
+import nablarch.core.text.json.JsonSerializationSettings;
+import nablarch.core.text.json.JsonSerializer;
+import nablarch.core.text.json.NumberToJsonSerializer;
+import nablarch.core.text.json.StringToJsonSerializer;
+import nablarch.fw.jaxrs.JsonStringToJsonSerializer.JsonString;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.ref.WeakReference;
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+
+/**
+ * {@link JaxRsAccessLogJsonSerializationManager}のテスト。
+ */
+public class JaxRsAccessLogJsonSerializationManagerTest {
+
+    /**
+     * 値のクラスに対応する{@link JsonSerializer}を返すこと。
+     */
+    @Test
+    public void testGetSerializer() {
+        JaxRsAccessLogJsonSerializationManager sut = new JaxRsAccessLogJsonSerializationManager();
+        sut.initialize();
+
+        assertThat(sut.getSerializer("a"), instanceOf(StringToJsonSerializer.class));
+        assertThat(sut.getSerializer(1), instanceOf(NumberToJsonSerializer.class));
+        assertThat(sut.getSerializer(1L), instanceOf(NumberToJsonSerializer.class));
+        assertThat(sut.getSerializer(BigDecimal.ONE), instanceOf(NumberToJsonSerializer.class));
+        assertThat(sut.getSerializer(new JsonString("{}")), instanceOf(JsonStringToJsonSerializer.class));
+        assertThat(sut.getSerializer(new HashMap<String, Object>()), instanceOf(AppLogMapToJsonSerializer.class));
+        assertThat(sut.getSerializer("b"), is(sameInstance(sut.getSerializer("a"))));
+        assertThat(sut.getSerializer(new Object()), is(sameInstance(sut.getSerializer(new Object()))));
+    }
+
+    /**
+     * 値のクラスごとに、{@link JsonSerializer}の探索は1度だけ行うこと。
+     */
+    @Test
+    public void testCache() {
+        final CountingSerializer counting = new CountingSerializer();
+        JaxRsAccessLogJsonSerializationManager sut = new JaxRsAccessLogJsonSerializationManager() {
+            @Override
+            protected List<JsonSerializer> createSerializers(JsonSerializationSettings settings) {
+                return Collections.<JsonSerializer>singletonList(counting);
+            }
+        };
+        sut.initialize();
+        // 初期化時の探索は数えない
+        counting.count = 0;
+
+        for (int i = 0; i < 3; i++) {
+            assertThat(sut.getSerializer(i), is((JsonSerializer) counting));
+            assertThat(sut.getSerializer(BigDecimal.valueOf(i)), is((JsonSerializer) counting));
+        }
+
+        assertThat(counting.count, is(2));
+    }
+
+    /**
+     * JDKのクラスに対応する{@link JsonSerializer}をキャッシュしても、インスタンスとともにキャッシュが破棄されること。
+     */
+    @Test
+    public void testCacheReleasedWithManager() throws Exception {
+        JaxRsAccessLogJsonSerializationManager sut = new JaxRsAccessLogJsonSerializationManager();
+        sut.initialize();
+        sut.getSerializer(new HashMap<String, Object>());
+        sut.getSerializer(new ArrayList<Object>());
+        sut.getSerializer(new String[0]);
+        final WeakReference<JaxRsAccessLogJsonSerializationManager> reference =
+                new WeakReference<JaxRsAccessLogJsonSerializationManager>(sut);
+        sut = null;
+
+        for (int i = 0; i < 50 && reference.get() != null; i++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+
+        assertThat(reference.get(), is(nullValue()));
+    }
+
+    /**
+     * {@link JsonSerializer#isTarget(Class)}の呼び出し回数を数えるシリアライザ。
+     */
+    private static class CountingSerializer implements JsonSerializer {
+
+        /** 呼び出し回数 */
+        private int count;
+
+        @Override
+        public void initialize(JsonSerializationSettings settings) {
+            // NOOP
+        }
+
+        @Override
+        public boolean isTarget(Class<?> valueClass) {
+            count++;
+            return Number.class.isAssignableFrom(valueClass);
+        }
+
+        @Override
+        public void serialize(Writer writer, Object value) throws IOException {
+            writer.append(value.toString());
+        }
+    }
+}
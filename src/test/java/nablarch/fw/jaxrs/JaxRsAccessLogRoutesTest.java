@@ -0,0 +1,129 @@
+package nablarch.fw.jaxrs;
+
+import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import nablarch.fw.ExecutionContext;
+import org.junit.Rule;
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+
+/**
+ * {@link JaxRsAccessLogRoutes}のテスト。
+ */
+public class JaxRsAccessLogRoutesTest {
+
+    @Rule
+    public NablarchLogCapture logCapture = new NablarchLogCapture();
+
+    /**
+     * リソースメソッドの指定がリソースクラスの指定より優先されること。
+     */
+    @Test
+    public void testMethodAnnotation() throws Exception {
+        final JaxRsAccessLogRoutes sut = new JaxRsAccessLogRoutes();
+
+        final JaxRsAccessLogRoutes.Route route = sut.get(AnnotatedResource.class.getMethod("upload"));
+
+        assertThat(route.isBodyEnabled(), is(false));
+        assertThat(route.getMaxBodySize(), is(0));
+        assertThat(route.getSamplingRate(), is(0.5));
+    }
+
+    /**
+     * リソースメソッドに指定がない場合は、リソースクラスの指定を使用すること。
+     */
+    @Test
+    public void testClassAnnotation() throws Exception {
+        final JaxRsAccessLogRoutes sut = new JaxRsAccessLogRoutes();
+
+        final JaxRsAccessLogRoutes.Route route = sut.get(AnnotatedResource.class.getMethod("find"));
+
+        assertThat(route.isBodyEnabled(), is(true));
+        assertThat(route.getMaxBodySize(), is(16));
+        assertThat(route.getSamplingRate(), is(-1.0));
+    }
+
+    /**
+     * 指定がない場合はデフォルトを返し、結果はリソースメソッドごとにキャッシュされること。
+     */
+    @Test
+    public void testDefault() throws Exception {
+        final JaxRsAccessLogRoutes sut = new JaxRsAccessLogRoutes();
+        final Method method = PlainResource.class.getMethod("find");
+
+        assertThat(sut.get(method), is(sameInstance(JaxRsAccessLogRoutes.DEFAULT)));
+        assertThat(sut.get(AnnotatedResource.class.getMethod("find")),
+                is(sameInstance(sut.get(AnnotatedResource.class.getMethod("find")))));
+    }
+
+    /**
+     * サンプリング率は、リソースメソッドの指定、リソースメソッドのパスごとの設定の順に優先されること。
+     */
+    @Test
+    public void testSamplingRates() throws Exception {
+        final Map<String, Double> samplingRates = new HashMap<String, Double>();
+        samplingRates.put(PlainResource.class.getName() + "#find", 0.25);
+        samplingRates.put(AnnotatedResource.class.getName() + "#upload", 0.25);
+        final JaxRsAccessLogRoutes sut = new JaxRsAccessLogRoutes(samplingRates);
+
+        assertThat(sut.get(PlainResource.class.getMethod("find")).getSamplingRate(), is(0.25));
+        assertThat(sut.get(AnnotatedResource.class.getMethod("upload")).getSamplingRate(), is(0.5));
+    }
+
+    /**
+     * リソースメソッドが決定していない場合は{@code null}を返すこと。
+     */
+    @Test
+    public void testGetWithoutResourceMethod() throws Exception {
+        final ExecutionContext context = new ExecutionContext();
+        final JaxRsAccessLogRoutes sut = new JaxRsAccessLogRoutes(Collections.<String, Double>emptyMap());
+
+        assertThat(sut.get(context), is(nullValue()));
+
+        JaxRsContext.set(context, new JaxRsContext(AnnotatedResource.class.getMethod("upload")));
+        assertThat(sut.get(context).isBodyEnabled(), is(false));
+    }
+
+    /**
+     * 範囲外のサンプリング率を指定した場合は、ワーニングログを出力し、指定がないものとして扱うこと。
+     */
+    @Test
+    public void testInvalidSamplingRate() throws Exception {
+        final JaxRsAccessLogRoutes sut = new JaxRsAccessLogRoutes(
+                Collections.singletonMap(InvalidResource.class.getName() + "#find", 0.25));
+
+        assertThat(sut.get(InvalidResource.class.getMethod("find")).getSamplingRate(), is(0.25));
+        assertThat(logCapture.containsWarnMessage("sampling rate must be between 0.0 and 1.0"), is(true));
+    }
+
+    @JaxRsAccessLog(maxBodySize = 16)
+    public static class AnnotatedResource {
+
+        public void find() {
+        }
+
+        @JaxRsAccessLog(body = false, samplingRate = 0.5)
+        public void upload() {
+        }
+    }
+
+    public static class PlainResource {
+
+        public void find() {
+        }
+    }
+
+    public static class InvalidResource {
+
+        @JaxRsAccessLog(samplingRate = 1.5)
+        public void find() {
+        }
+    }
+}
@@ -276,5 +276,70 @@ public class JaxRsBodyMaskingFilterTest {
 
             assertThat(actual, is(content));
         }
+
+        /**
+         * 配列やオブジェクトの階層によらず、マスク対象項目名と一致する項目をマスクする。
+         */
+        @Test
+        public void testNested() {
+            sut.initialize(new AppLogPropertyBuilder().maskingChar("x").maskingItemNames("id,password").build());
+
+            String content = "{\"users\":[{\"id\":\"a\",\"detail\":{\"password\":\"b\",\"list\":[{\"id\":1}]}}]}";
+            String actual = sut.mask(content);
+
+            assertThat(actual, is("{\"users\":[{\"id\":\"xxxxx\",\"detail\":{\"password\":\"xxxxx\",\"list\":[{\"id\":xxxxx}]}}]}"));
+        }
+
+        /**
+         * 文字列の値に含まれる項目名はマスク対象としない。
+         */
+        @Test
+        public void testItemNameInStringValue() {
+            sut.initialize(new AppLogPropertyBuilder().maskingChar("x").maskingItemNames("id").build());
+
+            String content = "{\"note\":\"\\\"id\\\":\\\"hoge\\\"\"}";
+            String actual = sut.mask(content);
+
+            assertThat(actual, is(content));
+        }
+
+        /**
+         * 項目名と値の前後に空白があってもマスクし、項目名の大文字小文字は区別しない。
+         */
+        @Test
+        public void testWhitespaceAndCase() {
+            sut.initialize(new AppLogPropertyBuilder().maskingChar("x").maskingItemNames("id, password").build());
+
+            String content = "{\n  \"ID\" :  \"hoge\",\n  \"Password\":\t123\n}";
+            String actual = sut.mask(content);
+
+            assertThat(actual, is("{\n  \"ID\" :  \"xxxxx\",\n  \"Password\":\txxxxx\n}"));
+        }
+
+        /**
+         * 最大文字数を指定した場合、超えた分を切り捨てる。
+         */
+        @Test
+        public void testMaxLength() {
+            sut.initialize(new AppLogPropertyBuilder().maskingChar("x").maskingItemNames("id")
+                    .bodyMaskingMaxLength("13").build());
+
+            String actual = sut.mask("{\"a\":1,\"id\":2,\"b\":3}");
+
+            assertThat(actual, is("{\"a\":1,\"id\":xxxxx...(truncated)"));
+        }
+
+        /**
+         * 最大文字数で文字列の値が途切れた場合も、値をマスクする。
+         */
+        @Test
+        public void testMaxLengthInStringValue() {
+            sut.initialize(new AppLogPropertyBuilder().maskingChar("x").maskingItemNames("id")
+                    .bodyMaskingMaxLength("10").build());
+
+            String actual = sut.mask("{\"id\":\"hogehogehoge\"}");
+
+            assertThat(actual, is("{\"id\":\"xxxxx...(truncated)"));
+        }
     }
 }
@@ -1,7 +1,10 @@
 package nablarch.fw.jaxrs;
 
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.AsyncListener;
 import jakarta.servlet.ServletContext;
 import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import jakarta.ws.rs.core.MediaType;
@@ -22,6 +25,7 @@ import nablarch.fw.web.servlet.ServletExecutionContext;
 import nablarch.test.support.log.app.OnMemoryLogWriter;
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
@@ -38,8 +42,11 @@ import java.util.Map;
 import static nablarch.fw.jaxrs.HttpResponseMatcher.isStatusCode;
 import static org.hamcrest.CoreMatchers.is;
 import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
 import static org.mockito.Mockito.atLeastOnce;
 import static org.mockito.Mockito.doAnswer;
@@ -638,6 +645,279 @@ public class JaxRsResponseHandlerTest {
 
     }
 
+    /**
+     * {@link StreamingResponse}の場合、非同期処理を開始してボディの書き込みを委譲すること。
+     */
+    @Test
+    public void testStreamingResponse() throws Exception {
+        // -------------------------------------------------- setup
+        final AsyncContext asyncContext = mock(AsyncContext.class);
+        when(mockServletRequest.startAsync()).thenReturn(asyncContext);
+        final List<AsyncContext> started = new ArrayList<AsyncContext>();
+        context.addHandler(new Handler<Object, Object>() {
+            @Override
+            public Object handle(Object o, ExecutionContext context) {
+                return new StreamingHttpResponse(started);
+            }
+        });
+
+        // -------------------------------------------------- execute
+        sut.handle(mockHttpRequest, context);
+
+        // -------------------------------------------------- assert
+        assertThat("非同期処理のコンテキストが渡されること", started.size(), is(1));
+        assertThat(started.get(0) == asyncContext, is(true));
+        assertThat("ボディはハンドラでは書き込まれないこと", getBodyString(), is(""));
+        verify(mockServletResponse, atLeastOnce()).setStatus(200);
+        verify(mockServletResponse, atLeastOnce()).setContentType("text/event-stream");
+        verify(asyncContext, never()).complete();
+    }
+
+    /**
+     * {@link StreamingResponse}で書き込みの開始に失敗した場合、非同期処理が終了されること。
+     */
+    @Test
+    public void testStreamingResponseFailedToStart() throws Exception {
+        // -------------------------------------------------- setup
+        final AsyncContext asyncContext = mock(AsyncContext.class);
+        when(mockServletRequest.startAsync()).thenReturn(asyncContext);
+        context.addHandler(new Handler<Object, Object>() {
+            @Override
+            public Object handle(Object o, ExecutionContext context) {
+                return new StreamingHttpResponse(null);
+            }
+        });
+
+        // -------------------------------------------------- execute
+        sut.handle(mockHttpRequest, context);
+
+        // -------------------------------------------------- assert
+        verify(asyncContext).complete();
+        OnMemoryLogWriter.assertLogContains("writer.memory", "WARN ROO failed to write response.");
+    }
+
+    /**
+     * ノンブロッキングで書き込む場合、出力ストリームが書き込み可能になった時点でボディが書き込まれること。
+     * 書き込みが終了した時点で非同期処理が終了され、{@link ResponseCompletion}に完了が通知されること。
+     */
+    @Test
+    public void testNonBlockingWrite() throws Exception {
+        // -------------------------------------------------- setup
+        sut.setNonBlockingWrite(true);
+        final AsyncContext asyncContext = mock(AsyncContext.class);
+        when(mockServletRequest.startAsync()).thenReturn(asyncContext);
+        when(asyncContext.getResponse()).thenReturn(mockServletResponse);
+        final boolean[] ready = {false};
+        when(mockOutputStream.isReady()).thenAnswer(invocation -> ready[0]);
+        context.addHandler(new Handler<Object, Object>() {
+            @Override
+            public Object handle(Object o, ExecutionContext context) {
+                return new HttpResponse(200).write("non-blocking body");
+            }
+        });
+
+        // -------------------------------------------------- execute
+        sut.handle(mockHttpRequest, context);
+
+        // -------------------------------------------------- assert
+        assertThat("ハンドラではボディが書き込まれないこと", getBodyString(), is(""));
+        final ArgumentCaptor<WriteListener> writeListener = ArgumentCaptor.forClass(WriteListener.class);
+        verify(mockOutputStream).setWriteListener(writeListener.capture());
+        final ArgumentCaptor<ResponseCompletion> completion = ArgumentCaptor.forClass(ResponseCompletion.class);
+        verify(mockServletRequest).setAttribute(eq(ExecutionContext.FW_PREFIX + "ResponseCompletion"), completion.capture());
+
+        writeListener.getValue().onWritePossible();
+        assertThat("書き込み可能になるまで書き込まれないこと", getBodyString(), is(""));
+        verify(asyncContext, never()).complete();
+
+        ready[0] = true;
+        writeListener.getValue().onWritePossible();
+        assertThat(getBodyString(), is("non-blocking body"));
+        verify(asyncContext).complete();
+
+        assertThat(completion.getValue().isCompleted(), is(false));
+        final ArgumentCaptor<AsyncListener> asyncListeners = ArgumentCaptor.forClass(AsyncListener.class);
+        verify(asyncContext, atLeastOnce()).addListener(asyncListeners.capture());
+        for (AsyncListener listener : asyncListeners.getAllValues()) {
+            listener.onComplete(null);
+        }
+        assertThat("非同期処理の終了で完了が通知されること", completion.getValue().isCompleted(), is(true));
+    }
+
+    /**
+     * ノンブロッキングで書き込む場合に書き込みに失敗した場合、証跡ログを出力して非同期処理が終了されること。
+     */
+    @Test
+    public void testNonBlockingWriteFailed() throws Exception {
+        // -------------------------------------------------- setup
+        sut.setNonBlockingWrite(true);
+        final AsyncContext asyncContext = mock(AsyncContext.class);
+        when(mockServletRequest.startAsync()).thenReturn(asyncContext);
+        when(asyncContext.getResponse()).thenReturn(mockServletResponse);
+        when(mockOutputStream.isReady()).thenReturn(true);
+        doThrow(new IOException("broken pipe")).when(mockOutputStream).write(any(byte[].class), anyInt(), anyInt());
+        context.addHandler(new Handler<Object, Object>() {
+            @Override
+            public Object handle(Object o, ExecutionContext context) {
+                return new HttpResponse(200).write("non-blocking body");
+            }
+        });
+
+        // -------------------------------------------------- execute
+        sut.handle(mockHttpRequest, context);
+        final ArgumentCaptor<WriteListener> writeListener = ArgumentCaptor.forClass(WriteListener.class);
+        verify(mockOutputStream).setWriteListener(writeListener.capture());
+        writeListener.getValue().onWritePossible();
+
+        // -------------------------------------------------- assert
+        verify(asyncContext).complete();
+        OnMemoryLogWriter.assertLogContains("writer.memory", "WARN ROO failed to write response.");
+    }
+
+    /**
+     * レスポンスボディの取り込み先が設定されている場合、書き込んだボディの先頭が取り込まれること。
+     */
+    @Test
+    public void testCaptureResponseBody() throws Exception {
+        // -------------------------------------------------- setup
+        final BodyCapture capture = new BodyCapture(new byte[4]);
+        when(mockServletRequest.getAttribute(ExecutionContext.FW_PREFIX + "BodyCapture.response")).thenReturn(capture);
+        context.addHandler(new Handler<Object, Object>() {
+            @Override
+            public Object handle(Object o, ExecutionContext context) {
+                return new HttpResponse(200).write("{\"key\": 100}");
+            }
+        });
+
+        // -------------------------------------------------- execute
+        sut.handle(mockHttpRequest, context);
+
+        // -------------------------------------------------- assert
+        assertThat("ボディは全て書き込まれること", getBodyString(), is("{\"key\": 100}"));
+        assertThat(capture.isWritingStarted(), is(true));
+        assertThat(capture.toString("UTF-8"), is("{\"ke"));
+        assertThat(capture.isTruncated(), is(true));
+    }
+
+    /**
+     * 後続のハンドラが{@link ResponseCompletion}を設定している場合、同期的に書き込んだ時点で完了が通知されること。
+     */
+    @Test
+    public void testCompletePendingCompletion() throws Exception {
+        // -------------------------------------------------- setup
+        final ResponseCompletion pending = new ResponseCompletion();
+        when(mockServletRequest.getAttribute(ExecutionContext.FW_PREFIX + "ResponseCompletion")).thenReturn(pending);
+        final List<String> events = new ArrayList<String>();
+        pending.whenComplete(new Runnable() {
+            @Override
+            public void run() {
+                events.add("completed:" + responseBody.size());
+            }
+        });
+        context.addHandler(new Handler<Object, Object>() {
+            @Override
+            public Object handle(Object o, ExecutionContext context) {
+                return new HttpResponse(200).write("body");
+            }
+        });
+
+        // -------------------------------------------------- execute
+        sut.handle(mockHttpRequest, context);
+
+        // -------------------------------------------------- assert
+        assertThat("書き込みの後に通知されること", events, is(Arrays.asList("completed:4")));
+    }
+
+    /**
+     * 後続のハンドラが{@link ResponseCompletion}を設定している場合、書き込みに失敗しても完了が通知されること。
+     */
+    @Test
+    public void testCompletePendingCompletionOnWriteFailure() throws Exception {
+        // -------------------------------------------------- setup
+        final ResponseCompletion pending = new ResponseCompletion();
+        when(mockServletRequest.getAttribute(ExecutionContext.FW_PREFIX + "ResponseCompletion")).thenReturn(pending);
+        final JaxRsResponseHandler failingHandler = new JaxRsResponseHandler() {
+            @Override
+            protected void writeResponse(HttpResponse response, ServletExecutionContext context) {
+                throw new IllegalStateException("write failed.");
+            }
+        };
+        context.addHandler(new Handler<Object, Object>() {
+            @Override
+            public Object handle(Object o, ExecutionContext context) {
+                return new HttpResponse(200).write("body");
+            }
+        });
+
+        // -------------------------------------------------- execute
+        try {
+            failingHandler.handle(mockHttpRequest, context);
+            fail("IllegalStateException must be thrown.");
+        } catch (IllegalStateException e) {
+            // -------------------------------------------------- assert
+            assertThat(e.getMessage(), is("write failed."));
+        }
+        assertThat("書き込みに失敗しても通知されること", pending.isCompleted(), is(true));
+    }
+
+    /**
+     * 後続のハンドラが{@link ResponseCompletion}を設定している場合に非同期に書き込む場合、非同期処理の終了時に完了が通知されること。
+     */
+    @Test
+    public void testCompletePendingCompletionAsync() throws Exception {
+        // -------------------------------------------------- setup
+        final Map<String, Object> attributes = new HashMap<String, Object>();
+        doAnswer(invocation -> attributes.put(invocation.getArgument(0), invocation.getArgument(1)))
+                .when(mockServletRequest).setAttribute(anyString(), any());
+        when(mockServletRequest.getAttribute(anyString()))
+                .thenAnswer(invocation -> attributes.get(invocation.<String>getArgument(0)));
+        final ResponseCompletion pending = ResponseCompletion.defer(context);
+        sut.setNonBlockingWrite(true);
+        final AsyncContext asyncContext = mock(AsyncContext.class);
+        when(mockServletRequest.startAsync()).thenReturn(asyncContext);
+        when(asyncContext.getResponse()).thenReturn(mockServletResponse);
+        context.addHandler(new Handler<Object, Object>() {
+            @Override
+            public Object handle(Object o, ExecutionContext context) {
+                return new HttpResponse(200).write("body");
+            }
+        });
+
+        // -------------------------------------------------- execute
+        sut.handle(mockHttpRequest, context);
+
+        // -------------------------------------------------- assert
+        assertThat("ハンドラの処理を終えた時点では通知されないこと", pending.isCompleted(), is(false));
+        final ArgumentCaptor<AsyncListener> asyncListeners = ArgumentCaptor.forClass(AsyncListener.class);
+        verify(asyncContext, atLeastOnce()).addListener(asyncListeners.capture());
+        for (AsyncListener listener : asyncListeners.getAllValues()) {
+            listener.onComplete(null);
+        }
+        assertThat("非同期処理の終了で通知されること", pending.isCompleted(), is(true));
+    }
+
+    /**
+     * テスト用の{@link StreamingResponse}。
+     */
+    private static class StreamingHttpResponse extends HttpResponse implements StreamingResponse {
+
+        private final List<AsyncContext> started;
+
+        StreamingHttpResponse(List<AsyncContext> started) {
+            super(200);
+            setContentType("text/event-stream");
+            this.started = started;
+        }
+
+        @Override
+        public void startStreaming(AsyncContext asyncContext, ServletExecutionContext context) throws IOException {
+            if (started == null) {
+                throw new IOException("failed");
+            }
+            started.add(asyncContext);
+        }
+    }
+
     private String getBodyString() throws UnsupportedEncodingException {
         return new String(responseBody.toByteArray(), "utf-8");
     }
@@ -0,0 +1,124 @@
+package nablarch.fw.jaxrs;
+
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+/**
+ * {@link JaxRsXmlBodyMaskingFilter}のテスト。
+ */
+public class JaxRsXmlBodyMaskingFilterTest {
+
+    private final JaxRsXmlBodyMaskingFilter sut = new JaxRsXmlBodyMaskingFilter();
+
+    /**
+     * マスク対象項目名と一致する要素のテキストをマスクする。
+     */
+    @Test
+    public void testElement() {
+        sut.initialize(new AppLogPropertyBuilder().maskingChar("x").maskingItemNames("id").build());
+
+        String actual = sut.mask("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?><user><id>hoge</id><name>fuga</name></user>");
+
+        assertThat(actual, is("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?><user><id>xxxxx</id><name>fuga</name></user>"));
+    }
+
+    /**
+     * マスク対象項目名と一致する属性の値をマスクし、項目名の大文字小文字は区別しない。
+     */
+    @Test
+    public void testAttribute() {
+        sut.initialize(new AppLogPropertyBuilder().maskingChar("x").maskingItemNames("id, password").build());
+
+        String actual = sut.mask("<user Password='secret' name=\"a&amp;b\"><ID>1</ID><name>x &lt; y</name></user>");
+
+        assertThat(actual, is("<user Password=\"xxxxx\" name=\"a&amp;b\"><ID>xxxxx</ID><name>x &lt; y</name></user>"));
+    }
+
+    /**
+     * マスク対象の要素の子孫要素のテキストもマスクし、空白のみのテキストはマスクしない。
+     */
+    @Test
+    public void testDescendant() {
+        sut.initialize(new AppLogPropertyBuilder().maskingChar("x").maskingItemNames("password").build());
+
+        String actual = sut.mask("<user><password><v>p</v>\n <w><![CDATA[q]]></w></password><!-- c --></user>");
+
+        assertThat(actual, is("<user><password><v>xxxxx</v>\n <w>xxxxx</w></password><!-- c --></user>"));
+    }
+
+    /**
+     * 名前空間を持つ要素と属性はローカル名で判定する。
+     */
+    @Test
+    public void testNamespace() {
+        sut.initialize(new AppLogPropertyBuilder().maskingChar("x").maskingItemNames("id").build());
+
+        String actual = sut.mask("<ns:root xmlns:ns=\"urn:x\" xmlns=\"urn:d\"><ns:id ns:id=\"1\">a</ns:id><empty/></ns:root>");
+
+        assertThat(actual, is("<ns:root xmlns:ns=\"urn:x\" xmlns=\"urn:d\"><ns:id ns:id=\"xxxxx\">xxxxx</ns:id><empty></empty></ns:root>"));
+    }
+
+    /**
+     * DTDを処理せず、外部エンティティは解決しない。
+     */
+    @Test
+    public void testExternalEntity() {
+        sut.initialize(new AppLogPropertyBuilder().maskingChar("x").maskingItemNames("id").build());
+
+        String actual = sut.mask("<!DOCTYPE r [<!ENTITY e SYSTEM \"file:///etc/passwd\">]><r><id>&e;</id></r>");
+
+        assertThat(actual, is("<r><id>...(truncated)"));
+    }
+
+    /**
+     * XMLとして解析できない場合は、解析できた位置までを出力する。
+     */
+    @Test
+    public void testMalformed() {
+        sut.initialize(new AppLogPropertyBuilder().maskingChar("x").maskingItemNames("id").build());
+
+        String actual = sut.mask("<r><id>a</id><broken");
+
+        assertThat(actual, is("<r><id>xxxxx</id>...(truncated)"));
+    }
+
+    /**
+     * 最大文字数を指定した場合、出力を最大文字数で切り捨てる。
+     */
+    @Test
+    public void testMaxLength() {
+        sut.initialize(new AppLogPropertyBuilder().maskingChar("x").maskingItemNames("id")
+                .bodyMaskingMaxLength("20").build());
+
+        String actual = sut.mask("<r><id>a</id><name>abcdef</name></r>");
+
+        assertThat(actual, is("<r><id>xxxxx</id><na...(truncated)"));
+    }
+
+    /**
+     * マスク対象項目名の指定がない場合はマスク処理しない。
+     */
+    @Test
+    public void testNoItemNames() {
+        sut.initialize(new AppLogPropertyBuilder().maskingChar("x").build());
+
+        String content = "<r><id>a</id></r>";
+        String actual = sut.mask(content);
+
+        assertThat(actual, is(content));
+    }
+
+    /**
+     * XMLでない場合はJSONとしてマスクする。
+     */
+    @Test
+    public void testJson() {
+        sut.initialize(new AppLogPropertyBuilder().maskingChar("x").maskingItemNames("id").build());
+
+        String actual = sut.mask("{\"id\":\"hoge\"}");
+
+        assertThat(actual, is("{\"id\":\"xxxxx\"}"));
+    }
+}
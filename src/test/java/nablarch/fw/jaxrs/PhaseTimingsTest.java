@@ -0,0 +1,57 @@
+package nablarch.fw.jaxrs;
+
+import nablarch.fw.ExecutionContext;
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+
+/**
+ * {@link PhaseTimings}のテスト。
+ */
+public class PhaseTimingsTest {
+
+    private final ExecutionContext context = new ExecutionContext();
+
+    /**
+     * 生成したインスタンスがリクエストスコープに設定され、記録した処理時間を取得できること。
+     */
+    @Test
+    public void testRecord() throws Exception {
+        final PhaseTimings sut = PhaseTimings.start(context);
+        assertThat(PhaseTimings.get(context), is(sameInstance(sut)));
+
+        final long start = System.nanoTime();
+        Thread.sleep(1);
+        PhaseTimings.record(context, PhaseTimings.Phase.RESOURCE_METHOD, start);
+
+        assertThat(sut.getElapsedNanos(PhaseTimings.Phase.RESOURCE_METHOD), greaterThan(0L));
+        assertThat(sut.getElapsedNanos(PhaseTimings.Phase.DISPATCH), is(0L));
+    }
+
+    /**
+     * 同じフェーズの処理時間は合算されること。
+     */
+    @Test
+    public void testAdd() {
+        final PhaseTimings sut = new PhaseTimings();
+
+        sut.add(PhaseTimings.Phase.REQUEST_BODY_READ, 100);
+        sut.add(PhaseTimings.Phase.REQUEST_BODY_READ, 50);
+
+        assertThat(sut.getElapsedNanos(PhaseTimings.Phase.REQUEST_BODY_READ), is(150L));
+    }
+
+    /**
+     * リクエストスコープに設定されていない場合は記録しないこと。
+     */
+    @Test
+    public void testRecordWithoutTimings() {
+        PhaseTimings.record(context, PhaseTimings.Phase.VALIDATION, System.nanoTime());
+
+        assertThat(PhaseTimings.get(context), is(nullValue()));
+    }
+}
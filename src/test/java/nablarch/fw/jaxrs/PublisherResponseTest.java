@@ -0,0 +1,259 @@
+package nablarch.fw.jaxrs;
+
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletResponse;
+import nablarch.fw.ExecutionContext;
+import nablarch.fw.web.HttpRequest;
+import nablarch.fw.web.HttpResponse;
+import nablarch.fw.web.servlet.ServletExecutionContext;
+import nablarch.test.support.log.app.OnMemoryLogWriter;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Flow;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * {@link PublisherResponse}のテスト。
+ */
+public class PublisherResponseTest {
+
+    private final AsyncContext asyncContext = mock(AsyncContext.class);
+
+    private final HttpServletResponse servletResponse = mock(HttpServletResponse.class);
+
+    private final ServletOutputStream out = mock(ServletOutputStream.class);
+
+    private final ServletExecutionContext context = mock(ServletExecutionContext.class);
+
+    private final ByteArrayOutputStream written = new ByteArrayOutputStream();
+
+    /** 出力ストリームが書き込み可能か否か */
+    private boolean ready = true;
+
+    /** 書き込むたびに書き込み不可にするか否か */
+    private boolean blockAfterWrite = false;
+
+    @Before
+    public void setUp() throws Exception {
+        OnMemoryLogWriter.clear();
+        when(asyncContext.getResponse()).thenReturn(servletResponse);
+        when(servletResponse.getOutputStream()).thenReturn(out);
+        when(out.isReady()).thenAnswer(invocation -> ready);
+        doAnswer(invocation -> {
+            written.write((byte[]) invocation.getArgument(0));
+            if (blockAfterWrite) {
+                ready = false;
+            }
+            return null;
+        }).when(out).write(any(byte[].class));
+    }
+
+    @After
+    public void tearDown() {
+        OnMemoryLogWriter.clear();
+    }
+
+    /**
+     * 出力ストリームが書き込み可能になった時点で要素が1件ずつ要求され、JSONの配列として書き込まれること。
+     */
+    @Test
+    public void testJsonArrayWithBackpressure() throws Exception {
+        blockAfterWrite = true;
+        final ListPublisher publisher = new ListPublisher(Arrays.<Object>asList(1, 2));
+        final WriteListener listener = start(publisher, PublisherResponse.Format.JSON_ARRAY);
+        assertThat(publisher.requested, is(0L));
+
+        ready = false;
+        listener.onWritePossible();
+        assertThat(written(), is(""));
+        assertThat(publisher.requested, is(0L));
+
+        ready = true;
+        listener.onWritePossible();
+        assertThat(written(), is("["));
+        assertThat(publisher.requested, is(0L));
+
+        ready = true;
+        listener.onWritePossible();
+        assertThat(written(), is("[" + element(1)));
+        assertThat(publisher.requested, is(1L));
+
+        ready = true;
+        listener.onWritePossible();
+        assertThat(written(), is("[" + element(1) + "," + element(2)));
+        assertThat(publisher.requested, is(2L));
+        verify(asyncContext, never()).complete();
+
+        ready = true;
+        listener.onWritePossible();
+        assertThat(written(), is("[" + element(1) + "," + element(2) + "]"));
+        verify(asyncContext).complete();
+    }
+
+    /**
+     * 要素が存在しない場合は空の配列が書き込まれること。
+     */
+    @Test
+    public void testEmptyJsonArray() throws Exception {
+        final ListPublisher publisher = new ListPublisher(Arrays.asList());
+        final WriteListener listener = start(publisher, PublisherResponse.Format.JSON_ARRAY);
+
+        listener.onWritePossible();
+
+        assertThat(written(), is("[]"));
+        verify(asyncContext).complete();
+    }
+
+    /**
+     * NDJSONの場合は、要素内の改行が空白に置き換えられ、1要素1行で書き込まれること。
+     */
+    @Test
+    public void testNdjson() throws Exception {
+        final ListPublisher publisher = new ListPublisher(Arrays.<Object>asList(1, 2));
+        final WriteListener listener = start(publisher, PublisherResponse.Format.NDJSON);
+
+        listener.onWritePossible();
+
+        assertThat(written(), is("{   \"v\": 1 }\n{   \"v\": 2 }\n"));
+        verify(asyncContext).complete();
+    }
+
+    /**
+     * 書き込み前に発行元でエラーが発生した場合は、500を返して非同期処理を終了すること。
+     */
+    @Test
+    public void testPublisherError() throws Exception {
+        final Flow.Publisher<Object> publisher = new Flow.Publisher<Object>() {
+            @Override
+            public void subscribe(Flow.Subscriber<? super Object> subscriber) {
+                subscriber.onSubscribe(mock(Flow.Subscription.class));
+                subscriber.onError(new IllegalStateException("query failed."));
+            }
+        };
+        start(publisher, PublisherResponse.Format.JSON_ARRAY);
+
+        verify(servletResponse).reset();
+        verify(servletResponse).setStatus(500);
+        verify(asyncContext).complete();
+        OnMemoryLogWriter.assertLogContains("writer.memory", "WARN ROO failed to publish response.");
+    }
+
+    /**
+     * クライアントへの書き込みに失敗した場合は、購読を解除すること。
+     */
+    @Test
+    public void testWriteError() throws Exception {
+        final ListPublisher publisher = new ListPublisher(Arrays.<Object>asList(1, 2));
+        final WriteListener listener = start(publisher, PublisherResponse.Format.JSON_ARRAY);
+
+        doAnswer(invocation -> {
+            throw new IOException("broken pipe");
+        }).when(out).write(any(byte[].class));
+        listener.onWritePossible();
+
+        assertThat(publisher.cancelled, is(true));
+        verify(asyncContext).complete();
+    }
+
+    private WriteListener start(Flow.Publisher<?> publisher, PublisherResponse.Format format) throws IOException {
+        final PublisherResponse sut = new PublisherResponse(
+                publisher, new JsonConverterStub(), format, "application/json;charset=UTF-8", context);
+        sut.startStreaming(asyncContext, context);
+        final ArgumentCaptor<WriteListener> captor = ArgumentCaptor.forClass(WriteListener.class);
+        verify(out).setWriteListener(captor.capture());
+        return captor.getValue();
+    }
+
+    private static String element(int value) {
+        return "{\n  \"v\": " + value + "\n}";
+    }
+
+    private String written() {
+        return new String(written.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 要求された分だけ要素を同期的に発行する発行元。
+     */
+    private static class ListPublisher implements Flow.Publisher<Object> {
+
+        private final List<Object> items;
+
+        private long requested = 0L;
+
+        private boolean cancelled = false;
+
+        ListPublisher(List<Object> items) {
+            this.items = items;
+        }
+
+        @Override
+        public void subscribe(final Flow.Subscriber<? super Object> subscriber) {
+            subscriber.onSubscribe(new Flow.Subscription() {
+                private int index = 0;
+
+                private boolean completed = false;
+
+                @Override
+                public void request(long n) {
+                    for (long i = 0; i < n && !cancelled && !completed; i++) {
+                        if (index < items.size()) {
+                            requested++;
+                            subscriber.onNext(items.get(index++));
+                        } else {
+                            completed = true;
+                            subscriber.onComplete();
+                        }
+                    }
+                }
+
+                @Override
+                public void cancel() {
+                    cancelled = true;
+                }
+            });
+        }
+    }
+
+    /**
+     * テスト用のJSONコンバータ。
+     */
+    private static class JsonConverterStub implements BodyConverter {
+
+        @Override
+        public Object read(HttpRequest request, ExecutionContext executionContext) {
+            return null;
+        }
+
+        @Override
+        public HttpResponse write(Object response, ExecutionContext executionContext) {
+            final HttpResponse httpResponse = new HttpResponse();
+            httpResponse.setContentType("application/json;charset=UTF-8");
+            httpResponse.write("{\n  \"v\": " + response + "\n}\n");
+            return httpResponse;
+        }
+
+        @Override
+        public boolean isConvertible(String mediaType) {
+            return true;
+        }
+    }
+}
@@ -0,0 +1,274 @@
+package nablarch.fw.jaxrs;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import nablarch.fw.ExecutionContext;
+import nablarch.fw.Handler;
+import nablarch.fw.web.HttpRequest;
+import nablarch.fw.web.HttpResponse;
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * {@link RequestDeadlineHandler}のテスト。
+ */
+public class RequestDeadlineHandlerTest {
+
+    private final RequestDeadlineHandler sut = new RequestDeadlineHandler();
+
+    private final HttpRequest request = mock(HttpRequest.class);
+
+    /**
+     * タイムアウトが指定されていない場合は処理期限が設定されないこと。
+     */
+    @Test
+    public void testNoDeadline() throws Exception {
+        final RequestDeadline[] actual = new RequestDeadline[1];
+        final ExecutionContext context = context("noTimeout", new Handler<HttpRequest, Object>() {
+            @Override
+            public Object handle(HttpRequest req, ExecutionContext ctx) {
+                actual[0] = RequestDeadline.get(ctx);
+                return new HttpResponse(200);
+            }
+        });
+
+        final HttpResponse response = context.handleNext(request);
+
+        assertThat(response.getStatusCode(), is(200));
+        assertThat(actual[0], is(nullValue()));
+    }
+
+    /**
+     * アノテーションとヘッダのうち短い方のタイムアウトが処理期限となり、後続の処理から参照できること。
+     */
+    @Test
+    public void testDeadlineFromAnnotationAndHeader() throws Exception {
+        final RequestDeadline[] actual = new RequestDeadline[2];
+        final Handler<HttpRequest, Object> action = new Handler<HttpRequest, Object>() {
+            @Override
+            public Object handle(HttpRequest req, ExecutionContext ctx) {
+                actual[0] = RequestDeadline.get(ctx);
+                actual[1] = RequestDeadline.current();
+                return new HttpResponse(200);
+            }
+        };
+
+        context("withTimeout", action).handleNext(request);
+        assertThat(actual[0].getTimeoutMillis(), is(60000L));
+        assertThat(actual[1], is(actual[0]));
+        assertThat(actual[0].getRemainingMillis(), is(lessThanOrEqualTo(60000L)));
+        assertThat(RequestDeadline.current(), is(nullValue()));
+
+        when(request.getHeader("X-Request-Timeout")).thenReturn("30000");
+        context("withTimeout", action).handleNext(request);
+        assertThat(actual[0].getTimeoutMillis(), is(30000L));
+
+        when(request.getHeader("X-Request-Timeout")).thenReturn("90000");
+        context("withTimeout", action).handleNext(request);
+        assertThat(actual[0].getTimeoutMillis(), is(60000L));
+    }
+
+    /**
+     * 処理の開始前に期限を過ぎている場合は、後続を実行せずに例外が送出されること。
+     */
+    @Test
+    public void testExpiredBeforeProcessing() throws Exception {
+        when(request.getHeader("X-Request-Timeout")).thenReturn("0");
+        final boolean[] called = new boolean[1];
+        try {
+            context("noTimeout", new Handler<HttpRequest, Object>() {
+                @Override
+                public Object handle(HttpRequest req, ExecutionContext ctx) {
+                    called[0] = true;
+                    return new HttpResponse(200);
+                }
+            }).handleNext(request);
+            fail("DeadlineExceededException must be thrown.");
+        } catch (DeadlineExceededException e) {
+            assertThat(e.isBeforeProcessing(), is(true));
+            assertThat(called[0], is(false));
+        }
+    }
+
+    /**
+     * 後続の処理中に期限を過ぎても処理が正常に終了した場合は、結果がそのまま返されること。
+     */
+    @Test
+    public void testCompletedAfterDeadline() throws Exception {
+        when(request.getHeader("X-Request-Timeout")).thenReturn("20");
+        final HttpResponse response = context("noTimeout", new Handler<HttpRequest, Object>() {
+            @Override
+            public Object handle(HttpRequest req, ExecutionContext ctx) {
+                while (!RequestDeadline.current().isExpired()) {
+                    Thread.yield();
+                }
+                return new HttpResponse(200);
+            }
+        }).handleNext(request);
+
+        assertThat(response.getStatusCode(), is(200));
+        assertThat(RequestDeadline.current(), is(nullValue()));
+    }
+
+    /**
+     * 破棄時にタイマーが終了し、以降は期限切れの通知を行わずに処理期限を判定すること。
+     */
+    @Test
+    public void testDispose() throws Exception {
+        when(request.getHeader("X-Request-Timeout")).thenReturn("20");
+        final Handler<HttpRequest, Object> action = new Handler<HttpRequest, Object>() {
+            @Override
+            public Object handle(HttpRequest req, ExecutionContext ctx) {
+                while (!RequestDeadline.current().isExpired()) {
+                    Thread.yield();
+                }
+                throw new IllegalStateException("too late");
+            }
+        };
+        assertThat(sut.isTimerStopped(), is(true));
+        try {
+            context("noTimeout", action).handleNext(request);
+            fail("DeadlineExceededException must be thrown.");
+        } catch (DeadlineExceededException e) {
+            assertThat(sut.isTimerStopped(), is(false));
+        }
+
+        sut.dispose();
+
+        assertThat(sut.isTimerStopped(), is(true));
+        try {
+            context("noTimeout", action).handleNext(request);
+            fail("DeadlineExceededException must be thrown.");
+        } catch (DeadlineExceededException e) {
+            assertThat(e.isBeforeProcessing(), is(false));
+        }
+    }
+
+    /**
+     * 後続の処理中に期限を過ぎ、例外が発生した場合は期限切れの例外が送出されること。
+     */
+    @Test
+    public void testExpiredDuringProcessing() throws Exception {
+        when(request.getHeader("X-Request-Timeout")).thenReturn("20");
+        try {
+            context("noTimeout", new Handler<HttpRequest, Object>() {
+                @Override
+                public Object handle(HttpRequest req, ExecutionContext ctx) {
+                    while (!RequestDeadline.current().isExpired()) {
+                        Thread.yield();
+                    }
+                    throw new IllegalStateException("too late");
+                }
+            }).handleNext(request);
+            fail("DeadlineExceededException must be thrown.");
+        } catch (DeadlineExceededException e) {
+            assertThat(e.isBeforeProcessing(), is(false));
+            assertThat(e.getTimeoutMillis(), is(20L));
+            assertThat(e.getCause(), is(instanceOf(IllegalStateException.class)));
+        }
+    }
+
+    /**
+     * 割り込みを有効にした場合は、期限を過ぎた時点で処理中のスレッドに割り込み、
+     * 割り込み状態は処理の終了後にクリアされること。
+     */
+    @Test
+    public void testInterruptOnExpiry() throws Exception {
+        sut.setInterruptOnExpiry(true);
+        when(request.getHeader("X-Request-Timeout")).thenReturn("20");
+        final CountDownLatch expired = new CountDownLatch(1);
+        try {
+            context("noTimeout", new Handler<HttpRequest, Object>() {
+                @Override
+                public Object handle(HttpRequest req, ExecutionContext ctx) {
+                    RequestDeadline.get(ctx).whenExpired(new Runnable() {
+                        @Override
+                        public void run() {
+                            expired.countDown();
+                        }
+                    });
+                    try {
+                        Thread.sleep(10000L);
+                    } catch (InterruptedException e) {
+                        throw new IllegalStateException(e);
+                    }
+                    return new HttpResponse(200);
+                }
+            }).handleNext(request);
+            fail("DeadlineExceededException must be thrown.");
+        } catch (DeadlineExceededException e) {
+            assertThat(e.isBeforeProcessing(), is(false));
+            assertThat(e.getCause(), is(instanceOf(IllegalStateException.class)));
+        }
+        assertThat(expired.await(1L, TimeUnit.SECONDS), is(true));
+        assertThat(Thread.currentThread().isInterrupted(), is(false));
+    }
+
+    /**
+     * 期限内に発生した例外はそのまま送出されること。
+     */
+    @Test
+    public void testExceptionWithinDeadline() throws Exception {
+        try {
+            context("withTimeout", new Handler<HttpRequest, Object>() {
+                @Override
+                public Object handle(HttpRequest req, ExecutionContext ctx) {
+                    throw new IllegalArgumentException("error");
+                }
+            }).handleNext(request);
+            fail("IllegalArgumentException must be thrown.");
+        } catch (IllegalArgumentException e) {
+            assertThat(e.getMessage(), is("error"));
+            assertThat(RequestDeadline.current(), is(nullValue()));
+        }
+    }
+
+    /**
+     * デフォルトのタイムアウトが適用されること。
+     */
+    @Test
+    public void testDefaultTimeout() throws Exception {
+        sut.setDefaultTimeout(5000L);
+        final RequestDeadline[] actual = new RequestDeadline[1];
+        context("noTimeout", new Handler<HttpRequest, Object>() {
+            @Override
+            public Object handle(HttpRequest req, ExecutionContext ctx) {
+                actual[0] = RequestDeadline.get(ctx);
+                return new HttpResponse(200);
+            }
+        }).handleNext(request);
+
+        assertThat(actual[0], is(notNullValue()));
+        assertThat(actual[0].getTimeoutMillis(), is(5000L));
+    }
+
+    private ExecutionContext context(String methodName, Handler<HttpRequest, Object> next) throws Exception {
+        final ExecutionContext context = new ExecutionContext();
+        JaxRsContext.set(context, new JaxRsContext(TestAction.class.getMethod(methodName)));
+        context.addHandler(sut);
+        context.addHandler(next);
+        return context;
+    }
+
+    public static class TestAction {
+
+        @RequestTimeout(60000L)
+        public HttpResponse withTimeout() {
+            return null;
+        }
+
+        public HttpResponse noTimeout() {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package nablarch.fw.jaxrs;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import nablarch.test.support.log.app.OnMemoryLogWriter;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.fail;
+
+/**
+ * {@link RequestDeadline}のテスト。
+ */
+public class RequestDeadlineTest {
+
+    @Before
+    public void setUp() {
+        OnMemoryLogWriter.clear();
+    }
+
+    @After
+    public void tearDown() {
+        OnMemoryLogWriter.clear();
+    }
+
+    /**
+     * 残り時間と期限切れが判定できること。
+     */
+    @Test
+    public void testRemaining() {
+        final RequestDeadline sut = new RequestDeadline(1000L, 0L) {
+            @Override
+            long nanoTime() {
+                return 400000000L;
+            }
+        };
+
+        assertThat(sut.getRemainingMillis(), is(600L));
+        assertThat(sut.isExpired(), is(false));
+        sut.checkNotExpired();
+
+        final RequestDeadline expired = new RequestDeadline(100L, 0L) {
+            @Override
+            long nanoTime() {
+                return 400000000L;
+            }
+        };
+        assertThat(expired.getRemainingMillis(), is(0L));
+        assertThat(expired.isExpired(), is(true));
+        try {
+            expired.checkNotExpired();
+            fail("DeadlineExceededException must be thrown.");
+        } catch (DeadlineExceededException e) {
+            assertThat(e.getTimeoutMillis(), is(100L));
+        }
+    }
+
+    /**
+     * 期限切れの際に、登録された処理が1回だけ実行され、期限切れ後に登録された処理はすぐに実行されること。
+     */
+    @Test
+    public void testWhenExpired() {
+        final List<String> called = new ArrayList<String>();
+        final RequestDeadline sut = new RequestDeadline(1000L);
+        sut.whenExpired(new Recorder(called, "first"));
+        sut.whenExpired(new Runnable() {
+            @Override
+            public void run() {
+                throw new IllegalStateException("callback failed.");
+            }
+        });
+        assertThat(called, is(empty()));
+
+        sut.expire();
+        sut.expire();
+        sut.whenExpired(new Recorder(called, "late"));
+
+        assertThat(called, contains("first", "late"));
+        OnMemoryLogWriter.assertLogContains("writer.memory", "WARN ROO failed to run request deadline callback.");
+    }
+
+    private static final class Recorder implements Runnable {
+
+        private final List<String> called;
+
+        private final String name;
+
+        Recorder(List<String> called, String name) {
+            this.called = called;
+            this.name = name;
+        }
+
+        @Override
+        public void run() {
+            called.add(name);
+        }
+    }
+}
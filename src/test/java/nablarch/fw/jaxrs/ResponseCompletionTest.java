@@ -0,0 +1,115 @@
+package nablarch.fw.jaxrs;
+
+import nablarch.fw.ExecutionContext;
+import nablarch.test.support.log.app.OnMemoryLogWriter;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.core.Is.is;
+
+/**
+ * {@link ResponseCompletion}のテスト。
+ */
+public class ResponseCompletionTest {
+
+    @Before
+    public void setUp() {
+        OnMemoryLogWriter.clear();
+    }
+
+    @After
+    public void tearDown() {
+        OnMemoryLogWriter.clear();
+    }
+
+    /**
+     * リクエストスコープへの設定/取得ができること。
+     */
+    @Test
+    public void deferAndGet() {
+        ExecutionContext context = new ExecutionContext();
+        assertThat(ResponseCompletion.get(context), is(nullValue()));
+
+        ResponseCompletion completion = ResponseCompletion.defer(context);
+        assertThat(ResponseCompletion.get(context), is(completion));
+        assertThat(completion.isCompleted(), is(false));
+    }
+
+    /**
+     * 完了の通知時に、登録された処理が登録順に1回だけ実行されること。
+     */
+    @Test
+    public void complete() {
+        final List<String> called = new ArrayList<String>();
+        ResponseCompletion sut = new ResponseCompletion();
+        sut.whenComplete(new Recorder(called, "first"));
+        sut.whenComplete(new Recorder(called, "second"));
+        assertThat(called, is(empty()));
+
+        sut.complete();
+        sut.complete();
+
+        assertThat(called, contains("first", "second"));
+        assertThat(sut.isCompleted(), is(true));
+    }
+
+    /**
+     * 完了後に登録された処理はすぐに実行されること。
+     */
+    @Test
+    public void whenCompleteAfterCompleted() {
+        final List<String> called = new ArrayList<String>();
+        ResponseCompletion sut = new ResponseCompletion();
+        sut.complete();
+
+        sut.whenComplete(new Recorder(called, "late"));
+
+        assertThat(called, contains("late"));
+    }
+
+    /**
+     * 処理で例外が発生しても後続の処理が実行されること。
+     */
+    @Test
+    public void callbackFailed() {
+        final List<String> called = new ArrayList<String>();
+        ResponseCompletion sut = new ResponseCompletion();
+        sut.whenComplete(new Runnable() {
+            @Override
+            public void run() {
+                throw new IllegalStateException("callback failed.");
+            }
+        });
+        sut.whenComplete(new Recorder(called, "after failure"));
+
+        sut.complete();
+
+        assertThat(called, contains("after failure"));
+        OnMemoryLogWriter.assertLogContains("writer.memory", "WARN ROO failed to run response completion callback.");
+    }
+
+    private static final class Recorder implements Runnable {
+
+        private final List<String> called;
+
+        private final String name;
+
+        Recorder(List<String> called, String name) {
+            this.called = called;
+            this.name = name;
+        }
+
+        @Override
+        public void run() {
+            called.add(name);
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package nablarch.fw.jaxrs;
+
+import nablarch.fw.web.HttpResponse;
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+/**
+ * {@link StatusCodeResponse}のテスト。
+ */
+public class StatusCodeResponseTest {
+
+    /**
+     * {@link HttpResponse.Status}に定義されていないステータスコードを返せること。
+     */
+    @Test
+    public void testUndefinedStatusCode() {
+        final StatusCodeResponse sut = new StatusCodeResponse(429);
+
+        assertThat(sut.getStatusCode(), is(429));
+        assertThat(sut.getReasonPhrase(), is(""));
+        assertThat(sut.getMessage(), is("429: "));
+        assertThat(sut.isSuccess(), is(false));
+    }
+
+    /**
+     * {@link HttpResponse.Status}に定義されているステータスコードは{@link HttpResponse}と同じように扱うこと。
+     */
+    @Test
+    public void testDefinedStatusCode() {
+        final StatusCodeResponse sut = new StatusCodeResponse(429);
+        sut.setStatusCode(503);
+
+        assertThat(sut.getStatusCode(), is(503));
+        assertThat(sut.getReasonPhrase(), is(new HttpResponse(503).getReasonPhrase()));
+    }
+
+    /**
+     * 範囲外のステータスコードは設定できないこと。
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidStatusCode() {
+        new StatusCodeResponse(1000);
+    }
+}
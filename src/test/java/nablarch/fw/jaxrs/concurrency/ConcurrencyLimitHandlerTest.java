@@ -0,0 +1,189 @@
+package nablarch.fw.jaxrs.concurrency;
+
+import nablarch.fw.ExecutionContext;
+import nablarch.fw.Handler;
+import nablarch.fw.jaxrs.JaxRsContext;
+import nablarch.fw.web.HttpErrorResponse;
+import nablarch.fw.web.HttpRequest;
+import nablarch.fw.web.HttpResponse;
+import org.junit.Test;
+
+import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.Map;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+
+/**
+ * {@link ConcurrencyLimitHandler}のテスト。
+ */
+public class ConcurrencyLimitHandlerTest {
+
+    private final ConcurrencyLimitHandler sut = new ConcurrencyLimitHandler();
+
+    private final HttpRequest request = mock(HttpRequest.class);
+
+    /**
+     * 上限に達した場合は503とRetry-Afterヘッダを持つエラーレスポンスが送出されること。
+     */
+    @Test
+    public void testRejectByAnnotation() throws Exception {
+        final HttpResponse[] nested = new HttpResponse[1];
+        final ExecutionContext outer = context("limited", new Handler<HttpRequest, Object>() {
+            @Override
+            public Object handle(HttpRequest req, ExecutionContext ctx) {
+                // 実行中に同じリソースメソッドを呼び出す
+                try {
+                    context("limited", new OkHandler()).handleNext(request);
+                    fail("HttpErrorResponse must be thrown.");
+                } catch (HttpErrorResponse e) {
+                    nested[0] = e.getResponse();
+                }
+                return new HttpResponse(200);
+            }
+        });
+
+        final HttpResponse response = outer.handleNext(request);
+
+        assertThat(response.getStatusCode(), is(200));
+        assertThat(nested[0].getStatusCode(), is(503));
+        assertThat(nested[0].getHeader("Retry-After"), is("1"));
+
+        final ConcurrencyLimiter limiter = sut.getLimiters().get(TestAction.class.getName() + "#limited");
+        assertThat(limiter.getLimit(), is(1));
+        assertThat(limiter.getInFlight(), is(0));
+        assertThat(limiter.getRejectedCount(), is(1L));
+    }
+
+    /**
+     * 拒否する際のステータスコードとRetry-Afterヘッダの値を変更できること。
+     */
+    @Test
+    public void testRejectStatusCode() throws Exception {
+        sut.setRejectStatusCode(429);
+        sut.setRetryAfter(30);
+        final HttpResponse[] nested = new HttpResponse[1];
+        final ExecutionContext outer = context("limited", new Handler<HttpRequest, Object>() {
+            @Override
+            public Object handle(HttpRequest req, ExecutionContext ctx) {
+                try {
+                    context("limited", new OkHandler()).handleNext(request);
+                } catch (HttpErrorResponse e) {
+                    nested[0] = e.getResponse();
+                }
+                return new HttpResponse(200);
+            }
+        });
+
+        outer.handleNext(request);
+
+        assertThat(nested[0].getStatusCode(), is(429));
+        assertThat(nested[0].getHeader("Retry-After"), is("30"));
+    }
+
+    /**
+     * リソースクラスに指定したアノテーションが適用されること。
+     */
+    @Test
+    public void testClassAnnotation() throws Exception {
+        context("classLimited", new OkHandler()).handleNext(request);
+
+        final ConcurrencyLimiter limiter = sut.getLimiters().get(ClassLimitedAction.class.getName() + "#classLimited");
+        assertThat(limiter.getMaxLimit(), is(3));
+    }
+
+    /**
+     * 設定による上限が適用され、設定も注釈もないリソースメソッドは制限されないこと。
+     */
+    @Test
+    public void testConfiguredLimit() throws Exception {
+        final Map<String, Integer> limits = Collections.singletonMap(TestAction.class.getName() + "#configured", 5);
+        sut.setLimits(limits);
+
+        context("configured", new OkHandler()).handleNext(request);
+        context("unlimited", new OkHandler()).handleNext(request);
+
+        assertThat(sut.getLimiters().get(TestAction.class.getName() + "#configured").getMaxLimit(), is(5));
+        assertThat(sut.getLimiters().get(TestAction.class.getName() + "#unlimited"), is(nullValue()));
+    }
+
+    /**
+     * デフォルトの上限が適用されること。
+     */
+    @Test
+    public void testDefaultLimit() throws Exception {
+        sut.setDefaultLimit(10);
+
+        context("unlimited", new OkHandler()).handleNext(request);
+
+        assertThat(sut.getLimiters().get(TestAction.class.getName() + "#unlimited").getMaxLimit(), is(10));
+    }
+
+    /**
+     * 後続のハンドラで例外が発生した場合も実行中のリクエスト数が減ること。
+     */
+    @Test
+    public void testReleaseOnException() throws Exception {
+        try {
+            context("limited", new Handler<HttpRequest, Object>() {
+                @Override
+                public Object handle(HttpRequest req, ExecutionContext ctx) {
+                    throw new IllegalStateException("error");
+                }
+            }).handleNext(request);
+            fail("IllegalStateException must be thrown.");
+        } catch (IllegalStateException e) {
+            assertThat(sut.getLimiters().get(TestAction.class.getName() + "#limited").getInFlight(), is(0));
+        }
+    }
+
+    private ExecutionContext context(String methodName, Handler<HttpRequest, Object> next) {
+        final Class<?> actionClass = methodName.equals("classLimited") ? ClassLimitedAction.class : TestAction.class;
+        final Method method;
+        try {
+            method = actionClass.getMethod(methodName);
+        } catch (NoSuchMethodException e) {
+            throw new IllegalArgumentException(e);
+        }
+        final ExecutionContext context = new ExecutionContext();
+        JaxRsContext.set(context, new JaxRsContext(method));
+        context.addHandler(sut);
+        context.addHandler(next);
+        return context;
+    }
+
+    private static final class OkHandler implements Handler<HttpRequest, Object> {
+        @Override
+        public Object handle(HttpRequest request, ExecutionContext context) {
+            return new HttpResponse(200);
+        }
+    }
+
+    public static class TestAction {
+
+        @ConcurrencyLimit(1)
+        public HttpResponse limited() {
+            return null;
+        }
+
+        public HttpResponse configured() {
+            return null;
+        }
+
+        public HttpResponse unlimited() {
+            return null;
+        }
+    }
+
+    @ConcurrencyLimit(3)
+    public static class ClassLimitedAction {
+
+        public HttpResponse classLimited() {
+            return null;
+        }
+    }
+}
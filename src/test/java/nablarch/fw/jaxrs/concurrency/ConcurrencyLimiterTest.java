@@ -0,0 +1,99 @@
+package nablarch.fw.jaxrs.concurrency;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+/**
+ * {@link ConcurrencyLimiter}のテスト。
+ */
+public class ConcurrencyLimiterTest {
+
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(10);
+
+    private static final long SLOW = TimeUnit.MILLISECONDS.toNanos(200);
+
+    /**
+     * 上限に達した場合は実行が許可されず、終了すると再び許可されること。
+     */
+    @Test
+    public void testAcquireAndRelease() {
+        ConcurrencyLimiter sut = new ConcurrencyLimiter(2, 1, false, 100L, 0.9);
+
+        assertThat(sut.tryAcquire(), is(true));
+        assertThat(sut.tryAcquire(), is(true));
+        assertThat(sut.tryAcquire(), is(false));
+        assertThat(sut.getInFlight(), is(2));
+        assertThat(sut.getRejectedCount(), is(1L));
+
+        sut.release(SLOW);
+        assertThat(sut.getInFlight(), is(1));
+        assertThat("自動調整しない場合は上限が変わらないこと", sut.getLimit(), is(2));
+        assertThat(sut.tryAcquire(), is(true));
+    }
+
+    /**
+     * 処理時間がしきい値を超えた場合は上限が下がり、最小値を下回らないこと。
+     */
+    @Test
+    public void testDecrease() {
+        ConcurrencyLimiter sut = new ConcurrencyLimiter(10, 5, true, 100L, 0.5);
+
+        sut.tryAcquire();
+        sut.release(SLOW);
+        assertThat(sut.getLimit(), is(5));
+
+        sut.tryAcquire();
+        sut.release(SLOW);
+        assertThat(sut.getLimit(), is(5));
+    }
+
+    /**
+     * しきい値以内で処理でき、上限の半分以上が使用されている場合は上限が上がり、最大値を超えないこと。
+     */
+    @Test
+    public void testIncrease() {
+        ConcurrencyLimiter sut = new ConcurrencyLimiter(8, 1, true, 100L, 0.5);
+        sut.tryAcquire();
+        sut.release(SLOW);
+        assertThat(sut.getLimit(), is(4));
+
+        // 上限の半分未満しか使用されていない場合は上げない
+        for (int i = 0; i < 10; i++) {
+            sut.tryAcquire();
+            sut.release(FAST);
+        }
+        assertThat(sut.getLimit(), is(4));
+
+        // 上限まで使用されている場合は上げる
+        for (int i = 0; i < 100; i++) {
+            final int limit = sut.getLimit();
+            for (int j = 0; j < limit; j++) {
+                assertThat(sut.tryAcquire(), is(true));
+            }
+            for (int j = 0; j < limit; j++) {
+                sut.release(FAST);
+            }
+        }
+        assertThat(sut.getLimit(), is(8));
+    }
+
+    /**
+     * 不正な上限を指定した場合は例外が送出されること。
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidLimit() {
+        new ConcurrencyLimiter(0, 1, false, 100L, 0.9);
+    }
+
+    /**
+     * 最小値が上限を超える場合は例外が送出されること。
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidMinLimit() {
+        new ConcurrencyLimiter(2, 3, false, 100L, 0.9);
+    }
+}
@@ -0,0 +1,215 @@
+package nablarch.fw.jaxrs.preread;
+
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.FilterConfig;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * {@link RequestBodyPreReadFilter}のテスト。
+ */
+public class RequestBodyPreReadFilterTest {
+
+    private final RequestBodyPreReadFilter sut = new RequestBodyPreReadFilter();
+
+    private final HttpServletRequest request = mock(HttpServletRequest.class);
+
+    private final HttpServletResponse response = mock(HttpServletResponse.class);
+
+    private final FilterChain chain = mock(FilterChain.class);
+
+    private final AsyncContext asyncContext = mock(AsyncContext.class);
+
+    @Before
+    public void setUp() throws Exception {
+        final FilterConfig config = mock(FilterConfig.class);
+        when(config.getInitParameter("maxBodySize")).thenReturn("32");
+        when(config.getInitParameter("chunkSize")).thenReturn("4");
+        sut.init(config);
+
+        when(request.getDispatcherType()).thenReturn(DispatcherType.REQUEST);
+        when(request.isAsyncSupported()).thenReturn(true);
+        when(request.getContentType()).thenReturn("application/json");
+        when(request.startAsync(request, response)).thenReturn(asyncContext);
+        when(asyncContext.getRequest()).thenReturn(request);
+        when(asyncContext.getResponse()).thenReturn(response);
+    }
+
+    /**
+     * ボディを持たないリクエストは、事前に読み込まずに後続に委譲されること。
+     */
+    @Test
+    public void testNoBody() throws Exception {
+        when(request.getContentLengthLong()).thenReturn(-1L);
+
+        sut.doFilter(request, response, chain);
+
+        verify(chain).doFilter(request, response);
+        verify(request, never()).startAsync(request, response);
+    }
+
+    /**
+     * フォームのリクエストは、事前に読み込まずに後続に委譲されること。
+     */
+    @Test
+    public void testFormRequest() throws Exception {
+        when(request.getContentLengthLong()).thenReturn(5L);
+        when(request.getContentType()).thenReturn("application/x-www-form-urlencoded");
+
+        sut.doFilter(request, response, chain);
+
+        verify(chain).doFilter(request, response);
+        verify(request, never()).startAsync(request, response);
+    }
+
+    /**
+     * ボディを読み込んだ後にディスパッチされ、ディスパッチ後はメモリ上のボディが読み込めること。
+     */
+    @Test
+    public void testPreRead() throws Exception {
+        final String json = "{\"id\":\"あいう\"}";
+        final byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        when(request.getContentLengthLong()).thenReturn((long) bytes.length);
+        final StubInputStream in = new StubInputStream(bytes);
+        when(request.getInputStream()).thenReturn(in);
+
+        sut.doFilter(request, response, chain);
+
+        verify(chain, never()).doFilter(any(ServletRequest.class), any());
+        in.listener.onDataAvailable();
+        in.listener.onAllDataRead();
+
+        final ArgumentCaptor<Object> body = ArgumentCaptor.forClass(Object.class);
+        verify(request).setAttribute(eq(RequestBodyPreReadFilter.BODY_KEY), body.capture());
+        verify(asyncContext).dispatch();
+
+        // ディスパッチ後
+        when(request.getDispatcherType()).thenReturn(DispatcherType.ASYNC);
+        when(request.getAttribute(RequestBodyPreReadFilter.BODY_KEY)).thenReturn(body.getValue());
+        when(request.getCharacterEncoding()).thenReturn("UTF-8");
+
+        sut.doFilter(request, response, chain);
+
+        final ArgumentCaptor<ServletRequest> dispatched = ArgumentCaptor.forClass(ServletRequest.class);
+        verify(chain).doFilter(dispatched.capture(), eq(response));
+        assertThat(dispatched.getValue(), is(not(sameInstance((ServletRequest) request))));
+        verify(request).removeAttribute(RequestBodyPreReadFilter.BODY_KEY);
+    }
+
+    /**
+     * ディスパッチ後のリクエストからボディが読み込めること。
+     */
+    @Test
+    public void testReadFromWrapper() throws Exception {
+        final BufferPool pool = new BufferPool(4, 10);
+        final PreReadBody body = new PreReadBody(pool);
+        final byte[] bytes = "{\"id\":\"あいう\"}".getBytes(StandardCharsets.UTF_8);
+        final ByteArrayInputStream in = new ByteArrayInputStream(bytes);
+        while (body.readFrom(in) != -1) {
+            // NOP
+        }
+        when(request.getCharacterEncoding()).thenReturn("UTF-8");
+
+        final PreReadRequestWrapper wrapper = new PreReadRequestWrapper(request, body);
+
+        assertThat(wrapper.getContentLengthLong(), is((long) bytes.length));
+        assertThat(wrapper.getReader().readLine(), is("{\"id\":\"あいう\"}"));
+
+        body.release();
+        assertThat(pool.getPooledCount(), is((bytes.length + 3) / 4));
+    }
+
+    /**
+     * Content-Lengthが上限を超える場合は413を返すこと。
+     */
+    @Test
+    public void testContentLengthTooLarge() throws Exception {
+        when(request.getContentLengthLong()).thenReturn(33L);
+
+        sut.doFilter(request, response, chain);
+
+        verify(response).setStatus(413);
+        verify(chain, never()).doFilter(any(ServletRequest.class), any());
+        verify(request, never()).startAsync(request, response);
+    }
+
+    /**
+     * 読み込んだボディが上限を超えた場合は413を返して非同期処理を終了すること。
+     */
+    @Test
+    public void testChunkedBodyTooLarge() throws Exception {
+        when(request.getContentLengthLong()).thenReturn(-1L);
+        when(request.getHeader("Transfer-Encoding")).thenReturn("chunked");
+        final StubInputStream in = new StubInputStream(new byte[33]);
+        when(request.getInputStream()).thenReturn(in);
+
+        sut.doFilter(request, response, chain);
+        in.listener.onDataAvailable();
+
+        verify(response).setStatus(413);
+        verify(asyncContext).complete();
+        verify(asyncContext, never()).dispatch();
+    }
+
+    /**
+     * テスト用の{@link ServletInputStream}。
+     */
+    private static final class StubInputStream extends ServletInputStream {
+
+        private final ByteArrayInputStream in;
+
+        private ReadListener listener;
+
+        StubInputStream(byte[] bytes) {
+            in = new ByteArrayInputStream(bytes);
+        }
+
+        @Override
+        public int read() throws IOException {
+            return in.read();
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            return in.read(b, off, len);
+        }
+
+        @Override
+        public boolean isFinished() {
+            return in.available() == 0;
+        }
+
+        @Override
+        public boolean isReady() {
+            return true;
+        }
+
+        @Override
+        public void setReadListener(ReadListener readListener) {
+            listener = readListener;
+        }
+    }
+}
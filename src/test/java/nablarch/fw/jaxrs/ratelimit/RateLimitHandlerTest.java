@@ -0,0 +1,161 @@
+package nablarch.fw.jaxrs.ratelimit;
+
+import java.util.concurrent.TimeUnit;
+
+import nablarch.fw.ExecutionContext;
+import nablarch.fw.Handler;
+import nablarch.fw.web.HttpRequest;
+import nablarch.fw.web.HttpResponse;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * {@link RateLimitHandler}のテスト。
+ */
+public class RateLimitHandlerTest {
+
+    private final ManualClockHandler sut = new ManualClockHandler();
+
+    private final HttpRequest request = mock(HttpRequest.class);
+
+    @Before
+    public void setUp() {
+        final HeaderKeyResolver keyResolver = new HeaderKeyResolver();
+        keyResolver.setHeaderName("X-Api-Key");
+        sut.setKeyResolver(keyResolver);
+        sut.setCapacity(2);
+        sut.setPermitsPerSecond(1.0);
+    }
+
+    /**
+     * 容量までのリクエストは受け付け、容量を超えたリクエストには429を返すこと。
+     */
+    @Test
+    public void testRejectWhenExhausted() {
+        when(request.getHeader("X-Api-Key")).thenReturn("key1");
+
+        final HttpResponse first = handle();
+        assertThat(first.getStatusCode(), is(200));
+        assertThat(first.getHeader("RateLimit-Limit"), is("2"));
+        assertThat(first.getHeader("RateLimit-Remaining"), is("1"));
+        assertThat(first.getHeader("RateLimit-Reset"), is("1"));
+
+        final HttpResponse second = handle();
+        assertThat(second.getStatusCode(), is(200));
+        assertThat(second.getHeader("RateLimit-Remaining"), is("0"));
+        assertThat(second.getHeader("RateLimit-Reset"), is("2"));
+
+        final HttpResponse rejected = handle();
+        assertThat(rejected.getStatusCode(), is(429));
+        assertThat(rejected.getHeader("RateLimit-Limit"), is("2"));
+        assertThat(rejected.getHeader("RateLimit-Remaining"), is("0"));
+        assertThat(rejected.getHeader("Retry-After"), is("1"));
+    }
+
+    /**
+     * 時間の経過とともにトークンが補充されること。
+     */
+    @Test
+    public void testRefill() {
+        when(request.getHeader("X-Api-Key")).thenReturn("key1");
+        handle();
+        handle();
+        assertThat(handle().getStatusCode(), is(429));
+
+        sut.now += TimeUnit.SECONDS.toNanos(1L);
+
+        assertThat(handle().getStatusCode(), is(200));
+        assertThat(handle().getStatusCode(), is(429));
+    }
+
+    /**
+     * キーごとに制限されること。
+     */
+    @Test
+    public void testPerKey() {
+        when(request.getHeader("X-Api-Key")).thenReturn("key1");
+        handle();
+        handle();
+        assertThat(handle().getStatusCode(), is(429));
+
+        when(request.getHeader("X-Api-Key")).thenReturn("key2");
+        assertThat(handle().getStatusCode(), is(200));
+        assertThat(sut.getKeyCount(), is(2));
+    }
+
+    /**
+     * キーが解決できないリクエストは制限されないこと。
+     */
+    @Test
+    public void testNoKey() {
+        for (int i = 0; i < 5; i++) {
+            final HttpResponse response = handle();
+            assertThat(response.getStatusCode(), is(200));
+            assertThat(response.getHeader("RateLimit-Limit"), is(nullValue()));
+        }
+    }
+
+    /**
+     * キーの数が上限に達した場合は、共有のバケットで制限されること。
+     */
+    @Test
+    public void testMaxKeys() {
+        sut.setMaxKeys(1);
+        when(request.getHeader("X-Api-Key")).thenReturn("key1");
+        handle();
+
+        when(request.getHeader("X-Api-Key")).thenReturn("attack1");
+        handle();
+        when(request.getHeader("X-Api-Key")).thenReturn("attack2");
+        handle();
+        when(request.getHeader("X-Api-Key")).thenReturn("attack3");
+        assertThat(handle().getStatusCode(), is(429));
+
+        assertThat(sut.getKeyCount(), is(1));
+        assertThat(sut.getOverflowCount(), is(3L));
+    }
+
+    /**
+     * ヘッダを設定しない場合も、429のレスポンスにはRetry-Afterヘッダが設定されること。
+     */
+    @Test
+    public void testExcludeHeaders() {
+        sut.setIncludeHeaders(false);
+        when(request.getHeader("X-Api-Key")).thenReturn("key1");
+
+        assertThat(handle().getHeader("RateLimit-Limit"), is(nullValue()));
+        handle();
+        final HttpResponse rejected = handle();
+        assertThat(rejected.getStatusCode(), is(429));
+        assertThat(rejected.getHeader("RateLimit-Limit"), is(nullValue()));
+        assertThat(rejected.getHeader("Retry-After"), is("1"));
+    }
+
+    private HttpResponse handle() {
+        final ExecutionContext context = new ExecutionContext();
+        context.addHandler(sut);
+        context.addHandler(new Handler<HttpRequest, HttpResponse>() {
+            @Override
+            public HttpResponse handle(HttpRequest req, ExecutionContext ctx) {
+                return new HttpResponse(200);
+            }
+        });
+        return context.handleNext(request);
+    }
+
+    private static final class ManualClockHandler extends RateLimitHandler {
+
+        private long now = 12345L;
+
+        @Override
+        protected long nanoTime() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package nablarch.fw.jaxrs.ratelimit;
+
+import nablarch.fw.ExecutionContext;
+import nablarch.fw.jaxrs.JaxRsContext;
+import nablarch.fw.web.HttpRequest;
+import nablarch.fw.web.servlet.NablarchHttpServletRequestWrapper;
+import nablarch.fw.web.servlet.ServletExecutionContext;
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * {@link RateLimitKeyResolver}の実装クラスのテスト。
+ */
+public class RateLimitKeyResolverTest {
+
+    private final HttpRequest request = mock(HttpRequest.class);
+
+    /**
+     * 接続元のIPアドレスがキーとなること。
+     */
+    @Test
+    public void testClientIp() {
+        final ServletExecutionContext context = servletContext("192.0.2.1");
+
+        assertThat(new ClientIpKeyResolver().resolve(request, context), is("192.0.2.1"));
+    }
+
+    /**
+     * ヘッダを指定した場合は、ヘッダの先頭のIPアドレスがキーとなること。
+     */
+    @Test
+    public void testClientIpFromForwardedHeader() {
+        final ServletExecutionContext context = servletContext("192.0.2.1");
+        final ClientIpKeyResolver sut = new ClientIpKeyResolver();
+        sut.setForwardedHeaderName("X-Forwarded-For");
+
+        assertThat(sut.resolve(request, context), is("192.0.2.1"));
+
+        when(request.getHeader("X-Forwarded-For")).thenReturn(" 198.51.100.1 , 192.0.2.1");
+        assertThat(sut.resolve(request, context), is("198.51.100.1"));
+    }
+
+    /**
+     * ヘッダの値がキーとなり、ヘッダが存在しない場合は設定したキーとなること。
+     */
+    @Test
+    public void testHeader() {
+        final HeaderKeyResolver sut = new HeaderKeyResolver();
+        sut.setHeaderName("X-Api-Key");
+
+        assertThat(sut.resolve(request, new ExecutionContext()), is(nullValue()));
+
+        sut.setMissingKey("anonymous");
+        assertThat(sut.resolve(request, new ExecutionContext()), is("anonymous"));
+
+        when(request.getHeader("X-Api-Key")).thenReturn("abc");
+        assertThat(sut.resolve(request, new ExecutionContext()), is("abc"));
+    }
+
+    /**
+     * リソースメソッドのパスがキーとなり、ルーティング前はHTTPメソッドとリクエストパスがキーとなること。
+     */
+    @Test
+    public void testResourceMethod() throws Exception {
+        final ResourceMethodKeyResolver sut = new ResourceMethodKeyResolver();
+        when(request.getMethod()).thenReturn("GET");
+        when(request.getRequestPath()).thenReturn("/users");
+        final ExecutionContext context = new ExecutionContext();
+
+        assertThat(sut.resolve(request, context), is("GET /users"));
+
+        JaxRsContext.set(context, new JaxRsContext(TestAction.class.getMethod("find")));
+        assertThat(sut.resolve(request, context), is(TestAction.class.getName() + "#find"));
+    }
+
+    private static ServletExecutionContext servletContext(String remoteAddr) {
+        final ServletExecutionContext context = mock(ServletExecutionContext.class);
+        final NablarchHttpServletRequestWrapper servletRequest = mock(NablarchHttpServletRequestWrapper.class);
+        when(servletRequest.getRemoteAddr()).thenReturn(remoteAddr);
+        when(context.getServletRequest()).thenReturn(servletRequest);
+        return context;
+    }
+
+    public static class TestAction {
+
+        public Object find() {
+            return null;
+        }
+    }
+}
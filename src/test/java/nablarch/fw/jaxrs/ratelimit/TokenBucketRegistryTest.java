@@ -0,0 +1,71 @@
+package nablarch.fw.jaxrs.ratelimit;
+
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
+
+/**
+ * {@link TokenBucketRegistry}のテスト。
+ */
+public class TokenBucketRegistryTest {
+
+    /**
+     * キーの数が上限に達した場合は、新しいキーに共有のバケットが使用されること。
+     */
+    @Test
+    public void testOverflow() {
+        final TokenBucketRegistry sut = new TokenBucketRegistry(2, 100L, 10, 0L);
+
+        final TokenBucket a = sut.get("a", 0L);
+        final TokenBucket b = sut.get("b", 0L);
+        final TokenBucket c = sut.get("c", 0L);
+        final TokenBucket d = sut.get("d", 0L);
+
+        assertThat(a, is(not(sameInstance(b))));
+        assertThat(c, is(sameInstance(d)));
+        assertThat(sut.get("a", 0L), is(sameInstance(a)));
+        assertThat(sut.size(), is(2));
+        assertThat(sut.getOverflowCount(), is(2L));
+    }
+
+    /**
+     * タイムホイールが1周する間アクセスのなかったキーが削除されること。
+     */
+    @Test
+    public void testExpire() {
+        final TokenBucketRegistry sut = new TokenBucketRegistry(2, 100L, 10, 0L);
+        final TokenBucket a = sut.get("a", 0L);
+        sut.get("b", 0L);
+
+        // aのみアクセスし、bは1周の間アクセスしない
+        assertThat(sut.get("a", 50L), is(sameInstance(a)));
+        sut.get("x", 100L);
+
+        assertThat(sut.size(), is(2));
+        assertThat(sut.get("a", 100L), is(sameInstance(a)));
+        assertThat(sut.getOverflowCount(), is(0L));
+    }
+
+    /**
+     * 満杯に戻っていないバケットは、アクセスがなくても削除されないこと。
+     */
+    @Test
+    public void testNotExpireInDebt() {
+        final TokenBucketRegistry sut = new TokenBucketRegistry(10, 100L, 10, 0L);
+        final TokenBucket a = sut.get("a", 0L);
+        assertThat(a.tryAcquire(0L, 1000L, 0L), is(0L));
+
+        sut.get("x", 100L);
+        sut.get("x", 200L);
+        assertThat(sut.size(), is(2));
+
+        // 満杯に戻った後に1周すると削除される
+        sut.get("x", 1100L);
+        sut.get("x", 1200L);
+        assertThat(sut.size(), is(1));
+        assertThat(sut.get("a", 1200L), is(not(sameInstance(a))));
+    }
+}
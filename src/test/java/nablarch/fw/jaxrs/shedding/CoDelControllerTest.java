@@ -0,0 +1,61 @@
+package nablarch.fw.jaxrs.shedding;
+
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+/**
+ * {@link CoDelController}のテスト。
+ */
+public class CoDelControllerTest {
+
+    private final CoDelController sut = new CoDelController(5L, 100L, 0L);
+
+    /**
+     * 最小の遅延が目標値を超え続けると、優先度の低いものから順に打ち切られること。
+     */
+    @Test
+    public void testEscalate() {
+        assertThat(sut.record(10L, SheddingPriority.LOW, 0L), is(false));
+
+        // 1インターバルの最小値が目標値を超えたため、LOWが打ち切られる
+        assertThat(sut.record(20L, SheddingPriority.NORMAL, 100L), is(false));
+        assertThat(sut.getLevel(), is(1));
+        assertThat(sut.record(20L, SheddingPriority.LOW, 150L), is(true));
+
+        // 2インターバル続いたため、NORMALも打ち切られる
+        assertThat(sut.record(20L, SheddingPriority.NORMAL, 200L), is(true));
+        assertThat(sut.getLevel(), is(2));
+
+        // 遅延が目標値以下のリクエストは打ち切られない
+        assertThat(sut.record(3L, SheddingPriority.LOW, 250L), is(false));
+    }
+
+    /**
+     * 最小の遅延が目標値以下になると、打ち切りが解除されること。
+     */
+    @Test
+    public void testRecover() {
+        sut.record(10L, SheddingPriority.NORMAL, 0L);
+        sut.record(10L, SheddingPriority.NORMAL, 100L);
+        assertThat(sut.getLevel(), is(1));
+
+        // 一時的なバーストの後、遅延が目標値を下回った
+        sut.record(1L, SheddingPriority.NORMAL, 150L);
+        assertThat(sut.record(30L, SheddingPriority.LOW, 200L), is(false));
+        assertThat(sut.getLevel(), is(0));
+    }
+
+    /**
+     * CRITICALのリクエストは打ち切られないこと。
+     */
+    @Test
+    public void testCritical() {
+        for (long now = 0L; now <= 1000L; now += 100L) {
+            assertThat(sut.record(100L, SheddingPriority.CRITICAL, now), is(false));
+        }
+        assertThat(sut.getLevel(), is(3));
+        assertThat(sut.record(100L, SheddingPriority.HIGH, 1050L), is(true));
+    }
+}
@@ -0,0 +1,151 @@
+package nablarch.fw.jaxrs.shedding;
+
+import java.util.Collections;
+
+import nablarch.fw.ExecutionContext;
+import nablarch.fw.Handler;
+import nablarch.fw.jaxrs.JaxRsContext;
+import nablarch.fw.web.HttpRequest;
+import nablarch.fw.web.HttpResponse;
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * {@link LoadSheddingHandler}のテスト。
+ */
+public class LoadSheddingHandlerTest {
+
+    private static final long BASE = 1700000000000L;
+
+    private final ManualClockHandler sut = new ManualClockHandler();
+
+    /**
+     * 過負荷が続いた場合に、遅延が目標値を超えたリクエストが503で打ち切られること。
+     */
+    @Test
+    public void testShed() throws Exception {
+        sut.now = BASE;
+        assertThat(handle(BASE - 50L, null).getStatusCode(), is(200));
+        sut.now = BASE + 100L;
+        assertThat(handle(BASE + 50L, null).getStatusCode(), is(200));
+        sut.now = BASE + 200L;
+        assertThat(handle(BASE + 150L, null).getStatusCode(), is(503));
+
+        assertThat(sut.getSheddingLevel(), is(2));
+        assertThat(sut.getServedCount(), is(2L));
+        assertThat(sut.getShedCount(), is(1L));
+        assertThat(sut.getShedCount(SheddingPriority.NORMAL), is(1L));
+    }
+
+    /**
+     * リソースメソッドごとに設定した優先度が適用されること。
+     */
+    @Test
+    public void testPriority() throws Exception {
+        sut.setPriorities(Collections.singletonMap(TestAction.class.getName() + "#important", "CRITICAL"));
+        for (long now = BASE; now <= BASE + 300L; now += 100L) {
+            sut.now = now;
+            handle(now - 50L, "other");
+        }
+
+        assertThat(handle(sut.now - 50L, "important").getStatusCode(), is(200));
+        assertThat(handle(sut.now - 50L, "other").getStatusCode(), is(503));
+    }
+
+    /**
+     * 到着時刻が取得できないリクエストは打ち切られないこと。
+     */
+    @Test
+    public void testNoArrivalTime() {
+        final HttpRequest request = mock(HttpRequest.class);
+        for (long now = BASE; now <= BASE + 300L; now += 100L) {
+            sut.now = now;
+            assertThat(handle(request, new ExecutionContext()).getStatusCode(), is(200));
+        }
+        assertThat(sut.getServedCount(), is(4L));
+    }
+
+    /**
+     * 過負荷でなくても、上限を超えた遅延のリクエストは打ち切られること。
+     */
+    @Test
+    public void testMaxQueueDelay() throws Exception {
+        sut.setMaxQueueDelay(1000L);
+        sut.now = BASE;
+
+        assertThat(handle(BASE - 999L, null).getStatusCode(), is(200));
+        assertThat(handle(BASE - 1001L, null).getStatusCode(), is(503));
+    }
+
+    /**
+     * リクエストスコープから到着時刻を取得できること。
+     */
+    @Test
+    public void testArrivalTimeAttribute() {
+        sut.setArrivalTimeAttributeName("arrivalTime");
+        sut.setMaxQueueDelay(1000L);
+        sut.now = BASE;
+        final ExecutionContext context = new ExecutionContext();
+        context.setRequestScopedVar("arrivalTime", BASE - 2000L);
+
+        assertThat(handle(mock(HttpRequest.class), context).getStatusCode(), is(503));
+    }
+
+    /**
+     * 到着時刻の各形式を解析できること。
+     */
+    @Test
+    public void testParseArrivalTime() {
+        assertThat(LoadSheddingHandler.parseArrivalTime("t=1700000000123"), is(1700000000123L));
+        assertThat(LoadSheddingHandler.parseArrivalTime("1700000000.123"), is(1700000000123L));
+        assertThat(LoadSheddingHandler.parseArrivalTime("t=1700000000123456"), is(1700000000123L));
+        assertThat(LoadSheddingHandler.parseArrivalTime("1700000000"), is(1700000000000L));
+        assertThat(LoadSheddingHandler.parseArrivalTime("invalid"), is(0L));
+    }
+
+    private HttpResponse handle(long arrivalTime, String methodName) throws Exception {
+        final HttpRequest request = mock(HttpRequest.class);
+        when(request.getHeader("X-Request-Start")).thenReturn("t=" + arrivalTime);
+        final ExecutionContext context = new ExecutionContext();
+        if (methodName != null) {
+            JaxRsContext.set(context, new JaxRsContext(TestAction.class.getMethod(methodName)));
+        }
+        return handle(request, context);
+    }
+
+    private HttpResponse handle(HttpRequest request, ExecutionContext context) {
+        context.addHandler(sut);
+        context.addHandler(new Handler<HttpRequest, HttpResponse>() {
+            @Override
+            public HttpResponse handle(HttpRequest req, ExecutionContext ctx) {
+                return new HttpResponse(200);
+            }
+        });
+        return context.handleNext(request);
+    }
+
+    private static final class ManualClockHandler extends LoadSheddingHandler {
+
+        private long now;
+
+        @Override
+        protected long currentTimeMillis() {
+            return now;
+        }
+    }
+
+    public static class TestAction {
+
+        public Object important() {
+            return null;
+        }
+
+        public Object other() {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,256 @@
+package nablarch.fw.jaxrs.sse;
+
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletResponse;
+import nablarch.fw.ExecutionContext;
+import nablarch.fw.jaxrs.BodyConverter;
+import nablarch.fw.web.HttpRequest;
+import nablarch.fw.web.HttpResponse;
+import nablarch.fw.web.servlet.NablarchHttpServletRequestWrapper;
+import nablarch.fw.web.servlet.ServletExecutionContext;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.mockito.ArgumentCaptor;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * {@link SseBodyConverter}のテスト。
+ */
+public class SseBodyConverterTest {
+
+    @Rule
+    public ExpectedException expectedException = ExpectedException.none();
+
+    private final SseBodyConverter sut = new SseBodyConverter();
+
+    private final AsyncContext asyncContext = mock(AsyncContext.class);
+
+    private final HttpServletResponse servletResponse = mock(HttpServletResponse.class);
+
+    private final ServletOutputStream out = mock(ServletOutputStream.class);
+
+    private final NablarchHttpServletRequestWrapper servletRequest = mock(NablarchHttpServletRequestWrapper.class);
+
+    private final ServletExecutionContext context = mock(ServletExecutionContext.class);
+
+    private final ByteArrayOutputStream written = new ByteArrayOutputStream();
+
+    @Before
+    public void setUp() throws Exception {
+        when(asyncContext.getResponse()).thenReturn(servletResponse);
+        when(servletResponse.getOutputStream()).thenReturn(out);
+        when(out.isReady()).thenReturn(true);
+        doAnswer(invocation -> {
+            written.write((byte[]) invocation.getArgument(0));
+            return null;
+        }).when(out).write(any(byte[].class));
+        when(context.getServletRequest()).thenReturn(servletRequest);
+        sut.setHeartbeatInterval(0);
+    }
+
+    /**
+     * text/event-streamで始まるメディアタイプのみ変換できること。
+     */
+    @Test
+    public void testMediaType() {
+        assertThat(sut.isConvertible("text/event-stream"), is(true));
+        assertThat(sut.isConvertible("TEXT/EVENT-STREAM"), is(true));
+
+        assertThat(sut.isConvertible("text/plain"), is(false));
+        assertThat(sut.isConvertible("application/json"), is(false));
+    }
+
+    /**
+     * リクエストの変換はサポートしないこと。
+     */
+    @Test
+    public void testRead() {
+        expectedException.expect(UnsupportedOperationException.class);
+        expectedException.expectMessage("text/event-stream is not supported in request.");
+
+        sut.read(null, null);
+    }
+
+    /**
+     * {@link SseEventSource}から{@link SseResponse}が生成されること。
+     */
+    @Test
+    public void testWrite() {
+        HttpResponse response = sut.write(new SseEventSource(), context);
+
+        assertThat(response instanceof SseResponse, is(true));
+        assertThat(response.getStatusCode(), is(200));
+        assertThat(response.getContentType(), is("text/event-stream;charset=UTF-8"));
+        assertThat(response.getHeader("Cache-Control"), is("no-cache"));
+    }
+
+    /**
+     * 書き込み可能になるまではイベントがバッファされ、書き込み可能になった時点で書き込まれること。
+     */
+    @Test
+    public void testSendEvents() throws Exception {
+        SseEventSource source = new SseEventSource();
+        WriteListener listener = start(source);
+
+        source.send(new SseEvent("progress", "10%"));
+        assertThat(written(), is(""));
+
+        listener.onWritePossible();
+        assertThat(written(), is("id: 1\nevent: progress\ndata: 10%\n\n"));
+
+        source.send("line1\nline2");
+        assertThat(written(), is("id: 1\nevent: progress\ndata: 10%\n\n"
+                + "id: 2\ndata: line1\ndata: line2\n\n"));
+        verify(out, atLeastOnce()).flush();
+        assertThat(source.getConnectionCount(), is(1));
+    }
+
+    /**
+     * 文字列以外のデータは{@link BodyConverter}で変換されること。
+     */
+    @Test
+    public void testConvertData() throws Exception {
+        sut.setDataConverters(Collections.<BodyConverter>singletonList(new JsonConverterStub()));
+        SseEventSource source = new SseEventSource();
+        WriteListener listener = start(source);
+        listener.onWritePossible();
+
+        source.send(new SseEvent("job-1", "done", 100));
+
+        assertThat(written(), is("id: job-1\nevent: done\ndata: {\ndata:   \"value\": 100\ndata: }\n\n"));
+    }
+
+    /**
+     * 複数のクライアントが接続している場合も、イベントのデータの変換は1度だけ行われること。
+     */
+    @Test
+    public void testConvertDataOncePerEvent() throws Exception {
+        final JsonConverterStub converter = new JsonConverterStub();
+        sut.setDataConverters(Collections.<BodyConverter>singletonList(converter));
+        SseEventSource source = new SseEventSource();
+        start(source).onWritePossible();
+        final AsyncContext otherAsyncContext = mock(AsyncContext.class);
+        final HttpServletResponse otherServletResponse = mock(HttpServletResponse.class);
+        final ServletOutputStream otherOut = mock(ServletOutputStream.class);
+        when(otherAsyncContext.getResponse()).thenReturn(otherServletResponse);
+        when(otherServletResponse.getOutputStream()).thenReturn(otherOut);
+        ((SseResponse) sut.write(source, context)).startStreaming(otherAsyncContext, context);
+
+        source.send(new SseEvent("job-1", "done", 100));
+
+        assertThat(source.getConnectionCount(), is(2));
+        assertThat(converter.count, is(1));
+        assertThat(written(), is("id: job-1\nevent: done\ndata: {\ndata:   \"value\": 100\ndata: }\n\n"));
+    }
+
+    /**
+     * Last-Event-IDが指定された場合、そのIDより後のイベントが再送されること。
+     */
+    @Test
+    public void testResume() throws Exception {
+        SseEventSource source = new SseEventSource();
+        source.send("a");
+        source.send("b");
+        source.send("c");
+        when(servletRequest.getHeader("Last-Event-ID")).thenReturn("1");
+
+        WriteListener listener = start(source);
+        listener.onWritePossible();
+
+        assertThat(written(), is("id: 2\ndata: b\n\nid: 3\ndata: c\n\n"));
+    }
+
+    /**
+     * バッファの上限を超えた場合、接続が終了されること。
+     */
+    @Test
+    public void testEvictSlowConsumer() throws Exception {
+        sut.setMaxBufferedEvents(2);
+        SseEventSource source = new SseEventSource();
+        start(source);
+
+        source.send("a");
+        source.send("b");
+        verify(asyncContext, never()).complete();
+
+        source.send("c");
+        verify(asyncContext).complete();
+        assertThat(source.getConnectionCount(), is(0));
+    }
+
+    /**
+     * クローズした場合、書き込み待ちのイベントを書き込んだ後に接続が終了されること。
+     */
+    @Test
+    public void testClose() throws Exception {
+        SseEventSource source = new SseEventSource();
+        WriteListener listener = start(source);
+        source.send("a");
+        source.close();
+        verify(asyncContext, never()).complete();
+
+        listener.onWritePossible();
+
+        assertThat(written(), is("id: 1\ndata: a\n\n"));
+        verify(asyncContext).complete();
+        assertThat(source.isClosed(), is(true));
+    }
+
+    private WriteListener start(SseEventSource source) throws IOException {
+        SseResponse response = (SseResponse) sut.write(source, context);
+        response.startStreaming(asyncContext, context);
+        ArgumentCaptor<WriteListener> captor = ArgumentCaptor.forClass(WriteListener.class);
+        verify(out).setWriteListener(captor.capture());
+        return captor.getValue();
+    }
+
+    private String written() {
+        return new String(written.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * テスト用のJSONコンバータ。
+     */
+    private static class JsonConverterStub implements BodyConverter {
+
+        /** 変換した回数 */
+        private int count;
+
+        @Override
+        public Object read(HttpRequest request, ExecutionContext executionContext) {
+            return null;
+        }
+
+        @Override
+        public HttpResponse write(Object response, ExecutionContext executionContext) {
+            count++;
+            HttpResponse httpResponse = new HttpResponse();
+            httpResponse.setContentType("application/json;charset=UTF-8");
+            httpResponse.write("{\n  \"value\": " + response + "\n}\n");
+            return httpResponse;
+        }
+
+        @Override
+        public boolean isConvertible(String mediaType) {
+            return mediaType.startsWith("application/json");
+        }
+    }
+}